@@ -0,0 +1,75 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.jmx;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Single thread sampling all the statistic data stores of the JVM, each one
+ * with its own period, instead of one thread per data store.
+ */
+public final class MetricsSampler {
+
+    private static final MetricsSampler instance = new MetricsSampler();
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private MetricsSampler() {
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RRD4J Metrics Sampler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public static MetricsSampler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Periodically runs the given sampling task until the returned future is cancelled.
+     * The task must not throw exceptions, which would stop its executions.
+     *
+     * @param sampling the sampling task
+     * @param stepInSeconds the sampling period, strictly positive
+     * @return the future to cancel to stop sampling
+     * @throws IllegalArgumentException if the period is not strictly positive
+     */
+    public ScheduledFuture<?> schedule(Runnable sampling, int stepInSeconds) {
+        if (stepInSeconds <= 0) {
+            throw new IllegalArgumentException("Sampling period must be strictly positive, found " + stepInSeconds);
+        }
+        return executor.scheduleAtFixedRate(sampling, stepInSeconds, stepInSeconds, TimeUnit.SECONDS);
+    }
+}
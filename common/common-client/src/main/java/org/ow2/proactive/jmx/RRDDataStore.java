@@ -27,7 +27,12 @@ package org.ow2.proactive.jmx;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.management.MBeanAttributeInfo;
 import javax.management.StandardMBean;
@@ -36,31 +41,60 @@ import org.apache.log4j.Logger;
 import org.ow2.proactive.utils.FileToBytesConverter;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
+import org.rrd4j.core.FetchData;
+import org.rrd4j.core.FetchRequest;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
 import org.rrd4j.core.Sample;
 
 
 /**
- * This class (thread) dump all properties of MBean to RRD data base with specific period.
+ * This class dumps all properties of MBean to RRD data base with specific period.
+ * <p>
+ * All the data stores are sampled by the thread of the {@link MetricsSampler}.
+ * The data base is kept open between the samples, each sample being written
+ * to it as soon as it is taken.
  */
-public class RRDDataStore extends Thread {
+public class RRDDataStore {
 
     private static final int DEFAULT_STEP_IN_SECONDS = 4;
 
+    /**
+     * Archives of the data base, as a comma separated list of steps:rows, each row of
+     * an archive being the average of the given number of steps.
+     * <p>
+     * For a step of 4 seconds: 10 minutes of completely detailed data, then averages
+     * over 1 hour, 4 hours, 8 hours, 24 hours, 1 week, 1 month (28 days) and 1 year (364 days).
+     */
+    public static final String DEFAULT_ARCHIVES = "1:150,5:180,10:360,20:360,30:720,210:720,840:720,10920:720";
+
     private StandardMBean mbean;
 
+    /** Getters of the chronological attributes, by data source */
+    private final Map<String, Method> getters = new HashMap<>();
+
     protected int step = DEFAULT_STEP_IN_SECONDS; //secs
 
     protected String dataBaseFile;
 
+    protected String archives = DEFAULT_ARCHIVES;
+
     protected final HashMap<String, String> dataSources = new HashMap<>();
 
     protected volatile boolean terminate = false;
 
     protected Logger logger;
 
+    /** Data base opened by the first sampling, guarded by dataSources */
+    private RrdDb dataBase;
+
+    private ScheduledFuture<?> sampling;
+
     protected RRDDataStore(String dataBaseFilePath, int step, Logger logger) {
+        if (step <= 0) {
+            logger.debug("Provided step is invalid, forcing it to " + DEFAULT_STEP_IN_SECONDS);
+            step = DEFAULT_STEP_IN_SECONDS;
+        }
         this.step = step;
         this.dataBaseFile = dataBaseFilePath;
         this.logger = logger;
@@ -75,14 +109,32 @@ public class RRDDataStore extends Thread {
      * @throws IOException is thrown when the data base exists but cannot be read
      */
     public RRDDataStore(StandardMBean mbean, String dataBaseFilePath, int step, Logger logger) throws IOException {
+        this(mbean, dataBaseFilePath, step, DEFAULT_ARCHIVES, logger);
+    }
+
+    /**
+     * Initializes a new RRD data base if it's not exist.
+     *
+     * @param mbean is the source of chronological data
+     * @param dataBaseFilePath is the path to the file with the rrd data base
+     * @param step is the data base refresh period
+     * @param archives the archives of a new data base, see {@link #DEFAULT_ARCHIVES}
+     * @throws IOException is thrown when the data base exists but cannot be read
+     */
+    public RRDDataStore(StandardMBean mbean, String dataBaseFilePath, int step, String archives, Logger logger)
+            throws IOException {
 
         this(dataBaseFilePath, step, logger);
         this.mbean = mbean;
+        this.archives = archives;
 
         for (MBeanAttributeInfo attrInfo : mbean.getMBeanInfo().getAttributes()) {
             try {
-                if (attrInfo.isReadable() &&
-                    mbean.getClass().getMethod("get" + attrInfo.getName()).getAnnotation(Chronological.class) != null) {
+                if (!attrInfo.isReadable()) {
+                    continue;
+                }
+                Method getter = mbean.getClass().getMethod("get" + attrInfo.getName());
+                if (getter.getAnnotation(Chronological.class) != null) {
 
                     String sourceName = attrInfo.getName();
                     if (sourceName.length() > 20) {
@@ -90,6 +142,7 @@ public class RRDDataStore extends Thread {
                         sourceName = sourceName.substring(0, 19);
                     }
                     dataSources.put(sourceName, attrInfo.getName());
+                    getters.put(sourceName, getter);
                 }
             } catch (Exception e) {
                 logger.error(e.getMessage(), e);
@@ -97,18 +150,11 @@ public class RRDDataStore extends Thread {
         }
 
         initDatabase();
-
-        setName("RRD4J Data Store " + new File(dataBaseFilePath).getName());
-        setDaemon(true);
-        start();
+        startSampling();
     }
 
     protected void initDatabase() throws IOException {
         if (!new File(dataBaseFile).exists()) {
-            if (step <= 0) {
-                logger.debug("Provided step is invalid, forcing it to " + DEFAULT_STEP_IN_SECONDS);
-                step = DEFAULT_STEP_IN_SECONDS;
-            }
             logger.info("Node's statistics are saved in " + dataBaseFile);
 
             RrdDef rrdDef = new RrdDef(dataBaseFile, System.currentTimeMillis() / 1000, step);
@@ -117,30 +163,7 @@ public class RRDDataStore extends Thread {
                 rrdDef.addDatasource(dataSource, DsType.GAUGE, 600, 0, Double.NaN);
             }
 
-            // for step equals 4 seconds
-            // Archive of 10 minutes = 600 seconds (4 * 1 * 150) of completely detailed data
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 1, 150);
-
-            // An archive of 1 hour = 3600 seconds (4 * 5 * 180) i.e. 180 averages of 5 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 5, 180);
-
-            // An archive of 4 hours = 14400 seconds (4 * 10 * 360) i.e. 360 averages of 10 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 10, 360);
-
-            // An archive of 8 hours = 28800 seconds (4 * 20 * 360) i.e. 360 averages of 20 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 20, 360);
-
-            // An archive of 24 hours = 86400 seconds (4 * 30 * 720) i.e. 720 averages of 30 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 30, 720);
-
-            // An archive of 1 week = 604800 seconds (4 * 210 * 720) i.e. 720 averages of 210 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 210, 720);
-
-            // An archive of 1 month ~= 28 days = 604800 seconds (4 * 840 * 720) i.e. 720 averages of 840 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 840, 720);
-
-            // An archive of 1 year = 364 days = 31449600 seconds (4 * 10920 * 720) i.e. 720 averages of 10920 steps
-            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 10920, 720);
+            addArchives(rrdDef);
 
             RrdDb dataBase = new RrdDb(rrdDef);
             dataBase.close();
@@ -149,45 +172,91 @@ public class RRDDataStore extends Thread {
         }
     }
 
-    /**
-     * Periodically dumps the new mbean state to the data base
-     */
-    public void run() {
+    private void addArchives(RrdDef rrdDef) {
+        List<int[]> stepsAndRows;
         try {
-            RrdDb dataBase = new RrdDb(dataBaseFile);
-            Sample sample = dataBase.createSample();
-
-            logger.debug("RRD data base configuration:\n" + dataBase.getRrdDef().dump());
-
-            while (!terminate) {
-                try {
-                    synchronized (dataSources) {
+            stepsAndRows = parseArchives(archives);
+        } catch (RuntimeException e) {
+            logger.error("Invalid RRD archives " + archives + ", using " + DEFAULT_ARCHIVES, e);
+            stepsAndRows = parseArchives(DEFAULT_ARCHIVES);
+        }
+        for (int[] archive : stepsAndRows) {
+            rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, archive[0], archive[1]);
+        }
+    }
 
-                        dataSources.wait(step * 1000);
+    private static List<int[]> parseArchives(String archives) {
+        List<int[]> result = new ArrayList<>();
+        for (String archive : archives.split(",")) {
+            String[] stepsAndRows = archive.split(":");
+            if (stepsAndRows.length != 2) {
+                throw new IllegalArgumentException("Archive must be defined as steps:rows, found " + archive);
+            }
+            result.add(new int[] { Integer.parseInt(stepsAndRows[0].trim()),
+                                   Integer.parseInt(stepsAndRows[1].trim()) });
+        }
+        return result;
+    }
 
-                        if (terminate) {
-                            break;
-                        }
+    /**
+     * Starts sampling the data base every step, by the thread of the {@link MetricsSampler}.
+     */
+    protected void startSampling() {
+        sampling = MetricsSampler.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+                sample(System.currentTimeMillis());
+            }
+        }, step);
+    }
 
-                        // updating the data base
-                        for (String dataSource : dataSources.keySet()) {
-                            Object attrValue = mbean.getAttribute(dataSources.get(dataSource));
-                            sample.setValue(dataSource, Double.parseDouble(attrValue.toString()));
-                            logger.debug(System.currentTimeMillis() / 1000 + " sampling: " + dataSource + " " +
-                                         Double.parseDouble(attrValue.toString()));
-                        }
+    /**
+     * Takes a sample of all data sources, unless the data store is terminated.
+     *
+     * @param timeInMs the time of the sample
+     */
+    void sample(long timeInMs) {
+        synchronized (dataSources) {
+            if (terminate) {
+                return;
+            }
+            try {
+                sample(getDataBase(), timeInMs);
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
 
-                        sample.setTime(System.currentTimeMillis() / 1000);
-                        sample.update();
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(), e);
-                }
+    /**
+     * Takes a sample of all data sources.
+     *
+     * @param dataBase the data base in which the sample is stored
+     * @param timeInMs the time of the sample
+     */
+    protected void sample(RrdDb dataBase, long timeInMs) throws IOException {
+        Sample sample = dataBase.createSample();
+        for (Map.Entry<String, Method> getter : getters.entrySet()) {
+            try {
+                Object attrValue = getter.getValue().invoke(mbean);
+                double value = attrValue instanceof Number ? ((Number) attrValue).doubleValue()
+                                                           : Double.parseDouble(attrValue.toString());
+                sample.setValue(getter.getKey(), value);
+                logger.debug(timeInMs / 1000 + " sampling: " + getter.getKey() + " " + value);
+            } catch (Exception e) {
+                logger.error("Cannot read attribute " + dataSources.get(getter.getKey()), e);
             }
-            dataBase.close();
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
         }
+        sample.setTime(timeInMs / 1000);
+        sample.update();
+    }
+
+    private RrdDb getDataBase() throws IOException {
+        if (dataBase == null) {
+            dataBase = new RrdDb(dataBaseFile);
+            logger.debug("RRD data base configuration:\n" + dataBase.getRrdDef().dump());
+        }
+        return dataBase;
     }
 
     /**
@@ -203,12 +272,77 @@ public class RRDDataStore extends Thread {
     }
 
     /**
-     * Terminates the thread activity.
+     * Reads the averages of the given data sources over their time range, from the
+     * archives of the data base, instead of sending the whole data base to a client.
+     *
+     * @param sources the names of the data sources
+     * @param ranges the time range of each data source, see {@link #getRangeInSeconds(char)}
+     * @return the averages of each data source, from the oldest to the most recent
+     * @throws IOException when the data base cannot be read
+     */
+    public HashMap<String, double[]> getHistory(String[] sources, String ranges) throws IOException {
+        synchronized (dataSources) {
+            RrdDb db = getDataBase();
+            long timeEnd = db.getLastUpdateTime();
+
+            HashMap<String, double[]> history = new HashMap<>();
+            for (int i = 0; i < sources.length; i++) {
+                char range = i < ranges.length() ? ranges.charAt(i) : 'a';
+                FetchRequest request = db.createFetchRequest(ConsolFun.AVERAGE,
+                                                             timeEnd - getRangeInSeconds(range),
+                                                             timeEnd);
+                request.setFilter(sources[i]);
+                FetchData fetchData = request.fetchData();
+                history.put(sources[i], fetchData.getValues(sources[i]));
+            }
+            return history;
+        }
+    }
+
+    /**
+     * @param range a (1 minute), m (10 minutes), h (1 hour), H (8 hours), d (1 day),
+     *              w (1 week), M (1 month) or y (1 year)
+     * @return the duration of the range in seconds, 1 minute for an unknown range
+     */
+    public static long getRangeInSeconds(char range) {
+        switch (range) {
+            case 'm': // 10 minute
+                return 60 * 10;
+            case 'h': // 1 hours
+                return 60 * 60;
+            case 'H': // 8 hours
+                return 60 * 60 * 8;
+            case 'd': // 1 day
+                return 60 * 60 * 24;
+            case 'w': // 1 week
+                return 60 * 60 * 24 * 7;
+            case 'M': // 1 month
+                return 60 * 60 * 24 * 28;
+            case 'y': // 1 year
+                return 60 * 60 * 24 * 365;
+            case 'a': // 1 minute
+            default:
+                return 60;
+        }
+    }
+
+    /**
+     * Terminates the sampling and closes the data base.
      */
     public void terminate() {
         synchronized (dataSources) {
             terminate = true;
-            dataSources.notifyAll();
+            if (sampling != null) {
+                sampling.cancel(false);
+            }
+            if (dataBase != null) {
+                try {
+                    dataBase.close();
+                } catch (IOException e) {
+                    logger.error(e.getMessage(), e);
+                }
+                dataBase = null;
+            }
         }
     }
 
@@ -0,0 +1,213 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.jmx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+import org.apache.log4j.Logger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rrd4j.core.RrdDb;
+
+
+public class RRDDataStoreTest {
+
+    private static final Logger logger = Logger.getLogger(RRDDataStoreTest.class);
+
+    /** One second steps for 2 minutes, then one minute steps for 100 minutes */
+    private static final String ARCHIVES = "1:120,60:100";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final FakeStatistics mbean = createMBean();
+
+    @Test
+    public void historyIsReadFromTheArchiveMatchingTheRange() throws Exception {
+        RRDDataStore store = createStore(newDataBaseFile(), ARCHIVES);
+        long time = System.currentTimeMillis() + 10000;
+        mbean.value = 5;
+        for (int i = 0; i < 150; i++) {
+            store.sample(time + i * 1000);
+        }
+
+        try {
+            // 1 minute at a 1 second resolution, completely sampled
+            double[] minute = getHistory(store, 'a');
+            assertEquals(61, minute.length);
+            for (double value : minute) {
+                assertEquals(5, value, 0);
+            }
+            // 10 minutes and 1 hour at a 1 minute resolution
+            assertPoints(getHistory(store, 'm'), 11, 12);
+            assertPoints(getHistory(store, 'h'), 61, 62);
+            // an unknown range is 1 minute
+            assertEquals(61, getHistory(store, 'z').length);
+        } finally {
+            store.terminate();
+        }
+    }
+
+    @Test
+    public void lastSampleIsReadByTheHistory() throws Exception {
+        RRDDataStore store = createStore(newDataBaseFile(), ARCHIVES);
+        long time = System.currentTimeMillis() + 10000;
+        mbean.value = 3;
+        store.sample(time);
+        store.sample(time + 1000);
+        mbean.value = 7;
+        store.sample(time + 2000);
+
+        double[] history = getHistory(store, 'a');
+        store.terminate();
+
+        assertEquals(7, history[history.length - 1], 0);
+    }
+
+    @Test
+    public void noSampleIsTakenAfterTermination() throws Exception {
+        File dataBaseFile = newDataBaseFile();
+        RRDDataStore store = createStore(dataBaseFile, ARCHIVES);
+        long time = System.currentTimeMillis() + 10000;
+        store.sample(time);
+        store.sample(time + 1000);
+        store.terminate();
+        store.sample(time + 2000);
+
+        RrdDb dataBase = new RrdDb(dataBaseFile.getPath());
+        try {
+            assertEquals((time + 1000) / 1000, dataBase.getLastUpdateTime());
+        } finally {
+            dataBase.close();
+        }
+    }
+
+    @Test
+    public void invalidArchivesAreReplacedByTheDefaultOnes() throws Exception {
+        File dataBaseFile = newDataBaseFile();
+        createStore(dataBaseFile, "1:150,oops").terminate();
+
+        RrdDb dataBase = new RrdDb(dataBaseFile.getPath());
+        try {
+            assertEquals(RRDDataStore.DEFAULT_ARCHIVES.split(",").length, dataBase.getArcCount());
+            assertEquals(1, dataBase.getArchive(0).getSteps());
+            assertEquals(150, dataBase.getArchive(0).getRows());
+        } finally {
+            dataBase.close();
+        }
+    }
+
+    @Test
+    public void invalidStepOfAnExistingDataBaseIsReplacedByTheDefaultOne() throws Exception {
+        File dataBaseFile = newDataBaseFile();
+        createStore(dataBaseFile, ARCHIVES).terminate();
+
+        // sampling with a 0 step used to fail when the data base already existed
+        new RRDDataStore(mbean, dataBaseFile.getPath(), 0, logger).terminate();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void samplingPeriodMustBePositive() {
+        MetricsSampler.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 0);
+    }
+
+    private static double[] getHistory(RRDDataStore store, char range) throws IOException {
+        return store.getHistory(new String[] { "Value" }, String.valueOf(range)).get("Value");
+    }
+
+    private static void assertPoints(double[] values, int minLength, int maxLength) {
+        assertTrue(values.length + " points", values.length >= minLength && values.length <= maxLength);
+        double lastKnownValue = Double.NaN;
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                lastKnownValue = value;
+            }
+        }
+        assertEquals(5, lastKnownValue, 0);
+    }
+
+    private File newDataBaseFile() throws IOException {
+        return new File(folder.newFolder(), "statistics.rrd");
+    }
+
+    /**
+     * @return a data store sampled by the test only
+     */
+    private RRDDataStore createStore(File dataBaseFile, String archives) throws IOException {
+        return new RRDDataStore(mbean, dataBaseFile.getPath(), 1, archives, logger) {
+            @Override
+            protected void startSampling() {
+            }
+        };
+    }
+
+    private static FakeStatistics createMBean() {
+        try {
+            return new FakeStatistics();
+        } catch (NotCompliantMBeanException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public interface FakeStatisticsMBean {
+
+        double getValue();
+
+        String getName();
+    }
+
+    public static class FakeStatistics extends StandardMBean implements FakeStatisticsMBean {
+
+        volatile double value;
+
+        public FakeStatistics() throws NotCompliantMBeanException {
+            super(FakeStatisticsMBean.class);
+        }
+
+        @Override
+        @Chronological
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return "fake";
+        }
+    }
+}
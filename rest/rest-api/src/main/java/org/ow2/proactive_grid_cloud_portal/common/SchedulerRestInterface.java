@@ -50,6 +50,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.Response;
 
 import org.jboss.resteasy.annotations.GZIP;
 import org.jboss.resteasy.annotations.providers.multipart.MultipartForm;
@@ -68,8 +69,11 @@ import org.ow2.proactive_grid_cloud_portal.scheduler.dto.RestPage;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.SchedulerStatusData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.SchedulerUserData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskResultData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskResultValueRangeData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskRuntimePredictionData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskStateData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.UserJobData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.exception.BadRequestRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.JobAlreadyFinishedRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.JobCreationRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.LogForwardingRestException;
@@ -128,6 +132,42 @@ public interface SchedulerRestInterface {
             @QueryParam("index") @DefaultValue("-1") int index, @QueryParam("limit") @DefaultValue("-1") int limit)
             throws PermissionRestException, NotConnectedRestException;
 
+    /**
+     * Returns a page of jobs, the most recently submitted first, using keyset
+     * pagination. Deep pages are as fast as the first one and are not shifted
+     * by jobs submitted or removed in the meantime.
+     *
+     * @param sessionId
+     *            a valid session id
+     * @param cursor
+     *            optional, <code>submittedTime_jobId</code> of the last job of
+     *            the previous page, the first page is returned if absent
+     * @param limit
+     *            optional, the maximum number of jobs to return
+     * @param myjobs
+     *            fetch only the jobs of the user making the request
+     * @param pending
+     *            fetch pending jobs
+     * @param running
+     *            fetch running jobs
+     * @param finished
+     *            fetch finished jobs
+     * @return a list of UserJobData and the total number of jobs matching the
+     *         criteria
+     * @throws BadRequestRestException
+     *             if the cursor is malformed
+     */
+    @GET
+    @Path("jobsinfo/cursor")
+    @Produces({ "application/json", "application/xml" })
+    RestPage<UserJobData> jobsInfoAfter(@HeaderParam("sessionid") String sessionId,
+            @QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("-1") int limit,
+            @QueryParam("myjobs") @DefaultValue("false") boolean myjobs,
+            @QueryParam("pending") @DefaultValue("true") boolean pending,
+            @QueryParam("running") @DefaultValue("true") boolean running,
+            @QueryParam("finished") @DefaultValue("true") boolean finished)
+            throws PermissionRestException, NotConnectedRestException, BadRequestRestException;
+
     /**
      * Returns a list of jobs info corresponding to the given job IDs (in the same order)
      *
@@ -236,6 +276,29 @@ public interface SchedulerRestInterface {
     JobInfoData jobInfo(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId)
             throws NotConnectedRestException, PermissionRestException, UnknownJobRestException;
 
+    /**
+     * Returns the expected execution duration of a task, learned from the
+     * tasks of the same name which finished successfully in the jobs of the
+     * same name, or from all the tasks of the jobs of the same name when there
+     * are too few of them.
+     *
+     * @param sessionId
+     *            a valid session id
+     * @param jobName
+     *            the name of the job (workflow)
+     * @param taskName
+     *            optional, the name of the task. If absent, the prediction is
+     *            made over all the tasks of the job.
+     * @return the predicted execution duration in milliseconds, no content if
+     *         no task of the given names finished yet
+     */
+    @GET
+    @Path("prediction")
+    @Produces("application/json")
+    TaskRuntimePredictionData getTaskRuntimePrediction(@HeaderParam("sessionid") String sessionId,
+            @QueryParam("jobname") String jobName, @QueryParam("taskname") String taskName)
+            throws NotConnectedRestException, PermissionRestException;
+
     /**
      * Returns all the task results of this job as a map whose the key is the
      * name of the task and its task result.<br>
@@ -720,6 +783,56 @@ public interface SchedulerRestInterface {
             @QueryParam("sortparameters") SortSpecifierContainer sortParams)
             throws NotConnectedRestException, PermissionRestException;
 
+    /**
+     * Returns a page of <code>TaskStateData</code> regarding the given
+     * parameters using keyset pagination: tasks are ordered by job id then
+     * task id, in descending order, and deep pages are as fast as the first
+     * one. If no limit is specified, the
+     * <code>pa.scheduler.tasks.page.size</code> parameter is used.
+     *
+     * @param sessionId
+     *            a valid session id.
+     * @param cursor
+     *            optional, <code>jobId_taskId</code> of the last task of the
+     *            previous page, the first page is returned if absent.
+     * @param limit
+     *            the maximum number of tasks to return.
+     * @param taskTag
+     *            optional, tag to filter the tasks. The tag should be complete
+     *            as the criteria is strict.
+     * @param from
+     *            the scheduled date to which we start fetching tasks. The
+     *            format is in Epoch time.
+     * @param to
+     *            the end scheduled end date to stop fetching tasks. The format
+     *            is in Epoch time.
+     * @param mytasks
+     *            <code>True</code> if you want to fetch only the user's tasks.
+     *            Default value is <code>False</code>.
+     * @param running
+     *            fetch running tasks. Default value is <code>True</code>.
+     * @param pending
+     *            fetch pending tasks. Default value is <code>True</code>.
+     * @param finished
+     *            fetch finished tasks. Default value is <code>True</code>.
+     * @return a list of <code>TaskStateData</code> and the total number of
+     *         them.
+     * @throws BadRequestRestException
+     *             if the cursor is malformed
+     */
+    @GET
+    @GZIP
+    @Path("taskstates/cursor")
+    @Produces("application/json")
+    RestPage<TaskStateData> getTaskStatesAfter(@HeaderParam("sessionid") String sessionId,
+            @QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("-1") int limit,
+            @QueryParam("tag") String taskTag, @QueryParam("from") @DefaultValue("0") long from,
+            @QueryParam("to") @DefaultValue("0") long to, @QueryParam("mytasks") @DefaultValue("false") boolean mytasks,
+            @QueryParam("running") @DefaultValue("true") boolean running,
+            @QueryParam("pending") @DefaultValue("true") boolean pending,
+            @QueryParam("finished") @DefaultValue("true") boolean finished)
+            throws NotConnectedRestException, PermissionRestException, BadRequestRestException;
+
     /**
      * Returns full logs generated by tasks in job.
      *
@@ -864,7 +977,8 @@ public interface SchedulerRestInterface {
     /**
      * Returns the value of the task result of the task <code>taskName</code> of
      * the job <code>jobId</code> This method returns the result as a byte array
-     * whatever the result is.
+     * whatever the result is. The value is streamed chunk by chunk, without
+     * being deserialized.
      * 
      * @param sessionId
      *            a valid session id
@@ -872,15 +986,49 @@ public interface SchedulerRestInterface {
      *            the id of the job
      * @param taskname
      *            the name of the task
-     * @return the value of the task result as a byte array.
+     * @return the value of the task result as a byte array, or nothing if the
+     *         task has no result value yet.
      */
     @GET
     @GZIP
     @Path("jobs/{jobid}/tasks/{taskname}/result/serializedvalue")
     @Produces("*/*")
-    byte[] serializedValueOfTaskResult(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId,
+    InputStream serializedValueOfTaskResult(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId,
             @PathParam("taskname") String taskname) throws Throwable;
 
+    /**
+     * Returns a range of the serialized value of a result of the task
+     * <code>taskName</code> of the job <code>jobId</code>, without
+     * deserializing it. A large value is transferred by successive calls with
+     * an increasing offset, passing the result id returned by the first call
+     * so that all the ranges are read from the same result.
+     *
+     * @param sessionId
+     *            a valid session id
+     * @param jobId
+     *            the id of the job
+     * @param taskname
+     *            the name of the task
+     * @param resultId
+     *            the id of the result to read, -1 for the last result of the
+     *            task
+     * @param offset
+     *            the position of the first byte to read
+     * @param length
+     *            the maximum number of bytes to read
+     * @return the range read, or nothing if the task has no result value yet
+     *         or if the given result does not exist anymore.
+     */
+    @GET
+    @Path("jobs/{jobid}/tasks/{taskname}/result/serializedvalue/range")
+    @Produces("application/json")
+    TaskResultValueRangeData serializedValueRangeOfTaskResult(@HeaderParam("sessionid") String sessionId,
+            @PathParam("jobid") String jobId, @PathParam("taskname") String taskname,
+            @QueryParam("resultid") @DefaultValue("-1") long resultId,
+            @QueryParam("offset") @DefaultValue("0") long offset, @QueryParam("length") int length)
+            throws NotConnectedRestException, UnknownJobRestException, UnknownTaskRestException,
+            PermissionRestException;
+
     /**
      * Returns the values of a set of tasks of the job <code>jobId</code>
      * filtered by a given tag. This method returns the result as a byte array
@@ -1067,6 +1215,8 @@ public interface SchedulerRestInterface {
 
     /**
      * Returns full logs generated by the task from user data spaces.
+     * A single byte range of the logs can be requested with the HTTP
+     * <code>Range</code> header.
      *
      * @param sessionId
      *            a valid session id
@@ -1074,17 +1224,18 @@ public interface SchedulerRestInterface {
      *            the id of the job
      * @param taskname
      *            the name of the task
+     * @param range
+     *            an optional byte range, such as <code>bytes=1024-</code>
      * @return all the logs generated by the task (either stdout and stderr) or
      *         an empty string if the result is not yet available
      */
     @GET
-    @GZIP
     @Path("jobs/{jobid}/tasks/{taskname}/result/log/full")
     @Produces("application/json")
-    InputStream taskFullLogs(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId,
-            @PathParam("taskname") String taskname, @QueryParam("sessionid") String session)
-            throws NotConnectedRestException, UnknownJobRestException, UnknownTaskRestException,
-            PermissionRestException, IOException;
+    Response taskFullLogs(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId,
+            @PathParam("taskname") String taskname, @QueryParam("sessionid") String session,
+            @HeaderParam("Range") String range) throws NotConnectedRestException, UnknownJobRestException,
+            UnknownTaskRestException, PermissionRestException, IOException;
 
     /**
      * Returns task server logs
@@ -0,0 +1,122 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive_grid_cloud_portal.scheduler.dto;
+
+import java.io.Serializable;
+
+
+public class TaskRuntimePredictionData implements Serializable {
+
+    private String jobName;
+
+    private String taskName;
+
+    private long sampleCount;
+
+    private long mean;
+
+    private long standardDeviation;
+
+    private long median;
+
+    private long percentile90;
+
+    private long percentile99;
+
+    private long max;
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public void setTaskName(String taskName) {
+        this.taskName = taskName;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(long sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public void setMean(long mean) {
+        this.mean = mean;
+    }
+
+    public long getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public void setStandardDeviation(long standardDeviation) {
+        this.standardDeviation = standardDeviation;
+    }
+
+    public long getMedian() {
+        return median;
+    }
+
+    public void setMedian(long median) {
+        this.median = median;
+    }
+
+    public long getPercentile90() {
+        return percentile90;
+    }
+
+    public void setPercentile90(long percentile90) {
+        this.percentile90 = percentile90;
+    }
+
+    public long getPercentile99() {
+        return percentile99;
+    }
+
+    public void setPercentile99(long percentile99) {
+        this.percentile99 = percentile99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+}
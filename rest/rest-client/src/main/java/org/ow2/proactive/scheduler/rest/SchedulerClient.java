@@ -78,6 +78,7 @@ import org.ow2.proactive.http.HttpClientBuilder;
 import org.ow2.proactive.scheduler.common.JobFilterCriteria;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.SchedulerEvent;
 import org.ow2.proactive.scheduler.common.SchedulerEventListener;
 import org.ow2.proactive.scheduler.common.SchedulerStatus;
@@ -100,7 +101,10 @@ import org.ow2.proactive.scheduler.common.job.JobStatus;
 import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
 import org.ow2.proactive.scheduler.common.job.factories.Job2XMLTransformer;
 import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.usage.JobUsage;
 import org.ow2.proactive.scheduler.job.JobIdImpl;
@@ -127,8 +131,11 @@ import org.ow2.proactive_grid_cloud_portal.scheduler.dto.SchedulerUserData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskIdData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskInfoData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskResultData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskResultValueRangeData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskRuntimePredictionData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskStateData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.UserJobData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.exception.BadRequestRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.NotConnectedRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.PermissionRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.SchedulerRestException;
@@ -308,6 +315,25 @@ public class SchedulerClient extends ClientBase implements ISchedulerClient {
         return jobInfos;
     }
 
+    @Override
+    public Page<JobInfo> getJobs(PageCursor after, int limit, JobFilterCriteria criteria)
+            throws NotConnectedException, PermissionException {
+        Page<JobInfo> jobInfos = null;
+        try {
+            RestPage<UserJobData> userJobDataList = restApi().jobsInfoAfter(sid,
+                                                                            after == null ? null : after.toString(),
+                                                                            limit,
+                                                                            criteria.isMyJobsOnly(),
+                                                                            criteria.isPending(),
+                                                                            criteria.isRunning(),
+                                                                            criteria.isFinished());
+            jobInfos = new Page<JobInfo>(toJobInfos(userJobDataList.getList()), userJobDataList.getSize());
+        } catch (Exception e) {
+            throwNCEOrPE(e);
+        }
+        return jobInfos;
+    }
+
     @Override
     public List<JobInfo> getJobsInfoList(List<String> jobsId) throws PermissionException, NotConnectedException {
         List<JobInfo> jobsInfoList = null;
@@ -370,6 +396,44 @@ public class SchedulerClient extends ClientBase implements ISchedulerClient {
         return getTaskResult(jobId.value(), taskName);
     }
 
+    @Override
+    public TaskResultValueRange getTaskResultSerializedValue(String jobId, String taskName, long resultId,
+            long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        TaskResultValueRange range = null;
+        try {
+            TaskResultValueRangeData rangeData = restApi().serializedValueRangeOfTaskResult(sid,
+                                                                                             jobId,
+                                                                                             taskName,
+                                                                                             resultId,
+                                                                                             offset,
+                                                                                             length);
+            if (rangeData != null) {
+                range = new TaskResultValueRange(rangeData.getResultId(),
+                                                 rangeData.getOffset(),
+                                                 rangeData.getBytes() == null ? new byte[0] : rangeData.getBytes());
+            }
+        } catch (Throwable t) {
+            throwUJEOrNCEOrPEOrUTE(exception(t));
+        }
+        return range;
+    }
+
+    @Override
+    public TaskLogsRange getTaskLogsRange(String jobId, String taskName, long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        TaskLogsRange range = null;
+        try {
+            String taskLogs = restApi().taskLog(sid, jobId, taskName);
+            if (taskLogs != null && !taskLogs.isEmpty()) {
+                range = TaskLogsRange.of(taskLogs, offset, length);
+            }
+        } catch (Throwable t) {
+            throwUJEOrNCEOrPEOrUTE(exception(t));
+        }
+        return range;
+    }
+
     @Override
     public List<TaskResult> getTaskResultsByTag(JobId jobId, String taskTag)
             throws NotConnectedException, UnknownJobException, PermissionException {
@@ -1159,6 +1223,36 @@ public class SchedulerClient extends ClientBase implements ISchedulerClient {
         return new Page<TaskState>(lTaskStates, page.getSize());
     }
 
+    @Override
+    public Page<TaskState> getTaskStates(String taskTag, long from, long to, boolean mytasks, boolean running,
+            boolean pending, boolean finished, PageCursor after, int limit)
+            throws NotConnectedException, PermissionException {
+        RestPage<TaskStateData> page = null;
+        try {
+            page = restApi().getTaskStatesAfter(sid,
+                                                after == null ? null : after.toString(),
+                                                limit,
+                                                taskTag,
+                                                from,
+                                                to,
+                                                mytasks,
+                                                running,
+                                                pending,
+                                                finished);
+        } catch (NotConnectedRestException e) {
+            throw new NotConnectedException(e);
+        } catch (PermissionRestException e) {
+            throw new PermissionException(e);
+        } catch (BadRequestRestException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        List<TaskState> lTaskStates = new ArrayList<TaskState>(page.getList().size());
+        for (TaskStateData taskStateData : page.getList()) {
+            lTaskStates.add(new TaskStateImpl(taskStateData));
+        }
+        return new Page<TaskState>(lTaskStates, page.getSize());
+    }
+
     @Override
     public JobInfo getJobInfo(String jobId) throws UnknownJobException, NotConnectedException, PermissionException {
         JobInfoData jobInfoData = null;
@@ -1195,6 +1289,31 @@ public class SchedulerClient extends ClientBase implements ISchedulerClient {
         return jobInfoImpl;
     }
 
+    @Override
+    public TaskRuntimePrediction getTaskRuntimePrediction(String jobName, String taskName)
+            throws NotConnectedException, PermissionException {
+        TaskRuntimePredictionData data = null;
+        try {
+            data = restApi().getTaskRuntimePrediction(sid, jobName, taskName);
+        } catch (NotConnectedRestException e) {
+            throw new NotConnectedException(e);
+        } catch (PermissionRestException e) {
+            throw new PermissionException(e);
+        }
+        if (data == null) {
+            return null;
+        }
+        return new TaskRuntimePrediction(data.getJobName(),
+                                         data.getTaskName(),
+                                         data.getSampleCount(),
+                                         data.getMean(),
+                                         data.getStandardDeviation(),
+                                         data.getMedian(),
+                                         data.getPercentile90(),
+                                         data.getPercentile99(),
+                                         data.getMax());
+    }
+
     @Override
     public boolean changeStartAt(JobId jobId, String startAt)
             throws NotConnectedException, UnknownJobException, PermissionException {
@@ -355,6 +355,9 @@ public class DataSpaceClient implements IDataSpaceClient {
             if (headers.containsKey(HttpHeaders.LAST_MODIFIED)) {
                 metaMap.put(HttpHeaders.LAST_MODIFIED, String.valueOf(headers.getFirst(HttpHeaders.LAST_MODIFIED)));
             }
+            if (headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                metaMap.put(HttpHeaders.CONTENT_LENGTH, String.valueOf(headers.getFirst(HttpHeaders.CONTENT_LENGTH)));
+            }
             return metaMap;
         } finally {
             if (response != null) {
@@ -27,10 +27,7 @@ package org.ow2.proactive_grid_cloud_portal.rm;
 
 import static org.apache.commons.lang3.exception.ExceptionUtils.getStackTrace;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.KeyException;
@@ -40,12 +37,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.management.Attribute;
-import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
@@ -102,10 +98,6 @@ import org.ow2.proactive_grid_cloud_portal.common.SharedSessionStore;
 import org.ow2.proactive_grid_cloud_portal.common.StatHistoryCaching;
 import org.ow2.proactive_grid_cloud_portal.common.StatHistoryCaching.StatHistoryCacheEntry;
 import org.ow2.proactive_grid_cloud_portal.common.dto.LoginForm;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.FetchData;
-import org.rrd4j.core.FetchRequest;
-import org.rrd4j.core.RrdDb;
 
 
 @Path("/rm")
@@ -746,7 +738,8 @@ public class RMRest implements RMRestInterface {
     @Produces("application/json")
     public String getStatHistory(@HeaderParam("sessionid") String sessionId, @QueryParam("range") String range)
             throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException,
-            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException {
+            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException,
+            MBeanException {
 
         RMProxyUserInterface rm = checkAccess(sessionId);
 
@@ -768,23 +761,16 @@ public class RMRest implements RMRestInterface {
 
         long l1 = System.currentTimeMillis();
 
+        // averages pre-aggregated by the archives of the RRD data base held by the RM
         ObjectName on = new ObjectName(RMJMXBeans.RUNTIMEDATA_MBEAN_NAME);
-        AttributeList attrs = rm.getMBeanAttributes(on, new String[] { "StatisticHistory" });
-        Attribute attr = (Attribute) attrs.get(0);
-        // content of the RRD4J database backing file
-        byte[] rrd4j = (byte[]) attr.getValue();
+        @SuppressWarnings("unchecked")
+        Map<String, double[]> history = (Map<String, double[]>) rm.invokeMBeanOperation(on,
+                                                                                         "fetchStatisticHistory",
+                                                                                         new Object[] { dataSources,
+                                                                                                        range },
+                                                                                         new String[] { String[].class.getName(),
+                                                                                                        String.class.getName() });
 
-        File rrd4jDb = File.createTempFile("database", "rr4dj");
-        rrd4jDb.deleteOnExit();
-
-        try (OutputStream out = new FileOutputStream(rrd4jDb)) {
-            out.write(rrd4j);
-        }
-
-        // create RRD4J DB, should be identical to the one held by the RM
-        RrdDb db = new RrdDb(rrd4jDb.getAbsolutePath(), true);
-
-        long timeEnd = db.getLastUpdateTime();
         // force float separator for JSON parsing
         DecimalFormatSymbols otherSymbols = new DecimalFormatSymbols(Locale.US);
         otherSymbols.setDecimalSeparator('.');
@@ -797,43 +783,9 @@ public class RMRest implements RMRestInterface {
 
         for (int i = 0; i < dataSources.length; i++) {
             String dataSource = dataSources[i];
-            char zone = range.charAt(i);
-            long timeStart;
-
-            switch (zone) {
-                default:
-                case 'a': // 1 minute
-                    timeStart = timeEnd - 60;
-                    break;
-                case 'm': // 10 minute
-                    timeStart = timeEnd - 60 * 10;
-                    break;
-                case 'h': // 1 hours
-                    timeStart = timeEnd - 60 * 60;
-                    break;
-                case 'H': // 8 hours
-                    timeStart = timeEnd - 60 * 60 * 8;
-                    break;
-                case 'd': // 1 day
-                    timeStart = timeEnd - 60 * 60 * 24;
-                    break;
-                case 'w': // 1 week
-                    timeStart = timeEnd - 60 * 60 * 24 * 7;
-                    break;
-                case 'M': // 1 month
-                    timeStart = timeEnd - 60 * 60 * 24 * 28;
-                    break;
-                case 'y': // 1 year
-                    timeStart = timeEnd - 60 * 60 * 24 * 365;
-                    break;
-            }
-
-            FetchRequest req = db.createFetchRequest(ConsolFun.AVERAGE, timeStart, timeEnd);
-            req.setFilter(dataSource);
-            FetchData fetchData = req.fetchData();
             result.append("\"").append(dataSource).append("\":[");
 
-            double[] values = fetchData.getValues(dataSource);
+            double[] values = history.get(dataSource);
             for (int j = 0; j < values.length; j++) {
                 if (Double.compare(Double.NaN, values[j]) == 0) {
                     result.append("null");
@@ -849,9 +801,6 @@ public class RMRest implements RMRestInterface {
         }
         result.append("}");
 
-        db.close();
-        rrd4jDb.delete();
-
         String ret = result.toString();
 
         StatHistoryCaching.getInstance().addEntry(range, l1, ret);
@@ -679,7 +679,8 @@ public interface RMRestInterface {
     @Produces("application/json")
     String getStatHistory(@HeaderParam("sessionid") String sessionId, @QueryParam("range") String range)
             throws InstanceNotFoundException, IntrospectionException, ReflectionException, IOException,
-            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException;
+            MalformedObjectNameException, NullPointerException, InterruptedException, NotConnectedException,
+            MBeanException;
 
     /**
      * Returns the version of the rest api
@@ -27,7 +27,7 @@ package org.ow2.proactive_grid_cloud_portal.scheduler;
 
 import org.ow2.proactive.scheduler.common.NotificationData;
 import org.ow2.proactive.scheduler.common.SchedulerEvent;
-import org.ow2.proactive.scheduler.common.SchedulerEventListener;
+import org.ow2.proactive.scheduler.common.SchedulerGroupEventListener;
 import org.ow2.proactive.scheduler.common.job.JobInfo;
 import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.common.job.UserIdentification;
@@ -35,7 +35,7 @@ import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive_grid_cloud_portal.scheduler.SchedulerStateListener.State;
 
 
-public class EventListener implements SchedulerEventListener {
+public class EventListener extends SchedulerGroupEventListener {
 
     private State state;
 
@@ -29,6 +29,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getStackTrace;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -79,8 +80,10 @@ import javax.ws.rs.core.Response;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileType;
 import org.apache.commons.vfs2.Selectors;
 import org.apache.log4j.Logger;
@@ -111,6 +114,7 @@ import org.ow2.proactive.db.SortParameter;
 import org.ow2.proactive.scheduler.common.JobFilterCriteria;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.Scheduler;
 import org.ow2.proactive.scheduler.common.SchedulerAuthenticationInterface;
 import org.ow2.proactive.scheduler.common.SchedulerConnection;
@@ -135,7 +139,10 @@ import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.common.job.factories.FlatJobFactory;
 import org.ow2.proactive.scheduler.common.task.Task;
 import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.task.TaskStatesPage;
 import org.ow2.proactive.scheduler.common.util.PageBoundaries;
@@ -163,10 +170,13 @@ import org.ow2.proactive_grid_cloud_portal.scheduler.dto.SchedulerStatusData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.SchedulerUserData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskIdData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskResultData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskResultValueRangeData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskRuntimePredictionData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskStateData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.UserJobData;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.eventing.EventNotification;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.eventing.EventSubscription;
+import org.ow2.proactive_grid_cloud_portal.scheduler.exception.BadRequestRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.JobAlreadyFinishedRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.JobCreationRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.LogForwardingRestException;
@@ -176,6 +186,7 @@ import org.ow2.proactive_grid_cloud_portal.scheduler.exception.SchedulerRestExce
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.SubmissionClosedRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.UnknownJobRestException;
 import org.ow2.proactive_grid_cloud_portal.scheduler.exception.UnknownTaskRestException;
+import org.ow2.proactive_grid_cloud_portal.scheduler.util.ByteRange;
 import org.ow2.proactive_grid_cloud_portal.scheduler.util.EventUtil;
 import org.ow2.proactive_grid_cloud_portal.scheduler.util.WorkflowVariablesTransformer;
 import org.ow2.proactive_grid_cloud_portal.webapp.DateFormatter;
@@ -210,6 +221,8 @@ public class SchedulerStateRest implements SchedulerRestInterface {
 
     private static final int TASKS_PAGE_SIZE = PASchedulerProperties.TASKS_PAGE_SIZE.getValueAsInt();
 
+    private static final int RESULT_VALUE_CHUNK_SIZE = 1024 * 1024;
+
     static {
         sortableTaskAttrMap = createSortableTaskAttrMap();
     }
@@ -310,6 +323,49 @@ public class SchedulerStateRest implements SchedulerRestInterface {
         }
     }
 
+    /**
+     * Returns a page of jobs, the most recently submitted first, using keyset
+     * pagination.
+     *
+     * @param sessionId
+     *            a valid session id
+     * @param cursor
+     *            optional, <code>submittedTime_jobId</code> of the last job of
+     *            the previous page, the first page is returned if absent
+     * @param limit
+     *            optional, the maximum number of jobs to return
+     * @return a list of UserJobData
+     */
+    @Override
+    @GET
+    @Path("jobsinfo/cursor")
+    @Produces({ "application/json", "application/xml" })
+    public RestPage<UserJobData> jobsInfoAfter(@HeaderParam("sessionid") String sessionId,
+            @QueryParam("cursor") String cursor, @QueryParam("limit") @DefaultValue("-1") int limit,
+            @QueryParam("myjobs") @DefaultValue("false") boolean myjobs,
+            @QueryParam("pending") @DefaultValue("true") boolean pending,
+            @QueryParam("running") @DefaultValue("true") boolean running,
+            @QueryParam("finished") @DefaultValue("true") boolean finished)
+            throws PermissionRestException, NotConnectedRestException, BadRequestRestException {
+        try {
+            Scheduler s = checkAccess(sessionId, "/scheduler/jobsinfo/cursor");
+
+            Page<JobInfo> page = s.getJobs(parseCursor(cursor),
+                                           limit,
+                                           new JobFilterCriteria(myjobs, pending, running, finished));
+            List<UserJobData> userJobInfoList = new ArrayList<UserJobData>(page.getList().size());
+            for (JobInfo jobInfo : page.getList()) {
+                userJobInfoList.add(new UserJobData(mapper.map(jobInfo, JobInfoData.class)));
+            }
+
+            return new RestPage<UserJobData>(userJobInfoList, page.getSize());
+        } catch (NotConnectedException e) {
+            throw new NotConnectedRestException(e);
+        } catch (PermissionException e) {
+            throw new PermissionRestException(e);
+        }
+    }
+
     /**
      * Returns a list of jobs info corresponding to the given job IDs (in the same order)
      *
@@ -586,6 +642,23 @@ public class SchedulerStateRest implements SchedulerRestInterface {
         return job;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskRuntimePredictionData getTaskRuntimePrediction(String sessionId, String jobName, String taskName)
+            throws NotConnectedRestException, PermissionRestException {
+        Scheduler s = checkAccess(sessionId, "prediction");
+        try {
+            TaskRuntimePrediction prediction = s.getTaskRuntimePrediction(jobName, taskName);
+            return prediction == null ? null : mapper.map(prediction, TaskRuntimePredictionData.class);
+        } catch (NotConnectedException e) {
+            throw new NotConnectedRestException(e);
+        } catch (PermissionException e) {
+            throw new PermissionRestException(e);
+        }
+    }
+
     /**
      * Returns all the task results of this job as a map whose the key is the
      * name of the task and its task result.<br>
@@ -1498,7 +1571,8 @@ public class SchedulerStateRest implements SchedulerRestInterface {
     /**
      * Returns the value of the task result of the task <code>taskName</code> of
      * the job <code>jobId</code> This method returns the result as a byte array
-     * whatever the result is.
+     * whatever the result is. The value is streamed from the scheduler database
+     * chunk by chunk, without being deserialized.
      *
      * @param sessionId
      *            a valid session id
@@ -1506,19 +1580,43 @@ public class SchedulerStateRest implements SchedulerRestInterface {
      *            the id of the job
      * @param taskname
      *            the name of the task
-     * @return the value of the task result as a byte array.
+     * @return the value of the task result as a byte array, or nothing if the
+     *         task has no result value yet.
      */
     @Override
     @GET
     @GZIP
     @Path("jobs/{jobid}/tasks/{taskname}/result/serializedvalue")
     @Produces("*/*")
-    public byte[] serializedValueOfTaskResult(@HeaderParam("sessionid") String sessionId,
+    public InputStream serializedValueOfTaskResult(@HeaderParam("sessionid") String sessionId,
             @PathParam("jobid") String jobId, @PathParam("taskname") String taskname) throws Throwable {
         Scheduler s = checkAccess(sessionId, "jobs/" + jobId + "/tasks/" + taskname + "/result/serializedvalue");
-        TaskResult tr = s.getTaskResult(jobId, taskname);
-        tr = PAFuture.getFutureValue(tr);
-        return tr.getSerializedValue();
+        return TaskResultValueInputStream.open(s, jobId, taskname, RESULT_VALUE_CHUNK_SIZE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TaskResultValueRangeData serializedValueRangeOfTaskResult(String sessionId, String jobId, String taskname,
+            long resultId, long offset, int length) throws NotConnectedRestException, UnknownJobRestException,
+            UnknownTaskRestException, PermissionRestException {
+        try {
+            Scheduler s = checkAccess(sessionId,
+                                      "jobs/" + jobId + "/tasks/" + taskname + "/result/serializedvalue/range");
+            // a range is held in memory, it is bounded by the chunk size
+            int rangeLength = length <= 0 ? RESULT_VALUE_CHUNK_SIZE : Math.min(length, RESULT_VALUE_CHUNK_SIZE);
+            TaskResultValueRange range = s.getTaskResultSerializedValue(jobId, taskname, resultId, offset, rangeLength);
+            return range == null ? null : mapper.map(range, TaskResultValueRangeData.class);
+        } catch (PermissionException e) {
+            throw new PermissionRestException(e);
+        } catch (UnknownJobException e) {
+            throw new UnknownJobRestException(e);
+        } catch (NotConnectedException e) {
+            throw new NotConnectedRestException(e);
+        } catch (UnknownTaskException e) {
+            throw new UnknownTaskRestException(e);
+        }
     }
 
     /**
@@ -1926,7 +2024,12 @@ public class SchedulerStateRest implements SchedulerRestInterface {
     /**
      * Returns full logs generated by the task from user data spaces if task was
      * run using the precious logs option. Otherwise, logs are retrieved from
-     * the database. In this last case they may be truncated.
+     * the database. In this last case they may be truncated.<br>
+     * A single byte range of the logs can be requested with the HTTP
+     * <code>Range</code> header, logs stored in data spaces are then read from
+     * the requested position and only the requested bytes of the logs stored in
+     * the database are sent by the scheduler. The response is never compressed,
+     * so that the <code>Content-Range</code> offsets match the sent bytes.
      *
      * @param sessionId
      *            a valid session id
@@ -1934,18 +2037,19 @@ public class SchedulerStateRest implements SchedulerRestInterface {
      *            the id of the job
      * @param taskname
      *            the name of the task
+     * @param range
+     *            an optional byte range, such as <code>bytes=1024-</code>
      * @return all the logs generated by the task (either stdout and stderr) or
      *         an empty string if the result is not yet available
      */
     @Override
     @GET
-    @GZIP
     @Path("jobs/{jobid}/tasks/{taskname}/result/log/full")
     @Produces("application/json")
-    public InputStream taskFullLogs(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId,
-            @PathParam("taskname") String taskname, @QueryParam("sessionid") String session)
-            throws NotConnectedRestException, UnknownJobRestException, UnknownTaskRestException,
-            PermissionRestException, IOException {
+    public Response taskFullLogs(@HeaderParam("sessionid") String sessionId, @PathParam("jobid") String jobId,
+            @PathParam("taskname") String taskname, @QueryParam("sessionid") String session,
+            @HeaderParam("Range") String range) throws NotConnectedRestException, UnknownJobRestException,
+            UnknownTaskRestException, PermissionRestException, IOException {
         try {
 
             if (sessionId == null) {
@@ -1953,27 +2057,29 @@ public class SchedulerStateRest implements SchedulerRestInterface {
             }
 
             Scheduler scheduler = checkAccess(sessionId, "jobs/" + jobId + "/tasks/" + taskname + "/result/log/all");
-            TaskResult taskResult = scheduler.getTaskResult(jobId, taskname);
-
-            if (taskResult != null) {
-                JobState jobState = scheduler.getJobState(taskResult.getTaskId().getJobId());
+            JobState jobState = scheduler.getJobState(jobId);
 
-                boolean hasPreciousLogs = false;
-                for (Task task : jobState.getTasks()) {
-                    if (task.getName().equals(taskname)) {
-                        hasPreciousLogs = task.isPreciousLogs();
-                        break;
-                    }
+            TaskState taskState = null;
+            for (TaskState task : jobState.getTasks()) {
+                if (task.getName().equals(taskname)) {
+                    taskState = task;
+                    break;
                 }
+            }
+            if (taskState == null) {
+                throw new UnknownTaskException(taskname, jobState.getId());
+            }
 
-                if (hasPreciousLogs) {
-                    return retrieveTaskLogsUsingDataspaces(sessionId, jobId, taskResult.getTaskId());
-                } else {
-                    logger.warn("Retrieving truncated logs for task '" + taskname + "'");
-                    return IOUtils.toInputStream(retrieveTaskLogsUsingDatabase(sessionId, jobId, taskname));
+            if (taskState.isPreciousLogs()) {
+                // the log file is read directly, the task result (and its value) is never loaded
+                FileObject logFile = resolveTaskLogFile(sessionId, taskState.getId());
+                if (logFile == null) {
+                    return Response.noContent().build();
                 }
+                return rangeResponse(logFile.getContent().getInputStream(), logFile.getContent().getSize(), range);
             } else {
-                return null;
+                logger.warn("Retrieving truncated logs for task '" + taskname + "'");
+                return databaseLogsRangeResponse(scheduler, jobId, taskname, range);
             }
         } catch (PermissionException e) {
             throw new PermissionRestException(e);
@@ -1986,6 +2092,78 @@ public class SchedulerStateRest implements SchedulerRestInterface {
         }
     }
 
+    private FileObject resolveTaskLogFile(String sessionId, TaskId taskId)
+            throws NotConnectedRestException, PermissionRestException, FileSystemException {
+        Session session = dataspaceRestApi.checkSessionValidity(sessionId);
+        FileObject logFile = dataspaceRestApi.resolveFile(session,
+                                                          SchedulerConstants.USERSPACE_NAME,
+                                                          new TaskLoggerRelativePathGenerator(taskId).getRelativePath());
+        return logFile.exists() && logFile.isReadable() ? logFile : null;
+    }
+
+    /**
+     * Sends the requested range of the content, or the whole content when no
+     * valid range is requested. Skipped bytes are never kept in memory.
+     */
+    private static Response rangeResponse(InputStream content, long length, String rangeHeader) throws IOException {
+        ByteRange range = ByteRange.parse(rangeHeader, length);
+        if (range == null) {
+            return Response.ok(content).header("Accept-Ranges", "bytes").build();
+        }
+        if (!range.isSatisfiable()) {
+            content.close();
+            return notSatisfiableResponse(range);
+        }
+        IOUtils.skipFully(content, range.getFirst());
+        return partialContentResponse(new BoundedInputStream(content, range.getLength()), range);
+    }
+
+    /**
+     * Sends the requested range of the logs stored in the database, or all the
+     * logs when no valid range is requested. Only the sent bytes of the logs
+     * are read by the scheduler, the task result value is never loaded.
+     */
+    private static Response databaseLogsRangeResponse(Scheduler scheduler, String jobId, String taskName,
+            String rangeHeader)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        // with a range, only the length of the logs is needed before reading the range
+        TaskLogsRange logs = scheduler.getTaskLogsRange(jobId,
+                                                        taskName,
+                                                        0,
+                                                        rangeHeader == null ? Integer.MAX_VALUE : 0);
+        ByteRange range = ByteRange.parse(rangeHeader, logs == null ? 0 : logs.getTotalLength());
+        if (range == null) {
+            if (logs != null && logs.getBytes().length < logs.getTotalLength()) {
+                logs = scheduler.getTaskLogsRange(jobId, taskName, 0, Integer.MAX_VALUE);
+            }
+            return Response.ok(new ByteArrayInputStream(logs == null ? new byte[0] : logs.getBytes()))
+                           .header("Accept-Ranges", "bytes")
+                           .build();
+        }
+        if (!range.isSatisfiable()) {
+            return notSatisfiableResponse(range);
+        }
+        logs = scheduler.getTaskLogsRange(jobId,
+                                          taskName,
+                                          range.getFirst(),
+                                          (int) Math.min(range.getLength(), Integer.MAX_VALUE));
+        return partialContentResponse(new ByteArrayInputStream(logs == null ? new byte[0] : logs.getBytes()), range);
+    }
+
+    private static Response notSatisfiableResponse(ByteRange range) {
+        return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                       .header("Content-Range", range.toContentRange())
+                       .build();
+    }
+
+    private static Response partialContentResponse(InputStream content, ByteRange range) {
+        return Response.status(Response.Status.PARTIAL_CONTENT)
+                       .entity(content)
+                       .header("Accept-Ranges", "bytes")
+                       .header("Content-Range", range.toContentRange())
+                       .build();
+    }
+
     /**
      * Returns task server logs
      * 
@@ -3619,6 +3797,48 @@ public class SchedulerStateRest implements SchedulerRestInterface {
         }
     }
 
+
+    @Override
+    public RestPage<TaskStateData> getTaskStatesAfter(String sessionId, String cursor, int limit, String taskTag,
+            long from, long to, boolean mytasks, boolean running, boolean pending, boolean finished)
+            throws NotConnectedRestException, PermissionRestException, BadRequestRestException {
+        Scheduler s = checkAccess(sessionId, "taskstates/cursor");
+        PageCursor after = parseCursor(cursor);
+
+        PageBoundaries boundaries = Pagination.getTasksPageBoundaries(0, limit, TASKS_PAGE_SIZE);
+
+        try {
+            Page<TaskState> page = s.getTaskStates(taskTag,
+                                                   from,
+                                                   to,
+                                                   mytasks,
+                                                   running,
+                                                   pending,
+                                                   finished,
+                                                   after,
+                                                   boundaries.getLimit());
+            List<TaskStateData> tasks = map(page.getList(), TaskStateData.class);
+            return new RestPage<TaskStateData>(tasks, page.getSize());
+        } catch (NotConnectedException e) {
+            throw new NotConnectedRestException(e);
+        } catch (PermissionException e) {
+            throw new PermissionRestException(e);
+        }
+    }
+
+    /**
+     * Parses the cursor of a keyset pagination request.
+     *
+     * @throws BadRequestRestException if the cursor is malformed
+     */
+    private static PageCursor parseCursor(String cursor) throws BadRequestRestException {
+        try {
+            return PageCursor.valueOf(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestRestException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Translates the tasks attributes names that are used to sort the result
      * For example the task status is called `status` client-side, it is
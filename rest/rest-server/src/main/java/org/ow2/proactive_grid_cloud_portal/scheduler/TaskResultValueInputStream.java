@@ -0,0 +1,159 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive_grid_cloud_portal.scheduler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.ow2.proactive.scheduler.common.Scheduler;
+import org.ow2.proactive.scheduler.common.exception.NotConnectedException;
+import org.ow2.proactive.scheduler.common.exception.PermissionException;
+import org.ow2.proactive.scheduler.common.exception.UnknownJobException;
+import org.ow2.proactive.scheduler.common.exception.UnknownTaskException;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+
+
+/**
+ * Reads the serialized value of a task result chunk by chunk from the
+ * scheduler, so that neither the scheduler nor the REST server holds more
+ * than one chunk of the value in memory while it is sent to the client.
+ * All the chunks are read from the result the first chunk was read from, even
+ * if a newer result of the task is stored during the transfer.
+ */
+public class TaskResultValueInputStream extends InputStream {
+
+    private final Scheduler scheduler;
+
+    private final String jobId;
+
+    private final String taskName;
+
+    private final int chunkSize;
+
+    private final long resultId;
+
+    private byte[] chunk;
+
+    private int positionInChunk;
+
+    private long offset;
+
+    private TaskResultValueInputStream(Scheduler scheduler, String jobId, String taskName, int chunkSize,
+            TaskResultValueRange firstChunk) {
+        this.scheduler = scheduler;
+        this.jobId = jobId;
+        this.taskName = taskName;
+        this.chunkSize = chunkSize;
+        this.resultId = firstChunk.getResultId();
+        this.chunk = firstChunk.getBytes();
+        this.offset = chunk.length;
+    }
+
+    /**
+     * Reads the first chunk of the value, so that access errors are raised
+     * before the response is sent.
+     *
+     * @return a stream over the value, or null if the task has no result
+     *         value yet
+     */
+    public static TaskResultValueInputStream open(Scheduler scheduler, String jobId, String taskName, int chunkSize)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        TaskResultValueRange firstChunk = scheduler.getTaskResultSerializedValue(jobId,
+                                                                                 taskName,
+                                                                                 TaskResultValueRange.LAST_RESULT,
+                                                                                 0,
+                                                                                 chunkSize);
+        if (firstChunk == null) {
+            return null;
+        }
+        return new TaskResultValueInputStream(scheduler, jobId, taskName, chunkSize, firstChunk);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return chunk[positionInChunk++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int read = Math.min(len, chunk.length - positionInChunk);
+        System.arraycopy(chunk, positionInChunk, b, off, read);
+        positionInChunk += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return chunk == null ? 0 : chunk.length - positionInChunk;
+    }
+
+    /**
+     * Fetches the next chunk when the current one is consumed, the last
+     * chunk being the first one shorter than the chunk size.
+     */
+    private boolean ensureAvailable() throws IOException {
+        if (chunk == null) {
+            return false;
+        }
+        if (positionInChunk < chunk.length) {
+            return true;
+        }
+        if (chunk.length < chunkSize) {
+            chunk = null;
+            return false;
+        }
+        TaskResultValueRange range;
+        try {
+            range = scheduler.getTaskResultSerializedValue(jobId, taskName, resultId, offset, chunkSize);
+        } catch (NotConnectedException | UnknownJobException | UnknownTaskException | PermissionException e) {
+            chunk = null;
+            throw new IOException("Could not read the result value of task " + taskName + " of job " + jobId, e);
+        }
+        if (range == null) {
+            chunk = null;
+            throw new IOException("The result value of task " + taskName + " of job " + jobId +
+                                  " was removed during its transfer");
+        }
+        chunk = range.getBytes();
+        positionInChunk = 0;
+        if (chunk.length == 0) {
+            chunk = null;
+            return false;
+        }
+        offset += chunk.length;
+        return true;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive_grid_cloud_portal.scheduler.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * A single byte range, as requested through the HTTP <code>Range</code>
+ * header (<code>bytes=first-last</code>, <code>bytes=first-</code> or
+ * <code>bytes=-suffixLength</code>).
+ */
+public class ByteRange {
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^\\s*bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*$");
+
+    private final long first;
+
+    private final long last;
+
+    private final long totalLength;
+
+    private ByteRange(long first, long last, long totalLength) {
+        this.first = first;
+        this.last = last;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * Parses a <code>Range</code> header against a content of the given
+     * length.
+     *
+     * @return the requested range, or null if the header is absent or is not
+     *         a single byte range, in which case the whole content is to be
+     *         sent
+     */
+    public static ByteRange parse(String header, long totalLength) {
+        if (header == null) {
+            return null;
+        }
+        Matcher matcher = SINGLE_RANGE.matcher(header);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffixLength = Math.min(Long.parseLong(last), totalLength);
+                return new ByteRange(totalLength - suffixLength, totalLength - 1, totalLength);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? totalLength - 1 : Math.min(Long.parseLong(last), totalLength - 1);
+            if (!last.isEmpty() && Long.parseLong(last) < start) {
+                return null;
+            }
+            return new ByteRange(start, end, totalLength);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return false if the range starts after the end of the content
+     */
+    public boolean isSatisfiable() {
+        return first < totalLength && first <= last;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * @return the value of the <code>Content-Range</code> header describing
+     *         this range
+     */
+    public String toContentRange() {
+        if (isSatisfiable()) {
+            return "bytes " + first + "-" + last + "/" + totalLength;
+        } else {
+            return "bytes */" + totalLength;
+        }
+    }
+
+}
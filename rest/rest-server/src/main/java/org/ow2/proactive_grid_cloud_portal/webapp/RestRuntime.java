@@ -113,6 +113,7 @@ public class RestRuntime {
     }
 
     void addExceptionMappers(ResteasyProviderFactory dispatcher) {
+        dispatcher.registerProvider(ExceptionMappers.BadRequestRestExceptionExceptionMapper.class);
         dispatcher.registerProvider(ExceptionMappers.IOExceptionMapper.class);
         dispatcher.registerProvider(ExceptionMappers.JobAlreadyFinishedExceptionExceptionMapper.class);
         dispatcher.registerProvider(ExceptionMappers.JobCreationRestExceptionExceptionMapper.class);
@@ -36,12 +36,10 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Random;
 
-import javax.management.Attribute;
-import javax.management.AttributeList;
 import javax.management.ObjectName;
 
 import org.apache.http.HttpResponse;
@@ -62,11 +60,6 @@ import org.objectweb.proactive.core.util.wrapper.BooleanWrapper;
 import org.ow2.proactive.resourcemanager.common.util.RMProxyUserInterface;
 import org.ow2.proactive_grid_cloud_portal.RestTestServer;
 import org.ow2.proactive_grid_cloud_portal.common.SharedSessionStoreTestUtils;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.DsType;
-import org.rrd4j.core.RrdDb;
-import org.rrd4j.core.RrdDef;
-import org.rrd4j.core.Sample;
 
 
 public class RMRestTest extends RestTestServer {
@@ -93,39 +86,20 @@ public class RMRestTest extends RestTestServer {
         RMProxyUserInterface rmMock = mock(RMProxyUserInterface.class);
         String sessionId = SharedSessionStoreTestUtils.createValidSession(rmMock);
 
-        AttributeList value = new AttributeList(Collections.singletonList(new Attribute("test",
-                                                                                        createRrdDb().getBytes())));
-        when(rmMock.getMBeanAttributes(Matchers.<ObjectName> any(), Matchers.<String[]> any())).thenReturn(value);
+        HashMap<String, double[]> history = new HashMap<>();
+        for (String dataSource : RMRest.dataSources) {
+            history.put(dataSource, new double[] { EXPECTED_RRD_VALUE, Double.NaN });
+        }
+        when(rmMock.invokeMBeanOperation(Matchers.<ObjectName> any(),
+                                         anyString(),
+                                         Matchers.<Object[]> any(),
+                                         Matchers.<String[]> any())).thenReturn(history);
         RMRestInterface client = ProxyFactory.create(RMRestInterface.class, "http://localhost:" + port + "/");
 
         String statHistory = client.getStatHistory(sessionId, "hhhhh");
         return (JSONObject) new JSONParser().parse(statHistory);
     }
 
-    private RrdDb createRrdDb() throws IOException {
-        final long start = (System.currentTimeMillis() - 10000) / 1000;
-        final long end = System.currentTimeMillis() / 1000;
-
-        RrdDef rrdDef = new RrdDef("testDB", start - 1, 300);
-        for (String dataSource : RMRest.dataSources) {
-            rrdDef.addDatasource(dataSource, DsType.GAUGE, 600, 0, Double.NaN);
-        }
-        rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 1, 150);
-        RrdDb rrdDb = new RrdDb(rrdDef, org.rrd4j.core.RrdBackendFactory.getFactory("MEMORY"));
-        Sample sample = rrdDb.createSample();
-
-        long time = start;
-        while (time <= end + 172800L) {
-            sample.setTime(time);
-            for (String dataSource : RMRest.dataSources) {
-                sample.setValue(dataSource, 1.042);
-            }
-            sample.update();
-            time += new Random().nextDouble() * 300 + 1;
-        }
-        return rrdDb;
-    }
-
     @Test
     public void testShutdown_NoPreemptParameter() throws Exception {
         RMProxyUserInterface rm = mock(RMProxyUserInterface.class);
@@ -27,21 +27,33 @@ package org.ow2.proactive_grid_cloud_portal.scheduler;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Collections;
 
+import javax.ws.rs.core.Response;
+
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.ow2.proactive.scheduler.common.task.SimpleTaskLogs;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.util.SchedulerProxyUserInterface;
 import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
 import org.ow2.proactive.scheduler.job.JobIdImpl;
@@ -154,6 +166,79 @@ public class SchedulerStateRestJobLogsTest {
         assertEquals("1032", IOUtils.toString(fullLogs));
     }
 
+    @Test
+    public void task_full_logs_range() throws Exception {
+        InternalTaskFlowJob jobState = new InternalTaskFlowJob();
+        InternalScriptTask task = new InternalScriptTask(jobState);
+        task.setName("task");
+        task.setPreciousLogs(true);
+        jobState.addTask(task);
+
+        File logFolder = tempFolder.newFolder("0");
+        File logFile = new File(logFolder, "TaskLogs-0-0.log");
+        FileUtils.write(logFile, "0123456789", Charset.defaultCharset());
+
+        when(mockScheduler.getJobState("0")).thenReturn(jobState);
+        when(mockScheduler.getUserSpaceURIs()).thenReturn(Collections.singletonList(logFolder.getParent()));
+        when(mockScheduler.getGlobalSpaceURIs()).thenReturn(Collections.singletonList(logFolder.getParent()));
+
+        Response fullLogs = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, null);
+        assertEquals(200, fullLogs.getStatus());
+        assertEquals("0123456789", entityAsString(fullLogs));
+
+        Response partialLogs = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, "bytes=2-5");
+        assertEquals(206, partialLogs.getStatus());
+        assertEquals("bytes 2-5/10", partialLogs.getHeaderString("Content-Range"));
+        assertEquals("2345", entityAsString(partialLogs));
+
+        Response lastLogs = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, "bytes=-3");
+        assertEquals(206, lastLogs.getStatus());
+        assertEquals("789", entityAsString(lastLogs));
+
+        Response outOfRange = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, "bytes=20-");
+        assertEquals(416, outOfRange.getStatus());
+        assertEquals("bytes */10", outOfRange.getHeaderString("Content-Range"));
+    }
+
+    @Test
+    public void task_full_logs_range_from_database() throws Exception {
+        InternalTaskFlowJob jobState = new InternalTaskFlowJob();
+        InternalScriptTask task = new InternalScriptTask(jobState);
+        task.setName("task");
+        jobState.addTask(task);
+
+        when(mockScheduler.getJobState("0")).thenReturn(jobState);
+        Answer<TaskLogsRange> logsRange = new Answer<TaskLogsRange>() {
+            @Override
+            public TaskLogsRange answer(InvocationOnMock invocation) throws Throwable {
+                return TaskLogsRange.of("0123456789",
+                                        (Long) invocation.getArguments()[2],
+                                        (Integer) invocation.getArguments()[3]);
+            }
+        };
+        when(mockScheduler.getTaskLogsRange(eq("0"), eq("task"), anyLong(), anyInt())).thenAnswer(logsRange);
+
+        Response fullLogs = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, null);
+        assertEquals(200, fullLogs.getStatus());
+        assertEquals("0123456789", entityAsString(fullLogs));
+
+        Response partialLogs = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, "bytes=2-5");
+        assertEquals(206, partialLogs.getStatus());
+        assertEquals("bytes 2-5/10", partialLogs.getHeaderString("Content-Range"));
+        assertEquals("2345", entityAsString(partialLogs));
+        verify(mockScheduler).getTaskLogsRange("0", "task", 2, 4);
+
+        Response outOfRange = restScheduler.taskFullLogs(validSessionId, "0", "task", validSessionId, "bytes=20-");
+        assertEquals(416, outOfRange.getStatus());
+        assertEquals("bytes */10", outOfRange.getHeaderString("Content-Range"));
+
+        verify(mockScheduler, never()).getTaskResult(anyString(), anyString());
+    }
+
+    private static String entityAsString(Response response) throws IOException {
+        return IOUtils.toString((InputStream) response.getEntity(), Charset.defaultCharset());
+    }
+
     private static void addTask(InternalTaskFlowJob jobState, long finishedTime, long id) {
         InternalScriptTask task = new InternalScriptTask(jobState);
         task.setPreciousLogs(true);
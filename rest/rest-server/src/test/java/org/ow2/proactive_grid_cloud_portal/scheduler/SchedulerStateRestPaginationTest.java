@@ -45,6 +45,7 @@ import org.ow2.proactive_grid_cloud_portal.common.SchedulerRestInterface;
 import org.ow2.proactive_grid_cloud_portal.common.SharedSessionStoreTestUtils;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.RestPage;
 import org.ow2.proactive_grid_cloud_portal.scheduler.dto.TaskStateData;
+import org.ow2.proactive_grid_cloud_portal.scheduler.exception.BadRequestRestException;
 
 
 /**
@@ -123,6 +124,16 @@ public class SchedulerStateRestPaginationTest extends RestTestServer {
 
     }
 
+    @Test(expected = BadRequestRestException.class)
+    public void testGetJobsAfterAMalformedCursor() throws Throwable {
+        restInterface.jobsInfoAfter(sessionId, "garbage", 10, false, true, true, true);
+    }
+
+    @Test(expected = BadRequestRestException.class)
+    public void testGetTaskStatesAfterAMalformedCursor() throws Throwable {
+        restInterface.getTaskStatesAfter(sessionId, "12_garbage", 10, null, 0, 0, false, true, true, true);
+    }
+
     private JobState newMockedJob(final String jobIdStr, final int nbTasks) {
         JobState mockedJob = mock(JobState.class);
         JobId mockedJobId = mock(JobId.class);
@@ -0,0 +1,166 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive_grid_cloud_portal.scheduler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.ow2.proactive.scheduler.common.Scheduler;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+
+
+public class TaskResultValueInputStreamTest {
+
+    private Scheduler scheduler;
+
+    private final Map<Long, byte[]> results = new HashMap<>();
+
+    private long lastResultId;
+
+    @Before
+    public void setUp() {
+        scheduler = mock(Scheduler.class);
+    }
+
+    @Test
+    public void no_result_value() throws Exception {
+        when(scheduler.getTaskResultSerializedValue("42",
+                                                    "task",
+                                                    TaskResultValueRange.LAST_RESULT,
+                                                    0,
+                                                    4)).thenReturn(null);
+
+        assertNull(TaskResultValueInputStream.open(scheduler, "42", "task", 4));
+    }
+
+    @Test
+    public void value_is_read_chunk_by_chunk() throws Exception {
+        byte[] value = new byte[10];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) i;
+        }
+        storeValue(value);
+
+        byte[] read = IOUtils.toByteArray(TaskResultValueInputStream.open(scheduler, "42", "task", 4));
+
+        assertArrayEquals(value, read);
+        verify(scheduler, times(3)).getTaskResultSerializedValue(eq("42"),
+                                                                 eq("task"),
+                                                                 anyLong(),
+                                                                 anyLong(),
+                                                                 eq(4));
+    }
+
+    @Test
+    public void value_of_chunk_size_multiple_length() throws Exception {
+        byte[] value = new byte[8];
+        Arrays.fill(value, (byte) 1);
+        storeValue(value);
+
+        byte[] read = IOUtils.toByteArray(TaskResultValueInputStream.open(scheduler, "42", "task", 4));
+
+        assertArrayEquals(value, read);
+        verify(scheduler, times(3)).getTaskResultSerializedValue(eq("42"),
+                                                                 eq("task"),
+                                                                 anyLong(),
+                                                                 anyLong(),
+                                                                 eq(4));
+    }
+
+    @Test
+    public void chunks_are_read_from_the_first_result() throws Exception {
+        byte[] firstValue = new byte[10];
+        Arrays.fill(firstValue, (byte) 1);
+        byte[] newValue = new byte[10];
+        Arrays.fill(newValue, (byte) 2);
+        storeValue(firstValue);
+
+        TaskResultValueInputStream stream = TaskResultValueInputStream.open(scheduler, "42", "task", 4);
+        // the task is re-executed during the transfer
+        results.put(2L, newValue);
+        lastResultId = 2L;
+
+        assertArrayEquals(firstValue, IOUtils.toByteArray(stream));
+        verify(scheduler, times(2)).getTaskResultSerializedValue(eq("42"), eq("task"), eq(1L), anyLong(), eq(4));
+    }
+
+    @Test(expected = IOException.class)
+    public void result_removed_during_the_transfer() throws Exception {
+        storeValue(new byte[10]);
+
+        TaskResultValueInputStream stream = TaskResultValueInputStream.open(scheduler, "42", "task", 4);
+        results.clear();
+
+        IOUtils.toByteArray(stream);
+    }
+
+    private void storeValue(final byte[] value) throws Exception {
+        results.put(1L, value);
+        lastResultId = 1L;
+        Answer<TaskResultValueRange> readRange = new Answer<TaskResultValueRange>() {
+            @Override
+            public TaskResultValueRange answer(InvocationOnMock invocation) throws Throwable {
+                long resultId = (Long) invocation.getArguments()[2];
+                long offset = (Long) invocation.getArguments()[3];
+                int length = (Integer) invocation.getArguments()[4];
+                if (resultId == TaskResultValueRange.LAST_RESULT) {
+                    resultId = lastResultId;
+                }
+                byte[] value = results.get(resultId);
+                if (value == null) {
+                    return null;
+                }
+                int from = (int) Math.min(offset, value.length);
+                return new TaskResultValueRange(resultId,
+                                                offset,
+                                                Arrays.copyOfRange(value, from, Math.min(from + length, value.length)));
+            }
+        };
+        when(scheduler.getTaskResultSerializedValue(eq("42"),
+                                                    eq("task"),
+                                                    anyLong(),
+                                                    anyLong(),
+                                                    anyInt())).thenAnswer(readRange);
+    }
+
+}
@@ -27,6 +27,7 @@ package org.ow2.proactive_grid_cloud_portal.webapp;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,8 +41,12 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.ow2.proactive.scheduler.common.util.SchedulerProxyUserInterface;
 import org.ow2.proactive_grid_cloud_portal.RestTestServer;
+import org.ow2.proactive_grid_cloud_portal.common.SharedSessionStoreTestUtils;
 import org.ow2.proactive_grid_cloud_portal.common.exceptionmapper.ExceptionToJson;
+import org.ow2.proactive_grid_cloud_portal.scheduler.SchedulerStateRest;
+import org.ow2.proactive_grid_cloud_portal.scheduler.exception.BadRequestRestException;
 
 
 public class RestRuntimeExceptionMappingTest extends RestTestServer {
@@ -49,6 +54,7 @@ public class RestRuntimeExceptionMappingTest extends RestTestServer {
     @BeforeClass
     public static void setUpRest() throws Exception {
         new RestRuntime().addExceptionMappers(ResteasyProviderFactory.getInstance());
+        addResource(new SchedulerStateRest());
     }
 
     @Test
@@ -65,6 +71,21 @@ public class RestRuntimeExceptionMappingTest extends RestTestServer {
         assertNotNull(exception.getStackTrace());
     }
 
+    @Test
+    public void malformed_page_cursor_400_exception() throws Exception {
+        String sessionId = SharedSessionStoreTestUtils.createValidSession(mock(SchedulerProxyUserInterface.class));
+        GetMethod jobsPage = new GetMethod("http://localhost:" + port + "/" +
+                                           "scheduler/jobsinfo/cursor?cursor=garbage");
+        jobsPage.addRequestHeader("sessionid", sessionId);
+
+        new HttpClient().executeMethod(jobsPage);
+        ExceptionToJson exception = readResponse(jobsPage);
+
+        assertEquals(400, jobsPage.getStatusCode());
+        assertEquals(400, exception.getHttpErrorCode());
+        assertEquals(BadRequestRestException.class.getName(), exception.getExceptionClass());
+    }
+
     private ExceptionToJson readResponse(GetMethod httpGetMethod) throws IOException {
         ObjectMapper jsonMapper = new ObjectMapper();
         jsonMapper.configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
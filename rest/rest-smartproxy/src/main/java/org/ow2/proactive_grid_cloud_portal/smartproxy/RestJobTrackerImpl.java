@@ -148,19 +148,8 @@ public class RestJobTrackerImpl extends JobTracker {
             }
         }
 
-        awaitedJob.removeAwaitedTask(taskName);
-
-        if (awaitedJob.getAwaitedTasks().isEmpty()) {
+        if (jobDatabase.removeAwaitedTask(id, taskName)) {
             removeAwaitedJob(id);
-            return;
-        } else {
-            jobDatabase.putAwaitedJob(id, awaitedJob); // this is done to ensure persistence of the operation
-        }
-
-        try {
-            jobDatabase.commit();
-        } catch (IOException e) {
-            logger.error("Could not save status file after removing task Task " + taskName + " from Job" + id, e);
         }
     }
 
@@ -28,17 +28,34 @@ package org.ow2.proactive_grid_cloud_portal.smartproxy;
 import static org.ow2.proactive.scheduler.rest.ds.IDataSpaceClient.Dataspace.USER;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.HttpHeaders;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.extensions.dataspaces.vfs.selector.FileSelector;
 import org.ow2.proactive.authentication.ConnectionInfo;
 import org.ow2.proactive.authentication.UserData;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.SchedulerConstants;
 import org.ow2.proactive.scheduler.common.SchedulerEvent;
 import org.ow2.proactive.scheduler.common.SchedulerEventListener;
@@ -59,6 +76,7 @@ import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
 import org.ow2.proactive.scheduler.common.task.Task;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.task.dataspaces.InputSelector;
 import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
@@ -79,6 +97,8 @@ import org.ow2.proactive_grid_cloud_portal.common.FileType;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 
 
 /**
@@ -96,6 +116,8 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
 
     private static final Logger logger = Logger.getLogger(RestSmartProxyImpl.class);
 
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
     private ISchedulerClient restSchedulerClient;
 
     private IDataSpaceClient restDataSpaceClient;
@@ -123,6 +145,7 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
             super.jobTracker.setRestDataSpaceClient(this.restDataSpaceClient);
 
             this.jobTracker.loadJobs();
+            this.jobTracker.resetTransferringTasks();
 
             setInitialized(true);
 
@@ -325,8 +348,10 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
         String jname = job.getName();
         logger.debug("Pushing files for job " + jname + " from " + localInputFolderPath + " to " + remotePath);
         TaskFlowJob tfj = job;
+        // tasks often share the same input files, each distinct selection is pushed once. Selections may
+        // overlap, so they are pushed one after the other to never write the same remote file concurrently
+        Set<List<List<String>>> selections = new HashSet<>();
         for (Task t : tfj.getTasks()) {
-            logger.debug("Pushing files for task " + t.getName());
             List<String> includes = Lists.newArrayList();
             List<String> excludes = Lists.newArrayList();
 
@@ -338,6 +363,12 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
                 }
             }
 
+            if (!selections.add(Arrays.asList(includes, excludes))) {
+                logger.debug("Files for task " + t.getName() + " are already pushed");
+                continue;
+            }
+            logger.debug("Pushing files for task " + t.getName());
+
             LocalDirSource source = new LocalDirSource(localInputFolderPath);
             source.setIncludes(includes);
             source.setExcludes(excludes);
@@ -390,17 +421,18 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
 
         jobTracker.setTaskTransferring(jobId, taskName, true);
 
+        TaskOutputDownload download = new TaskOutputDownload(awaitedjob,
+                                                              atask,
+                                                              sourceFile,
+                                                              includes,
+                                                              excludes,
+                                                              localFolder);
         if (awaitedjob.isAutomaticTransfer()) {
-            threadPool.submit(new DownloadHandler(jobId, taskName, sourceFile, includes, excludes, localFolder));
+            download.start();
         } else {
             try {
-                RemoteSource source = new RemoteSource(USER, sourceFile);
-                source.setIncludes(includes);
-                source.setExcludes(excludes);
-
-                File localDir = new File(localFolder);
-                LocalDestination dest = new LocalDestination(localDir);
-                restDataSpaceClient.download(source, dest);
+                download.start();
+                getTransferResult(download.completion);
             } catch (NotConnectedException | PermissionException e) {
                 logger.error(String.format("Cannot download files, jobId=%s, taskId=%s, source=%s, destination=%s",
                                            jobId,
@@ -519,43 +551,196 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
         return ((ISchedulerClient) _getScheduler()).deleteFile(space, pathname);
     }
 
-    private class DownloadHandler implements Runnable {
+    private static <V> V getTransferResult(Future<V> transfer) throws NotConnectedException, PermissionException {
+        try {
+            return transfer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), NotConnectedException.class);
+            Throwables.propagateIfInstanceOf(e.getCause(), PermissionException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
 
-        private String jobId;
+    private static long parseLength(String contentLength) {
+        try {
+            return contentLength == null ? -1 : Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 
-        private String taskName;
+    private static long parseDate(String httpDate) {
+        if (httpDate == null) {
+            return -1;
+        }
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(httpDate).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
 
-        private String sourceFile;
+    /**
+     * Download of the output files of a task. When the output files are selected, they are listed first
+     * and transferred one by one in parallel by the transfer engine, otherwise the output folder is
+     * downloaded as a whole.
+     * <p>
+     * Each transferred file is recorded in the job database. A download interrupted by the termination of
+     * the proxy is resumed at the next initialization and skips the files recorded as transferred. Local
+     * files having the size and modification date of their remote counterpart are not transferred again.
+     */
+    private class TaskOutputDownload {
 
-        private List<String> includes;
+        private final String jobId;
 
-        private List<String> excludes;
+        private final String taskName;
 
-        private String localFolder;
+        private final int priority;
 
-        public DownloadHandler(String jobId, String taskName, String sourceFile, List<String> includes,
+        private final Set<String> transferredFiles;
+
+        private final String sourceFile;
+
+        private final List<String> includes;
+
+        private final List<String> excludes;
+
+        private final String localFolder;
+
+        private final SettableFuture<Void> completion = SettableFuture.create();
+
+        private final AtomicInteger remainingFiles = new AtomicInteger();
+
+        TaskOutputDownload(AwaitedJob awaitedJob, AwaitedTask awaitedTask, String sourceFile, List<String> includes,
                 List<String> excludes, String localFolder) {
-            this.jobId = jobId;
-            this.taskName = taskName;
+            this.jobId = awaitedJob.getJobId();
+            this.taskName = awaitedTask.getTaskName();
+            this.priority = awaitedJob.getTransferPriority();
+            this.transferredFiles = new HashSet<>(awaitedTask.getTransferredFiles());
             this.sourceFile = sourceFile;
             this.includes = includes;
             this.excludes = excludes;
             this.localFolder = localFolder;
+            if (awaitedJob.isAutomaticTransfer()) {
+                completion.addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        notifyCompletion();
+                    }
+                }, MoreExecutors.directExecutor());
+            }
         }
 
-        @Override
-        public void run() {
-            try {
+        void start() {
+            transferEngine.submit(jobId, priority, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        submitTransfers();
+                    } catch (Throwable error) {
+                        completion.setException(error);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        private void submitTransfers() throws NotConnectedException, PermissionException {
+            if (includes.isEmpty()) {
                 RemoteSource source = new RemoteSource(USER, sourceFile);
-                source.setIncludes(includes);
                 source.setExcludes(excludes);
+                restDataSpaceClient.download(source, new LocalDestination(new File(localFolder)));
+                completion.set(null);
+                return;
+            }
 
-                File localDir = new File(localFolder);
-                LocalDestination dest = new LocalDestination(localDir);
+            RemoteSource source = new RemoteSource(USER, sourceFile);
+            source.setIncludes(includes);
+            source.setExcludes(excludes);
+            List<String> files = restDataSpaceClient.list(source).getFileListing();
+            if (files == null || files.isEmpty()) {
+                completion.set(null);
+                return;
+            }
+
+            remainingFiles.set(files.size());
+            for (final String file : files) {
+                transferEngine.submit(jobId, priority, new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        if (completion.isDone()) {
+                            return null;
+                        }
+                        try {
+                            transferFile(file);
+                            if (remainingFiles.decrementAndGet() == 0) {
+                                completion.set(null);
+                            }
+                        } catch (Throwable error) {
+                            completion.setException(error);
+                        }
+                        return null;
+                    }
+                });
+            }
+        }
+
+        private void transferFile(String relativePath) throws NotConnectedException, PermissionException, IOException {
+            File target = new File(localFolder, relativePath);
+            if (transferredFiles.contains(relativePath) && target.isFile()) {
+                logger.debug("File " + relativePath + " of task " + taskName + " from job " + jobId +
+                             " already transferred");
+                return;
+            }
+
+            RemoteSource source = new RemoteSource(USER, sourceFile + "/" + relativePath);
+            Map<String, String> metadata = restDataSpaceClient.metadata(source);
+            long length = parseLength(metadata.get(HttpHeaders.CONTENT_LENGTH));
+            long lastModified = parseDate(metadata.get(HttpHeaders.LAST_MODIFIED));
+
+            // HTTP dates have a precision of one second
+            if (length >= 0 && lastModified > 0 && target.isFile() && target.length() == length &&
+                target.lastModified() / 1000 == lastModified / 1000) {
+                logger.debug("File " + target + " is up to date");
+            } else {
+                File folder = target.getParentFile();
+                if (!folder.isDirectory() && !folder.mkdirs() && !folder.isDirectory()) {
+                    throw new IOException("Cannot create folder " + folder);
+                }
+                File part = File.createTempFile(target.getName(), ".part", folder);
+                try {
+                    restDataSpaceClient.download(source, new LocalDestination(part));
+                    Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    if (part.exists() && !part.delete()) {
+                        logger.debug("Could not delete " + part);
+                    }
+                }
+                if (lastModified > 0 && !target.setLastModified(lastModified)) {
+                    logger.debug("Could not set the modification date of " + target);
+                }
+            }
+            jobTracker.setFileTransferred(jobId, taskName, relativePath);
+        }
 
-                restDataSpaceClient.download(source, dest);
-            } catch (Throwable error) {
+        private void notifyCompletion() {
+            Throwable error = null;
+            try {
+                completion.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            } catch (ExecutionException e) {
+                error = e.getCause();
+            }
 
+            Iterator<SchedulerEventListenerExtended> it = eventListeners.iterator();
+            if (error != null) {
                 logger.error(String.format("Cannot download output files: job_id=%s, task_name=%s, source=%s, destination=%s",
                                            jobId,
                                            taskName,
@@ -566,7 +751,6 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
                                           jobId,
                                           taskName,
                                           sourceFile));
-                Iterator<SchedulerEventListenerExtended> it = eventListeners.iterator();
                 while (it.hasNext()) {
                     SchedulerEventListenerExtended l = it.next();
                     try {
@@ -576,18 +760,15 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
                         it.remove();
                     }
                 }
-                removeAwaitedTask(jobId, taskName);
-                return;
-            }
-
-            Iterator<SchedulerEventListenerExtended> it = eventListeners.iterator();
-            while (it.hasNext()) {
-                SchedulerEventListenerExtended l = it.next();
-                try {
-                    l.pullDataFinished(jobId, taskName, localFolder);
-                } catch (Exception e1) {
-                    // if an exception occurs we remove the listener
-                    it.remove();
+            } else {
+                while (it.hasNext()) {
+                    SchedulerEventListenerExtended l = it.next();
+                    try {
+                        l.pullDataFinished(jobId, taskName, localFolder);
+                    } catch (Exception e1) {
+                        // if an exception occurs we remove the listener
+                        it.remove();
+                    }
                 }
             }
             removeAwaitedTask(jobId, taskName);
@@ -617,11 +798,24 @@ public class RestSmartProxyImpl extends AbstractSmartProxy<RestJobTrackerImpl>
                                              sortParams);
     }
 
+    @Override
+    public Page<TaskState> getTaskStates(String taskTag, long from, long to, boolean mytasks, boolean running,
+            boolean pending, boolean finished, PageCursor after, int limit)
+            throws NotConnectedException, PermissionException {
+        return _getScheduler().getTaskStates(taskTag, from, to, mytasks, running, pending, finished, after, limit);
+    }
+
     @Override
     public JobInfo getJobInfo(String jobId) throws UnknownJobException, NotConnectedException, PermissionException {
         return _getScheduler().getJobInfo(jobId);
     }
 
+    @Override
+    public TaskRuntimePrediction getTaskRuntimePrediction(String jobName, String taskName)
+            throws NotConnectedException, PermissionException {
+        return _getScheduler().getTaskRuntimePrediction(jobName, taskName);
+    }
+
     @Override
     public boolean changeStartAt(JobId jobId, String startAt)
             throws NotConnectedException, UnknownJobException, PermissionException {
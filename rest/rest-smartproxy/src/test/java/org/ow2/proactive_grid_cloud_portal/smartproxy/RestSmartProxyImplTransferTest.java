@@ -0,0 +1,243 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive_grid_cloud_portal.smartproxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.objectweb.proactive.extensions.dataspaces.vfs.selector.FileSelector;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputAccessMode;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
+import org.ow2.proactive.scheduler.rest.ds.IDataSpaceClient;
+import org.ow2.proactive.scheduler.rest.ds.ILocalDestination;
+import org.ow2.proactive.scheduler.rest.ds.IRemoteSource;
+import org.ow2.proactive.scheduler.smartproxy.common.AwaitedJob;
+import org.ow2.proactive.scheduler.smartproxy.common.AwaitedTask;
+import org.ow2.proactive_grid_cloud_portal.dataspace.dto.ListFile;
+
+
+/**
+ * Checks that the download of the output files of a task skips the files already transferred,
+ * either recorded as such by an interrupted transfer or identical to their remote counterpart.
+ */
+public class RestSmartProxyImplTransferTest {
+
+    private static final String USER_SPACE = "file:/userspace";
+
+    private static final String JOB_ID = "1";
+
+    private static final String TASK_NAME = "task";
+
+    private static final String SOURCE_FOLDER = "job1/output";
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private RestJobTrackerImpl jobTracker;
+
+    private IDataSpaceClient dataSpaceClient;
+
+    private RestSmartProxyImpl proxy;
+
+    private AwaitedJob awaitedJob;
+
+    private AwaitedTask awaitedTask;
+
+    private File localFolder;
+
+    private final Map<String, Map<String, String>> remoteMetadata = new HashMap<>();
+
+    private final List<String> downloadedFiles = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws Exception {
+        localFolder = tmpFolder.newFolder("output");
+        jobTracker = mock(RestJobTrackerImpl.class);
+        dataSpaceClient = mock(IDataSpaceClient.class);
+
+        proxy = new RestSmartProxyImpl() {
+            {
+                jobTracker = RestSmartProxyImplTransferTest.this.jobTracker;
+                setInitialized(true);
+            }
+
+            @Override
+            public List<String> getUserSpaceURIs() {
+                return Collections.singletonList(USER_SPACE);
+            }
+        };
+        Field restDataSpaceClient = RestSmartProxyImpl.class.getDeclaredField("restDataSpaceClient");
+        restDataSpaceClient.setAccessible(true);
+        restDataSpaceClient.set(proxy, dataSpaceClient);
+
+        awaitedTask = new AwaitedTask(TASK_NAME,
+                                      Collections.singletonList(new OutputSelector(new FileSelector("*.txt"),
+                                                                                   OutputAccessMode.TransferToOutputSpace)));
+        HashMap<String, AwaitedTask> awaitedTasks = new HashMap<>();
+        awaitedTasks.put(TASK_NAME, awaitedTask);
+        awaitedJob = new AwaitedJob(JOB_ID,
+                                    null,
+                                    null,
+                                    null,
+                                    localFolder.getAbsolutePath(),
+                                    USER_SPACE + "/" + SOURCE_FOLDER,
+                                    USER_SPACE + "/" + SOURCE_FOLDER,
+                                    false,
+                                    false,
+                                    awaitedTasks);
+
+        when(dataSpaceClient.metadata(any(IRemoteSource.class))).thenAnswer(new Answer<Map<String, String>>() {
+            @Override
+            public Map<String, String> answer(InvocationOnMock invocation) {
+                String path = ((IRemoteSource) invocation.getArguments()[0]).getPath();
+                Map<String, String> metadata = remoteMetadata.get(path);
+                return metadata == null ? new HashMap<String, String>() : metadata;
+            }
+        });
+        doAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                downloadedFiles.add(((IRemoteSource) invocation.getArguments()[0]).getPath());
+                return true;
+            }
+        }).when(dataSpaceClient).download(any(IRemoteSource.class), any(ILocalDestination.class));
+    }
+
+    @After
+    public void tearDown() {
+        proxy.terminate();
+    }
+
+    @Test
+    public void interrupted_transfer_is_resumed() throws Exception {
+        remoteFiles("a.txt", "b.txt");
+        localFile("a.txt", "content");
+        awaitedTask.addTransferredFile("a.txt");
+
+        proxy.downloadTaskOutputFiles(awaitedJob, JOB_ID, TASK_NAME, localFolder.getAbsolutePath());
+
+        assertEquals(Collections.singletonList(SOURCE_FOLDER + "/b.txt"), downloadedFiles);
+        assertTrue(new File(localFolder, "b.txt").isFile());
+        verify(jobTracker, never()).setFileTransferred(JOB_ID, TASK_NAME, "a.txt");
+        verify(jobTracker).setFileTransferred(JOB_ID, TASK_NAME, "b.txt");
+        verify(jobTracker).removeAwaitedTask(JOB_ID, TASK_NAME);
+    }
+
+    @Test
+    public void transferred_file_deleted_locally_is_transferred_again() throws Exception {
+        remoteFiles("a.txt", "b.txt");
+        awaitedTask.addTransferredFile("a.txt");
+
+        proxy.downloadTaskOutputFiles(awaitedJob, JOB_ID, TASK_NAME, localFolder.getAbsolutePath());
+
+        assertEquals(Arrays.asList(SOURCE_FOLDER + "/a.txt", SOURCE_FOLDER + "/b.txt"), sortedDownloadedFiles());
+        verify(jobTracker).setFileTransferred(JOB_ID, TASK_NAME, "a.txt");
+        verify(jobTracker).setFileTransferred(JOB_ID, TASK_NAME, "b.txt");
+    }
+
+    @Test
+    public void local_file_identical_to_the_remote_file_is_not_transferred() throws Exception {
+        remoteFiles("a.txt", "b.txt");
+        File local = localFile("a.txt", "content");
+        remoteMetadata(SOURCE_FOLDER + "/a.txt", local.length(), local.lastModified());
+
+        proxy.downloadTaskOutputFiles(awaitedJob, JOB_ID, TASK_NAME, localFolder.getAbsolutePath());
+
+        assertEquals(Collections.singletonList(SOURCE_FOLDER + "/b.txt"), downloadedFiles);
+        // the file is recorded as transferred, so that it is not checked again
+        verify(jobTracker).setFileTransferred(JOB_ID, TASK_NAME, "a.txt");
+        verify(jobTracker).setFileTransferred(JOB_ID, TASK_NAME, "b.txt");
+    }
+
+    @Test
+    public void local_file_different_from_the_remote_file_is_transferred() throws Exception {
+        remoteFiles("a.txt");
+        File local = localFile("a.txt", "content");
+        remoteMetadata(SOURCE_FOLDER + "/a.txt", local.length() + 1, local.lastModified());
+
+        proxy.downloadTaskOutputFiles(awaitedJob, JOB_ID, TASK_NAME, localFolder.getAbsolutePath());
+
+        assertEquals(Collections.singletonList(SOURCE_FOLDER + "/a.txt"), downloadedFiles);
+        verify(jobTracker).setFileTransferred(JOB_ID, TASK_NAME, "a.txt");
+    }
+
+    private void remoteFiles(String... names) throws Exception {
+        ListFile listing = new ListFile();
+        listing.setFileListing(Arrays.asList(names));
+        when(dataSpaceClient.list(any(IRemoteSource.class))).thenReturn(listing);
+    }
+
+    private void remoteMetadata(String path, long length, long lastModified) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
+        metadata.put(HttpHeaders.LAST_MODIFIED, format.format(lastModified));
+        remoteMetadata.put(path, metadata);
+    }
+
+    private File localFile(String name, String content) throws Exception {
+        File file = new File(localFolder, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private List<String> sortedDownloadedFiles() {
+        List<String> files = new ArrayList<>(downloadedFiles);
+        Collections.sort(files);
+        return files;
+    }
+
+}
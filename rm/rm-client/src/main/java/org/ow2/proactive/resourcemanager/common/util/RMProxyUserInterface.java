@@ -364,6 +364,23 @@ public class RMProxyUserInterface extends RMListenerProxy implements ResourceMan
         return this.jmxClient.getConnector().getMBeanServerConnection().getAttributes(name, attributes);
     }
 
+    /**
+     * Invokes an operation of the MBean with the name <code>name</code>
+     * @param name the object name of the mbean
+     * @param operationName the name of the operation
+     * @param params the parameters of the operation
+     * @param signature the class names of the parameters
+     * @return the result of the operation
+     * @throws InstanceNotFoundException
+     * @throws MBeanException
+     * @throws ReflectionException
+     * @throws IOException
+     */
+    public Object invokeMBeanOperation(ObjectName name, String operationName, Object[] params, String[] signature)
+            throws InstanceNotFoundException, MBeanException, ReflectionException, IOException {
+        return this.jmxClient.getConnector().getMBeanServerConnection().invoke(name, operationName, params, signature);
+    }
+
     /**
      * Set a single JMX attribute of the MBean <code>objectName</code>.
      * Only integer and string attributes are currently supported, see <code>type</code>.
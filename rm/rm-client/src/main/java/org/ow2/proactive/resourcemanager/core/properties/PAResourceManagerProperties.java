@@ -147,6 +147,9 @@ public enum PAResourceManagerProperties implements PACommonProperties {
     /** RRD data base step in seconds */
     RM_RRD_STEP("pa.rm.jmx.rrd.step", PropertyType.INTEGER, "4"),
 
+    /** Archives of a new RRD data base, as a comma separated list of steps:rows */
+    RM_RRD_ARCHIVES("pa.rm.jmx.rrd.archives", PropertyType.STRING, "1:150,5:180,10:360,20:360,30:720,210:720,840:720,10920:720"),
+
     /** Resource Manager node source infrastructures file*/
     RM_NODESOURCE_INFRASTRUCTURE_FILE("pa.rm.nodesource.infrastructures", PropertyType.STRING, "config/rm/nodesource/infrastructures"),
 
@@ -162,6 +165,15 @@ public enum PAResourceManagerProperties implements PACommonProperties {
     /** Max number of threads in node source for parallel task execution */
     RM_NODESOURCE_MAX_THREAD_NUMBER("pa.rm.nodesource.maxthreadnumber", PropertyType.INTEGER, "50"),
 
+    /** Max number of hosts a hosts file based infrastructure deploys nodes on at the same time */
+    RM_NODESOURCE_DEPLOYMENT_MAX_CONCURRENCY("pa.rm.nodesource.deployment.maxconcurrency", PropertyType.INTEGER, "20"),
+
+    /** Max number of deployment channels multiplexed over one pooled ssh session */
+    RM_NODESOURCE_SSH_CHANNELS_PER_SESSION("pa.rm.nodesource.ssh.channels.per.session", PropertyType.INTEGER, "8"),
+
+    /** Time in ms after which an unused pooled ssh session is closed */
+    RM_NODESOURCE_SSH_SESSION_IDLE_TIMEOUT("pa.rm.nodesource.ssh.session.idle.timeout", PropertyType.INTEGER, "300000"),
+
     /** The full class name of the policy selected nodes */
     RM_SELECTION_POLICY("pa.rm.selection.policy", PropertyType.STRING, "org.ow2.proactive.resourcemanager.selection.policies.ShufflePolicy"),
 
@@ -220,6 +232,9 @@ public enum PAResourceManagerProperties implements PACommonProperties {
      **/
     RM_TOPOLOGY_DISTANCE_ENABLED("pa.rm.topology.distance.enabled", PropertyType.BOOLEAN, "false"),
 
+    /** Max number of threads measuring the distances of new hosts in parallel */
+    RM_TOPOLOGY_DISTANCE_MAX_THREAD_NUMBER("pa.rm.topology.distance.maxthreadnumber", PropertyType.INTEGER, "10"),
+
     RM_TOPOLOGY_PINGER(
             "pa.rm.topology.pinger.class",
             PropertyType.STRING,
@@ -293,6 +308,13 @@ public enum PAResourceManagerProperties implements PACommonProperties {
      */
     RM_NODES_DB_SYNCHRONOUS_UPDATES("pa.rm.nodes.db.operations.update.synchronous", PropertyType.BOOLEAN, "true"),
 
+    /**
+     * Maximum number of nodes with pending database operations. When it is
+     * reached, the thread registering a new node operation flushes pending
+     * operations itself instead of delaying it.
+     */
+    RM_NODES_DB_OPERATIONS_QUEUE_CAPACITY("pa.rm.nodes.db.operations.queue.capacity", PropertyType.INTEGER, "1000"),
+
     /**
      * Defines whether all the resources of the deployed cloud instances
      * should be destroyed along with the nodes termination when the scheduler 
@@ -26,6 +26,8 @@
 package org.ow2.proactive.resourcemanager.frontend.topology;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,7 +39,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 import org.objectweb.proactive.core.node.Node;
 import org.ow2.proactive.resourcemanager.frontend.topology.clustering.Cluster;
-import org.ow2.proactive.resourcemanager.frontend.topology.clustering.HAC;
+import org.ow2.proactive.resourcemanager.frontend.topology.clustering.DistanceMatrix;
+import org.ow2.proactive.resourcemanager.frontend.topology.clustering.MatrixHAC;
 import org.ow2.proactive.topology.descriptor.DistanceFunction;
 
 
@@ -185,7 +188,22 @@ public class TopologyImpl implements Topology, Cloneable {
      * {@inheritDoc}
      */
     public List<Cluster<String>> clusterize(int numberOfClusters, DistanceFunction distanceFunction) {
-        HAC hac = new HAC(this, new LinkedList<Node>(), distanceFunction, Long.MAX_VALUE);
-        return hac.clusterize(numberOfClusters, hosts.keySet());
+        List<String> hostNames = new ArrayList<>(hosts.keySet());
+        List<List<String>> groups = new ArrayList<>(hostNames.size());
+        for (String hostName : hostNames) {
+            groups.add(Collections.singletonList(hostName));
+        }
+
+        MatrixHAC<String> hac = new MatrixHAC<>(DistanceMatrix.createFromNames(this, hostNames),
+                                                groups,
+                                                distanceFunction,
+                                                Long.MAX_VALUE);
+        List<Cluster<String>> clusters = new LinkedList<>();
+        for (List<String> elements : hac.clusterize(numberOfClusters)) {
+            Cluster<String> cluster = new Cluster<>(elements.get(0), elements.get(0));
+            cluster.add(elements.subList(1, elements.size()));
+            clusters.add(cluster);
+        }
+        return clusters;
     }
 }
@@ -0,0 +1,155 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.frontend.topology.clustering;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.List;
+
+import org.ow2.proactive.resourcemanager.frontend.topology.Topology;
+
+
+/**
+ * Symmetric matrix of distances between a fixed set of elements, stored as the
+ * lower half of the matrix in a single primitive array.
+ *
+ * Distances have the same meaning as in the {@link Topology}: negative values
+ * mean that elements are not connected, {@link Long#MAX_VALUE} that the distance is unknown.
+ *
+ */
+public class DistanceMatrix {
+
+    private final int size;
+
+    private final long[] distances;
+
+    public DistanceMatrix(int size) {
+        this.size = size;
+        this.distances = new long[size * (size - 1) / 2];
+    }
+
+    private DistanceMatrix(DistanceMatrix matrix) {
+        this.size = matrix.size;
+        this.distances = matrix.distances.clone();
+    }
+
+    /**
+     * Builds the matrix of distances between given hosts.
+     * Element i of the matrix corresponds to the i-th host of the list.
+     */
+    public static DistanceMatrix create(Topology topology, List<InetAddress> hosts) {
+        DistanceMatrix matrix = new DistanceMatrix(hosts.size());
+        for (int i = 1; i < hosts.size(); i++) {
+            InetAddress host = hosts.get(i);
+            for (int j = 0; j < i; j++) {
+                Long distance = topology.getDistance(host, hosts.get(j));
+                matrix.set(i, j, distance == null ? Long.MAX_VALUE : distance);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Builds the matrix of distances between given host names.
+     * Element i of the matrix corresponds to the i-th host of the list.
+     */
+    public static DistanceMatrix createFromNames(Topology topology, List<String> hostNames) {
+        DistanceMatrix matrix = new DistanceMatrix(hostNames.size());
+        for (int i = 1; i < hostNames.size(); i++) {
+            String host = hostNames.get(i);
+            for (int j = 0; j < i; j++) {
+                Long distance = topology.getDistance(host, hostNames.get(j));
+                matrix.set(i, j, distance == null ? Long.MAX_VALUE : distance);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Creates the matrix of distances between a subset of elements.
+     * Element i of the result corresponds to the element indices[i] of this matrix.
+     * A negative index stands for an element unknown to this matrix, its distances
+     * to all other elements are unknown.
+     */
+    public DistanceMatrix subMatrix(int[] indices) {
+        DistanceMatrix matrix = new DistanceMatrix(indices.length);
+        for (int i = 1; i < indices.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (indices[i] < 0 || indices[j] < 0) {
+                    matrix.set(i, j, Long.MAX_VALUE);
+                } else {
+                    matrix.set(i, j, get(indices[i], indices[j]));
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns a copy of this matrix which may be modified independently.
+     */
+    public DistanceMatrix copy() {
+        return new DistanceMatrix(this);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the distance between two different elements.
+     */
+    public long get(int i, int j) {
+        return distances[index(i, j)];
+    }
+
+    /**
+     * Sets the distance between two different elements.
+     */
+    public void set(int i, int j, long distance) {
+        distances[index(i, j)] = distance;
+    }
+
+    private static int index(int i, int j) {
+        if (i < j) {
+            return j * (j - 1) / 2 + i;
+        } else if (i > j) {
+            return i * (i - 1) / 2 + j;
+        }
+        throw new IllegalArgumentException("No distance stored for the element " + i + " to itself");
+    }
+
+    /**
+     * Builds the index of elements in the list which may be passed to {@link #subMatrix(int[])}.
+     */
+    public static <T> HashMap<T, Integer> indexOf(List<T> elements) {
+        HashMap<T, Integer> index = new HashMap<>(elements.size() * 2);
+        for (int i = 0; i < elements.size(); i++) {
+            index.put(elements.get(i), i);
+        }
+        return index;
+    }
+}
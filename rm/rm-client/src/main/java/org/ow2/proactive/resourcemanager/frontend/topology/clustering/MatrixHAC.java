@@ -0,0 +1,444 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.frontend.topology.clustering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.ow2.proactive.topology.descriptor.DistanceFunction;
+
+
+/**
+ *
+ * Implementation of "Hierarchical Agglomerative Clustering" working on a {@link DistanceMatrix}.
+ *
+ * Each element of the matrix is a group of elements at distance 0 of each other (typically the nodes
+ * of one host), so such elements are merged together before the clustering starts.
+ *
+ * Clusters are always merged in the order of their distances, as {@link HAC} does, but the closest
+ * pair is found with a priority queue of the nearest neighbour of each cluster instead of scanning
+ * all pairs. For each cluster i the queue stores a lower bound of the distance to its nearest
+ * neighbour among clusters j &gt; i, which is recomputed only when the cluster reaches the top of
+ * the queue with an outdated distance (see D. Mullner, "Modern hierarchical, agglomerative
+ * clustering algorithms", the generic algorithm). In practice it is quadratic in the number of
+ * elements of the matrix, instead of cubic.
+ *
+ * An instance performs one clustering, it is not thread safe.
+ *
+ */
+public class MatrixHAC<T> {
+
+    private final static Logger logger = Logger.getLogger(MatrixHAC.class);
+
+    /** initial distances between matrix elements */
+    private final DistanceMatrix initialDistances;
+
+    /** distances between clusters, cluster i is stored in the row of its greatest element */
+    private final DistanceMatrix distances;
+
+    private final List<List<T>> groups;
+
+    private final DistanceFunction distanceFunction;
+
+    private final long threshold;
+
+    private final boolean[] active;
+
+    /** number of elements in each cluster */
+    private final int[] sizes;
+
+    /** matrix elements of each cluster */
+    private final List<List<Integer>> members;
+
+    /** nearest neighbour candidate of each cluster among clusters of greater index, -1 if none */
+    private final int[] neighbours;
+
+    /** lower bound of the distance from each cluster to its nearest neighbour */
+    private final long[] neighbourDistances;
+
+    /** binary heap of clusters ordered by neighbourDistances */
+    private final int[] heap;
+
+    /** position of each cluster in the heap, -1 if it is not in the heap */
+    private final int[] heapPositions;
+
+    private int heapSize = 0;
+
+    private int clusters;
+
+    /**
+     * @param matrix distances between groups of elements, it is not modified
+     * @param groups elements at each index of the matrix
+     * @param distanceFunction defines the distance to the merged cluster
+     * @param threshold clusters further than the threshold are not merged
+     */
+    public MatrixHAC(DistanceMatrix matrix, List<List<T>> groups, DistanceFunction distanceFunction,
+            long threshold) {
+        if (matrix.size() != groups.size()) {
+            throw new IllegalArgumentException("Matrix of size " + matrix.size() + " does not match " +
+                                               groups.size() + " groups of elements");
+        }
+        this.initialDistances = matrix;
+        this.distances = matrix.copy();
+        this.groups = groups;
+        this.distanceFunction = distanceFunction;
+        this.threshold = threshold;
+
+        int size = matrix.size();
+        this.clusters = size;
+        this.active = new boolean[size];
+        this.sizes = new int[size];
+        this.members = new ArrayList<>(size);
+        this.neighbours = new int[size];
+        this.neighbourDistances = new long[size];
+        this.heap = new int[size];
+        this.heapPositions = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            active[i] = true;
+            sizes[i] = groups.get(i).size();
+            List<Integer> clusterMembers = new LinkedList<>();
+            clusterMembers.add(i);
+            members.add(clusterMembers);
+            heapPositions[i] = -1;
+        }
+        for (int i = 0; i < size; i++) {
+            updateNeighbour(i);
+        }
+    }
+
+    /**
+     * Selects a set of closest elements.
+     * The proximity between elements is defined by distance function.
+     *
+     * @param number desired elements number
+     * @return the largest cluster found which contains at most number elements
+     */
+    public List<T> select(int number) {
+        if (number <= 0 || clusters == 0) {
+            return new LinkedList<>();
+        }
+
+        int largest = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] >= number) {
+                // elements of one group are at distance 0
+                return new LinkedList<>(groups.get(i).subList(0, number));
+            }
+            if (sizes[i] > sizes[largest]) {
+                largest = i;
+            }
+        }
+
+        logger.debug("Begin hierarchical agglomerative clustering");
+        int[] pair;
+        while (clusters > 1 && (pair = findClosestClusters()) != null) {
+            int bigger = sizes[pair[0]] > sizes[pair[1]] ? pair[0] : pair[1];
+            int smaller = bigger == pair[0] ? pair[1] : pair[0];
+
+            if (sizes[bigger] + sizes[smaller] > number) {
+                logger.debug("Number of elements in the cluster exceeded required number " +
+                             (sizes[bigger] + sizes[smaller]) + " vs " + number);
+                // completing the bigger cluster by the elements of the smaller one closest to it
+                List<T> result = getElements(bigger);
+                result.addAll(getClosestElements(smaller, bigger, number - sizes[bigger]));
+                return result;
+            }
+
+            int merged = merge(pair[0], pair[1]);
+            if (sizes[merged] >= sizes[largest]) {
+                largest = merged;
+            }
+            if (sizes[merged] == number) {
+                // found all the elements we need
+                break;
+            }
+        }
+
+        List<T> result = getElements(largest);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Found " + result.size() + " elements out of " + number);
+        }
+        return result;
+    }
+
+    /**
+     * Groups elements into the given number of clusters, or more if remaining clusters are
+     * not connected or further than the threshold.
+     */
+    public List<List<T>> clusterize(int numberOfClusters) {
+        if (numberOfClusters <= 0) {
+            throw new IllegalArgumentException("numberOfClusters must be positive");
+        }
+
+        int[] pair;
+        while (clusters > numberOfClusters && (pair = findClosestClusters()) != null) {
+            merge(pair[0], pair[1]);
+        }
+
+        List<List<T>> result = new LinkedList<>();
+        for (int i = 0; i < active.length; i++) {
+            if (active[i]) {
+                result.add(getElements(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the two closest clusters.
+     *
+     * @return indices of clusters or null if no clusters can be merged
+     */
+    private int[] findClosestClusters() {
+        while (heapSize > 0) {
+            int cluster = heap[0];
+            int neighbour = neighbours[cluster];
+            long distance = distances.get(cluster, neighbour);
+            if (compare(distance, neighbourDistances[cluster]) != 0) {
+                // the distance to the neighbour has changed since it was found, looking for a new one
+                updateNeighbour(cluster);
+                continue;
+            }
+            if (distance < 0 || distance > threshold) {
+                // the closest clusters are not close enough
+                return null;
+            }
+            return new int[] { cluster, neighbour };
+        }
+        return null;
+    }
+
+    /**
+     * Merges two clusters and recalculates distances to others.
+     * The merged cluster takes the place of the cluster of greater index.
+     *
+     * @return the index of the merged cluster
+     */
+    private int merge(int cluster1, int cluster2) {
+        int removed = Math.min(cluster1, cluster2);
+        int merged = Math.max(cluster1, cluster2);
+        int bigger = sizes[cluster1] > sizes[cluster2] ? cluster1 : cluster2;
+        int smaller = bigger == cluster1 ? cluster2 : cluster1;
+
+        for (int i = 0; i < merged; i++) {
+            if (!active[i] || i == removed) {
+                continue;
+            }
+            long distance = distanceFunction.distance(distances.get(i, bigger), distances.get(i, smaller));
+            distances.set(i, merged, distance);
+
+            if (neighbours[i] == removed) {
+                neighbours[i] = merged;
+            }
+            if (compare(distance, neighbourDistances[i]) < 0) {
+                neighbours[i] = merged;
+                neighbourDistances[i] = distance;
+                heapUpdate(i);
+            }
+        }
+        for (int i = merged + 1; i < active.length; i++) {
+            if (active[i]) {
+                distances.set(merged,
+                              i,
+                              distanceFunction.distance(distances.get(i, bigger), distances.get(i, smaller)));
+            }
+        }
+
+        List<Integer> mergedMembers = members.get(bigger);
+        mergedMembers.addAll(members.get(smaller));
+        members.set(merged, mergedMembers);
+        members.set(removed, null);
+        sizes[merged] = sizes[bigger] + sizes[smaller];
+
+        active[removed] = false;
+        heapRemove(removed);
+        clusters--;
+        updateNeighbour(merged);
+        return merged;
+    }
+
+    /**
+     * Finds the nearest neighbour of the cluster among clusters of greater index.
+     */
+    private void updateNeighbour(int cluster) {
+        int neighbour = -1;
+        long neighbourDistance = -1;
+        for (int i = cluster + 1; i < active.length; i++) {
+            if (active[i]) {
+                long distance = distances.get(cluster, i);
+                if (neighbour < 0 || compare(distance, neighbourDistance) < 0) {
+                    neighbour = i;
+                    neighbourDistance = distance;
+                }
+            }
+        }
+        neighbours[cluster] = neighbour;
+        neighbourDistances[cluster] = neighbourDistance;
+        if (neighbour < 0) {
+            heapRemove(cluster);
+        } else {
+            heapUpdate(cluster);
+        }
+    }
+
+    /**
+     * Compares distances, not connected clusters (negative distance) are further than any others.
+     */
+    private static int compare(long distance1, long distance2) {
+        if (distance1 < 0) {
+            return distance2 < 0 ? 0 : 1;
+        } else if (distance2 < 0) {
+            return -1;
+        }
+        return Long.compare(distance1, distance2);
+    }
+
+    private List<T> getElements(int cluster) {
+        List<T> elements = new LinkedList<>();
+        for (int member : members.get(cluster)) {
+            elements.addAll(groups.get(member));
+        }
+        return elements;
+    }
+
+    /**
+     * Selects elements of the cluster closest to the target cluster.
+     */
+    private List<T> getClosestElements(int cluster, int target, int number) {
+        final List<T> elements = new ArrayList<>(sizes[cluster]);
+        final List<Long> elementDistances = new ArrayList<>(sizes[cluster]);
+        for (int member : members.get(cluster)) {
+            long distance = getDistance(member, target);
+            for (T element : groups.get(member)) {
+                elements.add(element);
+                elementDistances.add(distance);
+            }
+        }
+
+        List<Integer> order = new ArrayList<>(elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            order.add(i);
+        }
+        // sorting elements according to their distances to target
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return Long.compare(elementDistances.get(i1), elementDistances.get(i2));
+            }
+        });
+
+        List<T> closest = new LinkedList<>();
+        for (int i : order.subList(0, number)) {
+            closest.add(elements.get(i));
+        }
+        return closest;
+    }
+
+    /**
+     * Calculate the distance from given matrix element to the cluster.
+     */
+    private long getDistance(int from, int to) {
+        long globalDistance = 0;
+        for (int member : members.get(to)) {
+            long distance = initialDistances.get(from, member);
+            for (int i = 0; i < groups.get(member).size(); i++) {
+                globalDistance = distanceFunction.distance(globalDistance, distance);
+            }
+        }
+        return globalDistance;
+    }
+
+    private boolean heapLess(int cluster1, int cluster2) {
+        int result = compare(neighbourDistances[cluster1], neighbourDistances[cluster2]);
+        return result < 0 || (result == 0 && cluster1 < cluster2);
+    }
+
+    private void heapUpdate(int cluster) {
+        int position = heapPositions[cluster];
+        if (position < 0) {
+            position = heapSize++;
+            heap[position] = cluster;
+            heapPositions[cluster] = position;
+        }
+        heapSiftDown(heapSiftUp(position));
+    }
+
+    private void heapRemove(int cluster) {
+        int position = heapPositions[cluster];
+        if (position < 0) {
+            return;
+        }
+        heapPositions[cluster] = -1;
+        heapSize--;
+        if (position < heapSize) {
+            int last = heap[heapSize];
+            heap[position] = last;
+            heapPositions[last] = position;
+            heapSiftDown(heapSiftUp(position));
+        }
+    }
+
+    private int heapSiftUp(int position) {
+        int cluster = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!heapLess(cluster, heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapPositions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = cluster;
+        heapPositions[cluster] = position;
+        return position;
+    }
+
+    private void heapSiftDown(int position) {
+        int cluster = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapLess(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!heapLess(heap[child], cluster)) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapPositions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = cluster;
+        heapPositions[cluster] = position;
+    }
+}
@@ -76,6 +76,12 @@ public class Criteria implements Serializable {
     // optional set of nodes urls which are acceptable
     private Set<String> setOfAcceptableNodesUrls;
 
+    // optional urls of nodes which are selected first, in order of preference
+    private List<String> preferredNodesUrls;
+
+    // optional hosts whose nodes are selected first, in order of preference
+    private List<String> preferredHosts;
+
     /**
      * Creates criteria instance
      * 
@@ -166,6 +172,37 @@ public class Criteria implements Serializable {
         return setOfAcceptableNodesUrls;
     }
 
+    /**
+     * @return urls of nodes which are selected before the others, in order of preference.
+     */
+    public List<String> getPreferredNodesUrls() {
+        return preferredNodesUrls;
+    }
+
+    /**
+     * Sets urls of nodes which are selected before the others, in order of preference.
+     * Preferred nodes still have to match all the other criteria.
+     */
+    public void setPreferredNodesUrls(List<String> preferredNodesUrls) {
+        this.preferredNodesUrls = preferredNodesUrls;
+    }
+
+    /**
+     * @return hosts whose nodes are selected before the others (but after the preferred nodes),
+     * in order of preference.
+     */
+    public List<String> getPreferredHosts() {
+        return preferredHosts;
+    }
+
+    /**
+     * Sets hosts whose nodes are selected before the others (but after the preferred nodes),
+     * in order of preference. Nodes of these hosts still have to match all the other criteria.
+     */
+    public void setPreferredHosts(List<String> preferredHosts) {
+        this.preferredHosts = preferredHosts;
+    }
+
     /**
      * @return the mode of selection
      */
@@ -0,0 +1,387 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.updater;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.log4j.Logger;
+
+import com.google.common.io.BaseEncoding;
+
+
+/**
+ * Local copy of the node.jar kept in sync with the remote one.
+ *
+ * The local jar is described by a metadata file (entity tag, last modification date and SHA-256 of
+ * the content), so that the remote jar is only downloaded when a conditional request tells that it
+ * has changed, and a corrupted local jar is detected. HTTP urls are first checked with a HEAD
+ * request; other urls (e.g. file urls) are checked with their modification date. Downloads are delayed by a random jitter and
+ * made under a file lock, so that agents restarting together do not all fetch the jar at the same
+ * time and agents of the same machine share one download.
+ *
+ * After an update, only the libraries which changed in the jar are removed from the One-Jar expand
+ * directory, instead of the whole directory.
+ */
+class NodeJarCache {
+
+    private static final Logger logger = Logger.getLogger(NodeJarCache.class);
+
+    private static final String METADATA_SUFFIX = ".metadata";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String URL_KEY = "url";
+
+    private static final String ETAG_KEY = "etag";
+
+    private static final String LAST_MODIFIED_KEY = "lastModified";
+
+    private static final String SHA256_KEY = "sha256";
+
+    private static final Random random = new Random();
+
+    private final String url;
+
+    private final File jar;
+
+    private final File metadataFile;
+
+    private final File expandDirectory;
+
+    private final File lockFile;
+
+    private final int maximumJitter;
+
+    /**
+     * @param url remote url of the jar
+     * @param jar local copy of the jar
+     * @param expandDirectory directory where One-Jar expands the jar libraries
+     * @param lockFile file locked during downloads
+     * @param maximumJitter maximum delay in milliseconds before a download
+     */
+    NodeJarCache(String url, File jar, File expandDirectory, File lockFile, int maximumJitter) {
+        this.url = url;
+        this.jar = jar;
+        this.metadataFile = new File(jar.getPath() + METADATA_SUFFIX);
+        this.expandDirectory = expandDirectory;
+        this.lockFile = lockFile;
+        this.maximumJitter = maximumJitter;
+    }
+
+    /**
+     * Makes the local jar up to date.
+     *
+     * @throws IOException if the remote jar cannot be checked or downloaded
+     */
+    void update() throws IOException, InterruptedException {
+        if (isUpToDate(readMetadata())) {
+            logger.info("Local jar " + jar + " is up to date");
+            return;
+        }
+        logger.info("Local jar " + jar + " is obsolete or not present");
+
+        if (maximumJitter > 0) {
+            int jitter = random.nextInt(maximumJitter);
+            logger.info("Waiting " + jitter + " ms before downloading " + url);
+            Thread.sleep(jitter);
+        }
+
+        if (!lockFile.exists()) {
+            lockFile.createNewFile();
+        }
+        logger.info("Getting the lock on " + lockFile.getAbsoluteFile());
+        try (RandomAccessFile file = new RandomAccessFile(lockFile, "rw");
+                FileChannel channel = file.getChannel();
+                FileLock lock = channel.lock()) {
+            // another process may have downloaded the jar while waiting for the lock
+            Properties metadata = readMetadata();
+            URLConnection connection = openConnection(metadata, "GET");
+            try {
+                if (isNotModified(connection, metadata)) {
+                    logger.info("Another process downloaded " + jar);
+                    return;
+                }
+                download(connection, metadata);
+            } finally {
+                close(connection);
+            }
+        } finally {
+            logger.info("Released the lock on " + lockFile.getAbsoluteFile());
+        }
+    }
+
+    private boolean isUpToDate(Properties metadata) throws IOException {
+        // the content is fetched later, once other agents had a chance to do it
+        URLConnection connection = openConnection(metadata, "HEAD");
+        try {
+            return isNotModified(connection, metadata);
+        } finally {
+            close(connection);
+        }
+    }
+
+    /**
+     * Opens a connection to the remote jar. HTTP requests are made conditional to the version of
+     * the local jar if it is valid.
+     *
+     * @param method HTTP method of the request, ignored for other protocols
+     */
+    private URLConnection openConnection(Properties metadata, String method) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        if (connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).setRequestMethod(method);
+            if (metadata != null) {
+                String etag = metadata.getProperty(ETAG_KEY);
+                if (etag != null) {
+                    connection.setRequestProperty("If-None-Match", etag);
+                }
+                connection.setIfModifiedSince(Long.parseLong(metadata.getProperty(LAST_MODIFIED_KEY, "0")));
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Releases a connection, whether its content was read or not.
+     */
+    private static void close(URLConnection connection) {
+        if (connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).disconnect();
+        } else {
+            // reading the headers of a file url opens its content
+            try {
+                connection.getInputStream().close();
+            } catch (IOException e) {
+                // the content was never opened
+            }
+        }
+    }
+
+    /**
+     * Checks whether the remote jar is the local one. For HTTP urls, the response to the conditional
+     * request and the entity tags are checked first; servers without entity tags and other protocols
+     * are handled by comparing modification dates.
+     */
+    private boolean isNotModified(URLConnection connection, Properties metadata) throws IOException {
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            int responseCode = httpConnection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return true;
+            } else if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response " + responseCode + " " +
+                                      httpConnection.getResponseMessage() + " from " + url);
+            }
+            String etag = httpConnection.getHeaderField("ETag");
+            if (metadata != null && etag != null && metadata.getProperty(ETAG_KEY) != null) {
+                return etag.equals(metadata.getProperty(ETAG_KEY));
+            }
+        }
+        logger.info("Url date=" + new Date(connection.getLastModified()));
+        if (metadata == null) {
+            return false;
+        }
+        long localLastModified = Long.parseLong(metadata.getProperty(LAST_MODIFIED_KEY, "0"));
+        logger.info("File date=" + new Date(localLastModified));
+        return connection.getLastModified() != 0 && connection.getLastModified() <= localLastModified;
+    }
+
+    private void download(URLConnection connection, Properties metadata) throws IOException {
+        logger.info("Downloading node.jar from " + url + " to " + jar);
+        File part = new File(jar.getPath() + PART_SUFFIX);
+        String sha256;
+        try (InputStream in = new DigestInputStream(connection.getInputStream(), newDigest());
+                OutputStream out = new FileOutputStream(part)) {
+            long size = IOUtils.copyLarge(in, out);
+            long expectedSize = connection.getContentLengthLong();
+            if (expectedSize >= 0 && size != expectedSize) {
+                throw new IOException("Downloaded " + size + " bytes out of " + expectedSize + " from " + url);
+            }
+            sha256 = BaseEncoding.base16().lowerCase().encode(((DigestInputStream) in).getMessageDigest().digest());
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(part);
+            throw e;
+        }
+        logger.info("Download finished");
+
+        Properties newMetadata = new Properties();
+        newMetadata.setProperty(URL_KEY, url);
+        newMetadata.setProperty(LAST_MODIFIED_KEY, Long.toString(connection.getLastModified()));
+        newMetadata.setProperty(SHA256_KEY, sha256);
+        if (connection.getHeaderField("ETag") != null) {
+            newMetadata.setProperty(ETAG_KEY, connection.getHeaderField("ETag"));
+        }
+
+        if (metadata != null && sha256.equals(metadata.getProperty(SHA256_KEY))) {
+            logger.info("Content of " + jar + " did not change");
+            FileUtils.deleteQuietly(part);
+        } else {
+            cleanExpandDirectory(part);
+            try {
+                Files.move(part.toPath(),
+                           jar.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        // Align the local file modification time with the remote url.
+        jar.setLastModified(connection.getLastModified());
+        writeMetadata(newMetadata);
+    }
+
+    /**
+     * Reads the metadata of the local jar.
+     *
+     * @return null if the local jar is missing, or does not match its metadata
+     */
+    private Properties readMetadata() {
+        if (!jar.exists()) {
+            return null;
+        }
+        Properties metadata = new Properties();
+        if (metadataFile.exists()) {
+            try (InputStream in = new FileInputStream(metadataFile)) {
+                metadata.load(in);
+            } catch (IOException e) {
+                logger.warn("Cannot read " + metadataFile, e);
+                return null;
+            }
+            if (!url.equals(metadata.getProperty(URL_KEY)) || !metadata.containsKey(SHA256_KEY)) {
+                return null;
+            }
+            try {
+                if (!metadata.getProperty(SHA256_KEY).equals(sha256(jar))) {
+                    logger.warn("Content of " + jar + " does not match its checksum");
+                    return null;
+                }
+            } catch (IOException e) {
+                logger.warn("Cannot read " + jar, e);
+                return null;
+            }
+        } else {
+            // jar downloaded by a previous version, only its modification date is known
+            metadata.setProperty(LAST_MODIFIED_KEY, Long.toString(jar.lastModified()));
+        }
+        return metadata;
+    }
+
+    private void writeMetadata(Properties metadata) throws IOException {
+        try (OutputStream out = new FileOutputStream(metadataFile)) {
+            metadata.store(out, "Remote version of " + jar.getName());
+        }
+    }
+
+    /**
+     * Removes from the expand directory the libraries that differ between the local jar and the
+     * new one. The whole directory is removed if the jars cannot be compared.
+     */
+    private void cleanExpandDirectory(File newJar) {
+        if (!expandDirectory.exists()) {
+            return;
+        }
+        if (!jar.exists()) {
+            FileUtils.deleteQuietly(expandDirectory);
+            return;
+        }
+        try {
+            Map<String, Long> oldEntries = readEntryChecksums(jar);
+            Map<String, Long> newEntries = readEntryChecksums(newJar);
+            int changed = 0;
+            for (Map.Entry<String, Long> entry : oldEntries.entrySet()) {
+                Long newChecksum = newEntries.get(entry.getKey());
+                if (newChecksum == null || entry.getValue() < 0 || !newChecksum.equals(entry.getValue())) {
+                    String name = entry.getKey();
+                    FileUtils.deleteQuietly(new File(expandDirectory, name));
+                    FileUtils.deleteQuietly(new File(expandDirectory, new File(name).getName()));
+                    changed++;
+                }
+            }
+            logger.info(changed + " out of " + oldEntries.size() + " entries changed in " + jar.getName());
+        } catch (IOException e) {
+            logger.warn("Cannot compare " + jar + " with its new version, cleaning " + expandDirectory, e);
+            FileUtils.deleteQuietly(expandDirectory);
+        }
+    }
+
+    private static Map<String, Long> readEntryChecksums(File file) throws IOException {
+        Map<String, Long> checksums = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory()) {
+                    checksums.put(entry.getName(), entry.getCrc());
+                }
+            }
+        }
+        return checksums;
+    }
+
+    private static String sha256(File file) throws IOException {
+        try (InputStream in = new DigestInputStream(new FileInputStream(file), newDigest())) {
+            IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
+            return BaseEncoding.base16().lowerCase().encode(((DigestInputStream) in).getMessageDigest().digest());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -27,16 +27,10 @@ package org.ow2.proactive.resourcemanager.updater;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -54,7 +48,6 @@ import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
-import org.apache.commons.io.FileUtils;
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
@@ -107,6 +100,14 @@ public class RMNodeUpdater extends RMNodeStarter {
 
     protected boolean automaticRelaunch = false;
 
+    /**
+     * Maximum random delay in milliseconds before downloading node.jar, so that agents
+     * restarting together do not download it at the same time
+     */
+    private static final String NODE_JAR_DOWNLOAD_JITTER_PROPERTY = "node.jar.download.jitter";
+
+    private static final int DEFAULT_NODE_JAR_DOWNLOAD_JITTER = 5000;
+
     /**
      * optional One-Jar property, path used to expand librairies
      */
@@ -138,29 +139,6 @@ public class RMNodeUpdater extends RMNodeStarter {
         return Logger.getLogger(RMNodeUpdater.class);
     }
 
-    private boolean isLocalJarUpToDate(String url, String filePath) {
-
-        try {
-            URLConnection urlConnection = new URL(url).openConnection();
-            File file = new File(filePath);
-
-            logger.info("Url date=" + new Date(urlConnection.getLastModified()));
-            logger.info("File date=" + new Date(file.lastModified()));
-
-            if (!file.exists() || file.lastModified() < urlConnection.getLastModified()) {
-                logger.info("Local jar " + file + " is obsolete or not present");
-            } else {
-                logger.info("Local jar " + file + " is up to date");
-                return true;
-            }
-
-        } catch (IOException e) {
-            logError("Error when contacting the remote url " + url, e);
-        }
-
-        return false;
-    }
-
     private static void logError(String message, Exception e) {
         if (logger.isDebugEnabled()) {
             logger.error(message, e);
@@ -169,98 +147,39 @@ public class RMNodeUpdater extends RMNodeStarter {
         }
     }
 
-    private long getRemoteLastModifiedMillis(String url) {
-        try {
-            URLConnection urlConnection = new URL(url).openConnection();
-            return urlConnection.getLastModified();
-        } catch (IOException e) {
-            logError("Error when contacting the remote url " + url, e);
-            return 0;
+    private boolean makeNodeUpToDate() throws InterruptedException {
+        if (nodeJarUrl.startsWith("https")) {
+            trustEveryone();
         }
-    }
-
-    private boolean makeNodeUpToDate() {
-        if (!isLocalJarUpToDate(nodeJarUrl, nodeJarSaveAs)) {
-            logger.info("Downloading node.jar from " + nodeJarUrl + " to " + nodeJarSaveAs);
-
-            try {
-                File destination = new File(nodeJarSaveAs);
-                File lockFile = null;
-                FileLock lock = null;
-
-                if (destination.exists()) {
-
-                    lockFile = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "lock");
-                    if (!lockFile.exists()) {
-                        lockFile.createNewFile();
-                    }
-
-                    logger.info("Getting the lock on " + lockFile.getAbsoluteFile());
-                    FileChannel channel = new RandomAccessFile(lockFile, "rw").getChannel();
-                    lock = channel.lock();
-
-                    if (isLocalJarUpToDate(nodeJarUrl, nodeJarSaveAs)) {
-                        logger.warn("Another process downloaded node.jar - don't do it anymore");
-                        logger.info("Releasing the lock on " + lockFile.getAbsoluteFile());
-                        lock.release();
-                        channel.close();
-
-                        return false;
-                    }
-                }
-                fetchUrl(nodeJarUrl, destination);
-                // Align the local file modification time with the remote url.
-                destination.setLastModified(getRemoteLastModifiedMillis(nodeJarUrl));
-                logger.info("Download finished");
-
-                cleanExpandDirectory(nodeJarSaveAs);
-
-                if (lock != null && lockFile != null) {
-                    logger.info("Releasing the lock on " + lockFile.getAbsoluteFile());
-                    lock.release();
-                }
-                return true;
-
-            } catch (Exception e) {
-                logError("Cannot download node.jar from " + nodeJarUrl, e);
-                return false;
-            }
-        } else {
+        NodeJarCache nodeJarCache = new NodeJarCache(nodeJarUrl,
+                                                     new File(nodeJarSaveAs),
+                                                     getExpandDirectory(nodeJarSaveAs),
+                                                     new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "lock"),
+                                                     Integer.getInteger(NODE_JAR_DOWNLOAD_JITTER_PROPERTY,
+                                                                        DEFAULT_NODE_JAR_DOWNLOAD_JITTER));
+        try {
+            nodeJarCache.update();
             return true;
+        } catch (IOException e) {
+            logError("Cannot download node.jar from " + nodeJarUrl, e);
+            return false;
         }
     }
 
     /**
-     * Fetch the node.jar at the given url and store it to a file
-     * Disable ssl handshake if https
-     * @param jarUrl url to fetch
-     * @param destination local file
-     * @throws IOException
-     */
-    private static void fetchUrl(String jarUrl, File destination) throws IOException {
-        if (jarUrl.startsWith("https")) {
-            trustEveryone();
-
-        }
-        FileUtils.copyURLToFile(new URL(jarUrl), destination);
-    }
-
-    /**
-     * Clean the directory used by One-Jar to expand libraries. After a node.jar update, we clean this directory to prevent jar conflicts
+     * Returns the directory used by One-Jar to expand libraries. After a node.jar update, the libraries which changed
+     * are removed from this directory to prevent jar conflicts
      * @param jarFile name of the node jar file
      */
-    private void cleanExpandDirectory(String jarFile) {
-        File directoryToClean;
+    private File getExpandDirectory(String jarFile) {
         String oneJarExpandDir = System.getProperty(ONEJAR_EXPAND_DIR_PROPERTY);
         if (oneJarExpandDir == null) {
             // Default scheme used by one-jar
             String jar = new File(jarFile).getName().replaceFirst(LAST_DOT_AND_AFTER, "");
-            directoryToClean = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), jar);
+            return new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), jar);
         } else {
-            directoryToClean = new File(oneJarExpandDir);
+            return new File(oneJarExpandDir);
         }
-
-        FileUtils.deleteQuietly(directoryToClean);
     }
 
     @Override
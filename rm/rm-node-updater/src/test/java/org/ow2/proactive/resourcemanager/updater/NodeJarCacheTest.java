@@ -0,0 +1,220 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.updater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+
+public class NodeJarCacheTest {
+
+    private static final String LAST_MODIFIED = "Tue, 10 Jan 2017 10:00:00 GMT";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private final AtomicInteger gets = new AtomicInteger();
+
+    private final AtomicInteger heads = new AtomicInteger();
+
+    private volatile byte[] remoteContent = bytes("version 1");
+
+    private volatile String remoteEtag = "\"v1\"";
+
+    private volatile boolean honorConditionalRequests = true;
+
+    /** Number of bytes announced but not sent, to simulate an interrupted download. */
+    private volatile int missingBytes = 0;
+
+    private File jar;
+
+    private File expandDirectory;
+
+    private File lockFile;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/node.jar", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                boolean head = "HEAD".equals(exchange.getRequestMethod());
+                (head ? heads : gets).incrementAndGet();
+                exchange.getResponseHeaders().set("ETag", remoteEtag);
+                exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+                if (honorConditionalRequests &&
+                    remoteEtag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else if (head) {
+                    exchange.getResponseHeaders().set("Content-Length", Integer.toString(remoteContent.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, remoteContent.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(remoteContent, 0, remoteContent.length - missingBytes);
+                    }
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        jar = new File(folder.getRoot(), "node.jar");
+        expandDirectory = new File(folder.getRoot(), "expand");
+        lockFile = new File(folder.getRoot(), "lock");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void cacheMissDownloadsTheJar() throws Exception {
+        newHttpCache().update();
+
+        assertArrayEquals(remoteContent, Files.readAllBytes(jar.toPath()));
+        assertEquals(1, gets.get());
+    }
+
+    @Test
+    public void cacheHitOnEtagDoesNotDownloadTheJar() throws Exception {
+        newHttpCache().update();
+        newHttpCache().update();
+
+        assertEquals(1, gets.get());
+        assertEquals(2, heads.get());
+    }
+
+    @Test
+    public void cacheHitWhenTheServerIgnoresConditionalRequests() throws Exception {
+        honorConditionalRequests = false;
+        newHttpCache().update();
+        newHttpCache().update();
+
+        assertEquals(1, gets.get());
+    }
+
+    @Test
+    public void newRemoteVersionIsDownloaded() throws Exception {
+        newHttpCache().update();
+        remoteContent = bytes("version 2");
+        remoteEtag = "\"v2\"";
+        newHttpCache().update();
+
+        assertArrayEquals(bytes("version 2"), Files.readAllBytes(jar.toPath()));
+        assertEquals(2, gets.get());
+    }
+
+    @Test
+    public void corruptedLocalJarIsDownloadedAgain() throws Exception {
+        newHttpCache().update();
+        Files.write(jar.toPath(), bytes("version X"));
+        newHttpCache().update();
+
+        assertArrayEquals(remoteContent, Files.readAllBytes(jar.toPath()));
+        assertEquals(2, gets.get());
+    }
+
+    @Test
+    public void partialLocalJarIsDownloadedAgain() throws Exception {
+        newHttpCache().update();
+        Files.write(jar.toPath(), bytes("vers"));
+        newHttpCache().update();
+
+        assertArrayEquals(remoteContent, Files.readAllBytes(jar.toPath()));
+        assertEquals(2, gets.get());
+    }
+
+    @Test
+    public void interruptedDownloadKeepsTheLocalJar() throws Exception {
+        newHttpCache().update();
+        remoteContent = bytes("version 2");
+        remoteEtag = "\"v2\"";
+        missingBytes = 3;
+        try {
+            newHttpCache().update();
+            fail("An interrupted download must fail");
+        } catch (IOException expected) {
+            // expected
+        }
+
+        assertArrayEquals(bytes("version 1"), Files.readAllBytes(jar.toPath()));
+        assertFalse(new File(jar.getPath() + ".part").exists());
+    }
+
+    @Test
+    public void fileUrlIsCopiedOnlyWhenModified() throws Exception {
+        File remote = folder.newFile("remote.jar");
+        Files.write(remote.toPath(), bytes("version 1"));
+        remote.setLastModified(1000000000000L);
+        NodeJarCache cache = new NodeJarCache(remote.toURI().toURL().toString(), jar, expandDirectory, lockFile, 0);
+
+        cache.update();
+        assertArrayEquals(bytes("version 1"), Files.readAllBytes(jar.toPath()));
+
+        // same date, the local jar is considered up to date
+        Files.write(remote.toPath(), bytes("version 2"));
+        remote.setLastModified(1000000000000L);
+        cache.update();
+        assertArrayEquals(bytes("version 1"), Files.readAllBytes(jar.toPath()));
+
+        remote.setLastModified(1000000060000L);
+        cache.update();
+        assertArrayEquals(bytes("version 2"), Files.readAllBytes(jar.toPath()));
+    }
+
+    private NodeJarCache newHttpCache() {
+        String url = "http://localhost:" + server.getAddress().getPort() + "/node.jar";
+        return new NodeJarCache(url, jar, expandDirectory, lockFile, 0);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
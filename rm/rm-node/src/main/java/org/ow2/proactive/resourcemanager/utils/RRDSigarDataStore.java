@@ -26,7 +26,6 @@
 package org.ow2.proactive.resourcemanager.utils;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
@@ -103,10 +102,7 @@ public class RRDSigarDataStore extends RRDDataStore {
         }
 
         initDatabase();
-        setName("RRD4J Data Store " + new File(dataBaseFile).getName());
-
-        setDaemon(true);
-        start();
+        startSampling();
     }
 
     /**
@@ -136,35 +132,8 @@ public class RRDSigarDataStore extends RRDDataStore {
         return res;
     }
 
-    /**
-     * Periodically dumps the new mbean state to the data base
-     */
-    public void run() {
-        try {
-
-            RrdDb dataBase = new RrdDb(dataBaseFile);
-
-            logger.debug("RRD database configuration:\n" + dataBase.getRrdDef().dump());
-
-            while (!terminate) {
-                synchronized (dataSources) {
-
-                    dataSources.wait(step * 1000);
-
-                    if (terminate) {
-                        break;
-                    }
-                    sample(dataBase, System.currentTimeMillis());
-                }
-            }
-            dataBase.close();
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
-        }
-    }
-
-    // package protected for testing
-    void sample(RrdDb dataBase, long timeInMs) throws IOException {
+    @Override
+    protected void sample(RrdDb dataBase, long timeInMs) throws IOException {
         Sample sample = dataBase.createSample();
 
         // updating the data base
@@ -106,6 +106,7 @@ public final class RMJMXHelper extends AbstractJMXHelper {
             setDataStore(new RRDDataStore((StandardMBean) anonymMBean,
                                           dataBaseName,
                                           PAResourceManagerProperties.RM_RRD_STEP.getValueAsInt(),
+                                          PAResourceManagerProperties.RM_RRD_ARCHIVES.getValueAsString(),
                                           Logger.getLogger(RMJMXHelper.class)));
         } catch (Exception e) {
             LOGGER.error("Unable to register the ResourceManagerRuntimeMBean", e);
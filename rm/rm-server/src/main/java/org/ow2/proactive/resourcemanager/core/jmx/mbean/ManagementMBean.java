@@ -65,4 +65,34 @@ public interface ManagementMBean {
      * Reload the resource manager configuration, permissions, and log4j config.
      */
     void refreshConfiguration();
+
+    /**
+     * Returns the number of nodes with database operations waiting to be applied.
+     * @return the number of nodes with pending database operations
+     */
+    int getDatabasePendingNodeOperations();
+
+    /**
+     * Returns the highest number of nodes with database operations waiting to be applied.
+     * @return the highest number of nodes with pending database operations
+     */
+    int getDatabaseMaximumPendingNodeOperations();
+
+    /**
+     * Returns the number of node database operations merged into a pending one.
+     * @return the number of coalesced node operations
+     */
+    long getDatabaseCoalescedNodeOperations();
+
+    /**
+     * Returns the average time between the registration of a node database operation and its application.
+     * @return the average latency in milliseconds
+     */
+    long getDatabaseNodeOperationAverageLatencyInMilliseconds();
+
+    /**
+     * Returns the maximum time between the registration of a node database operation and its application.
+     * @return the maximum latency in milliseconds
+     */
+    long getDatabaseNodeOperationMaximumLatencyInMilliseconds();
 }
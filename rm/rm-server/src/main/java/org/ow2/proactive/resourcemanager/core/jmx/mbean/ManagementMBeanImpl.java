@@ -35,6 +35,7 @@ import javax.management.StandardMBean;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.PropertyConfigurator;
 import org.ow2.proactive.resourcemanager.core.account.RMAccountsManager;
+import org.ow2.proactive.resourcemanager.db.RMDBManager;
 
 
 /**
@@ -88,4 +89,24 @@ public final class ManagementMBeanImpl extends StandardMBean implements Manageme
             }
         }
     }
+
+    public int getDatabasePendingNodeOperations() {
+        return RMDBManager.getInstance().getBuffer().getPendingNodeOperationsCount();
+    }
+
+    public int getDatabaseMaximumPendingNodeOperations() {
+        return RMDBManager.getInstance().getBuffer().getMaximumPendingNodeOperationsCount();
+    }
+
+    public long getDatabaseCoalescedNodeOperations() {
+        return RMDBManager.getInstance().getBuffer().getCoalescedNodeOperationsCount();
+    }
+
+    public long getDatabaseNodeOperationAverageLatencyInMilliseconds() {
+        return RMDBManager.getInstance().getBuffer().getAverageNodeOperationLatency();
+    }
+
+    public long getDatabaseNodeOperationMaximumLatencyInMilliseconds() {
+        return RMDBManager.getInstance().getBuffer().getMaximumNodeOperationLatency();
+    }
 }
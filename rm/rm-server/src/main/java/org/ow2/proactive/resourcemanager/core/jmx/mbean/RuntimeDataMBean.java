@@ -26,6 +26,7 @@
 package org.ow2.proactive.resourcemanager.core.jmx.mbean;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import org.objectweb.proactive.annotation.PublicAPI;
 import org.ow2.proactive.resourcemanager.common.NodeState;
@@ -181,4 +182,15 @@ public interface RuntimeDataMBean {
      */
     byte[] getStatisticHistory() throws IOException;
 
+    /**
+     * Reads the averages of data sources of the statistic history over the given
+     * time ranges, without sending the whole RRD data base
+     *
+     * @param dataSources the names of the data sources
+     * @param ranges the time range of each data source, one character per data source
+     * @return the averages of each data source, from the oldest to the most recent
+     * @throws IOException when data base cannot be read
+     */
+    HashMap<String, double[]> fetchStatisticHistory(String[] dataSources, String ranges) throws IOException;
+
 }
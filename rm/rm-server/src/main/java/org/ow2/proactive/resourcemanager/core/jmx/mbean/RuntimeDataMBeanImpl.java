@@ -26,6 +26,7 @@
 package org.ow2.proactive.resourcemanager.core.jmx.mbean;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
@@ -208,4 +209,11 @@ public class RuntimeDataMBeanImpl extends StandardMBean implements RuntimeDataMB
     public byte[] getStatisticHistory() throws IOException {
         return RMJMXHelper.getInstance().getDataStore().getBytes();
     }
+
+    /**
+     * @see org.ow2.proactive.resourcemanager.core.jmx.mbean.RuntimeDataMBean#fetchStatisticHistory(String[], String)
+     */
+    public HashMap<String, double[]> fetchStatisticHistory(String[] dataSources, String ranges) throws IOException {
+        return RMJMXHelper.getInstance().getDataStore().getHistory(dataSources, ranges);
+    }
 }
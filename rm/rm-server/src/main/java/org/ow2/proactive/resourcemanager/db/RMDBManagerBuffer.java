@@ -26,6 +26,7 @@
 package org.ow2.proactive.resourcemanager.db;
 
 import static org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties.RM_NODES_DB_OPERATIONS_DELAY;
+import static org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties.RM_NODES_DB_OPERATIONS_QUEUE_CAPACITY;
 import static org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties.RM_NODES_DB_SYNCHRONOUS_UPDATES;
 
 import java.util.Arrays;
@@ -33,6 +34,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +43,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -54,6 +57,11 @@ import org.ow2.proactive.db.SessionWork;
 /**
  * Methods of this class can be used to delay database operations in order to
  * batch them and reduce database hit overhead.
+ *
+ * Successive operations on the same node are coalesced, so that at most one
+ * operation per node is pending. The number of nodes with pending operations
+ * is bounded: when the bound is reached the caller flushes them itself, which
+ * slows down the RM core instead of piling up operations in memory.
  */
 public class RMDBManagerBuffer {
 
@@ -63,7 +71,7 @@ public class RMDBManagerBuffer {
 
     private static final String IN_DATABASE_WITH_NO_DELAY_STRING = IN_DATABASE_STRING + " with no delay";
 
-    private static final int MAXIMUM_BUFFERIZED_NODE_OPERATIONS = 1000;
+    private static final int MAXIMUM_NODE_OPERATIONS_PER_TRANSACTION = 1000;
 
     private RMDBManager rmdbManager;
 
@@ -100,27 +108,50 @@ public class RMDBManagerBuffer {
     private final Lock pendingNodeSourceUpdatesLock = new ReentrantLock();
 
     /**
-     * The set of nodes to persist in database. One entry of this map
-     * corresponds to the successive updates to apply for one node.
+     * The operations to persist in database per node. One entry of this map
+     * corresponds to the successive updates to apply for one node, coalesced
+     * into a single operation.
      */
-    private List<NodeOperation> pendingNodesOperations;
+    private LinkedHashMap<RMNodeData, NodeOperation> pendingNodesOperations;
 
     /**
-     * The database transaction regarding nodes that is currently
-     * scheduled for later.
+     * Maximum number of nodes with pending operations.
      */
-    private ScheduledFuture<?> scheduledNodeTransaction;
+    private final int nodeOperationsQueueCapacity;
+
+    /**
+     * Whether a database transaction regarding nodes is currently
+     * scheduled for later and has not started yet.
+     */
+    private boolean nodeTransactionScheduled = false;
 
     private final Lock pendingNodeOperationsLock = new ReentrantLock();
 
     private final Condition pendingNodeOperationsCondition = pendingNodeOperationsLock.newCondition();
 
+    // statistics, readable without waiting for the end of a flush
+
+    private volatile int pendingNodeOperationsCount = 0;
+
+    private volatile int maximumPendingNodeOperationsCount = 0;
+
+    private final AtomicLong coalescedNodeOperationsCount = new AtomicLong();
+
+    private final AtomicLong flushedNodeOperationsCount = new AtomicLong();
+
+    private final AtomicLong flushedNodeOperationsTotalLatency = new AtomicLong();
+
+    private volatile long maximumNodeOperationLatency = 0;
+
+    private final AtomicLong backPressureFlushesCount = new AtomicLong();
+
     RMDBManagerBuffer(RMDBManager rmdbManager) {
         this.rmdbManager = rmdbManager;
         delayEqualsToZero = RM_NODES_DB_OPERATIONS_DELAY.getValueAsInt() == 0;
         databaseTransactionExecutor = Executors.newSingleThreadScheduledExecutor();
         pendingNodeSourceUpdates = new HashMap<>();
-        pendingNodesOperations = new LinkedList<>();
+        pendingNodesOperations = new LinkedHashMap<>();
+        nodeOperationsQueueCapacity = RM_NODES_DB_OPERATIONS_QUEUE_CAPACITY.getValueAsInt();
         knownNodeSources = new HashSet<>();
 
         // populate the set of node source names that were existing in the
@@ -242,52 +273,68 @@ public class RMDBManagerBuffer {
     }
 
     void addCreateNodeToPendingDatabaseOperations(RMNodeData rmNodeData, String nodeSourceName) {
-        cancelScheduledNodeTransaction();
-        registerPendingNodeOperations(DatabaseOperation.CREATE, rmNodeData, nodeSourceName);
-        if (delayEqualsToZero) {
-            logger.debug("Apply create node " + rmNodeData.getName() + IN_DATABASE_WITH_NO_DELAY_STRING);
-            buildNodesTransactionAndCommit();
-        } else {
-            logger.debug("Schedule create node " + rmNodeData.getName() + IN_DATABASE_STRING);
-            scheduleNodeTransactionOrFlush();
+        pendingNodeOperationsLock.lock();
+        try {
+            registerPendingNodeOperation(DatabaseOperation.CREATE, rmNodeData, nodeSourceName);
+            if (delayEqualsToZero) {
+                logger.debug("Apply create node " + rmNodeData.getName() + IN_DATABASE_WITH_NO_DELAY_STRING);
+                buildNodesTransactionAndCommit();
+            } else {
+                logger.debug("Schedule create node " + rmNodeData.getName() + IN_DATABASE_STRING);
+                scheduleNodeTransactionOrFlush();
+            }
+        } finally {
+            pendingNodeOperationsLock.unlock();
         }
     }
 
     void addUpdateNodeToPendingDatabaseOperations(RMNodeData rmNodeData, String nodeSourceName) {
-        cancelScheduledNodeTransaction();
-        registerPendingNodeOperations(DatabaseOperation.UPDATE, rmNodeData, nodeSourceName);
-        if (delayEqualsToZero) {
-            logger.debug("Apply update node " + rmNodeData.getName() + IN_DATABASE_WITH_NO_DELAY_STRING);
-            buildNodesTransactionAndCommit();
-        } else {
-            logger.debug("Schedule update node " + rmNodeData.getName() + IN_DATABASE_STRING);
-            scheduleNodeTransactionOrFlush();
+        pendingNodeOperationsLock.lock();
+        try {
+            registerPendingNodeOperation(DatabaseOperation.UPDATE, rmNodeData, nodeSourceName);
+            if (delayEqualsToZero) {
+                logger.debug("Apply update node " + rmNodeData.getName() + IN_DATABASE_WITH_NO_DELAY_STRING);
+                buildNodesTransactionAndCommit();
+            } else {
+                logger.debug("Schedule update node " + rmNodeData.getName() + IN_DATABASE_STRING);
+                scheduleNodeTransactionOrFlush();
+            }
+        } finally {
+            pendingNodeOperationsLock.unlock();
         }
     }
 
     void addRemoveNodeToPendingDatabaseOperations(RMNodeData rmNodeData, String nodeSourceName) {
-        cancelScheduledNodeTransaction();
-        registerPendingNodeOperations(DatabaseOperation.DELETE, rmNodeData, nodeSourceName);
-        if (delayEqualsToZero) {
-            logger.debug("Apply remove node " + rmNodeData.getName() + IN_DATABASE_WITH_NO_DELAY_STRING);
-            buildNodesTransactionAndCommit();
-        } else {
-            logger.debug("Schedule remove node " + rmNodeData.getName() + IN_DATABASE_STRING);
-            scheduleNodeTransactionOrFlush();
+        pendingNodeOperationsLock.lock();
+        try {
+            registerPendingNodeOperation(DatabaseOperation.DELETE, rmNodeData, nodeSourceName);
+            if (delayEqualsToZero) {
+                logger.debug("Apply remove node " + rmNodeData.getName() + IN_DATABASE_WITH_NO_DELAY_STRING);
+                buildNodesTransactionAndCommit();
+            } else {
+                logger.debug("Schedule remove node " + rmNodeData.getName() + IN_DATABASE_STRING);
+                scheduleNodeTransactionOrFlush();
+            }
+        } finally {
+            pendingNodeOperationsLock.unlock();
         }
     }
 
     void addRemoveNodesToPendingDatabaseOperations(Collection<RMNodeData> nodes, String nodeSourceName) {
-        cancelScheduledNodeTransaction();
-        for (RMNodeData rmNodeData : nodes) {
-            registerPendingNodeOperations(DatabaseOperation.DELETE, rmNodeData, nodeSourceName);
-        }
-        if (delayEqualsToZero) {
-            logger.debug("Apply " + nodes.size() + " remove node" + IN_DATABASE_WITH_NO_DELAY_STRING);
-            buildNodesTransactionAndCommit();
-        } else {
-            logger.debug("Schedule " + nodes.size() + " remove node" + IN_DATABASE_STRING);
-            scheduleNodeTransactionOrFlush();
+        pendingNodeOperationsLock.lock();
+        try {
+            for (RMNodeData rmNodeData : nodes) {
+                registerPendingNodeOperation(DatabaseOperation.DELETE, rmNodeData, nodeSourceName);
+            }
+            if (delayEqualsToZero) {
+                logger.debug("Apply " + nodes.size() + " remove node" + IN_DATABASE_WITH_NO_DELAY_STRING);
+                buildNodesTransactionAndCommit();
+            } else {
+                logger.debug("Schedule " + nodes.size() + " remove node" + IN_DATABASE_STRING);
+                scheduleNodeTransactionOrFlush();
+            }
+        } finally {
+            pendingNodeOperationsLock.unlock();
         }
     }
 
@@ -313,39 +360,97 @@ public class RMDBManagerBuffer {
         List<NodeOperation> listCopy;
         pendingNodeOperationsLock.lock();
         try {
-            listCopy = new LinkedList<>(pendingNodesOperations);
+            listCopy = new LinkedList<>(pendingNodesOperations.values());
         } finally {
             pendingNodeOperationsLock.unlock();
         }
         return listCopy;
     }
 
-    private void cancelScheduledNodeTransaction() {
-        if (scheduledNodeTransaction != null && !scheduledNodeTransaction.isDone()) {
-            scheduledNodeTransaction.cancel(false);
+    /**
+     * Registers the operation, coalescing it with the pending operation of
+     * the same node if any. Must be called with the pending node operations
+     * lock held.
+     */
+    private void registerPendingNodeOperation(DatabaseOperation databaseOperation, RMNodeData rmNodeData,
+            String nodeSourceName) {
+        NodeOperation pendingOperation = pendingNodesOperations.get(rmNodeData);
+        if (pendingOperation != null) {
+            if (coalesceWithPendingOperation(pendingOperation, databaseOperation, rmNodeData, nodeSourceName)) {
+                coalescedNodeOperationsCount.incrementAndGet();
+                pendingNodeOperationsCount = pendingNodesOperations.size();
+                return;
+            }
+            // operations cannot be merged, the pending one must be applied first
+            buildNodesTransactionAndCommit();
+        }
+        pendingNodesOperations.put(rmNodeData,
+                                   new NodeOperation(rmNodeData,
+                                                     databaseOperation,
+                                                     nodeSourceName,
+                                                     System.currentTimeMillis()));
+        pendingNodeOperationsCount = pendingNodesOperations.size();
+        if (pendingNodeOperationsCount > maximumPendingNodeOperationsCount) {
+            maximumPendingNodeOperationsCount = pendingNodeOperationsCount;
         }
     }
 
-    private void registerPendingNodeOperations(DatabaseOperation databaseOperation, RMNodeData rmNodeData,
-            String nodeSourceName) {
-        pendingNodeOperationsLock.lock();
-        try {
-            pendingNodesOperations.add(new NodeOperation(rmNodeData, databaseOperation, nodeSourceName));
-        } finally {
-            pendingNodeOperationsLock.unlock();
+    /**
+     * Merges a new node operation into the pending operation of the node.
+     * The node data given with the latest operation is the one persisted.
+     *
+     * @return false if both operations must be applied one after the other
+     */
+    private boolean coalesceWithPendingOperation(NodeOperation pendingOperation, DatabaseOperation databaseOperation,
+            RMNodeData rmNodeData, String nodeSourceName) {
+        DatabaseOperation coalescedOperation;
+        if (pendingOperation.operation == DatabaseOperation.CREATE &&
+            databaseOperation == DatabaseOperation.DELETE) {
+            // the node has never been persisted
+            pendingNodesOperations.remove(rmNodeData);
+            return true;
+        } else if (pendingOperation.operation == DatabaseOperation.CREATE &&
+                   databaseOperation == DatabaseOperation.UPDATE) {
+            coalescedOperation = DatabaseOperation.CREATE;
+        } else if (pendingOperation.operation == DatabaseOperation.UPDATE &&
+                   (databaseOperation == DatabaseOperation.UPDATE || databaseOperation == DatabaseOperation.DELETE)) {
+            coalescedOperation = databaseOperation;
+        } else {
+            return false;
         }
+        pendingNodesOperations.put(rmNodeData,
+                                   new NodeOperation(rmNodeData,
+                                                     coalescedOperation,
+                                                     nodeSourceName,
+                                                     pendingOperation.registrationTime));
+        return true;
     }
 
+    /**
+     * Schedules the flush of pending operations if it is not already scheduled,
+     * so that an operation is not delayed more than the configured delay. When
+     * too many nodes have pending operations, they are flushed by the caller.
+     * Must be called with the pending node operations lock held.
+     */
     private void scheduleNodeTransactionOrFlush() {
-        if (pendingNodesOperations.size() < MAXIMUM_BUFFERIZED_NODE_OPERATIONS) {
-            scheduledNodeTransaction = databaseTransactionExecutor.schedule(new Runnable() {
+        if (pendingNodesOperations.size() >= nodeOperationsQueueCapacity) {
+            logger.debug("Flush " + pendingNodesOperations.size() + " pending node operations" + IN_DATABASE_STRING);
+            backPressureFlushesCount.incrementAndGet();
+            buildNodesTransactionAndCommit();
+        } else if (!pendingNodesOperations.isEmpty() && !nodeTransactionScheduled) {
+            nodeTransactionScheduled = true;
+            databaseTransactionExecutor.schedule(new Runnable() {
                 @Override
                 public void run() {
-                    buildNodesTransactionAndCommit();
+                    pendingNodeOperationsLock.lock();
+                    try {
+                        nodeTransactionScheduled = false;
+                        buildNodesTransactionAndCommit();
+                    } finally {
+                        pendingNodeOperationsLock.unlock();
+                    }
                 }
             }, RM_NODES_DB_OPERATIONS_DELAY.getValueAsInt(), TimeUnit.MILLISECONDS);
-        } else {
-            buildNodesTransactionAndCommit();
         }
     }
 
@@ -394,6 +499,7 @@ public class RMDBManagerBuffer {
                         return null;
                     }
                 });
+                recordLatencies(currentNodesOperations);
                 effectiveNodesOperations = extractOperationsOfNextTransaction();
             }
             // Pending node operations are cleared, retrieval can be enabled
@@ -406,46 +512,99 @@ public class RMDBManagerBuffer {
         }
     }
 
+    /**
+     * Takes the pending operations to apply in the next transaction.
+     * Node removals come first, then node creations and finally node
+     * updates, so that removals are not delayed by a flood of updates.
+     */
     private List<NodeOperation> extractOperationsOfNextTransaction() {
-        Set<RMNodeData> nodesOfNextTransaction = new HashSet<>();
         List<NodeOperation> operationsOfNextTransaction = new LinkedList<>();
-        Iterator<NodeOperation> pendingOperationsIterator = pendingNodesOperations.iterator();
-
-        boolean canContinueAddingOperationsToTransaction = true;
-
-        while (pendingOperationsIterator.hasNext() && canContinueAddingOperationsToTransaction) {
-            NodeOperation nodeOperation = pendingOperationsIterator.next();
-            canContinueAddingOperationsToTransaction = addOperationToNextTransactionIfPossible(nodesOfNextTransaction,
-                                                                                               operationsOfNextTransaction,
-                                                                                               pendingOperationsIterator,
-                                                                                               nodeOperation);
+        for (DatabaseOperation databaseOperation : new DatabaseOperation[] { DatabaseOperation.DELETE,
+                                                                             DatabaseOperation.CREATE,
+                                                                             DatabaseOperation.UPDATE }) {
+            Iterator<NodeOperation> pendingOperationsIterator = pendingNodesOperations.values().iterator();
+            while (pendingOperationsIterator.hasNext() &&
+                   operationsOfNextTransaction.size() < MAXIMUM_NODE_OPERATIONS_PER_TRANSACTION) {
+                NodeOperation nodeOperation = pendingOperationsIterator.next();
+                if (nodeOperation.operation == databaseOperation) {
+                    operationsOfNextTransaction.add(nodeOperation);
+                    pendingOperationsIterator.remove();
+                }
+            }
         }
+        pendingNodeOperationsCount = pendingNodesOperations.size();
         return operationsOfNextTransaction;
     }
 
-    private boolean addOperationToNextTransactionIfPossible(Set<RMNodeData> nodesOfNextTransaction,
-            List<NodeOperation> operationsOfNextTransaction, Iterator<NodeOperation> pendingOperationsIterator,
-            NodeOperation nodeOperation) {
-
-        boolean operationAddedToNextTransaction = false;
-        RMNodeData rmNodeData = nodeOperation.node;
-
-        if (!nodesOfNextTransaction.contains(rmNodeData)) {
-            nodesOfNextTransaction.add(rmNodeData);
-            operationsOfNextTransaction.add(nodeOperation);
-            pendingOperationsIterator.remove();
-            operationAddedToNextTransaction = true;
+    private void recordLatencies(List<NodeOperation> nodeOperations) {
+        long now = System.currentTimeMillis();
+        for (NodeOperation nodeOperation : nodeOperations) {
+            long latency = now - nodeOperation.registrationTime;
+            flushedNodeOperationsTotalLatency.addAndGet(latency);
+            if (latency > maximumNodeOperationLatency) {
+                maximumNodeOperationLatency = latency;
+            }
         }
-        return operationAddedToNextTransaction;
+        flushedNodeOperationsCount.addAndGet(nodeOperations.size());
     }
 
     private boolean nodeHasPendingOperations(RMNodeData searchedNode) {
-        for (NodeOperation nodeOperation : pendingNodesOperations) {
-            if (searchedNode.equals(nodeOperation.node)) {
-                return true;
-            }
-        }
-        return false;
+        return pendingNodesOperations.containsKey(searchedNode);
+    }
+
+    ////// Statistics //////
+
+    /**
+     * @return the number of nodes with pending database operations
+     */
+    public int getPendingNodeOperationsCount() {
+        return pendingNodeOperationsCount;
+    }
+
+    /**
+     * @return the highest number of nodes with pending database operations
+     */
+    public int getMaximumPendingNodeOperationsCount() {
+        return maximumPendingNodeOperationsCount;
+    }
+
+    /**
+     * @return the number of node operations merged into a pending operation
+     */
+    public long getCoalescedNodeOperationsCount() {
+        return coalescedNodeOperationsCount.get();
+    }
+
+    /**
+     * @return the number of node operations applied in database
+     */
+    public long getFlushedNodeOperationsCount() {
+        return flushedNodeOperationsCount.get();
+    }
+
+    /**
+     * @return the average time in milliseconds between the registration of a
+     * node operation and its application in database
+     */
+    public long getAverageNodeOperationLatency() {
+        long flushed = flushedNodeOperationsCount.get();
+        return flushed == 0 ? 0 : flushedNodeOperationsTotalLatency.get() / flushed;
+    }
+
+    /**
+     * @return the maximum time in milliseconds between the registration of a
+     * node operation and its application in database
+     */
+    public long getMaximumNodeOperationLatency() {
+        return maximumNodeOperationLatency;
+    }
+
+    /**
+     * @return the number of times pending operations were flushed by the caller
+     * because the queue was full
+     */
+    public long getBackPressureFlushesCount() {
+        return backPressureFlushesCount.get();
     }
 
     public enum DatabaseOperation {
@@ -463,10 +622,18 @@ public class RMDBManagerBuffer {
 
         protected final String nodeSourceName;
 
+        protected final long registrationTime;
+
         protected NodeOperation(RMNodeData node, DatabaseOperation operation, String nodeSourceName) {
+            this(node, operation, nodeSourceName, System.currentTimeMillis());
+        }
+
+        protected NodeOperation(RMNodeData node, DatabaseOperation operation, String nodeSourceName,
+                long registrationTime) {
             this.node = node;
             this.operation = operation;
             this.nodeSourceName = nodeSourceName;
+            this.registrationTime = registrationTime;
         }
 
         @Override
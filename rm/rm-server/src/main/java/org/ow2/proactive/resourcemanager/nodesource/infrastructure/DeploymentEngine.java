@@ -0,0 +1,368 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.nodesource.infrastructure;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * Drives the deployment of nodes on many hosts at once.
+ * <p>
+ * Each host goes through its own state machine: it is {@link State#QUEUED}
+ * until a deployment slot is free, then {@link State#DEPLOYING} on the
+ * executor. A failed attempt puts the host in {@link State#BACKOFF}, where a
+ * timer (and not a sleeping deployment thread) queues it again once the
+ * configured delay elapsed, until its retries are exhausted and it ends up
+ * {@link State#FAILED}. At most {@code maxConcurrentDeployments} attempts run
+ * at the same time, so that a slow or broken host only holds its own slot.
+ * <p>
+ * The engine measures the latency of the successful attempts and the node
+ * throughput of each deployment wave, a wave ending when no host is queued,
+ * deploying or waiting for a retry anymore.
+ *
+ * @author The ProActive Team
+ */
+public class DeploymentEngine {
+
+    private static final Logger logger = Logger.getLogger(DeploymentEngine.class);
+
+    /** Retries value meaning that a host is retried until its deployment succeeds */
+    public static final int INFINITE_RETRIES = -1;
+
+    /** Timer shared by all the engines, it only queues the hosts back */
+    private static final ScheduledThreadPoolExecutor backoffTimer;
+
+    static {
+        backoffTimer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("Node deployment backoff timer"));
+        backoffTimer.setKeepAliveTime(1, TimeUnit.MINUTES);
+        backoffTimer.allowCoreThreadTimeOut(true);
+        backoffTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    public enum State {
+        QUEUED,
+        DEPLOYING,
+        BACKOFF,
+        DEPLOYED,
+        FAILED
+    }
+
+    private final Executor executor;
+
+    private final int maxConcurrentDeployments;
+
+    private final Queue<HostDeployment> queue = new ArrayDeque<>();
+
+    private final Map<String, HostDeployment> deployments = new HashMap<>();
+
+    private int deploying = 0;
+
+    private int backingOff = 0;
+
+    private boolean shutDown = false;
+
+    // metrics, all guarded by the engine lock
+
+    private long waveStart = -1;
+
+    private int waveNodes = 0;
+
+    private long attempts = 0;
+
+    private long failedAttempts = 0;
+
+    private long deployedHosts = 0;
+
+    private long deployedNodes = 0;
+
+    private long totalLatency = 0;
+
+    private long maxLatency = 0;
+
+    private double lastWaveThroughput = 0;
+
+    /**
+     * @param executor runs the deployment attempts
+     * @param maxConcurrentDeployments max number of attempts running at once
+     */
+    public DeploymentEngine(Executor executor, int maxConcurrentDeployments) {
+        if (maxConcurrentDeployments < 1) {
+            throw new IllegalArgumentException("At least one concurrent deployment must be allowed");
+        }
+        this.executor = executor;
+        this.maxConcurrentDeployments = maxConcurrentDeployments;
+    }
+
+    /**
+     * Queues the deployment of nodes on a host. Nothing is done if a
+     * deployment on this host is already queued, running or waiting for a
+     * retry.
+     *
+     * @param host the name of the host
+     * @param nbNodes the number of nodes the attempt deploys
+     * @param retries the number of retries after a failed attempt, or {@link #INFINITE_RETRIES}
+     * @param backoff time in ms to wait after a failed attempt
+     * @param attempt deploys the nodes, a failure is notified by an exception
+     * @return false if the host is already being deployed or the engine is shut down
+     */
+    public synchronized boolean submit(String host, int nbNodes, int retries, long backoff, Callable<?> attempt) {
+        if (shutDown) {
+            return false;
+        }
+        HostDeployment current = deployments.get(host);
+        if (current != null && current.isActive()) {
+            return false;
+        }
+        HostDeployment deployment = new HostDeployment(host, nbNodes, retries, backoff, attempt);
+        deployments.put(host, deployment);
+        if (waveStart < 0) {
+            waveStart = System.currentTimeMillis();
+            waveNodes = 0;
+        }
+        queue.add(deployment);
+        dispatch();
+        return true;
+    }
+
+    /**
+     * @return the deployment state of the host, or null if it never was deployed
+     */
+    public synchronized State getState(String host) {
+        HostDeployment deployment = deployments.get(host);
+        return deployment == null ? null : deployment.state;
+    }
+
+    /**
+     * @return the deployment state of every host submitted to the engine
+     */
+    public synchronized Map<String, State> getStates() {
+        Map<String, State> states = new HashMap<>(deployments.size());
+        for (HostDeployment deployment : deployments.values()) {
+            states.put(deployment.host, deployment.state);
+        }
+        return Collections.unmodifiableMap(states);
+    }
+
+    public synchronized long getAttempts() {
+        return attempts;
+    }
+
+    public synchronized long getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public synchronized long getDeployedHosts() {
+        return deployedHosts;
+    }
+
+    public synchronized long getDeployedNodes() {
+        return deployedNodes;
+    }
+
+    /**
+     * @return the mean duration in ms of the successful attempts
+     */
+    public synchronized long getMeanLatency() {
+        return deployedHosts == 0 ? 0 : totalLatency / deployedHosts;
+    }
+
+    /**
+     * @return the longest duration in ms of a successful attempt
+     */
+    public synchronized long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return the number of nodes deployed per second during the last complete wave
+     */
+    public synchronized double getLastWaveThroughput() {
+        return lastWaveThroughput;
+    }
+
+    /**
+     * Drops the queued deployments and the pending retries, the hosts waiting
+     * for a retry end up {@link State#FAILED}. The running attempts are not
+     * interrupted but their hosts are not retried.
+     */
+    public synchronized void shutDown() {
+        shutDown = true;
+        queue.clear();
+        for (HostDeployment deployment : deployments.values()) {
+            // a timer which could not be cancelled is already waiting for the lock, its retry fails the host
+            if (deployment.retryTimer != null && deployment.retryTimer.cancel(false)) {
+                deployment.retryTimer = null;
+                deployment.state = State.FAILED;
+                backingOff--;
+            }
+        }
+    }
+
+    private void dispatch() {
+        while (!shutDown && deploying < maxConcurrentDeployments && !queue.isEmpty()) {
+            final HostDeployment deployment = queue.poll();
+            deployment.state = State.DEPLOYING;
+            deployment.attemptStart = System.currentTimeMillis();
+            deploying++;
+            attempts++;
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runAttempt(deployment);
+                    }
+                });
+            } catch (RuntimeException e) {
+                deploying--;
+                attemptFailed(deployment, e);
+            }
+        }
+    }
+
+    private void runAttempt(HostDeployment deployment) {
+        try {
+            deployment.attempt.call();
+        } catch (Exception e) {
+            synchronized (this) {
+                deploying--;
+                attemptFailed(deployment, e);
+                dispatch();
+                endWaveIfIdle();
+            }
+            return;
+        }
+        synchronized (this) {
+            deploying--;
+            long latency = System.currentTimeMillis() - deployment.attemptStart;
+            deployment.state = State.DEPLOYED;
+            deployedHosts++;
+            deployedNodes += deployment.nbNodes;
+            waveNodes += deployment.nbNodes;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+            logger.debug("Deployed " + deployment.nbNodes + " nodes on host " + deployment.host + " in " + latency +
+                         " ms");
+            dispatch();
+            endWaveIfIdle();
+        }
+    }
+
+    private void attemptFailed(final HostDeployment deployment, Exception e) {
+        failedAttempts++;
+        if (shutDown) {
+            deployment.state = State.FAILED;
+            return;
+        }
+        if (deployment.retries == INFINITE_RETRIES || deployment.retries > 0) {
+            logger.warn("Failed nodes deployment in host : " + deployment.host + ", retries left : " +
+                        deployment.retries, e);
+            if (deployment.retries > 0) {
+                deployment.retries--;
+            }
+            deployment.state = State.BACKOFF;
+            backingOff++;
+            deployment.retryTimer = backoffTimer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    retry(deployment);
+                }
+            }, deployment.backoff, TimeUnit.MILLISECONDS);
+        } else {
+            deployment.state = State.FAILED;
+            logger.error("Tries threshold reached for host " + deployment.host +
+                         ". This host is not part of the deployment process anymore.", e);
+        }
+    }
+
+    private synchronized void retry(HostDeployment deployment) {
+        backingOff--;
+        deployment.retryTimer = null;
+        if (shutDown) {
+            deployment.state = State.FAILED;
+            return;
+        }
+        deployment.state = State.QUEUED;
+        queue.add(deployment);
+        dispatch();
+    }
+
+    private void endWaveIfIdle() {
+        if (waveStart < 0 || deploying > 0 || backingOff > 0 || !queue.isEmpty()) {
+            return;
+        }
+        long duration = Math.max(1, System.currentTimeMillis() - waveStart);
+        lastWaveThroughput = waveNodes * 1000d / duration;
+        logger.info("Deployed " + waveNodes + " nodes in " + duration + " ms (" +
+                    String.format("%.2f", lastWaveThroughput) + " nodes/s, mean attempt latency " +
+                    getMeanLatency() + " ms, max " + maxLatency + " ms, " + failedAttempts + "/" + attempts +
+                    " failed attempts)");
+        waveStart = -1;
+    }
+
+    private static final class HostDeployment {
+
+        private final String host;
+
+        private final int nbNodes;
+
+        private final long backoff;
+
+        private final Callable<?> attempt;
+
+        private int retries;
+
+        private State state = State.QUEUED;
+
+        private long attemptStart;
+
+        private ScheduledFuture<?> retryTimer;
+
+        private HostDeployment(String host, int nbNodes, int retries, long backoff, Callable<?> attempt) {
+            this.host = host;
+            this.nbNodes = nbNodes;
+            this.retries = retries;
+            this.backoff = backoff;
+            this.attempt = attempt;
+        }
+
+        private boolean isActive() {
+            return state == State.QUEUED || state == State.DEPLOYING || state == State.BACKOFF;
+        }
+    }
+
+}
@@ -29,12 +29,15 @@ import java.io.*;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.util.ProActiveCounter;
+import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
 import org.ow2.proactive.resourcemanager.exception.RMException;
 import org.ow2.proactive.resourcemanager.nodesource.common.Configurable;
 import org.ow2.proactive.utils.FileToBytesConverter;
@@ -79,6 +82,8 @@ public abstract class HostsFileBasedInfrastructureManager extends Infrastructure
 
     protected NodeNameBuilder nodeNameBuilder = new NodeNameBuilder();
 
+    private transient DeploymentEngine deploymentEngine;
+
     @Override
     protected void initializePersistedInfraVariables() {
         persistedInfraVariables.put(HOST_TRACKER_PER_HOST_KEY, new HashMap<String, HostTracker>());
@@ -185,7 +190,10 @@ public abstract class HostsFileBasedInfrastructureManager extends Infrastructure
     @Override
     public void acquireAllNodes() {
         while (nodesNeedToBeDeployed()) {
-            acquireNode();
+            if (!submitDeployments()) {
+                // the remaining hosts are already being deployed, or the engine is shut down
+                return;
+            }
         }
     }
 
@@ -198,7 +206,16 @@ public abstract class HostsFileBasedInfrastructureManager extends Infrastructure
             logger.info("Attempting to acquire nodes while nodes are already deployed on all hosts.");
             return;
         }
+        submitDeployments();
+    }
 
+    /**
+     * Submits the deployment of the hosts which need nodes to the deployment engine.
+     *
+     * @return false if no deployment was accepted by the engine
+     */
+    private boolean submitDeployments() {
+        boolean anySubmitted = false;
         for (Map.Entry<String, HostTracker> hostEntry : getHostTrackerPerHostEntrySetWithLock()) {
             final String host = hostEntry.getKey();
             final HostTracker hostTracker = hostEntry.getValue();
@@ -207,19 +224,26 @@ public abstract class HostsFileBasedInfrastructureManager extends Infrastructure
                 final int neededNodeNumber = getNeededNodesNumberWithLock(host);
                 logger.info("Acquiring " + neededNodeNumber + " nodes on host " + hostTracker);
 
-                this.nodeSource.executeInParallel(new Runnable() {
-                    public void run() {
-                        try {
-                            startNodeImplWithRetries(hostTracker, neededNodeNumber, maxDeploymentFailure);
-                        } catch (Exception e) {
-                            logger.error("Could not acquire nodes on host " + hostTracker, e);
-                        }
-                    }
-                });
-
-                setNeedsNodesWithLockAndPersist(host, false);
+                boolean submitted = getDeploymentEngine().submit(host,
+                                                                 neededNodeNumber,
+                                                                 maxDeploymentFailure,
+                                                                 waitBetweenDeploymentFailures,
+                                                                 new Callable<Void>() {
+                                                                     @Override
+                                                                     public Void call() throws Exception {
+                                                                         startNodeImplAttempt(hostTracker,
+                                                                                              neededNodeNumber);
+                                                                         return null;
+                                                                     }
+                                                                 });
+
+                if (submitted) {
+                    setNeedsNodesWithLockAndPersist(host, false);
+                    anySubmitted = true;
+                }
             }
         }
+        return anySubmitted;
     }
 
     /**
@@ -299,6 +323,53 @@ public abstract class HostsFileBasedInfrastructureManager extends Infrastructure
         logger.info("Reconnected node " + nodeUrl + " on host " + nodeHost);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutDown() {
+        synchronized (this) {
+            if (deploymentEngine != null) {
+                deploymentEngine.shutDown();
+            }
+        }
+    }
+
+    /**
+     * @return the engine deploying the nodes of this infrastructure on its hosts
+     */
+    protected synchronized DeploymentEngine getDeploymentEngine() {
+        if (deploymentEngine == null) {
+            deploymentEngine = new DeploymentEngine(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    nodeSource.executeInParallel(command);
+                }
+            }, PAResourceManagerProperties.RM_NODESOURCE_DEPLOYMENT_MAX_CONCURRENCY.getValueAsInt());
+        }
+        return deploymentEngine;
+    }
+
+    /**
+     * Makes a single attempt to deploy nodes on a host, the deploying nodes
+     * created by a failed attempt are removed.
+     */
+    private void startNodeImplAttempt(HostTracker hostTracker, int nbNodes) throws RMException {
+        final List<String> depNodeURLs = new ArrayList<>(nbNodes);
+        try {
+            startNodeImpl(hostTracker, nbNodes, depNodeURLs);
+        } catch (RuntimeException | RMException e) {
+            removeNodes(depNodeURLs);
+            throw e;
+        }
+    }
+
+    /**
+     * Deploys nodes on a host on the calling thread, waiting between the
+     * failed attempts. The infrastructure itself deploys through its
+     * {@link #getDeploymentEngine() deployment engine}, which does not block
+     * any thread between two attempts.
+     */
     protected void startNodeImplWithRetries(final HostTracker hostTracker, final int nbNodes, int retries)
             throws RMException {
         while (true) {
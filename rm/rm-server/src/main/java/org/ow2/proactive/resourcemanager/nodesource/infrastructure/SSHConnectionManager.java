@@ -0,0 +1,386 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.nodesource.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+
+/**
+ * Keeps authenticated ssh sessions open per host and multiplexes command
+ * channels over them, so that successive or concurrent deployments on the
+ * same host do not pay for a new connection and authentication each time.
+ * <p>
+ * A session carries at most {@code maxChannelsPerSession} channels at once,
+ * an additional session is opened to the host when all of them are busy.
+ * Sessions without any channel for more than {@code idleTimeout} ms are
+ * closed the next time a command is executed.
+ * <p>
+ * The completion of a command is signaled from the jsch session thread when
+ * the remote side closes the channel, so that no thread has to poll the
+ * channel exit status.
+ *
+ * @author The ProActive Team
+ */
+public class SSHConnectionManager {
+
+    private static final Logger logger = Logger.getLogger(SSHConnectionManager.class);
+
+    public static final int DEFAULT_OUTPUT_BUFFER_LENGTH = 1000;
+
+    private final JSch jsch = new JSch();
+
+    private final String username;
+
+    private final String password;
+
+    private final Properties options;
+
+    private final int maxChannelsPerSession;
+
+    private final long idleTimeout;
+
+    /** Pooled sessions, by user@host:port */
+    private final Map<String, List<PooledSession>> sessions = new HashMap<>();
+
+    private boolean closed = false;
+
+    /**
+     * @param username the user to log in as on the remote hosts
+     * @param password the password, or null to authenticate with the private key
+     * @param privateKey the private key used when no password is given
+     * @param options the ssh options applied to every session
+     * @param maxChannelsPerSession max number of channels open at once over one session
+     * @param idleTimeout time in ms after which a session without channel is closed
+     * @throws JSchException if the private key cannot be loaded
+     */
+    public SSHConnectionManager(String username, String password, byte[] privateKey, Properties options,
+            int maxChannelsPerSession, long idleTimeout) throws JSchException {
+        if (maxChannelsPerSession < 1) {
+            throw new IllegalArgumentException("At least one channel per session must be allowed");
+        }
+        this.username = username;
+        this.password = password;
+        this.options = options;
+        this.maxChannelsPerSession = maxChannelsPerSession;
+        this.idleTimeout = idleTimeout;
+        if (password == null) {
+            jsch.addIdentity(username, privateKey, null, null);
+        }
+    }
+
+    /**
+     * Executes a command on a remote host over a pooled session.
+     *
+     * @param host the remote host
+     * @param port the port of the ssh server
+     * @param command the command to execute
+     * @param connectTimeout timeout in ms of the session connection, if a new one is needed
+     * @param onCompletion run once the channel is closed, may be null
+     * @return the running command, which must be released once not needed anymore
+     * @throws JSchException if no channel could be opened to the host
+     */
+    public RemoteCommand execute(String host, int port, String command, int connectTimeout, Runnable onCompletion)
+            throws JSchException {
+        String key = username + "@" + host + ":" + port;
+        PooledSession pooled = acquire(key);
+        if (pooled != null) {
+            try {
+                return open(pooled, command, onCompletion);
+            } catch (JSchException e) {
+                // the server may have dropped the connection since it was last used
+                logger.debug("Could not open a channel over the pooled session " + key + ", reconnecting", e);
+                abandon(key, pooled);
+            }
+        }
+        pooled = connect(key, host, port, connectTimeout);
+        try {
+            return open(pooled, command, onCompletion);
+        } catch (JSchException e) {
+            abandon(key, pooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all the pooled sessions, further executions are refused.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (List<PooledSession> hostSessions : sessions.values()) {
+            for (PooledSession pooled : hostSessions) {
+                pooled.session.disconnect();
+            }
+        }
+        sessions.clear();
+    }
+
+    /**
+     * @return the number of sessions currently pooled
+     */
+    public synchronized int getSessionCount() {
+        int count = 0;
+        for (List<PooledSession> hostSessions : sessions.values()) {
+            count += hostSessions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Reserves a channel on a connected session to the given host, closing
+     * on the way the sessions that stayed idle for too long.
+     *
+     * @return the reserved session or null if none has a free channel
+     */
+    private synchronized PooledSession acquire(String key) throws JSchException {
+        if (closed) {
+            throw new JSchException("The ssh connection manager is closed");
+        }
+        long now = System.currentTimeMillis();
+        PooledSession reserved = null;
+        Iterator<List<PooledSession>> hosts = sessions.values().iterator();
+        while (hosts.hasNext()) {
+            List<PooledSession> hostSessions = hosts.next();
+            Iterator<PooledSession> it = hostSessions.iterator();
+            while (it.hasNext()) {
+                PooledSession pooled = it.next();
+                if (pooled.channels == 0 &&
+                    (!pooled.session.isConnected() || now - pooled.lastUsed > idleTimeout)) {
+                    pooled.session.disconnect();
+                    it.remove();
+                }
+            }
+            if (hostSessions.isEmpty()) {
+                hosts.remove();
+            }
+        }
+        List<PooledSession> hostSessions = sessions.get(key);
+        if (hostSessions != null) {
+            for (PooledSession pooled : hostSessions) {
+                if (pooled.channels < maxChannelsPerSession && pooled.session.isConnected()) {
+                    reserved = pooled;
+                    break;
+                }
+            }
+        }
+        if (reserved != null) {
+            reserved.channels++;
+        }
+        return reserved;
+    }
+
+    /**
+     * Opens a new session to the given host and pools it with one channel
+     * reserved. The connection itself is done outside of the pool lock so
+     * that a slow host does not delay the deployments on the other ones.
+     */
+    private PooledSession connect(String key, String host, int port, int connectTimeout) throws JSchException {
+        Session session = jsch.getSession(username, host, port);
+        if (password != null) {
+            session.setPassword(password);
+        }
+        session.setConfig(options);
+        session.connect(connectTimeout);
+        PooledSession pooled = new PooledSession(session);
+        synchronized (this) {
+            if (closed) {
+                session.disconnect();
+                throw new JSchException("The ssh connection manager is closed");
+            }
+            List<PooledSession> hostSessions = sessions.get(key);
+            if (hostSessions == null) {
+                hostSessions = new ArrayList<>();
+                sessions.put(key, hostSessions);
+            }
+            hostSessions.add(pooled);
+        }
+        return pooled;
+    }
+
+    private RemoteCommand open(PooledSession pooled, String command, Runnable onCompletion) throws JSchException {
+        RemoteCommand remoteCommand = new RemoteCommand(pooled, onCompletion);
+        ChannelExec channel = (ChannelExec) pooled.session.openChannel("exec");
+        channel.setCommand(command);
+        channel.setOutputStream(remoteCommand.output, true);
+        // jsch closes the error stream when the channel itself is closed,
+        // after having received the exit status of the command
+        channel.setErrStream(remoteCommand.new CompletionStream(remoteCommand.output));
+        remoteCommand.channel = channel;
+        try {
+            channel.connect();
+        } catch (JSchException e) {
+            channel.disconnect();
+            throw e;
+        }
+        return remoteCommand;
+    }
+
+    /**
+     * Gives back a channel reservation that could not be used, the session
+     * is closed if no other channel is using it.
+     */
+    private synchronized void abandon(String key, PooledSession pooled) {
+        pooled.channels--;
+        if (pooled.channels > 0) {
+            return;
+        }
+        pooled.session.disconnect();
+        List<PooledSession> hostSessions = sessions.get(key);
+        if (hostSessions != null) {
+            hostSessions.remove(pooled);
+            if (hostSessions.isEmpty()) {
+                sessions.remove(key);
+            }
+        }
+    }
+
+    private synchronized void release(PooledSession pooled) {
+        pooled.channels--;
+        pooled.lastUsed = System.currentTimeMillis();
+    }
+
+    private static final class PooledSession {
+
+        private final Session session;
+
+        /** Number of channels currently open over the session */
+        private int channels = 1;
+
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledSession(Session session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * A command running over a pooled session.
+     */
+    public final class RemoteCommand {
+
+        private final PooledSession pooled;
+
+        private final Runnable onCompletion;
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream(DEFAULT_OUTPUT_BUFFER_LENGTH);
+
+        private ChannelExec channel;
+
+        private boolean completed = false;
+
+        private boolean released = false;
+
+        private RemoteCommand(PooledSession pooled, Runnable onCompletion) {
+            this.pooled = pooled;
+            this.onCompletion = onCompletion;
+        }
+
+        /**
+         * @return whether the remote side closed the channel
+         */
+        public synchronized boolean isCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return the exit status of the command, or -1 while it is running
+         */
+        public int getExitStatus() {
+            return channel.getExitStatus();
+        }
+
+        /**
+         * @return the standard and error outputs of the command
+         */
+        public String getOutput() {
+            return new String(output.toByteArray());
+        }
+
+        /**
+         * Closes the channel and gives it back to the pooled session, the
+         * remote command is not waited for.
+         */
+        public void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            channel.disconnect();
+            SSHConnectionManager.this.release(pooled);
+        }
+
+        private void complete() {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+            }
+            if (onCompletion != null) {
+                try {
+                    onCompletion.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Error while notifying the completion of a remote command", e);
+                }
+            }
+        }
+
+        private final class CompletionStream extends FilterOutputStream {
+
+            private CompletionStream(OutputStream out) {
+                super(out);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                complete();
+            }
+        }
+    }
+
+}
@@ -28,19 +28,17 @@ package org.ow2.proactive.resourcemanager.nodesource.infrastructure;
 import static com.google.common.base.Throwables.getStackTraceAsString;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.security.KeyException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,10 +54,7 @@ import org.ow2.proactive.resourcemanager.utils.CommandLineBuilder;
 import org.ow2.proactive.resourcemanager.utils.OperatingSystem;
 import org.ow2.proactive.resourcemanager.utils.RMNodeStarter;
 
-import com.jcraft.jsch.ChannelExec;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 
 
 /**
@@ -77,8 +72,6 @@ public class SSHInfrastructureV2 extends HostsFileBasedInfrastructureManager {
 
     private static final Logger logger = Logger.getLogger(SSHInfrastructureV2.class);
 
-    private static final int PROCESS_STILL_RUNNING_VALUE = -1;
-
     public static final int DEFAULT_OUTPUT_BUFFER_LENGTH = 1000;
 
     public static final int DEFAULT_SSH_PORT = 22;
@@ -118,6 +111,16 @@ public class SSHInfrastructureV2 extends HostsFileBasedInfrastructureManager {
      */
     private AtomicBoolean shutDown = new AtomicBoolean(false);
 
+    /**
+     * Pooled ssh sessions to the hosts, created on the first deployment.
+     */
+    private transient SSHConnectionManager connectionManager;
+
+    /**
+     * Deployments waiting for their nodes to register.
+     */
+    private transient Set<DeploymentWatch> deployments = Collections.newSetFromMap(new ConcurrentHashMap<DeploymentWatch, Boolean>());
+
     /**
      * Internal node acquisition method
      * <p>
@@ -226,99 +229,90 @@ public class SSHInfrastructureV2 extends HostsFileBasedInfrastructureManager {
         // in case of failure and still allow global timeout
         final int shorterTimeout = Math.round((90 * super.nodeTimeOut) / 100);
 
-        JSch jsch = new JSch();
-
         final String msg = "deploy on " + hostTracker.getResolvedAddress();
 
         final List<String> createdNodeNames = RMNodeStarter.getWorkersNodeNames(nodeName, nbNodes);
         depNodeURLs.addAll(addMultipleDeployingNodes(createdNodeNames, obfuscatedCmdLine, msg, super.nodeTimeOut));
         addTimeouts(depNodeURLs);
 
-        Session session;
-        try { // Create ssh session to the hostname
-            session = jsch.getSession(this.sshUsername, hostTracker.getResolvedAddress().getHostName(), this.sshPort);
-            if (this.sshPassword == null) {
-                jsch.addIdentity(this.sshUsername, this.sshPrivateKey, null, null);
-            } else {
-                session.setPassword(this.sshPassword);
-            }
-            session.setConfig(this.sshOptions);
-            session.connect(shorterTimeout);
-        } catch (JSchException e) {
-            multipleDeclareDeployingNodeLost(depNodeURLs, "unable to " + msg + "\n" + getStackTraceAsString(e));
-            throw new RMException("unable to " + msg, e);
-        }
-
-        SSHInfrastructureV2.logger.info("Executing SSH command: '" + finalCmdLine + "'");
-        ScheduledExecutorService deployService = Executors.newSingleThreadScheduledExecutor();
-        try { // Create ssh channel to run the cmd
-            ByteArrayOutputStream baos = new ByteArrayOutputStream(DEFAULT_OUTPUT_BUFFER_LENGTH);
-            ChannelExec channel;
+        // the deployment is watched through the node registration, node loss
+        // and channel close events instead of polling its state
+        final DeploymentWatch watch = new DeploymentWatch(createdNodeNames, depNodeURLs);
+        deployments.add(watch);
+        try {
+            Runnable onChannelClosed = new Runnable() {
+                @Override
+                public void run() {
+                    // we check the exit status of the session only in the
+                    // case where we link the current process to the one
+                    // that spawns the nodes. Otherwise, we let the two
+                    // processes live completely independently
+                    if (!deployNodesInDetachedMode) {
+                        watch.fail("The jvm process of the node has exited prematurely");
+                    }
+                }
+            };
+            SSHInfrastructureV2.logger.info("Executing SSH command: '" + finalCmdLine + "'");
+            SSHConnectionManager.RemoteCommand command;
             try {
-                channel = (ChannelExec) session.openChannel("exec");
-                channel.setCommand(finalCmdLine);
-                channel.setOutputStream(baos);
-                channel.setErrStream(baos);
-                channel.connect();
+                command = getConnectionManager().execute(hostTracker.getResolvedAddress().getHostName(),
+                                                         this.sshPort,
+                                                         finalCmdLine,
+                                                         shorterTimeout,
+                                                         onChannelClosed);
             } catch (JSchException e) {
                 multipleDeclareDeployingNodeLost(depNodeURLs, "unable to " + msg + "\n" + getStackTraceAsString(e));
                 throw new RMException("unable to " + msg, e);
             }
-            final ChannelExec chan = channel;
-            Future<Void> deployResult = deployService.submit(new Callable<Void>() {
-                @Override
-                public Void call() throws Exception {
-                    while (!shutDown.get() && !checkAllNodesAreAcquiredAndDo(createdNodeNames, null, null)) {
-                        if (anyTimedOut(depNodeURLs)) {
-                            throw new IllegalStateException("The upper infrastructure has issued a timeout");
-                        }
-                        // we check the exit status of the session only in the
-                        // case where we link the current process to the one
-                        // that spawns the nodes. Otherwise, we let the two
-                        // processes live completely independently
-                        if (!deployNodesInDetachedMode && chan.getExitStatus() != PROCESS_STILL_RUNNING_VALUE) {
-                            throw new IllegalStateException("The jvm process of the node has exited prematurely");
-                        }
-                        try {
-                            Thread.sleep(1000);
-                        } catch (InterruptedException e) {
-                            return null; // we know the cause of this
-                                         // interruption just exit
-                        }
-                    }
-                    return null; // Victory
-                }
-            });
             try {
-                deployResult.get(shorterTimeout, TimeUnit.MILLISECONDS);
-            } catch (ExecutionException e) {
-                declareLostAndThrow("Unable to " + msg + " due to " + e.getCause(), depNodeURLs, channel, baos, e);
+                if (!watch.await(shorterTimeout)) {
+                    declareLostAndThrow("Unable to " + msg + " due to timeout",
+                                        depNodeURLs,
+                                        command,
+                                        new TimeoutException());
+                } else if (watch.getFailure() != null) {
+                    declareLostAndThrow("Unable to " + msg + " due to " + watch.getFailure(),
+                                        depNodeURLs,
+                                        command,
+                                        new IllegalStateException(watch.getFailure()));
+                }
             } catch (InterruptedException e) {
-                deployResult.cancel(true);
-                declareLostAndThrow("Unable to " + msg + " due to an interruption", depNodeURLs, channel, baos, e);
-            } catch (TimeoutException e) {
-                deployResult.cancel(true);
-                declareLostAndThrow("Unable to " + msg + " due to timeout", depNodeURLs, channel, baos, e);
+                Thread.currentThread().interrupt();
+                declareLostAndThrow("Unable to " + msg + " due to an interruption", depNodeURLs, command, e);
             } finally {
-                channel.disconnect();
+                command.release();
             }
         } finally {
+            deployments.remove(watch);
             removeTimeouts(depNodeURLs);
-            session.disconnect();
-            deployService.shutdownNow();
         }
     }
 
-    private void declareLostAndThrow(String errMsg, List<String> nodesUrl, ChannelExec chan, ByteArrayOutputStream baos,
-            Exception e) throws RMException {
+    private void declareLostAndThrow(String errMsg, List<String> nodesUrl,
+            SSHConnectionManager.RemoteCommand command, Exception e) throws RMException {
         String lf = System.lineSeparator();
         StringBuilder sb = new StringBuilder(errMsg);
-        sb.append(lf).append(" > Process exit code: ").append(chan.getExitStatus());
-        sb.append(lf).append(" > Process output: ").append(lf).append(new String(baos.toByteArray()));
+        sb.append(lf).append(" > Process exit code: ").append(command.getExitStatus());
+        sb.append(lf).append(" > Process output: ").append(lf).append(command.getOutput());
         this.multipleDeclareDeployingNodeLost(nodesUrl, sb.toString());
         throw new RMException(errMsg, e);
     }
 
+    private synchronized SSHConnectionManager getConnectionManager() throws JSchException {
+        if (shutDown.get()) {
+            throw new JSchException("The infrastructure is shutting down");
+        }
+        if (connectionManager == null) {
+            connectionManager = new SSHConnectionManager(this.sshUsername,
+                                                         this.sshPassword,
+                                                         this.sshPrivateKey,
+                                                         this.sshOptions,
+                                                         PAResourceManagerProperties.RM_NODESOURCE_SSH_CHANNELS_PER_SESSION.getValueAsInt(),
+                                                         PAResourceManagerProperties.RM_NODESOURCE_SSH_SESSION_IDLE_TIMEOUT.getValueAsInt());
+        }
+        return connectionManager;
+    }
+
     /**
      * Configures the Infrastructure
      *
@@ -426,7 +420,40 @@ public class SSHInfrastructureV2 extends HostsFileBasedInfrastructureManager {
 
     @Override
     public void shutDown() {
+        super.shutDown();
         shutDown.set(true);
+        for (DeploymentWatch watch : deployments) {
+            watch.cancel();
+        }
+        synchronized (this) {
+            if (connectionManager != null) {
+                connectionManager.close();
+                connectionManager = null;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void notifyAcquiredNode(Node node) throws RMException {
+        super.notifyAcquiredNode(node);
+        String nodeName = node.getNodeInformation().getName();
+        for (DeploymentWatch watch : deployments) {
+            watch.nodeAcquired(nodeName);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void notifyDeployingNodeLost(String pnURL) {
+        super.notifyDeployingNodeLost(pnURL);
+        for (DeploymentWatch watch : deployments) {
+            watch.nodeLost(pnURL);
+        }
     }
 
     @Override
@@ -435,6 +462,61 @@ public class SSHInfrastructureV2 extends HostsFileBasedInfrastructureManager {
         persistedInfraVariables.put(TARGET_OS_OBJ_KEY, null);
     }
 
+    /**
+     * Tracks the nodes of one deployment until they are all registered or
+     * the deployment fails.
+     */
+    private static final class DeploymentWatch {
+
+        private final Set<String> pendingNodeNames;
+
+        private final List<String> deployingNodeURLs;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile String failure;
+
+        private DeploymentWatch(List<String> nodeNames, List<String> deployingNodeURLs) {
+            this.pendingNodeNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            this.pendingNodeNames.addAll(nodeNames);
+            this.deployingNodeURLs = deployingNodeURLs;
+        }
+
+        private void nodeAcquired(String nodeName) {
+            if (pendingNodeNames.remove(nodeName) && pendingNodeNames.isEmpty()) {
+                done.countDown();
+            }
+        }
+
+        private void nodeLost(String pnURL) {
+            if (deployingNodeURLs.contains(pnURL)) {
+                fail("The upper infrastructure has issued a timeout");
+            }
+        }
+
+        private synchronized void fail(String reason) {
+            if (done.getCount() > 0 && failure == null) {
+                failure = reason;
+            }
+            done.countDown();
+        }
+
+        private void cancel() {
+            done.countDown();
+        }
+
+        /**
+         * @return false if the timeout elapsed before the deployment ended
+         */
+        private boolean await(long timeout) throws InterruptedException {
+            return done.await(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        private String getFailure() {
+            return failure;
+        }
+    }
+
     // Below are wrapper methods around the runtime variables map
 
     private OperatingSystem getTargetOSObj() {
@@ -31,6 +31,7 @@ import java.security.Permission;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -269,6 +270,8 @@ public abstract class SelectionManager {
         // arranging nodes according to the selection policy
         // if could be shuffling or node source priorities
         List<RMNode> afterPolicyNodes = selectionPolicy.arrangeNodes(criteria.getSize(), filteredNodes, client);
+        // nodes already holding the data of the computation come first
+        afterPolicyNodes = arrangeNodesForLocality(afterPolicyNodes, criteria);
 
         List<Node> matchedNodes;
         if (hasScripts) {
@@ -276,9 +279,10 @@ public abstract class SelectionManager {
             checkAuthorizedScripts(criteria.getScripts());
 
             // arranging nodes for script execution
-            List<RMNode> arrangedNodes = arrangeNodesForScriptExecution(afterPolicyNodes,
-                                                                        criteria.getScripts(),
-                                                                        criteria.getBindings());
+            List<RMNode> arrangedNodes = arrangeNodesForLocality(arrangeNodesForScriptExecution(afterPolicyNodes,
+                                                                                                criteria.getScripts(),
+                                                                                                criteria.getBindings()),
+                                                                 criteria);
             List<RMNode> arrangedFilteredNodes = arrangedNodes;
             if (criteria.getTopology().isTopologyBased()) {
                 arrangedFilteredNodes = topologyNodesFilter.filterNodes(criteria, arrangedNodes);
@@ -401,6 +405,41 @@ public abstract class SelectionManager {
         return selectedNodes;
     }
 
+    /**
+     * Moves the preferred nodes of the criteria first, then the nodes of its preferred hosts.
+     * The given order is kept otherwise.
+     */
+    private static List<RMNode> arrangeNodesForLocality(List<RMNode> nodes, Criteria criteria) {
+        List<String> nodesUrls = criteria.getPreferredNodesUrls();
+        List<String> hosts = criteria.getPreferredHosts();
+        final List<String> preferredNodesUrls = nodesUrls != null ? nodesUrls : Collections.<String> emptyList();
+        final List<String> preferredHosts = hosts != null ? hosts : Collections.<String> emptyList();
+        if (preferredNodesUrls.isEmpty() && preferredHosts.isEmpty()) {
+            return nodes;
+        }
+        List<RMNode> arrangedNodes = new ArrayList<>(nodes);
+        // the sort is stable, the order of equally preferred nodes is kept
+        Collections.sort(arrangedNodes, new Comparator<RMNode>() {
+            @Override
+            public int compare(RMNode node1, RMNode node2) {
+                return Integer.compare(rank(node1), rank(node2));
+            }
+
+            private int rank(RMNode node) {
+                int index = preferredNodesUrls.indexOf(node.getNodeURL());
+                if (index >= 0) {
+                    return index;
+                }
+                index = preferredHosts.indexOf(node.getHostName());
+                if (index >= 0) {
+                    return preferredNodesUrls.size() + index;
+                }
+                return Integer.MAX_VALUE;
+            }
+        });
+        return arrangedNodes;
+    }
+
     private static boolean electedToRunOnAllNodes(Criteria criteria) {
         return criteria.getTopology().isTopologyBased() &&
                !criteria.getTopology().toString().equals(TopologyDescriptor.SINGLE_HOST.toString()) &&
@@ -26,15 +26,19 @@
 package org.ow2.proactive.resourcemanager.selection.topology;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
@@ -43,16 +47,19 @@ import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.api.PAFuture;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.node.NodeException;
+import org.objectweb.proactive.utils.NamedThreadFactory;
 import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
 import org.ow2.proactive.resourcemanager.frontend.topology.Topology;
 import org.ow2.proactive.resourcemanager.frontend.topology.TopologyDisabledException;
 import org.ow2.proactive.resourcemanager.frontend.topology.TopologyException;
 import org.ow2.proactive.resourcemanager.frontend.topology.TopologyImpl;
-import org.ow2.proactive.resourcemanager.frontend.topology.clustering.HAC;
+import org.ow2.proactive.resourcemanager.frontend.topology.clustering.DistanceMatrix;
+import org.ow2.proactive.resourcemanager.frontend.topology.clustering.MatrixHAC;
 import org.ow2.proactive.resourcemanager.frontend.topology.pinging.Pinger;
 import org.ow2.proactive.topology.descriptor.ArbitraryTopologyDescriptor;
 import org.ow2.proactive.topology.descriptor.BestProximityDescriptor;
 import org.ow2.proactive.topology.descriptor.DifferentHostsExclusiveDescriptor;
+import org.ow2.proactive.topology.descriptor.DistanceFunction;
 import org.ow2.proactive.topology.descriptor.MultipleHostsExclusiveDescriptor;
 import org.ow2.proactive.topology.descriptor.SingleHostDescriptor;
 import org.ow2.proactive.topology.descriptor.SingleHostExclusiveDescriptor;
@@ -87,6 +94,18 @@ public class TopologyManager {
     // class using for pinging
     private Class<? extends Pinger> pingerClass;
 
+    // measures the distances of new hosts outside of the lock
+    private final Executor discoveryExecutor;
+
+    // hosts whose distances to the other hosts are being measured
+    private final HashMap<InetAddress, HostDiscovery> pendingDiscoveries = new HashMap<>();
+
+    // incremented each time hosts or distances change, guarded by the write lock
+    private long version = 0;
+
+    // distances between all known hosts used by the clustering, rebuilt when the version changes
+    private HostDistances hostDistances;
+
     /**
      * Constructs new instance of the topology descriptor.
      * @throws ClassNotFoundException when the pinger class specified
@@ -99,7 +118,15 @@ public class TopologyManager {
 
     @VisibleForTesting
     public TopologyManager(Class<? extends Pinger> pingerClass) {
+        this(pingerClass,
+             Executors.newFixedThreadPool(PAResourceManagerProperties.RM_TOPOLOGY_DISTANCE_MAX_THREAD_NUMBER.getValueAsInt(),
+                                          new NamedThreadFactory("Topology discovery threadpool", true)));
+    }
+
+    @VisibleForTesting
+    TopologyManager(Class<? extends Pinger> pingerClass, Executor discoveryExecutor) {
         this.pingerClass = pingerClass;
+        this.discoveryExecutor = discoveryExecutor;
         handlers.put(ArbitraryTopologyDescriptor.class, new ArbitraryTopologyHandler());
         handlers.put(BestProximityDescriptor.class, new BestProximityHandler());
         handlers.put(ThresholdProximityDescriptor.class, new TresholdProximityHandler());
@@ -134,10 +161,13 @@ public class TopologyManager {
     }
 
     /**
-     * Updates the topology for new node. Executes the pinger on new node when this node belongs
-     * to unknow host.
+     * Updates the topology for new node. When this node belongs to an unknown host, the host
+     * is added right away with unknown distances, which are seen as the maximum distance by
+     * the selection. The pinger is then executed on the new node asynchronously, and the
+     * measured distances are published once all of them are known.
      */
     public void addNode(Node node) {
+        HostDiscovery discovery = null;
         try {
             rwLock.writeLock().lock();
 
@@ -174,17 +204,22 @@ public class TopologyManager {
                 }
             }
 
-            if (PAResourceManagerProperties.RM_TOPOLOGY_DISTANCE_ENABLED.getValueAsBoolean()) {
-                hostsTopology = pingNode(node, toPing);
-            }
-
             topology.addHostTopology(node.getVMInformation().getHostName(), host, hostsTopology);
             Set<Node> nodesList = new LinkedHashSet<>();
             nodesList.add(node);
             nodesOnHost.put(node.getVMInformation().getInetAddress(), nodesList);
+            version++;
+
+            if (PAResourceManagerProperties.RM_TOPOLOGY_DISTANCE_ENABLED.getValueAsBoolean() && !toPing.isEmpty()) {
+                discovery = new HostDiscovery(node, toPing);
+                pendingDiscoveries.put(host, discovery);
+            }
         } finally {
             rwLock.writeLock().unlock();
         }
+        if (discovery != null) {
+            discoveryExecutor.execute(discovery);
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("Node " + node.getNodeInformation().getURL() + " added.");
         }
@@ -215,6 +250,9 @@ public class TopologyManager {
                     // no more nodes on the host
                     topology.removeHostTopology(node.getVMInformation().getHostName(), host);
                     nodesOnHost.remove(host);
+                    // the distances being measured are discarded
+                    pendingDiscoveries.remove(host);
+                    version++;
                 }
             }
         } finally {
@@ -226,11 +264,67 @@ public class TopologyManager {
         }
     }
 
+    /**
+     * Publishes the distances measured from a new host, unless the host has been removed
+     * in the meantime. Distances to hosts removed during the measure are ignored.
+     */
+    private void publishDistances(HostDiscovery discovery, HashMap<InetAddress, Long> measured) {
+        try {
+            rwLock.writeLock().lock();
+            InetAddress host = discovery.node.getVMInformation().getInetAddress();
+            if (pendingDiscoveries.get(host) != discovery) {
+                return;
+            }
+            pendingDiscoveries.remove(host);
+            if (measured == null) {
+                // the distances remain unknown
+                return;
+            }
+            HashMap<InetAddress, Long> hostTopology = new HashMap<>(topology.getHostTopology(host));
+            for (InetAddress other : measured.keySet()) {
+                if (hostTopology.containsKey(other) && topology.knownHost(other)) {
+                    hostTopology.put(other, measured.get(other));
+                }
+            }
+            topology.addHostTopology(discovery.node.getVMInformation().getHostName(), host, hostTopology);
+            version++;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether the distances from the host to the other hosts are still being measured.
+     * Until they are published, they are considered as the maximum distance.
+     */
+    public boolean isDistancePending(InetAddress host) {
+        try {
+            rwLock.readLock().lock();
+            return pendingDiscoveries.containsKey(host);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the version of the topology, which changes each time a host is added or removed
+     * or when distances are published.
+     */
+    public long getVersion() {
+        try {
+            rwLock.readLock().lock();
+            return version;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
     /**
      * Launches the pinging process from new host. It will ping all other hosts
      * according to the pinger logic.
      */
-    private HashMap<InetAddress, Long> pingNode(Node node, NodeSet nodes) {
+    @VisibleForTesting
+    HashMap<InetAddress, Long> pingNode(Node node, NodeSet nodes) {
 
         try {
             logger.debug("Launching ping process on node " + node.getNodeInformation().getURL());
@@ -265,6 +359,33 @@ public class TopologyManager {
         return null;
     }
 
+    /**
+     * Measures the distances from a new host to the hosts known when it was added.
+     */
+    private class HostDiscovery implements Runnable {
+
+        private final Node node;
+
+        private final NodeSet toPing;
+
+        private HostDiscovery(Node node, NodeSet toPing) {
+            this.node = node;
+            this.toPing = toPing;
+        }
+
+        @Override
+        public void run() {
+            HashMap<InetAddress, Long> measured = null;
+            try {
+                measured = pingNode(node, toPing);
+            } catch (RuntimeException e) {
+                logger.warn("Cannot measure the distances from node " + node.getNodeInformation().getURL(), e);
+            } finally {
+                publishDistances(this, measured);
+            }
+        }
+    }
+
     public Set<Node> getNodesOnHost(InetAddress addr) {
         try {
             rwLock.readLock().lock();
@@ -335,6 +456,72 @@ public class TopologyManager {
         }
     }
 
+    /**
+     * Runs the clustering on the hosts of the matched nodes. Nodes of the same host are
+     * grouped before the clustering, and distances between hosts are taken from a matrix
+     * shared by all selections until the topology changes.
+     * Must be called under the read lock.
+     */
+    private List<Node> selectClosestNodes(int number, List<Node> matchedNodes, DistanceFunction distanceFunction,
+            long threshold) {
+        LinkedHashMap<InetAddress, List<Node>> nodesByHost = new LinkedHashMap<>();
+        for (Node node : matchedNodes) {
+            InetAddress host = node.getVMInformation().getInetAddress();
+            List<Node> nodes = nodesByHost.get(host);
+            if (nodes == null) {
+                nodes = new LinkedList<>();
+                nodesByHost.put(host, nodes);
+            }
+            nodes.add(node);
+        }
+
+        HostDistances distances = getHostDistances();
+        int[] indices = new int[nodesByHost.size()];
+        int i = 0;
+        for (InetAddress host : nodesByHost.keySet()) {
+            Integer index = distances.indices.get(host);
+            indices[i++] = index == null ? -1 : index;
+        }
+
+        MatrixHAC<Node> hac = new MatrixHAC<>(distances.matrix.subMatrix(indices),
+                                              new ArrayList<>(nodesByHost.values()),
+                                              distanceFunction,
+                                              threshold);
+        return hac.select(number);
+    }
+
+    /**
+     * Returns distances between all known hosts, building them if the topology has changed since the
+     * last call. Must be called under the read lock, so that the version does not change meanwhile.
+     */
+    private synchronized HostDistances getHostDistances() {
+        if (hostDistances == null || hostDistances.version != version) {
+            List<InetAddress> hosts = new ArrayList<>(topology.getHosts());
+            hostDistances = new HostDistances(version,
+                                              DistanceMatrix.indexOf(hosts),
+                                              DistanceMatrix.create(topology, hosts));
+        }
+        return hostDistances;
+    }
+
+    /**
+     * Distances between hosts at a given version of the topology.
+     */
+    private static class HostDistances {
+
+        private final long version;
+
+        private final HashMap<InetAddress, Integer> indices;
+
+        private final DistanceMatrix matrix;
+
+        private HostDistances(long version, HashMap<InetAddress, Integer> indices, DistanceMatrix matrix) {
+            this.version = version;
+            this.indices = indices;
+            this.matrix = matrix;
+        }
+    }
+
     /**
      * Handler finds the set of the closest nodes by running HAC algorithm.
      */
@@ -346,8 +533,10 @@ public class TopologyManager {
                 BestProximityDescriptor descriptor = (BestProximityDescriptor) topologyDescriptor;
                 // HAC is very efficient algorithm but it does not guarantee the complete solution
                 logger.info("Running clustering algorithm in order to find closest nodes");
-                HAC hac = new HAC(topology, null, descriptor.getDistanceFunction(), Long.MAX_VALUE);
-                return new NodeSet(hac.select(number, matchedNodes));
+                return new NodeSet(selectClosestNodes(number,
+                                                      matchedNodes,
+                                                      descriptor.getDistanceFunction(),
+                                                      Long.MAX_VALUE));
             } finally {
                 rwLock.readLock().unlock();
             }
@@ -370,8 +559,10 @@ public class TopologyManager {
                 rwLock.readLock().lock();
                 ThresholdProximityDescriptor descriptor = (ThresholdProximityDescriptor) topologyDescriptor;
                 logger.info("Running clustering algorithm in order to find closest nodes");
-                HAC hac = new HAC(topology, null, descriptor.getDistanceFunction(), descriptor.getThreshold());
-                return new NodeSet(hac.select(number, matchedNodes));
+                return new NodeSet(selectClosestNodes(number,
+                                                      matchedNodes,
+                                                      descriptor.getDistanceFunction(),
+                                                      descriptor.getThreshold()));
             } finally {
                 rwLock.readLock().unlock();
             }
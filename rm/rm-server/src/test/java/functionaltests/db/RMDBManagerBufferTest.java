@@ -134,7 +134,8 @@ public class RMDBManagerBufferTest {
         checkPendingNodeOperationsNbOperations(1);
 
         updateRMNodeData(rmNodeData, NodeState.BUSY);
-        checkPendingNodeOperationsNbOperations(2);
+        // the update is merged into the pending creation
+        checkPendingNodeOperationsNbOperations(1);
         long afterUpdate = System.currentTimeMillis();
 
         assertThat(dbManager.getNodeByNameAndUrl(NODE_NAME_BASE, NODE_URL).getState()).isEqualTo(NodeState.BUSY);
@@ -206,9 +207,49 @@ public class RMDBManagerBufferTest {
         assertThat(afterRetrieve - beforeUpdate).isGreaterThan(Long.valueOf(NODE_DB_OPERATION_DELAY));
     }
 
+    @Test
+    public void testLongDelayAndImmediatelyRemovedNodeLeadsToNoDatabaseOperation() {
+        setPropertiesAndCreateDBManager(NODE_DB_OPERATION_DELAY, "true");
+
+        RMNodeData rmNodeData = addRMNodeData(NODE_NAME_BASE, NODE_STATE_BASE);
+        checkPendingNodeOperationsNbOperations(1);
+
+        dbManager.removeNode(rmNodeData, NODE_SOURCE_NAME_BASE);
+        checkPendingNodeOperationsIsEmpty();
+        assertThat(dbManagerBuffer.getCoalescedNodeOperationsCount()).isEqualTo(1L);
+
+        assertThat(dbManager.getAllNodes()).isEmpty();
+        assertThat(dbManagerBuffer.getFlushedNodeOperationsCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testFullQueueLeadsToOperationsFlushedByCaller() {
+        setPropertiesAndCreateDBManager(NODE_DB_OPERATION_DELAY, "true", "2");
+
+        long beforeAdd = System.currentTimeMillis();
+        addRMNodeData(NODE_NAME_BASE + 1, NODE_STATE_BASE);
+        checkPendingNodeOperationsNbOperations(1);
+        addRMNodeData(NODE_NAME_BASE + 2, NODE_STATE_BASE);
+        checkPendingNodeOperationsIsEmpty();
+        long afterAdd = System.currentTimeMillis();
+
+        assertThat(dbManagerBuffer.getBackPressureFlushesCount()).isEqualTo(1L);
+        assertThat(dbManagerBuffer.getMaximumPendingNodeOperationsCount()).isEqualTo(2);
+        assertThat(dbManagerBuffer.getFlushedNodeOperationsCount()).isEqualTo(2L);
+        assertThat(dbManagerBuffer.getMaximumNodeOperationLatency()).isAtMost(afterAdd - beforeAdd);
+        assertThat(dbManager.getAllNodes().size()).isEqualTo(2);
+        // the nodes are flushed without waiting for the delay
+        assertThat(afterAdd - beforeAdd).isLessThan(ACCEPTABLE_DATABASE_OPERATION_TIME_LESS_THAN_DELAY);
+    }
+
     private void setPropertiesAndCreateDBManager(String nodeDbOperationDelay, String aFalse) {
+        setPropertiesAndCreateDBManager(nodeDbOperationDelay, aFalse, "1000");
+    }
+
+    private void setPropertiesAndCreateDBManager(String nodeDbOperationDelay, String aFalse, String queueCapacity) {
         PAResourceManagerProperties.RM_NODES_DB_OPERATIONS_DELAY.updateProperty(nodeDbOperationDelay);
         PAResourceManagerProperties.RM_NODES_DB_SYNCHRONOUS_UPDATES.updateProperty(aFalse);
+        PAResourceManagerProperties.RM_NODES_DB_OPERATIONS_QUEUE_CAPACITY.updateProperty(queueCapacity);
         dbManager = RMDBManager.createInMemoryRMDBManager();
         dbManager = spy(dbManager);
         dbManagerBuffer = dbManager.getBuffer();
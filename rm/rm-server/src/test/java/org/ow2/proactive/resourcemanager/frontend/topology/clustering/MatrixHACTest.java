@@ -0,0 +1,115 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.frontend.topology.clustering;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.ow2.proactive.topology.descriptor.BestProximityDescriptor;
+
+
+/**
+ * Checks the clustering on a distance matrix.
+ */
+public class MatrixHACTest {
+
+    @Test
+    public void testClosestNodesAreSelected() {
+        // graph [1 -(2)- 2 , 1 -(4)- 3, 2 -(10)- 3, 2 -(1)- 4, 3 -(3)- 4, 1 -(3)- 4]
+        DistanceMatrix matrix = new DistanceMatrix(4);
+        matrix.set(0, 1, 2);
+        matrix.set(0, 2, 4);
+        matrix.set(1, 2, 10);
+        matrix.set(1, 3, 1);
+        matrix.set(2, 3, 3);
+        matrix.set(0, 3, 3);
+
+        assertThat(hac(matrix, singletons(4), Long.MAX_VALUE).select(3), containsInAnyOrder("0", "1", "3"));
+        assertThat(hac(matrix, singletons(4), Long.MAX_VALUE).select(4), containsInAnyOrder("0", "1", "2", "3"));
+        assertThat(hac(matrix, singletons(4), 2).select(4), containsInAnyOrder("1", "3"));
+    }
+
+    @Test
+    public void testNotConnectedNodesAreNotMerged() {
+        // graph [1 -(2)- 2 , 1 -(4)- 3, 2 -(-1)- 3]
+        DistanceMatrix matrix = new DistanceMatrix(3);
+        matrix.set(0, 1, 2);
+        matrix.set(0, 2, 4);
+        matrix.set(1, 2, -1);
+
+        assertThat(hac(matrix, singletons(3), Long.MAX_VALUE).select(20), containsInAnyOrder("0", "1"));
+    }
+
+    @Test
+    public void testClusterIsCompletedByClosestNodes() {
+        // host 0 has 2 nodes, host 1 has 3 nodes, host 2 is far from host 0 and close to host 1
+        DistanceMatrix matrix = new DistanceMatrix(3);
+        matrix.set(0, 1, 5);
+        matrix.set(0, 2, 100);
+        matrix.set(1, 2, 1);
+        List<List<String>> groups = Arrays.asList(Arrays.asList("a1", "a2"),
+                                                  Arrays.asList("b1", "b2", "b3"),
+                                                  Collections.singletonList("c1"));
+
+        assertThat(hac(matrix, groups, Long.MAX_VALUE).select(3), containsInAnyOrder("b1", "b2", "b3"));
+        assertThat(hac(matrix, groups, Long.MAX_VALUE).select(4), containsInAnyOrder("b1", "b2", "b3", "c1"));
+        assertEquals(5, hac(matrix, groups, Long.MAX_VALUE).select(5).size());
+    }
+
+    @Test
+    public void testClusterize() {
+        DistanceMatrix matrix = new DistanceMatrix(4);
+        matrix.set(0, 1, 1);
+        matrix.set(0, 2, 50);
+        matrix.set(0, 3, 60);
+        matrix.set(1, 2, 55);
+        matrix.set(1, 3, 65);
+        matrix.set(2, 3, 2);
+
+        List<List<String>> clusters = hac(matrix, singletons(4), Long.MAX_VALUE).clusterize(2);
+        assertEquals(2, clusters.size());
+        assertThat(clusters, containsInAnyOrder(containsInAnyOrder("0", "1"), containsInAnyOrder("2", "3")));
+    }
+
+    private static MatrixHAC<String> hac(DistanceMatrix matrix, List<List<String>> groups, long threshold) {
+        return new MatrixHAC<>(matrix, groups, BestProximityDescriptor.MAX, threshold);
+    }
+
+    private static List<List<String>> singletons(int size) {
+        List<List<String>> groups = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            groups.add(Collections.singletonList(String.valueOf(i)));
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.nodesource.infrastructure;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+
+public class DeploymentEngineTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void testSuccessfulDeploymentIsMeasured() {
+        DeploymentEngine engine = new DeploymentEngine(DIRECT, 2);
+
+        assertThat(engine.submit("host1", 4, 0, 0, new CountingAttempt(0))).isTrue();
+
+        assertThat(engine.getState("host1")).isEqualTo(DeploymentEngine.State.DEPLOYED);
+        assertThat(engine.getAttempts()).isEqualTo(1);
+        assertThat(engine.getDeployedHosts()).isEqualTo(1);
+        assertThat(engine.getDeployedNodes()).isEqualTo(4);
+        assertThat(engine.getLastWaveThroughput()).isGreaterThan(0d);
+    }
+
+    @Test
+    public void testConcurrentDeploymentsAreBounded() {
+        QueuingExecutor executor = new QueuingExecutor();
+        DeploymentEngine engine = new DeploymentEngine(executor, 2);
+
+        for (int i = 0; i < 5; i++) {
+            engine.submit("host" + i, 1, 0, 0, new CountingAttempt(0));
+        }
+        assertThat(executor.tasks).hasSize(2);
+        assertThat(engine.getState("host2")).isEqualTo(DeploymentEngine.State.QUEUED);
+
+        // each finished attempt frees a slot for a queued host
+        executor.runNext();
+        assertThat(executor.tasks).hasSize(2);
+        assertThat(engine.getState("host0")).isEqualTo(DeploymentEngine.State.DEPLOYED);
+        assertThat(engine.getState("host2")).isEqualTo(DeploymentEngine.State.DEPLOYING);
+
+        while (!executor.tasks.isEmpty()) {
+            executor.runNext();
+        }
+        assertThat(engine.getDeployedHosts()).isEqualTo(5);
+    }
+
+    @Test
+    public void testFailedHostIsRetriedWithoutBlockingOtherHosts() throws Exception {
+        QueuingExecutor executor = new QueuingExecutor();
+        DeploymentEngine engine = new DeploymentEngine(executor, 1);
+        CountingAttempt failing = new CountingAttempt(Integer.MAX_VALUE);
+
+        engine.submit("broken", 1, 2, 60000, failing);
+        engine.submit("healthy", 1, 0, 0, new CountingAttempt(0));
+
+        executor.runNext();
+        // the broken host waits for its retry without holding the only slot
+        assertThat(engine.getState("broken")).isEqualTo(DeploymentEngine.State.BACKOFF);
+        executor.runNext();
+        assertThat(engine.getState("healthy")).isEqualTo(DeploymentEngine.State.DEPLOYED);
+        assertThat(executor.tasks).isEmpty();
+        engine.shutDown();
+    }
+
+    @Test
+    public void testHostFailsOnceRetriesAreExhausted() throws Exception {
+        QueuingExecutor executor = new QueuingExecutor();
+        DeploymentEngine engine = new DeploymentEngine(executor, 1);
+        CountingAttempt failing = new CountingAttempt(Integer.MAX_VALUE);
+        int retries = 3;
+
+        engine.submit("broken", 1, retries, 0, failing);
+        while (engine.getState("broken") != DeploymentEngine.State.FAILED) {
+            if (executor.hasTasks()) {
+                executor.runNext();
+            } else {
+                Thread.sleep(10);
+            }
+        }
+
+        assertThat(failing.calls.get()).isEqualTo(retries + 1);
+        assertThat(engine.getFailedAttempts()).isEqualTo(retries + 1);
+    }
+
+    @Test
+    public void testHostAlreadyDeployingIsNotSubmittedTwice() {
+        QueuingExecutor executor = new QueuingExecutor();
+        DeploymentEngine engine = new DeploymentEngine(executor, 1);
+
+        assertThat(engine.submit("host", 1, 0, 0, new CountingAttempt(0))).isTrue();
+        assertThat(engine.submit("host", 1, 0, 0, new CountingAttempt(0))).isFalse();
+
+        executor.runNext();
+        assertThat(engine.submit("host", 1, 0, 0, new CountingAttempt(0))).isTrue();
+    }
+
+    @Test
+    public void testShutDownDropsQueuedDeployments() {
+        QueuingExecutor executor = new QueuingExecutor();
+        DeploymentEngine engine = new DeploymentEngine(executor, 1);
+        engine.submit("host1", 1, 0, 0, new CountingAttempt(0));
+        engine.submit("host2", 1, 0, 0, new CountingAttempt(0));
+
+        engine.shutDown();
+        executor.runNext();
+
+        assertThat(executor.tasks).isEmpty();
+        assertThat(engine.getState("host2")).isEqualTo(DeploymentEngine.State.QUEUED);
+        assertThat(engine.submit("host3", 1, 0, 0, new CountingAttempt(0))).isFalse();
+    }
+
+    @Test
+    public void testShutDownFailsHostsWaitingForARetry() {
+        QueuingExecutor executor = new QueuingExecutor();
+        DeploymentEngine engine = new DeploymentEngine(executor, 1);
+        engine.submit("broken", 1, 2, 60000, new CountingAttempt(Integer.MAX_VALUE));
+        executor.runNext();
+        assertThat(engine.getState("broken")).isEqualTo(DeploymentEngine.State.BACKOFF);
+
+        engine.shutDown();
+
+        assertThat(engine.getState("broken")).isEqualTo(DeploymentEngine.State.FAILED);
+        assertThat(executor.tasks).isEmpty();
+    }
+
+    private static class CountingAttempt implements Callable<Void> {
+
+        private final int failures;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingAttempt(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (calls.incrementAndGet() <= failures) {
+                throw new IllegalStateException("Deployment failure");
+            }
+            return null;
+        }
+    }
+
+    private static class QueuingExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        synchronized boolean hasTasks() {
+            return !tasks.isEmpty();
+        }
+
+        void runNext() {
+            Runnable next;
+            synchronized (this) {
+                next = tasks.remove(0);
+            }
+            next.run();
+        }
+    }
+
+}
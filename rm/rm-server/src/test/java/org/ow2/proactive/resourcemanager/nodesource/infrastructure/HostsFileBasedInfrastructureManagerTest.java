@@ -28,16 +28,24 @@ package org.ow2.proactive.resourcemanager.nodesource.infrastructure;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.File;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.objectweb.proactive.core.node.Node;
 import org.ow2.proactive.resourcemanager.exception.RMException;
 
@@ -52,13 +60,28 @@ public class HostsFileBasedInfrastructureManagerTest {
 
     public int retryCounter = 0;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private HostsFileBasedInfrastructureManager hostsFileBasedInfrastructureManager;
 
+    /** Deployments dispatched by the engine, never run so that they stay active */
+    private List<Runnable> dispatchedDeployments;
+
+    private DeploymentEngine deploymentEngine;
+
     @Before
     public void init() {
 
         this.hostsFileBasedInfrastructureManager = createTestClass();
         retryCounter = 0;
+        dispatchedDeployments = Collections.synchronizedList(new ArrayList<Runnable>());
+        deploymentEngine = new DeploymentEngine(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                dispatchedDeployments.add(command);
+            }
+        }, 1);
 
     }
 
@@ -83,6 +106,39 @@ public class HostsFileBasedInfrastructureManagerTest {
         assertThat(retryCounter, is(retries + 1));
     }
 
+    @Test(timeout = 10000)
+    public void testAcquireAllNodesReturnsWhileTheHostIsBeingDeployed() throws Exception {
+        readHosts("localhost 1");
+        // the host needs nodes again while its previous deployment is still running
+        deploymentEngine.submit("localhost", 1, 0, 0, new Callable<Void>() {
+            @Override
+            public Void call() {
+                return null;
+            }
+        });
+
+        hostsFileBasedInfrastructureManager.acquireAllNodes();
+
+        assertThat(dispatchedDeployments.size(), is(1));
+    }
+
+    @Test(timeout = 10000)
+    public void testAcquireAllNodesReturnsWhenTheDeploymentEngineIsShutDown() throws Exception {
+        readHosts("localhost 1");
+        deploymentEngine.shutDown();
+
+        hostsFileBasedInfrastructureManager.acquireAllNodes();
+
+        assertThat(dispatchedDeployments.size(), is(0));
+    }
+
+    private void readHosts(String hostsFileContent) throws Exception {
+        File hostsFile = folder.newFile("hosts");
+        Files.write(hostsFile.toPath(), hostsFileContent.getBytes(StandardCharsets.UTF_8));
+        hostsFileBasedInfrastructureManager.initializePersistedInfraVariables();
+        hostsFileBasedInfrastructureManager.readHosts(hostsFile);
+    }
+
     private HostsFileBasedInfrastructureManager createTestClass() {
 
         return new HostsFileBasedInfrastructureManager() {
@@ -108,6 +164,11 @@ public class HostsFileBasedInfrastructureManagerTest {
             @Override
             protected void killNodeImpl(Node node, InetAddress host) throws RMException {
             }
+
+            @Override
+            protected synchronized DeploymentEngine getDeploymentEngine() {
+                return deploymentEngine;
+            }
         };
     }
 
@@ -0,0 +1,195 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.nodesource.infrastructure;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.util.OsUtils;
+import org.apache.sshd.server.Command;
+import org.apache.sshd.server.CommandFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.auth.UserAuth;
+import org.apache.sshd.server.auth.password.PasswordAuthenticator;
+import org.apache.sshd.server.auth.password.UserAuthPasswordFactory;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.server.shell.ProcessShellFactory;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jcraft.jsch.JSchException;
+
+
+public class SSHConnectionManagerTest {
+
+    private static final String USERNAME = "toto";
+
+    private static final int TIMEOUT = 10000;
+
+    private static SshServer sshd;
+
+    private static int port;
+
+    private SSHConnectionManager connectionManager;
+
+    @BeforeClass
+    public static void startSSHServer() throws Exception {
+        Assume.assumeTrue(OsUtils.isUNIX());
+
+        // Disable bouncy castle to avoid versions conflict
+        System.setProperty("org.apache.sshd.registerBouncyCastle", "false");
+
+        sshd = SshServer.setUpDefaultServer();
+        sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+
+        List<NamedFactory<UserAuth>> userAuthFactories = new ArrayList<>(1);
+        userAuthFactories.add(new UserAuthPasswordFactory());
+        sshd.setUserAuthFactories(userAuthFactories);
+        sshd.setPasswordAuthenticator(new PasswordAuthenticator() {
+            @Override
+            public boolean authenticate(String username, String password, ServerSession session) {
+                return username != null && username.equals(password);
+            }
+        });
+        sshd.setCommandFactory(new CommandFactory() {
+            @Override
+            public Command createCommand(String command) {
+                return new ProcessShellFactory(new String[] { "/bin/sh", "-c", command }).create();
+            }
+        });
+        sshd.start();
+        port = sshd.getPort();
+    }
+
+    @AfterClass
+    public static void stopSSHServer() throws Exception {
+        if (sshd != null) {
+            sshd.stop(true);
+        }
+    }
+
+    @Before
+    public void setup() throws JSchException {
+        connectionManager = createConnectionManager(2);
+    }
+
+    @After
+    public void tearDown() {
+        connectionManager.close();
+    }
+
+    @Test
+    public void testCompletionIsSignaledWithExitStatusAndOutput() throws Exception {
+        CompletionLatch completion = new CompletionLatch();
+        SSHConnectionManager.RemoteCommand command = connectionManager.execute("localhost",
+                                                                               port,
+                                                                               "echo hello; exit 3",
+                                                                               TIMEOUT,
+                                                                               completion);
+
+        assertThat(completion.await()).isTrue();
+        assertThat(command.isCompleted()).isTrue();
+        assertThat(command.getExitStatus()).isEqualTo(3);
+        assertThat(command.getOutput()).contains("hello");
+        command.release();
+    }
+
+    @Test
+    public void testSuccessiveCommandsShareTheSameSession() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            CompletionLatch completion = new CompletionLatch();
+            SSHConnectionManager.RemoteCommand command = connectionManager.execute("localhost",
+                                                                                   port,
+                                                                                   "echo " + i,
+                                                                                   TIMEOUT,
+                                                                                   completion);
+            assertThat(completion.await()).isTrue();
+            command.release();
+        }
+
+        assertThat(connectionManager.getSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testConcurrentCommandsAreMultiplexedUpToTheChannelLimit() throws Exception {
+        List<SSHConnectionManager.RemoteCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            commands.add(connectionManager.execute("localhost", port, "sleep 30", TIMEOUT, null));
+        }
+
+        // two channels over the first session, the third one needs another session
+        assertThat(connectionManager.getSessionCount()).isEqualTo(2);
+        for (SSHConnectionManager.RemoteCommand command : commands) {
+            assertThat(command.isCompleted()).isFalse();
+            command.release();
+        }
+    }
+
+    @Test(expected = JSchException.class)
+    public void testClosedManagerRefusesCommands() throws Exception {
+        connectionManager.execute("localhost", port, "true", TIMEOUT, null).release();
+        connectionManager.close();
+
+        assertThat(connectionManager.getSessionCount()).isEqualTo(0);
+        connectionManager.execute("localhost", port, "true", TIMEOUT, null);
+    }
+
+    private SSHConnectionManager createConnectionManager(int maxChannelsPerSession) throws JSchException {
+        return new SSHConnectionManager(USERNAME, USERNAME, null, noHostKeyChecking(), maxChannelsPerSession, 60000);
+    }
+
+    private Properties noHostKeyChecking() {
+        Properties options = new Properties();
+        options.put("StrictHostKeyChecking", "no");
+        return options;
+    }
+
+    private static class CompletionLatch implements Runnable {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+    }
+
+}
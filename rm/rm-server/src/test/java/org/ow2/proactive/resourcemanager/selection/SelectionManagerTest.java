@@ -161,6 +161,25 @@ public class SelectionManagerTest {
 
     }
 
+    @Test
+    public void testPreferredNodesAreSelectedFirst() {
+        RMCore rmCore = newMockedRMCore(10);
+        for (RMNode node : rmCore.getFreeNodes()) {
+            when(node.getHostName()).thenReturn("host-" + node.getNodeName());
+        }
+        SelectionManager selectionManager = createSelectionManager(rmCore);
+        Criteria crit = new Criteria(3);
+        crit.setTopology(TopologyDescriptor.ARBITRARY);
+        crit.setPreferredNodesUrls(Lists.newArrayList("mocked-node-7", "unknown-node"));
+        crit.setPreferredHosts(Lists.newArrayList("host-mocked-node-3", "host-mocked-node-7"));
+
+        Client mockedClient = mock(Client.class);
+        NodeSet nodeSet = selectionManager.selectNodes(crit, mockedClient);
+        assertEquals(10, nodeSet.size());
+        assertEquals("mocked-node-7", nodeSet.get(0).getNodeInformation().getURL());
+        assertEquals("mocked-node-3", nodeSet.get(1).getNodeInformation().getURL());
+    }
+
     private SecurityManager securityManagerRejectingUser() {
         return new SecurityManager() {
 
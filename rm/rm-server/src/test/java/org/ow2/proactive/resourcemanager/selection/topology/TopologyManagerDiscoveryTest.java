@@ -0,0 +1,150 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.resourcemanager.selection.topology;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeInformation;
+import org.objectweb.proactive.core.runtime.VMInformation;
+import org.ow2.proactive.resourcemanager.core.properties.PAResourceManagerProperties;
+import org.ow2.proactive.resourcemanager.frontend.topology.pinging.HostsPinger;
+import org.ow2.proactive.topology.descriptor.TopologyDescriptor;
+import org.ow2.proactive.utils.NodeSet;
+
+
+public class TopologyManagerDiscoveryTest {
+
+    private static final long MEASURED_DISTANCE = 42;
+
+    private final Queue<Runnable> discoveries = new LinkedList<>();
+
+    private TopologyManager manager;
+
+    private Node nodeA;
+
+    private Node nodeB;
+
+    @Before
+    public void setUp() throws Exception {
+        PAResourceManagerProperties.RM_TOPOLOGY_ENABLED.updateProperty("true");
+        PAResourceManagerProperties.RM_TOPOLOGY_DISTANCE_ENABLED.updateProperty("true");
+
+        manager = new TopologyManager(HostsPinger.class, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                discoveries.add(command);
+            }
+        }) {
+            @Override
+            HashMap<InetAddress, Long> pingNode(Node node, NodeSet nodes) {
+                HashMap<InetAddress, Long> distances = new HashMap<>();
+                for (Node pinged : nodes) {
+                    distances.put(pinged.getVMInformation().getInetAddress(), MEASURED_DISTANCE);
+                }
+                return distances;
+            }
+        };
+
+        nodeA = createNode("hostA", 1);
+        nodeB = createNode("hostB", 2);
+    }
+
+    @After
+    public void tearDown() {
+        PAResourceManagerProperties.RM_TOPOLOGY_DISTANCE_ENABLED.updateProperty("false");
+    }
+
+    @Test
+    public void testNodeIsAddedBeforeDistancesAreMeasured() throws Exception {
+        manager.addNode(nodeA);
+        assertTrue(discoveries.isEmpty());
+
+        manager.addNode(nodeB);
+        InetAddress hostA = address(nodeA);
+        InetAddress hostB = address(nodeB);
+        long version = manager.getVersion();
+
+        // the node can be selected while its distances are unknown
+        assertTrue(manager.isDistancePending(hostB));
+        assertEquals(Long.MAX_VALUE, (long) manager.getTopology().getDistance(hostA, hostB));
+        assertEquals(1,
+                     manager.getHandler(TopologyDescriptor.SINGLE_HOST)
+                            .select(1, Arrays.asList(nodeA, nodeB))
+                            .size());
+
+        discoveries.poll().run();
+
+        assertFalse(manager.isDistancePending(hostB));
+        assertEquals(MEASURED_DISTANCE, (long) manager.getTopology().getDistance(hostA, hostB));
+        assertTrue(manager.getVersion() > version);
+    }
+
+    @Test
+    public void testDistancesOfRemovedHostAreDiscarded() throws Exception {
+        manager.addNode(nodeA);
+        manager.addNode(nodeB);
+        manager.removeNode(nodeB);
+
+        discoveries.poll().run();
+
+        assertFalse(manager.isDistancePending(address(nodeB)));
+        assertFalse(manager.getTopology().knownHost(address(nodeB)));
+    }
+
+    private static InetAddress address(Node node) {
+        return node.getVMInformation().getInetAddress();
+    }
+
+    private static Node createNode(String hostName, int address) throws Exception {
+        VMInformation vmInformation = mock(VMInformation.class);
+        when(vmInformation.getHostName()).thenReturn(hostName);
+        when(vmInformation.getInetAddress()).thenReturn(InetAddress.getByAddress(hostName,
+                                                                                 new byte[] { 10, 0, 0,
+                                                                                              (byte) address }));
+        NodeInformation nodeInformation = mock(NodeInformation.class);
+        when(nodeInformation.getURL()).thenReturn("pnp://" + hostName + ":64738/node");
+        Node node = mock(Node.class);
+        when(node.getVMInformation()).thenReturn(vmInformation);
+        when(node.getNodeInformation()).thenReturn(nodeInformation);
+        return node;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package performancetests.topology;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+import org.ow2.proactive.resourcemanager.frontend.topology.clustering.DistanceMatrix;
+import org.ow2.proactive.resourcemanager.frontend.topology.clustering.MatrixHAC;
+import org.ow2.proactive.topology.descriptor.BestProximityDescriptor;
+
+
+/**
+ * Performance test measuring the clustering on a distance matrix of random host distances.
+ * For each topology, it selects a tenth, half and all of the nodes and reports the durations.
+ */
+public class MatrixHACPerformanceTest {
+
+    private static final Logger logger = Logger.getLogger(MatrixHACPerformanceTest.class);
+
+    @Test(timeout = 60000)
+    public void selectOn1000HostsOf1Node() {
+        select(1000, 1);
+    }
+
+    @Test(timeout = 120000)
+    public void selectOn2500HostsOf4Nodes() {
+        select(2500, 4);
+    }
+
+    private void select(int hosts, int nodesPerHost) {
+        Random random = new Random(42);
+        DistanceMatrix matrix = new DistanceMatrix(hosts);
+        for (int i = 1; i < hosts; i++) {
+            for (int j = 0; j < i; j++) {
+                matrix.set(i, j, random.nextInt(1000000));
+            }
+        }
+        List<List<String>> groups = new ArrayList<>(hosts);
+        for (int i = 0; i < hosts; i++) {
+            List<String> nodes = new ArrayList<>(nodesPerHost);
+            for (int j = 0; j < nodesPerHost; j++) {
+                nodes.add(i + "-" + j);
+            }
+            groups.add(nodes);
+        }
+
+        int nodes = hosts * nodesPerHost;
+        for (int number : new int[] { nodes / 10, nodes / 2, nodes }) {
+            long start = System.currentTimeMillis();
+            List<String> selected = new MatrixHAC<>(matrix,
+                                                    groups,
+                                                    BestProximityDescriptor.MAX,
+                                                    Long.MAX_VALUE).select(number);
+            logger.info("Selected " + number + " out of " + nodes + " nodes on " + hosts + " hosts in " +
+                        (System.currentTimeMillis() - start) + " ms");
+            assertEquals(number, selected.size());
+        }
+    }
+}
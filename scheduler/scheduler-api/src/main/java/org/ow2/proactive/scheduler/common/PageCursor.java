@@ -0,0 +1,132 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.common;
+
+import java.io.Serializable;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+
+
+/**
+ * Position in a listing paginated by key (keyset pagination), most recent
+ * elements first.<br>
+ * Unlike an offset, a cursor lets the database seek directly to the next page
+ * through an index, so that deep pages cost as much as the first one. A
+ * cursor is made of the key of the last element of the previous page:
+ * <ul>
+ * <li>for jobs, its submitted time and its id,</li>
+ * <li>for tasks, the id of its job and its own id.</li>
+ * </ul>
+ * Its string form <code>sortKey_id</code> is the one used by the REST API.
+ */
+@PublicAPI
+public final class PageCursor implements Serializable {
+
+    /**
+     * Cursor of the first page.
+     */
+    public static final PageCursor FIRST = new PageCursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final String SEPARATOR = "_";
+
+    private final long sortKey;
+
+    private final long id;
+
+    public PageCursor(long sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * @return the cursor of the page following the given job
+     */
+    public static PageCursor after(JobInfo lastJob) {
+        return new PageCursor(lastJob.getSubmittedTime(), lastJob.getJobId().longValue());
+    }
+
+    /**
+     * @return the cursor of the page following the given task
+     */
+    public static PageCursor after(TaskId lastTask) {
+        return new PageCursor(lastTask.getJobId().longValue(), lastTask.longValue());
+    }
+
+    /**
+     * Parses the string form of a cursor, a null or empty value denoting the
+     * first page.
+     *
+     * @throws IllegalArgumentException if the value is not a valid cursor
+     */
+    public static PageCursor valueOf(String value) {
+        if (value == null || value.isEmpty()) {
+            return FIRST;
+        }
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid page cursor: " + value);
+        }
+        try {
+            return new PageCursor(Long.parseLong(value.substring(0, separator)),
+                                  Long.parseLong(value.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + value, e);
+        }
+    }
+
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PageCursor that = (PageCursor) o;
+        return sortKey == that.sortKey && id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(sortKey) + Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return sortKey + SEPARATOR + id;
+    }
+
+}
@@ -46,7 +46,10 @@ import org.ow2.proactive.scheduler.common.job.JobPriority;
 import org.ow2.proactive.scheduler.common.job.JobResult;
 import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.usage.SchedulerUsage;
 import org.ow2.proactive.scheduler.common.util.logforwarder.AppenderProvider;
@@ -589,6 +592,74 @@ public interface Scheduler extends SchedulerUsage, ThirdPartyCredentials {
     TaskResult getTaskResult(String jobId, String taskName)
             throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException;
 
+    /**
+     * Read a range of the serialized value of the last result of the given
+     * task.<br>
+     * The value is read as stored, without being deserialized nor fully
+     * loaded in memory, so that large results can be retrieved chunk by
+     * chunk by successive calls with an increasing offset. The first call
+     * reads the last result of the task, the following ones should pass the
+     * result id of the returned range to keep reading the same result.<br>
+     * A user can only get HIS result back.<br>
+     *
+     * @param jobId
+     *            the job in which the task result is.
+     * @param taskName
+     *            the name of the task in which the result is.
+     * @param resultId
+     *            the id of the result to read, or
+     *            {@link TaskResultValueRange#LAST_RESULT} for the last result
+     *            of the task.
+     * @param offset
+     *            the position of the first byte to read.
+     * @param length
+     *            the maximum number of bytes to read.
+     * @return the range read, with fewer than <code>length</code> bytes if the
+     *         end of the value is reached. If null is returned, this task is
+     *         not yet terminated, has no value, or the given result does not
+     *         exist anymore.
+     * @throws NotConnectedException
+     *             if you are not authenticated.
+     * @throws UnknownJobException
+     *             if the job does not exist.
+     * @throws UnknownTaskException
+     *             if this task does not exist in the job.
+     * @throws PermissionException
+     *             if you can't access to this particular job.
+     */
+    TaskResultValueRange getTaskResultSerializedValue(String jobId, String taskName, long resultId, long offset,
+            int length) throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException;
+
+    /**
+     * Read a range of all the logs (standard and error outputs) of the last
+     * result of the given task, with time stamps and encoded in UTF-8.<br>
+     * Only the logs of the result are read, its value is not loaded.<br>
+     * A user can only get HIS result back.<br>
+     *
+     * @param jobId
+     *            the job in which the task result is.
+     * @param taskName
+     *            the name of the task in which the result is.
+     * @param offset
+     *            the position of the first byte to read.
+     * @param length
+     *            the maximum number of bytes to read, 0 to only get the
+     *            length of the logs.
+     * @return the range read, with fewer than <code>length</code> bytes if the
+     *         end of the logs is reached. If null is returned, this task is
+     *         not yet terminated or has no logs.
+     * @throws NotConnectedException
+     *             if you are not authenticated.
+     * @throws UnknownJobException
+     *             if the job does not exist.
+     * @throws UnknownTaskException
+     *             if this task does not exist in the job.
+     * @throws PermissionException
+     *             if you can't access to this particular job.
+     */
+    TaskLogsRange getTaskLogsRange(String jobId, String taskName, long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException;
+
     /**
      * Get the results for a set of tasks in the given jobId and filtered by a
      * given tag. A user can only get HIS result back.<br>
@@ -1288,6 +1359,34 @@ public interface Scheduler extends SchedulerUsage, ThirdPartyCredentials {
     Page<JobInfo> getJobs(int offset, int limit, JobFilterCriteria filterCriteria,
             List<SortParameter<JobSortParameter>> sortParameters) throws NotConnectedException, PermissionException;
 
+    /**
+     * Retrieves a job list of the scheduler using keyset pagination.
+     * <p>
+     * Jobs are returned from the most recently submitted to the oldest one.
+     * Unlike {@link #getJobs(int, int, JobFilterCriteria, List)}, the cost of
+     * a page does not depend on its depth and a page is not shifted by jobs
+     * submitted or removed in the meantime. The cursor of the next page is
+     * obtained with {@link PageCursor#after(JobInfo)} on the last job of the
+     * current page.
+     *
+     * @param after
+     *            cursor of the last job already read, {@link PageCursor#FIRST}
+     *            or <code>null</code> to read the first page
+     * @param limit
+     *            max number of jobs to retrieve
+     * @param filterCriteria
+     *            defines types of job (myonly, pending, running, finished), see
+     *            {@link #getJobs(int, int, JobFilterCriteria, List)}
+     *
+     * @return jobs list according to all criteria
+     * @throws NotConnectedException
+     *             if you are not authenticated.
+     * @throws PermissionException
+     *             if you have not enough permission to access this method.
+     */
+    Page<JobInfo> getJobs(PageCursor after, int limit, JobFilterCriteria filterCriteria)
+            throws NotConnectedException, PermissionException;
+
     /**
      * Returns a list of jobs info corresponding to the given job IDs (in the same order)
      *
@@ -1380,6 +1479,44 @@ public interface Scheduler extends SchedulerUsage, ThirdPartyCredentials {
             boolean finished, int offset, int limit, SortSpecifierContainer sortParams)
             throws NotConnectedException, PermissionException;
 
+    /**
+     * Retrieve a taskstates list from the scheduler using keyset pagination.
+     * <p>
+     * Tasks are returned ordered by job id then task id, in descending order.
+     * The cursor of the next page is obtained with
+     * {@link PageCursor#after(TaskId)}
+     * on the last task of the current page.
+     *
+     * @param taskTag
+     *            a complete tag to use to filter tasks
+     * @param from
+     *            the starting date to fetch tasks from. The format is in Epoch
+     *            time.
+     * @param to
+     *            the end date to stop fetching tasks. The format is in Epoch
+     *            time.
+     * @param mytasks
+     *            <code>True</code> will only fetch the user tasks,
+     *            <code>False</code> will fetch everyones.
+     * @param running
+     *            fetch the running tasks.
+     * @param pending
+     *            fetch the pending tasks.
+     * @param finished
+     *            fetch the finished tasks.
+     * @param after
+     *            cursor of the last task already read, {@link PageCursor#FIRST}
+     *            or <code>null</code> to read the first page
+     * @param limit
+     *            max number of tasks to retrieve
+     * @return the paginated list of taskstates satisfying the given criterias.
+     *         The total number of tasks (without pagination() is also returned.
+     * @throws NotConnectedException
+     * @throws PermissionException
+     */
+    Page<TaskState> getTaskStates(String taskTag, long from, long to, boolean mytasks, boolean running, boolean pending,
+            boolean finished, PageCursor after, int limit) throws NotConnectedException, PermissionException;
+
     /**
      * Retrieve a job info by it id.
      * 
@@ -1392,6 +1529,29 @@ public interface Scheduler extends SchedulerUsage, ThirdPartyCredentials {
      */
     JobInfo getJobInfo(String jobId) throws UnknownJobException, NotConnectedException, PermissionException;
 
+    /**
+     * Retrieve the expected execution duration of a task.
+     * <p>
+     * The prediction is learned from the tasks of the same name which finished
+     * successfully in the jobs of the same name. When there are too few of
+     * them, it is learned from all the tasks of the jobs of the same name.
+     *
+     * @param jobName
+     *            the name of the job (workflow) of the task
+     * @param taskName
+     *            the name of the task, iteration and replication indexes are
+     *            ignored. <code>null</code> to get a prediction over all the
+     *            tasks of the job.
+     * @return the predicted execution duration, or <code>null</code> if no
+     *         task of the given names finished yet
+     * @throws NotConnectedException
+     *             if you are not authenticated.
+     * @throws PermissionException
+     *             if you have not enough permission to access this method.
+     */
+    TaskRuntimePrediction getTaskRuntimePrediction(String jobName, String taskName)
+            throws NotConnectedException, PermissionException;
+
     /**
      * Change the START_AT generic information at job level and reset the
      * scheduledAt at task level
@@ -0,0 +1,118 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.common;
+
+import java.io.Serializable;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.UserIdentification;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+
+
+/**
+ * SchedulerEventNotification is one event of a group of events sent to a {@link SchedulerGroupEventListener}.
+ * It stores the name of the {@link SchedulerEventListener} method that would have received the event
+ * and the argument of this method.
+ *
+ * @author The ProActive Team
+ * @since ProActive Scheduling 8.1
+ */
+@PublicAPI
+public class SchedulerEventNotification implements Serializable {
+
+    /** Name of the {@link SchedulerEventListener} method receiving this event */
+    private String methodName;
+
+    /** The argument of the listener method */
+    private Object data;
+
+    /**
+     * Create a new instance of SchedulerEventNotification.
+     *
+     * @param methodName the name of the {@link SchedulerEventListener} method receiving this event.
+     * @param data the argument of the listener method.
+     */
+    public SchedulerEventNotification(String methodName, Object data) {
+        this.methodName = methodName;
+        this.data = data;
+    }
+
+    /**
+     * Get the name of the {@link SchedulerEventListener} method receiving this event.
+     *
+     * @return the name of the listener method.
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Get the argument of the listener method.
+     *
+     * @return the argument of the listener method.
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * Call the listener method corresponding to this event on the given listener.
+     *
+     * @param listener the listener receiving the event.
+     */
+    @SuppressWarnings("unchecked")
+    public void dispatchTo(SchedulerEventListener listener) {
+        switch (methodName) {
+            case "schedulerStateUpdatedEvent":
+                listener.schedulerStateUpdatedEvent((SchedulerEvent) data);
+                break;
+            case "jobSubmittedEvent":
+                listener.jobSubmittedEvent((JobState) data);
+                break;
+            case "jobStateUpdatedEvent":
+                listener.jobStateUpdatedEvent((NotificationData<JobInfo>) data);
+                break;
+            case "jobUpdatedFullDataEvent":
+                listener.jobUpdatedFullDataEvent((JobState) data);
+                break;
+            case "taskStateUpdatedEvent":
+                listener.taskStateUpdatedEvent((NotificationData<TaskInfo>) data);
+                break;
+            case "usersUpdatedEvent":
+                listener.usersUpdatedEvent((NotificationData<UserIdentification>) data);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scheduler event method : " + methodName);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulerEventNotification{" + "methodName=" + methodName + ", data=" + data + '}';
+    }
+}
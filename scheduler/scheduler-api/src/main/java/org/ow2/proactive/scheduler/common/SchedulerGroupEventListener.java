@@ -0,0 +1,58 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.common;
+
+import java.util.Collection;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * A listener of the scheduler which can receive a collection of events at once.
+ * It is an optimization for bursts of events (typically task state changes) when the price
+ * of sending events one remote call at a time is too high.
+ * <p>
+ * Events are received in the order they were emitted by the scheduler. By default, each event is
+ * dispatched to the corresponding {@link SchedulerEventListener} method, so that existing listener
+ * implementations only need to extend this class to receive events by groups.
+ *
+ * @author The ProActive Team
+ * @since ProActive Scheduling 8.1
+ */
+@PublicAPI
+public abstract class SchedulerGroupEventListener implements SchedulerEventListener {
+
+    /**
+     * Invoked each time a group of events is sent by the scheduler.
+     *
+     * @param events the ordered events sent by the scheduler.
+     */
+    public void notify(Collection<SchedulerEventNotification> events) {
+        for (SchedulerEventNotification event : events) {
+            event.dispatchTo(this);
+        }
+    }
+}
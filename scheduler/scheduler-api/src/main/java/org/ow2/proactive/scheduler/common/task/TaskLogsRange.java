@@ -0,0 +1,97 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.common.task;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * A range of all the logs (standard and error outputs) of the last result of
+ * a task, as UTF-8 text. The range carries the length of the whole logs, so
+ * that a client can request the following ranges or describe the range it
+ * received.
+ */
+@PublicAPI
+public final class TaskLogsRange implements Serializable {
+
+    private final long offset;
+
+    private final long totalLength;
+
+    private final byte[] bytes;
+
+    public TaskLogsRange(long offset, long totalLength, byte[] bytes) {
+        this.offset = offset;
+        this.totalLength = totalLength;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Creates a range of the given logs.
+     *
+     * @param logs all the logs of a task
+     * @param offset the position of the first byte of the range
+     * @param length the maximum length of the range
+     * @return the range, shorter than <code>length</code> if the end of the logs is reached
+     */
+    public static TaskLogsRange of(String logs, long offset, int length) {
+        byte[] bytes = logs.getBytes(StandardCharsets.UTF_8);
+        int from = (int) Math.min(offset, bytes.length);
+        int to = (int) Math.min(bytes.length, from + (long) length);
+        return new TaskLogsRange(offset, bytes.length, Arrays.copyOfRange(bytes, from, to));
+    }
+
+    /**
+     * @return the position of the first byte of the range in the logs
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the length in bytes of the whole logs
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return the bytes of the range, fewer than requested if the end of the
+     *         logs is reached
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskLogsRange{offset=" + offset + ", totalLength=" + totalLength + ", length=" + bytes.length + '}';
+    }
+}
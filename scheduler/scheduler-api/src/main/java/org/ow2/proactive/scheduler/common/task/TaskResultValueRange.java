@@ -0,0 +1,84 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.common.task;
+
+import java.io.Serializable;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * A range of the serialized value of a task result.<br>
+ * A task can have several results, for instance when it is re-executed. The
+ * range carries the id of the result it was read from, so that the following
+ * ranges of a transfer are read from the same result, even if a newer result
+ * is stored in the meantime.
+ */
+@PublicAPI
+public final class TaskResultValueRange implements Serializable {
+
+    /** Result id designating the last result of a task. */
+    public static final long LAST_RESULT = -1;
+
+    private final long resultId;
+
+    private final long offset;
+
+    private final byte[] bytes;
+
+    public TaskResultValueRange(long resultId, long offset, byte[] bytes) {
+        this.resultId = resultId;
+        this.offset = offset;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return the id of the result the range was read from
+     */
+    public long getResultId() {
+        return resultId;
+    }
+
+    /**
+     * @return the position of the first byte of the range in the value
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the bytes of the range, fewer than requested if the end of the
+     *         value is reached
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskResultValueRange{resultId=" + resultId + ", offset=" + offset + ", length=" + bytes.length + '}';
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.common.task;
+
+import java.io.Serializable;
+
+import org.objectweb.proactive.annotation.PublicAPI;
+
+
+/**
+ * Expected execution duration of a task, learned by the Scheduler from the
+ * tasks of the same name which finished successfully in the jobs of the same
+ * name.<br>
+ * When too few such tasks are known, the prediction is made from all the tasks
+ * of the jobs of the same name, and {@link #getTaskName()} is <code>null</code>.
+ * All durations are in milliseconds. Percentiles are approximated within about
+ * 10%.
+ */
+@PublicAPI
+public final class TaskRuntimePrediction implements Serializable {
+
+    private final String jobName;
+
+    private final String taskName;
+
+    private final long sampleCount;
+
+    private final long mean;
+
+    private final long standardDeviation;
+
+    private final long median;
+
+    private final long percentile90;
+
+    private final long percentile99;
+
+    private final long max;
+
+    public TaskRuntimePrediction(String jobName, String taskName, long sampleCount, long mean,
+            long standardDeviation, long median, long percentile90, long percentile99, long max) {
+        this.jobName = jobName;
+        this.taskName = taskName;
+        this.sampleCount = sampleCount;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.median = median;
+        this.percentile90 = percentile90;
+        this.percentile99 = percentile99;
+        this.max = max;
+    }
+
+    /**
+     * @return the name of the jobs the prediction is learned from
+     */
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * @return the name of the tasks the prediction is learned from, <code>null</code>
+     * if it is learned from all the tasks of the jobs
+     */
+    public String getTaskName() {
+        return taskName;
+    }
+
+    /**
+     * @return the number of finished tasks the prediction is learned from, recent
+     * tasks weighting more than older ones
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public long getMedian() {
+        return median;
+    }
+
+    public long getPercentile90() {
+        return percentile90;
+    }
+
+    /**
+     * @return a duration exceeded by 1% of the tasks, suitable as a walltime estimate
+     */
+    public long getPercentile99() {
+        return percentile99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskRuntimePrediction{jobName='" + jobName + "', taskName='" + taskName + "', sampleCount=" +
+               sampleCount + ", mean=" + mean + ", standardDeviation=" + standardDeviation + ", median=" + median +
+               ", percentile90=" + percentile90 + ", percentile99=" + percentile99 + ", max=" + max + '}';
+    }
+
+}
@@ -60,6 +60,31 @@ public enum PASchedulerProperties implements PACommonProperties {
     /** Defines the maximum number of tasks to be scheduled in each scheduling loop. */
     SCHEDULER_POLICY_NBTASKPERLOOP("pa.scheduler.policy.nbtaskperloop", PropertyType.INTEGER, "10"),
 
+    /** Reserve nodes for the tasks which need more nodes than free, and only start the following tasks
+     * if they do not delay them according to their walltime. */
+    SCHEDULER_BACKFILLING("pa.scheduler.core.backfilling", PropertyType.BOOLEAN, "false"),
+
+    /** Number of most recent finished tasks read from the database to learn the task runtime predictions at startup. */
+    SCHEDULER_PREDICTION_HISTORY("pa.scheduler.core.prediction.history", PropertyType.INTEGER, "10000"),
+
+    /** Maximum number of task runtime distributions kept, the least recently used are dropped first. */
+    SCHEDULER_PREDICTION_MAX_DISTRIBUTIONS("pa.scheduler.core.prediction.maxdistributions", PropertyType.INTEGER, "10000"),
+
+    /** Minimum number of finished tasks of a given name before their runtime is predicted from them. */
+    SCHEDULER_PREDICTION_MIN_SAMPLES("pa.scheduler.core.prediction.minsamples", PropertyType.INTEGER, "3"),
+
+    /** Number of finished tasks after which the weight of the older ones in a runtime distribution is halved. */
+    SCHEDULER_PREDICTION_WINDOW("pa.scheduler.core.prediction.window", PropertyType.INTEGER, "1000"),
+
+    /** Prefer the nodes which hold the output files of the parent tasks and the cached input files of the tasks. */
+    SCHEDULER_LOCALITY("pa.scheduler.core.locality", PropertyType.BOOLEAN, "false"),
+
+    /** Maximum time in ms a task waits for the nodes holding its data before accepting any other node. */
+    SCHEDULER_LOCALITY_WAIT("pa.scheduler.core.locality.wait", PropertyType.INTEGER, "3000"),
+
+    /** Maximum number of tasks whose data location is remembered. */
+    SCHEDULER_LOCALITY_MAX_TASKS("pa.scheduler.core.locality.maxtasks", PropertyType.INTEGER, "10000"),
+
     /** Path of the license properties file. */
     SCHEDULER_LICENSE_POLICY_CONFIGURATION("pa.scheduler.license.policy.configuration", PropertyType.STRING),
 
@@ -115,6 +140,12 @@ public enum PASchedulerProperties implements PACommonProperties {
     /** RRD data base step in seconds */
     SCHEDULER_RRD_STEP("pa.scheduler.jmx.rrd.step", PropertyType.INTEGER, "4"),
 
+    /** Archives of a new RRD data base, as a comma separated list of steps:rows */
+    SCHEDULER_RRD_ARCHIVES(
+            "pa.scheduler.jmx.rrd.archives",
+            PropertyType.STRING,
+            "1:150,5:180,10:360,20:360,30:720,210:720,840:720,10920:720"),
+
     /** Accounting refresh rate from the database in seconds */
     SCHEDULER_ACCOUNT_REFRESH_RATE("pa.scheduler.account.refreshrate", PropertyType.INTEGER, "180"),
 
@@ -134,6 +165,18 @@ public enum PASchedulerProperties implements PACommonProperties {
      * a thread unlock. */
     SCHEDULER_LISTENERS_THREADNUMBER("pa.scheduler.core.listener.threadnumber", PropertyType.INTEGER, "5"),
 
+    /** Maximum number of events sent in one remote call to a client listening to events by groups.
+     * The actual group size adapts to the client throughput, within this limit. */
+    SCHEDULER_LISTENERS_BATCH_MAXSIZE("pa.scheduler.core.listener.batch.maxsize", PropertyType.INTEGER, "1000"),
+
+    /** Target duration (in millis) of one remote call sending a group of events to a client. Groups are resized
+     * according to the measured time needed by each client to receive an event. */
+    SCHEDULER_LISTENERS_BATCH_LATENCY("pa.scheduler.core.listener.batch.latency", PropertyType.INTEGER, "500"),
+
+    /** If true, task progress events which are not yet sent to a client are replaced by the most recent
+     * progress event of the same task. */
+    SCHEDULER_LISTENERS_COALESCE_EVENTS("pa.scheduler.core.listener.coalesce", PropertyType.BOOLEAN, "false"),
+
     /** List of the scripts paths to execute at scheduler start. Paths are separated by a ';'. */
     SCHEDULER_STARTSCRIPTS_PATHS("pa.scheduler.startscripts.paths", PropertyType.LIST),
 
@@ -187,6 +230,14 @@ public enum PASchedulerProperties implements PACommonProperties {
     /** Cron expression to automatically remove finished jobs */
     SCHEDULER_AUTOMATIC_REMOVED_JOB_CRON_EXPR("pa.scheduler.core.automaticremovejobexpression", PropertyType.STRING, "*/10 * * * *"),
 
+    /** Maximum number of jobs removed by the housekeeping in one database transaction */
+    SCHEDULER_HOUSEKEEPING_BATCH_SIZE("pa.scheduler.core.housekeeping.batchsize", PropertyType.INTEGER, "100"),
+
+    /** Maximum percentage of time the housekeeping spends removing jobs while it runs. After each batch, the
+     * housekeeping pauses in proportion to the time the batch took, so that it slows down when the scheduler
+     * (and its database) is loaded. 100 means no pause. */
+    SCHEDULER_HOUSEKEEPING_MAX_LOAD("pa.scheduler.core.housekeeping.maxload", PropertyType.INTEGER, "50"),
+
     /** Remove job in dataBase when removing it from scheduler. */
     JOB_REMOVE_FROM_DB("pa.scheduler.job.removeFromDataBase", PropertyType.BOOLEAN, "true"),
 
@@ -368,6 +419,24 @@ public enum PASchedulerProperties implements PACommonProperties {
 
     SCHEDULER_DB_FETCH_TASK_RESULTS_BATCH_SIZE("pa.scheduler.db.fetch.batch_size", PropertyType.INTEGER, "50"),
 
+    /** Maximum number of script contents kept in memory to create the executable containers */
+    SCHEDULER_DB_SCRIPT_CACHE_SIZE("pa.scheduler.db.script.cache.size", PropertyType.INTEGER, "1000"),
+
+    /**
+     * How the total number of jobs or tasks of the paged listings is computed:
+     * EXACT, APPROXIMATE or HAS_MORE
+     */
+    SCHEDULER_DB_PAGE_COUNT_MODE("pa.scheduler.db.page.count.mode", PropertyType.STRING, "EXACT"),
+
+    /** Maximum number of listing filters whose total number of jobs or tasks is kept in memory */
+    SCHEDULER_DB_PAGE_COUNT_CACHE_SIZE("pa.scheduler.db.page.count.cache.size", PropertyType.INTEGER, "1000"),
+
+    /** Time in milliseconds during which an outdated total can be returned by the APPROXIMATE mode */
+    SCHEDULER_DB_PAGE_COUNT_APPROXIMATION_VALIDITY(
+            "pa.scheduler.db.page.count.approximation.validity",
+            PropertyType.INTEGER,
+            "10000"),
+
     /* ***************************************************************** */
     /* ***************** EMAIL NOTIFICATION PROPERTIES ***************** */
     /* ***************************************************************** */
@@ -47,6 +47,7 @@ import org.ow2.proactive.db.SortParameter;
 import org.ow2.proactive.scheduler.common.JobFilterCriteria;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.Scheduler;
 import org.ow2.proactive.scheduler.common.SchedulerAuthenticationInterface;
 import org.ow2.proactive.scheduler.common.SchedulerConnection;
@@ -72,7 +73,10 @@ import org.ow2.proactive.scheduler.common.job.JobPriority;
 import org.ow2.proactive.scheduler.common.job.JobResult;
 import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.usage.JobUsage;
 import org.ow2.proactive.scheduler.common.util.logforwarder.AppenderProvider;
@@ -299,6 +303,21 @@ public class SchedulerProxyUserInterface implements Scheduler, Serializable {
         return uischeduler.getTaskResult(jobId, taskName);
     }
 
+    @Override
+    public TaskResultValueRange getTaskResultSerializedValue(String jobId, String taskName, long resultId,
+            long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        checkSchedulerConnection();
+        return uischeduler.getTaskResultSerializedValue(jobId, taskName, resultId, offset, length);
+    }
+
+    @Override
+    public TaskLogsRange getTaskLogsRange(String jobId, String taskName, long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        checkSchedulerConnection();
+        return uischeduler.getTaskLogsRange(jobId, taskName, offset, length);
+    }
+
     @Override
     public List<TaskResult> getTaskResultsByTag(JobId jobId, String taskTag)
             throws NotConnectedException, UnknownJobException, PermissionException {
@@ -578,6 +597,12 @@ public class SchedulerProxyUserInterface implements Scheduler, Serializable {
         return uischeduler.getJobs(index, range, filterCriteria, sortParameters);
     }
 
+    @Override
+    public Page<JobInfo> getJobs(PageCursor after, int limit, JobFilterCriteria filterCriteria)
+            throws NotConnectedException, PermissionException {
+        return uischeduler.getJobs(after, limit, filterCriteria);
+    }
+
     @Override
     public List<JobInfo> getJobsInfoList(List<String> jobsId) throws PermissionException, NotConnectedException {
         return uischeduler.getJobsInfoList(jobsId);
@@ -644,11 +669,24 @@ public class SchedulerProxyUserInterface implements Scheduler, Serializable {
                                          sortParams);
     }
 
+    @Override
+    public Page<TaskState> getTaskStates(String taskTag, long from, long to, boolean mytasks, boolean running,
+            boolean pending, boolean finished, PageCursor after, int limit)
+            throws NotConnectedException, PermissionException {
+        return uischeduler.getTaskStates(taskTag, from, to, mytasks, running, pending, finished, after, limit);
+    }
+
     @Override
     public JobInfo getJobInfo(String jobId) throws UnknownJobException, NotConnectedException, PermissionException {
         return uischeduler.getJobInfo(jobId);
     }
 
+    @Override
+    public TaskRuntimePrediction getTaskRuntimePrediction(String jobName, String taskName)
+            throws NotConnectedException, PermissionException {
+        return uischeduler.getTaskRuntimePrediction(jobName, taskName);
+    }
+
     @Override
     public boolean changeStartAt(JobId jobId, String startAt)
             throws NotConnectedException, UnknownJobException, PermissionException {
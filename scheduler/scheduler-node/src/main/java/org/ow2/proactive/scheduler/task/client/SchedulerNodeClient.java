@@ -43,6 +43,7 @@ import org.ow2.proactive.db.SortParameter;
 import org.ow2.proactive.scheduler.common.JobFilterCriteria;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.SchedulerEvent;
 import org.ow2.proactive.scheduler.common.SchedulerEventListener;
 import org.ow2.proactive.scheduler.common.SchedulerState;
@@ -63,7 +64,10 @@ import org.ow2.proactive.scheduler.common.job.JobPriority;
 import org.ow2.proactive.scheduler.common.job.JobResult;
 import org.ow2.proactive.scheduler.common.job.JobState;
 import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.usage.JobUsage;
 import org.ow2.proactive.scheduler.common.util.logforwarder.AppenderProvider;
@@ -341,6 +345,21 @@ public class SchedulerNodeClient implements ISchedulerClient, Serializable {
         return client.getTaskResult(jobId, taskName);
     }
 
+    @Override
+    public TaskResultValueRange getTaskResultSerializedValue(String jobId, String taskName, long resultId,
+            long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        renewSession();
+        return client.getTaskResultSerializedValue(jobId, taskName, resultId, offset, length);
+    }
+
+    @Override
+    public TaskLogsRange getTaskLogsRange(String jobId, String taskName, long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        renewSession();
+        return client.getTaskLogsRange(jobId, taskName, offset, length);
+    }
+
     @Override
     public List<TaskResult> getTaskResultsByTag(JobId jobId, String taskTag)
             throws NotConnectedException, UnknownJobException, PermissionException {
@@ -563,6 +582,13 @@ public class SchedulerNodeClient implements ISchedulerClient, Serializable {
         return client.getJobs(offset, limit, filterCriteria, sortParameters);
     }
 
+    @Override
+    public Page<JobInfo> getJobs(PageCursor after, int limit, JobFilterCriteria filterCriteria)
+            throws NotConnectedException, PermissionException {
+        renewSession();
+        return client.getJobs(after, limit, filterCriteria);
+    }
+
     @Override
     public List<JobInfo> getJobsInfoList(List<String> jobsId) throws PermissionException, NotConnectedException {
         renewSession();
@@ -597,12 +623,27 @@ public class SchedulerNodeClient implements ISchedulerClient, Serializable {
         return client.getTaskStates(taskTag, from, to, mytasks, running, pending, finished, offset, limit, sortParams);
     }
 
+    @Override
+    public Page<TaskState> getTaskStates(String taskTag, long from, long to, boolean mytasks, boolean running,
+            boolean pending, boolean finished, PageCursor after, int limit)
+            throws NotConnectedException, PermissionException {
+        renewSession();
+        return client.getTaskStates(taskTag, from, to, mytasks, running, pending, finished, after, limit);
+    }
+
     @Override
     public JobInfo getJobInfo(String jobId) throws UnknownJobException, NotConnectedException, PermissionException {
         renewSession();
         return client.getJobInfo(jobId);
     }
 
+    @Override
+    public TaskRuntimePrediction getTaskRuntimePrediction(String jobName, String taskName)
+            throws NotConnectedException, PermissionException {
+        renewSession();
+        return client.getTaskRuntimePrediction(jobName, taskName);
+    }
+
     @Override
     public boolean changeStartAt(JobId jobId, String startAt)
             throws NotConnectedException, UnknownJobException, PermissionException {
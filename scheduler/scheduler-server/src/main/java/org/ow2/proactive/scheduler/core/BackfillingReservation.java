@@ -0,0 +1,161 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Node reservation of the backfilling mode of the scheduling loop.
+ * <p>
+ * When the first task of the policy order needs more nodes than currently free, the nodes it
+ * needs are reserved for it: from the walltimes of the running tasks, the reservation projects
+ * the time at which enough nodes will be free to start it. A task of lower order is then only
+ * started (backfilled) if it cannot delay this start, that is if its own walltime makes it end
+ * before the projected start time, or if it only uses nodes that will still be free once the
+ * reserved task has started.
+ * <p>
+ * Running tasks without walltime may never release their nodes as far as the reservation knows:
+ * if the projected start time cannot be computed, tasks are only backfilled on the nodes beyond
+ * those needed by the reserved task. A reservation is computed for one scheduling cycle.
+ */
+class BackfillingReservation {
+
+    /** Projected start time of a reservation which depends on tasks without walltime */
+    static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final int neededNodes;
+
+    private final long startTime;
+
+    private int extraNodes;
+
+    private BackfillingReservation(int neededNodes, long startTime, int extraNodes) {
+        this.neededNodes = neededNodes;
+        this.startTime = startTime;
+        this.extraNodes = extraNodes;
+    }
+
+    /**
+     * Reserves nodes for a task.
+     *
+     * @param neededNodes the number of nodes needed by the task
+     * @param freeNodes the number of currently free nodes
+     * @param now the current time
+     * @param releases the nodes the running tasks will release
+     * @return the reservation
+     */
+    static BackfillingReservation reserve(int neededNodes, int freeNodes, long now, List<NodeRelease> releases) {
+        if (neededNodes <= freeNodes) {
+            return new BackfillingReservation(neededNodes, now, freeNodes - neededNodes);
+        }
+        List<NodeRelease> sorted = new ArrayList<>(releases);
+        Collections.sort(sorted, new Comparator<NodeRelease>() {
+            @Override
+            public int compare(NodeRelease r1, NodeRelease r2) {
+                return Long.compare(r1.time, r2.time);
+            }
+        });
+        int availableNodes = freeNodes;
+        for (int i = 0; i < sorted.size(); i++) {
+            NodeRelease release = sorted.get(i);
+            if (release.time == UNKNOWN) {
+                break;
+            }
+            availableNodes += release.nodes;
+            // nodes released at the same time are available together
+            if (availableNodes >= neededNodes &&
+                (i + 1 == sorted.size() || sorted.get(i + 1).time != release.time)) {
+                return new BackfillingReservation(neededNodes,
+                                                  Math.max(now, release.time),
+                                                  availableNodes - neededNodes);
+            }
+        }
+        return new BackfillingReservation(neededNodes, UNKNOWN, 0);
+    }
+
+    /**
+     * Decides whether a task can be started without delaying the reserved task, and if so, takes
+     * into account the nodes it uses.
+     *
+     * @param nodes the number of nodes needed by the task
+     * @param walltime the walltime of the task, 0 if it has none
+     * @param now the current time
+     * @return true if the task can be started
+     */
+    boolean backfill(int nodes, long walltime, long now) {
+        if (walltime > 0 && startTime != UNKNOWN && now + walltime <= startTime) {
+            return true;
+        }
+        if (nodes <= extraNodes) {
+            extraNodes -= nodes;
+            return true;
+        }
+        return false;
+    }
+
+    int getNeededNodes() {
+        return neededNodes;
+    }
+
+    /**
+     * @return the projected start time of the reserved task, {@link #UNKNOWN} if it depends on
+     * running tasks without walltime
+     */
+    long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return the number of nodes which will still be free once the reserved task has started
+     */
+    int getExtraNodes() {
+        return extraNodes;
+    }
+
+    /**
+     * Nodes released by a running task at the end of its walltime.
+     */
+    static class NodeRelease {
+
+        private final long time;
+
+        private final int nodes;
+
+        /**
+         * @param time the time at which the nodes are released, {@link #UNKNOWN} if the task
+         * has no walltime
+         * @param nodes the number of nodes released
+         */
+        NodeRelease(long time, int nodes) {
+            this.time = time;
+            this.nodes = nodes;
+        }
+    }
+}
@@ -26,7 +26,11 @@
 package org.ow2.proactive.scheduler.core;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -36,7 +40,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.UniqueID;
 import org.objectweb.proactive.utils.NamedThreadFactory;
+import org.ow2.proactive.scheduler.common.NotificationData;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
 import org.ow2.proactive.scheduler.common.SchedulerEventListener;
+import org.ow2.proactive.scheduler.common.SchedulerEventNotification;
+import org.ow2.proactive.scheduler.common.SchedulerGroupEventListener;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.threading.ReifiedMethodCall;
 
@@ -44,6 +54,10 @@ import org.ow2.proactive.threading.ReifiedMethodCall;
 /**
  * ClientRequestHandler is used to delegate event call to client.
  * This class should be used with the ThreadPoolController which handles threads.
+ * <p>
+ * Events are sent one remote call per event, unless the client is a {@link SchedulerGroupEventListener}:
+ * in that case, the events queued while a previous call is in progress are sent by groups in one remote call.
+ * The size of the groups adapts to the time the client needs to receive them.
  *
  * @author The ProActive Team
  * @since ProActive Scheduling 2.0
@@ -59,6 +73,17 @@ public class ClientRequestHandler {
     private static final ExecutorService threadPoolForNetworkCalls = Executors.newFixedThreadPool(THREAD_NUMBER,
                                                                                                   new NamedThreadFactory("ClientEventHandlerPool"));
 
+    /** Maximum number of events sent in one call to a group listener */
+    private static final int MAX_BATCH_SIZE = PASchedulerProperties.SCHEDULER_LISTENERS_BATCH_MAXSIZE.getValueAsInt();
+
+    /** Target duration of one call to a group listener (in millis) */
+    private static final long BATCH_LATENCY = PASchedulerProperties.SCHEDULER_LISTENERS_BATCH_LATENCY.getValueAsInt();
+
+    /** Replace pending task progress events by newer ones */
+    private static final boolean COALESCE_EVENTS = PASchedulerProperties.SCHEDULER_LISTENERS_COALESCE_EVENTS.getValueAsBoolean();
+
+    private static final String TASK_STATE_UPDATED_EVENT_METHOD = "taskStateUpdatedEvent";
+
     private static final AtomicInteger requestLeft = new AtomicInteger();
 
     public static void terminate() {
@@ -88,6 +113,15 @@ public class ClientRequestHandler {
     /** Events queue to be stored */
     private final LinkedList<ReifiedMethodCall> eventCallsToStore;
 
+    /** Last stored task event for each task, used to coalesce task progress events */
+    private final Map<TaskId, ReifiedMethodCall> lastStoredTaskEvents;
+
+    /** True if the client receives events by groups */
+    private final boolean groupListener;
+
+    /** Current maximum number of events sent in one call to this client */
+    private volatile int batchSize;
+
     /** Cross reference to the front-end : used to mark client as dirty */
     private final SchedulerFrontendState frontend;
 
@@ -103,6 +137,9 @@ public class ClientRequestHandler {
         this.frontend = frontend;
         this.clientId = clientId;
         this.eventCallsToStore = new LinkedList<>();
+        this.lastStoredTaskEvents = new HashMap<>();
+        this.groupListener = client instanceof SchedulerGroupEventListener;
+        this.batchSize = MAX_BATCH_SIZE;
     }
 
     /**
@@ -113,12 +150,50 @@ public class ClientRequestHandler {
      */
     public void addEvent(Method method, Object... args) {
         synchronized (eventCallsToStore) {
-            eventCallsToStore.add(new ReifiedMethodCall(method, args));
-            requestLeft.incrementAndGet();
+            if (!COALESCE_EVENTS || !coalesceTaskEvent(method, args)) {
+                ReifiedMethodCall methodCall = new ReifiedMethodCall(method, args);
+                eventCallsToStore.add(methodCall);
+                requestLeft.incrementAndGet();
+                TaskId taskId = getTaskId(method, args);
+                if (taskId != null) {
+                    lastStoredTaskEvents.put(taskId, methodCall);
+                }
+            }
         }
         tryStartTask();
     }
 
+    /**
+     * Replace the arguments of the last stored event of a task by the given ones if both are
+     * task progress events. Events are coalesced only if no other event of this task was stored
+     * in between, so that the order of the events of a task is preserved.
+     *
+     * @return true if the event was coalesced with a stored event, false if it must be stored
+     */
+    private boolean coalesceTaskEvent(Method method, Object[] args) {
+        TaskId taskId = getTaskId(method, args);
+        if (taskId == null || !isTaskProgress(args)) {
+            return false;
+        }
+        ReifiedMethodCall lastStored = lastStoredTaskEvents.get(taskId);
+        if (lastStored == null || !isTaskProgress(lastStored.getArguments())) {
+            return false;
+        }
+        lastStored.setArguments(args);
+        return true;
+    }
+
+    private static TaskId getTaskId(Method method, Object[] args) {
+        if (!TASK_STATE_UPDATED_EVENT_METHOD.equals(method.getName())) {
+            return null;
+        }
+        return ((TaskInfo) ((NotificationData<?>) args[0]).getData()).getTaskId();
+    }
+
+    private static boolean isTaskProgress(Object[] args) {
+        return ((NotificationData<?>) args[0]).getEventType() == SchedulerEvent.TASK_PROGRESS;
+    }
+
     /**
      * Try to create a task with new events to send, and start it in the thread pool.
      * Can do nothing if some previous events are currently being sent.
@@ -129,14 +204,42 @@ public class ClientRequestHandler {
     private void tryStartTask() {
         synchronized (eventCallsToStore) {
             if (eventCallsToStore.size() > 0 && !busy.get()) {
-                LinkedList<ReifiedMethodCall> tasks = (LinkedList<ReifiedMethodCall>) eventCallsToStore.clone();
-                eventCallsToStore.clear();
+                LinkedList<ReifiedMethodCall> tasks;
+                if (groupListener && eventCallsToStore.size() > batchSize) {
+                    List<ReifiedMethodCall> group = eventCallsToStore.subList(0, batchSize);
+                    tasks = new LinkedList<>(group);
+                    group.clear();
+                } else {
+                    tasks = (LinkedList<ReifiedMethodCall>) eventCallsToStore.clone();
+                    eventCallsToStore.clear();
+                }
+                // events being sent can not be coalesced anymore
+                lastStoredTaskEvents.clear();
                 busy.set(true);
                 threadPoolForNetworkCalls.execute(new TaskRunnable(tasks));
             }
         }
     }
 
+    /**
+     * Adapt the size of the next groups sent to this client to the time needed to send the last one,
+     * so that one call lasts about {@link #BATCH_LATENCY} milliseconds.
+     *
+     * @param nbEvents the number of events of the last group
+     * @param duration the time needed to send the last group (in millis)
+     */
+    void adaptBatchSize(int nbEvents, long duration) {
+        double durationPerEvent = Math.max(duration, 1) / (double) nbEvents;
+        long targetSize = (long) (BATCH_LATENCY / durationPerEvent);
+        // smooth the variations between two groups
+        long newSize = (batchSize + targetSize) / 2;
+        batchSize = (int) Math.max(1, Math.min(MAX_BATCH_SIZE, newSize));
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
     /**
      * TaskRunnable is the task in charge to send the events in its list.
      *
@@ -172,10 +275,14 @@ public class ClientRequestHandler {
                         requestLeft.notify();
                     }
                 }
-                //loop on the list and send events
-                while (!eventCallsToSend.isEmpty()) {
-                    ReifiedMethodCall methodCall = eventCallsToSend.removeFirst();
-                    methodCall.getMethod().invoke(client, methodCall.getArguments());
+                if (groupListener) {
+                    sendGroup();
+                } else {
+                    //loop on the list and send events
+                    while (!eventCallsToSend.isEmpty()) {
+                        ReifiedMethodCall methodCall = eventCallsToSend.removeFirst();
+                        methodCall.getMethod().invoke(client, methodCall.getArguments());
+                    }
                 }
                 busy.set(false);
                 //try to empty the events list if no event comes from the core
@@ -192,6 +299,21 @@ public class ClientRequestHandler {
             }
         }
 
+        /**
+         * Send every event of the list in one call to the group listener
+         */
+        private void sendGroup() {
+            List<SchedulerEventNotification> events = new ArrayList<>(eventCallsToSend.size());
+            for (ReifiedMethodCall methodCall : eventCallsToSend) {
+                events.add(new SchedulerEventNotification(methodCall.getMethod().getName(),
+                                                          methodCall.getArguments()[0]));
+            }
+            long start = System.currentTimeMillis();
+            ((SchedulerGroupEventListener) client).notify(events);
+            adaptBatchSize(events.size(), System.currentTimeMillis() - start);
+            eventCallsToSend.clear();
+        }
+
     }
 
 }
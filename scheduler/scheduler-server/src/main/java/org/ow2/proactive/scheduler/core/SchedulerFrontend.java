@@ -92,6 +92,7 @@ import org.ow2.proactive.scheduler.common.JobDescriptor;
 import org.ow2.proactive.scheduler.common.JobFilterCriteria;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.Scheduler;
 import org.ow2.proactive.scheduler.common.SchedulerConnection;
 import org.ow2.proactive.scheduler.common.SchedulerConstants;
@@ -122,7 +123,11 @@ import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
 import org.ow2.proactive.scheduler.common.task.SimpleTaskLogs;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskLogs;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.task.TaskStatus;
 import org.ow2.proactive.scheduler.common.usage.JobUsage;
@@ -560,6 +565,67 @@ public class SchedulerFrontend implements InitActive, Scheduler, RunActive {
         return this.getTaskResult(JobIdImpl.makeJobId(jobId), taskName);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ImmediateService
+    public TaskResultValueRange getTaskResultSerializedValue(String jobId, String taskName, long resultId,
+            long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        JobId id = JobIdImpl.makeJobId(jobId);
+
+        // checking permissions
+        frontendState.checkPermissions("getTaskResultSerializedValue",
+                                       frontendState.getIdentifiedJob(id),
+                                       YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_TASK_RESULT_OF_THIS_JOB);
+
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must be 0 or greater.");
+        }
+
+        return dbManager.loadTaskResultSerializedValue(frontendState.getTaskId(id, taskName),
+                                                       resultId,
+                                                       offset,
+                                                       length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ImmediateService
+    public TaskLogsRange getTaskLogsRange(String jobId, String taskName, long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        JobId id = JobIdImpl.makeJobId(jobId);
+
+        // checking permissions
+        frontendState.checkPermissions("getTaskLogsRange",
+                                       frontendState.getIdentifiedJob(id),
+                                       YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_TASK_RESULT_OF_THIS_JOB);
+
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must be 0 or greater.");
+        }
+
+        TaskLogs logs;
+        try {
+            logs = dbManager.loadTaskLogs(frontendState.getTaskId(id, taskName));
+        } catch (DatabaseManagerException e) {
+            throw new UnknownTaskException("Unknown task " + taskName + ", job: " + jobId);
+        }
+        if (logs == null) {
+            // the logs of skipped or not started tasks are not stored, no value is loaded without result
+            TaskResult result = getTaskResultFromIncarnation(id, taskName, 0);
+            logs = result == null ? null : result.getOutput();
+        }
+        if (logs == null) {
+            return null;
+        }
+
+        return TaskLogsRange.of(logs.getAllLogs(true), offset, length);
+    }
+
     @Override
     @ImmediateService
     public List<TaskResult> getTaskResultsByTag(JobId jobId, String taskTag)
@@ -1273,6 +1339,25 @@ public class SchedulerFrontend implements InitActive, Scheduler, RunActive {
                                  sortParameters);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ImmediateService
+    public Page<JobInfo> getJobs(PageCursor after, int limit, JobFilterCriteria filterCriteria)
+            throws NotConnectedException, PermissionException {
+        UserIdentificationImpl ident = frontendState.checkPermission("getJobs",
+                                                                     "You don't have permissions to load jobs");
+
+        String user = filterCriteria.isMyJobsOnly() ? ident.getUsername() : null;
+        return dbManager.getJobs(after,
+                                 limit,
+                                 user,
+                                 filterCriteria.isPending(),
+                                 filterCriteria.isRunning(),
+                                 filterCriteria.isFinished());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1434,11 +1519,50 @@ public class SchedulerFrontend implements InitActive, Scheduler, RunActive {
 
     }
 
+    @Override
+    public Page<TaskState> getTaskStates(String taskTag, long from, long to, boolean mytasks, boolean running,
+            boolean pending, boolean finished, PageCursor after, int limit)
+            throws NotConnectedException, PermissionException {
+        RestPageParameters params = new RestPageParameters(frontendState,
+                                                           "getTaskStates",
+                                                           from,
+                                                           to,
+                                                           mytasks,
+                                                           running,
+                                                           pending,
+                                                           finished,
+                                                           0,
+                                                           limit,
+                                                           taskTag,
+                                                           SortSpecifierContainer.EMPTY_CONTAINER);
+        return dbManager.getTaskStates(params.getFrom(),
+                                       params.getTo(),
+                                       params.getTag(),
+                                       after,
+                                       params.getLimit(),
+                                       params.getUserName(),
+                                       params.isPending(),
+                                       params.isRunning(),
+                                       params.isFinished());
+    }
+
     @Override
     public JobInfo getJobInfo(String jobId) throws UnknownJobException, NotConnectedException, PermissionException {
         return getJobState(JobIdImpl.makeJobId(jobId)).getJobInfo();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ImmediateService
+    public TaskRuntimePrediction getTaskRuntimePrediction(String jobName, String taskName)
+            throws NotConnectedException, PermissionException {
+        frontendState.checkPermission("getTaskRuntimePrediction",
+                                      "You don't have permissions to get task runtime predictions");
+        return schedulingService.getRuntimePredictor().getPrediction(jobName, taskName);
+    }
+
     /**
      * {@inheritDoc}
      */
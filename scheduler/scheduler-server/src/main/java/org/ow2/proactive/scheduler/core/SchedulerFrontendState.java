@@ -37,6 +37,7 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.api.PAActiveObject;
@@ -69,7 +70,9 @@ import org.ow2.proactive.scheduler.common.job.UserIdentification;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
 import org.ow2.proactive.scheduler.core.jmx.SchedulerJMXHelper;
+import org.ow2.proactive.scheduler.core.jmx.SchedulerStatistics;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.scheduler.job.ClientJobState;
 import org.ow2.proactive.scheduler.job.IdentifiedJob;
@@ -86,6 +89,18 @@ import org.ow2.proactive.scheduler.util.JobLogger;
 import org.ow2.proactive.scheduler.util.TaskLogger;
 
 
+/**
+ * Frontend view of the scheduler state, shared by every client request and by the events
+ * coming from the scheduling core.
+ * <p>
+ * Client queries (state, job and task lookups, permission checks) do not take the monitor of
+ * this object: they only rely on concurrent maps and on the monitor of the job being read.
+ * Only the copy of the job lists of a user, which are modified by the updates, is made under
+ * the monitor.
+ * State updates coming from the core and connection management are serialized on this
+ * object's monitor so that events are applied and dispatched in order, without holding
+ * back concurrent readers.
+ */
 class SchedulerFrontendState implements SchedulerStateUpdate {
 
     public static final String YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_STATUS = "You do not have permission to get the status !";
@@ -217,12 +232,12 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     private final Map<JobId, ClientJobState> jobsMap;
 
     SchedulerFrontendState(SchedulerStateImpl sState, SchedulerJMXHelper jmxHelper) {
-        this.identifications = new HashMap<>();
-        this.credentials = new HashMap<>();
+        this.identifications = new ConcurrentHashMap<>();
+        this.credentials = new ConcurrentHashMap<>();
         this.dirtyList = new HashSet<>();
         this.jmxHelper = jmxHelper;
-        this.jobsMap = new HashMap<>();
-        this.jobs = new HashMap<>();
+        this.jobsMap = new ConcurrentHashMap<>();
+        this.jobs = new ConcurrentHashMap<>();
         this.sessionTimer = new Timer("SessionTimer");
         this.sState = sState;
         recover(sState);
@@ -254,6 +269,11 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         for (ClientJobState js : finishedJobs) {
             prepare(jobStates, js, true);
         }
+        getStatistics().initialize(jobsMap.values());
+    }
+
+    private SchedulerStatistics getStatistics() {
+        return jmxHelper.getSchedulerRuntimeMBean().getStatistics();
     }
 
     /**
@@ -313,48 +333,58 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
      *            the user on which to renew the session
      */
     private void renewUserSession(final UniqueID id, UserIdentificationImpl identification) {
-        if (identifications.get(id).isListening()) {
-            // if this id has a listener, do not renew user session
+        ListeningUser listeningUser = identifications.get(id);
+        if (listeningUser == null || listeningUser.isListening()) {
+            // if this id has a listener (or was disconnected meanwhile), do not renew user session
             return;
         }
         final String userName = identification.getUsername();
-        TimerTask session = identification.getSession();
-        if (session != null) {
-            session.cancel();
-        }
-        identification.setSession(new TimerTask() {
-            @Override
-            public void run() {
-                logger.info("End of session for user " + userName + ", id=" + id);
-                disconnect(id);
+        // several requests of the same user can renew its session concurrently
+        synchronized (identification) {
+            TimerTask session = identification.getSession();
+            if (session != null) {
+                session.cancel();
             }
-        });
-        sessionTimer.purge();
-        sessionTimer.schedule(identification.getSession(), USER_SESSION_DURATION);
+            identification.setSession(new TimerTask() {
+                @Override
+                public void run() {
+                    logger.info("End of session for user " + userName + ", id=" + id);
+                    disconnect(id);
+                }
+            });
+            sessionTimer.purge();
+            sessionTimer.schedule(identification.getSession(), USER_SESSION_DURATION);
+        }
     }
 
-    synchronized SchedulerStatus getStatus() throws NotConnectedException, PermissionException {
+    SchedulerStatus getStatus() throws NotConnectedException, PermissionException {
         // checking permissions
         checkPermission("getStatus", YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_STATUS);
         return sState.getStatus();
     }
 
-    synchronized SchedulerState getState() throws NotConnectedException, PermissionException {
+    SchedulerState getState() throws NotConnectedException, PermissionException {
         return getState(false);
     }
 
-    synchronized SchedulerState getStateInternally() {
+    SchedulerState getStateInternally() {
         return sState;
     }
 
-    synchronized SchedulerState getState(boolean myJobsOnly) throws NotConnectedException, PermissionException {
+    SchedulerState getState(boolean myJobsOnly) throws NotConnectedException, PermissionException {
         // checking permissions
         checkPermission("getState", YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_STATE);
 
-        ListeningUser ui = identifications.get(PAActiveObject.getContext().getCurrentRequest().getSourceBodyID());
-
-        return myJobsOnly ? sState.filterOnUser(ui.getUser().getUsername()) : sState;
+        ListeningUser ui = getListeningUser(PAActiveObject.getContext().getCurrentRequest().getSourceBodyID());
 
+        if (!myJobsOnly) {
+            return sState;
+        }
+        String username = ui.getUser().getUsername();
+        // the job lists are copied under the monitor, as the updates applied under it modify them
+        synchronized (this) {
+            return sState.filterOnUser(username);
+        }
     }
 
     /**
@@ -369,7 +399,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
      * @throws PermissionException
      *             if permission is denied
      */
-    synchronized void handleOnlyMyJobsPermission(boolean myOnly, UserIdentificationImpl ui, String errorMessage)
+    void handleOnlyMyJobsPermission(boolean myOnly, UserIdentificationImpl ui, String errorMessage)
             throws PermissionException {
         ui.checkPermission(new HandleOnlyMyJobsPermission(myOnly),
                            ui.getUsername() + " does not have permissions to handle other users jobs (" + errorMessage +
@@ -390,7 +420,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
      * @throws PermissionException
      *             if permission is denied
      */
-    synchronized void handleJobsWithGenericInformationPermission(Map<String, String> genericInformation,
+    void handleJobsWithGenericInformationPermission(Map<String, String> genericInformation,
             UserIdentificationImpl ui, String errorMessage) throws PermissionException {
         ui.checkPermission(new HandleJobsWithGenericInformationPermission(genericInformation),
                            ui.getUsername() + " does not have permissions to handle this job (" + errorMessage + ")");
@@ -446,7 +476,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         // Remove the listener on that user designated by its given UniqueID,
         // then renew its user session as it is no more managed by the listener.
         UniqueID id = checkAccess();
-        ListeningUser uIdent = identifications.get(id);
+        ListeningUser uIdent = getListeningUser(id);
         uIdent.clearListener();
         // recreate the session for this user which is no more managed by
         // listener
@@ -462,7 +492,20 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return id;
     }
 
-    synchronized InternalJob createJob(Job userJob, UserIdentificationImpl ident)
+    /**
+     * Get the connected user associated to the given id. As readers do not lock the frontend,
+     * the user may have been disconnected since {@link #checkAccess()} was called.
+     */
+    private ListeningUser getListeningUser(UniqueID id) throws NotConnectedException {
+        ListeningUser listeningUser = identifications.get(id);
+        if (listeningUser == null) {
+            logger.info(ACCESS_DENIED);
+            throw new NotConnectedException(ACCESS_DENIED);
+        }
+        return listeningUser;
+    }
+
+    InternalJob createJob(Job userJob, UserIdentificationImpl ident)
             throws NotConnectedException, PermissionException, SubmissionClosedException, JobCreationException {
         UniqueID id = checkAccess();
 
@@ -511,11 +554,11 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized ListeningUser checkPermissionReturningListeningUser(String methodName, String permissionMsg)
+    ListeningUser checkPermissionReturningListeningUser(String methodName, String permissionMsg)
             throws NotConnectedException, PermissionException {
         UniqueID id = checkAccess();
 
-        ListeningUser ident = identifications.get(id);
+        ListeningUser ident = getListeningUser(id);
         // renew session for this user
         renewUserSession(id, ident.getUser());
 
@@ -531,7 +574,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return ident;
     }
 
-    synchronized UserIdentificationImpl checkPermission(String methodName, String permissionMsg)
+    UserIdentificationImpl checkPermission(String methodName, String permissionMsg)
             throws NotConnectedException, PermissionException {
         return checkPermissionReturningListeningUser(methodName, permissionMsg).getUser();
     }
@@ -567,7 +610,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized boolean isConnected() {
+    boolean isConnected() {
         try {
             checkAccess();
             return true;
@@ -576,14 +619,14 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized void renewSession() throws NotConnectedException {
+    void renewSession() throws NotConnectedException {
         UniqueID id = checkAccess();
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        UserIdentificationImpl ident = getListeningUser(id).getUser();
         // renew session for this user
         renewUserSession(id, ident);
     }
 
-    synchronized IdentifiedJob getIdentifiedJob(JobId jobId) throws UnknownJobException {
+    IdentifiedJob getIdentifiedJob(JobId jobId) throws UnknownJobException {
         IdentifiedJob ij = jobs.get(jobId);
 
         if (ij == null) {
@@ -596,17 +639,17 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
 
     }
 
-    synchronized void checkChangeJobPriority(JobId jobId, JobPriority priority)
+    void checkChangeJobPriority(JobId jobId, JobPriority priority)
             throws NotConnectedException, UnknownJobException, PermissionException, JobAlreadyFinishedException {
 
+        IdentifiedJob identifiedJob = getIdentifiedJob(jobId);
         checkPermissions("changeJobPriority",
-                         getIdentifiedJob(jobId),
+                         identifiedJob,
                          YOU_DO_NOT_HAVE_PERMISSION_TO_CHANGE_THE_PRIORITY_OF_THIS_JOB);
 
-        UserIdentificationImpl ui = identifications.get(PAActiveObject.getContext()
-                                                                      .getCurrentRequest()
-                                                                      .getSourceBodyID())
-                                                   .getUser();
+        UserIdentificationImpl ui = getListeningUser(PAActiveObject.getContext()
+                                                                   .getCurrentRequest()
+                                                                   .getSourceBodyID()).getUser();
 
         try {
             ui.checkPermission(new ChangePriorityPermission(priority.getPriority()),
@@ -616,14 +659,14 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             throw ex;
         }
 
-        if (jobs.get(jobId).isFinished()) {
+        if (identifiedJob.isFinished()) {
             String msg = " is already finished";
             jlogger.info(jobId, msg);
             throw new JobAlreadyFinishedException("Job " + jobId + msg);
         }
     }
 
-    synchronized void checkPermissions(String methodName, IdentifiedJob identifiedJob, String errorMessage)
+    void checkPermissions(String methodName, IdentifiedJob identifiedJob, String errorMessage)
             throws NotConnectedException, UnknownJobException, PermissionException {
         try {
             checkJobOwner(methodName, identifiedJob, errorMessage);
@@ -641,7 +684,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized void checkJobOwner(String methodName, IdentifiedJob IdentifiedJob, String permissionMsg)
+    void checkJobOwner(String methodName, IdentifiedJob IdentifiedJob, String permissionMsg)
             throws NotConnectedException, UnknownJobException, PermissionException {
         ListeningUser ident = checkPermissionReturningListeningUser(methodName, permissionMsg);
 
@@ -650,27 +693,29 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized Set<TaskId> getJobTasks(JobId jobId) {
+    Set<TaskId> getJobTasks(JobId jobId) {
         JobState jobState = jobsMap.get(jobId);
+        if (jobState == null) {
+            return Collections.emptySet();
+        }
         synchronized (jobState) {
-            if (jobState == null) {
-                return Collections.emptySet();
-            } else {
-                Set<TaskId> tasks = new HashSet<>(jobState.getTasks().size());
-                for (TaskState task : jobState.getTasks()) {
-                    tasks.add(task.getId());
-                }
-                return tasks;
+            Set<TaskId> tasks = new HashSet<>(jobState.getTasks().size());
+            for (TaskState task : jobState.getTasks()) {
+                tasks.add(task.getId());
             }
+            return tasks;
         }
     }
 
-    synchronized JobState getJobState(JobId jobId)
+    JobState getJobState(JobId jobId)
             throws NotConnectedException, UnknownJobException, PermissionException {
         checkPermissions("getJobState",
                          getIdentifiedJob(jobId),
                          YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_STATE_OF_THIS_JOB);
         ClientJobState jobState = jobsMap.get(jobId);
+        if (jobState == null) {
+            throw new UnknownJobException(jobId);
+        }
         ClientJobState jobStateCopy;
         synchronized (jobState) {
             try {
@@ -683,15 +728,15 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return jobStateCopy;
     }
 
-    synchronized TaskState getTaskState(JobId jobId, TaskId taskId)
+    TaskState getTaskState(JobId jobId, TaskId taskId)
             throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
         checkPermissions("getJobState",
                          getIdentifiedJob(jobId),
                          YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_STATE_OF_THIS_TASK);
-        if (jobsMap.get(jobId) == null) {
+        JobState jobState = jobsMap.get(jobId);
+        if (jobState == null) {
             throw new UnknownJobException(jobId);
         }
-        JobState jobState = jobsMap.get(jobId);
         synchronized (jobState) {
             TaskState ts = jobState.getHMTasks().get(taskId);
             if (ts == null) {
@@ -701,14 +746,15 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized TaskState getTaskState(JobId jobId, String taskName)
+    TaskState getTaskState(JobId jobId, String taskName)
             throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
 
         checkPermissions("getJobState",
                          getIdentifiedJob(jobId),
                          YOU_DO_NOT_HAVE_PERMISSION_TO_GET_THE_STATE_OF_THIS_TASK);
 
-        if (jobsMap.get(jobId) == null) {
+        JobState jobState = jobsMap.get(jobId);
+        if (jobState == null) {
             throw new UnknownJobException(jobId);
         }
         TaskId taskId = null;
@@ -720,7 +766,6 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         if (taskId == null) {
             throw new UnknownTaskException(taskName, jobId);
         }
-        JobState jobState = jobsMap.get(jobId);
         synchronized (jobState) {
             TaskState ts = jobState.getHMTasks().get(taskId);
             if (ts == null) {
@@ -730,7 +775,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized TaskId getTaskId(JobId jobId, String taskName) throws UnknownTaskException, UnknownJobException {
+    TaskId getTaskId(JobId jobId, String taskName) throws UnknownTaskException, UnknownJobException {
         if (jobsMap.get(jobId) == null) {
             throw new UnknownJobException(jobId);
         }
@@ -746,10 +791,10 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return taskId;
     }
 
-    synchronized void checkChangePolicy() throws NotConnectedException, PermissionException {
+    void checkChangePolicy() throws NotConnectedException, PermissionException {
         UniqueID id = checkAccess();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        UserIdentificationImpl ident = getListeningUser(id).getUser();
         // renew session for this user
         renewUserSession(id, ident);
 
@@ -762,10 +807,10 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         }
     }
 
-    synchronized void checkLinkResourceManager() throws NotConnectedException, PermissionException {
+    void checkLinkResourceManager() throws NotConnectedException, PermissionException {
         UniqueID id = checkAccess();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        UserIdentificationImpl ident = getListeningUser(id).getUser();
         // renew session for this user
         renewUserSession(id, ident);
 
@@ -834,13 +879,13 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             }
             for (ListeningUser userId : identifications.values()) {
                 // if this user has a listener
-                if (userId.isListening()) {
+                ClientRequestHandler listener = userId.getListener();
+                if (listener != null) {
                     // if there is no specified event OR if the specified event
                     // is allowed
                     if ((userId.getUser().getUserEvents() == null) ||
                         userId.getUser().getUserEvents().contains(eventType)) {
-                        userId.getListener().addEvent(eventMethods.get(SCHEDULER_STATE_UPDATED_EVENT_METHOD),
-                                                      eventType);
+                        listener.addEvent(eventMethods.get(SCHEDULER_STATE_UPDATED_EVENT_METHOD), eventType);
                     }
                 }
             }
@@ -863,7 +908,8 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             }
             for (ListeningUser listeningUserId : identifications.values()) {
                 // if this user has a listener
-                if (listeningUserId.isListening()) {
+                ClientRequestHandler listener = listeningUserId.getListener();
+                if (listener != null) {
                     UserIdentificationImpl userId = listeningUserId.getUser();
                     // if there is no specified event OR if the specified
                     // event is allowed
@@ -873,7 +919,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                         // (myEventOnly=true and it is its event)
                         if (!userId.isMyEventsOnly() ||
                             (userId.isMyEventsOnly() && userId.getUsername().equals(job.getOwner()))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get(JOB_SUBMITTED_EVENT_METHOD), job);
+                            listener.addEvent(eventMethods.get(JOB_SUBMITTED_EVENT_METHOD), job);
                         }
                     }
 
@@ -908,7 +954,8 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             }
             for (ListeningUser listeningUserId : identifications.values()) {
                 // if this user has a listener
-                if (listeningUserId.isListening()) {
+                ClientRequestHandler listener = listeningUserId.getListener();
+                if (listener != null) {
                     UserIdentificationImpl userId = listeningUserId.getUser();
                     // if there is no specified event OR if the specified event
                     // is allowed
@@ -918,8 +965,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                         // (myEventOnly=true and it is its event)
                         if (!userId.isMyEventsOnly() ||
                             (userId.isMyEventsOnly() && userId.getUsername().equals(owner))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get(JOB_STATE_UPDATED_EVENT_METHOD),
-                                                                   notification);
+                            listener.addEvent(eventMethods.get(JOB_STATE_UPDATED_EVENT_METHOD), notification);
                         }
                     }
                 }
@@ -943,7 +989,8 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             }
             for (ListeningUser listeningUserId : identifications.values()) {
                 // if this user has a listener
-                if (listeningUserId.isListening()) {
+                ClientRequestHandler listener = listeningUserId.getListener();
+                if (listener != null) {
                     UserIdentificationImpl userId = listeningUserId.getUser();
                     // if there is no specified event OR if the specified
                     // event is allowed
@@ -953,8 +1000,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                         // (myEventOnly=true and it is its event)
                         if (!userId.isMyEventsOnly() ||
                             (userId.isMyEventsOnly() && userId.getUsername().equals(job.getOwner()))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get(JOB_UPDATED_FULL_DATA_EVENT_METHOD),
-                                                                   job);
+                            listener.addEvent(eventMethods.get(JOB_UPDATED_FULL_DATA_EVENT_METHOD), job);
                         }
                     }
 
@@ -981,7 +1027,8 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             }
             for (ListeningUser listeningUserId : identifications.values()) {
                 // if this user has a listener
-                if (listeningUserId.isListening()) {
+                ClientRequestHandler listener = listeningUserId.getListener();
+                if (listener != null) {
                     UserIdentificationImpl userId = listeningUserId.getUser();
                     // if there is no specified event OR if the specified event
                     // is allowed
@@ -991,8 +1038,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                         // (myEventOnly=true and it is its event)
                         if (!userId.isMyEventsOnly() ||
                             (userId.isMyEventsOnly() && userId.getUsername().equals(owner))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get(TASK_STATE_UPDATED_EVENT_METHOD),
-                                                                   notification);
+                            listener.addEvent(eventMethods.get(TASK_STATE_UPDATED_EVENT_METHOD), notification);
                         }
                     }
                 }
@@ -1016,7 +1062,8 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
             }
             for (ListeningUser listeningUserId : identifications.values()) {
                 // if this user has a listener
-                if (listeningUserId.isListening()) {
+                ClientRequestHandler listener = listeningUserId.getListener();
+                if (listener != null) {
                     UserIdentificationImpl userId = listeningUserId.getUser();
                     // if there is no specified event OR if the specified event
                     // is allowed
@@ -1027,8 +1074,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                         if (!userId.isMyEventsOnly() ||
                             (userId.isMyEventsOnly() &&
                              userId.getUsername().equals(notification.getData().getUsername()))) {
-                            listeningUserId.getListener().addEvent(eventMethods.get(USERS_UPDATED_EVENT_METHOD),
-                                                                   notification);
+                            listener.addEvent(eventMethods.get(USERS_UPDATED_EVENT_METHOD), notification);
                         }
                     }
                 }
@@ -1091,6 +1137,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         ClientJobState storedJobState = new ClientJobState(job);
         jobsMap.put(job.getId(), storedJobState);
         sState.update(storedJobState);
+        getStatistics().jobSubmitted(storedJobState);
         dispatchJobSubmitted(job);
     }
 
@@ -1134,14 +1181,30 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                                 notification.getEventType());
                     return;
             }
+            updateStatistics(js, notification.getEventType());
             dispatchJobStateUpdated(owner, notification);
             new JobEmailNotification(js, notification).checkAndSend();
         }
     }
 
+    private void updateStatistics(ClientJobState js, SchedulerEvent eventType) {
+        if (eventType == SchedulerEvent.JOB_REMOVE_FINISHED) {
+            getStatistics().jobRemoved(js.getId());
+        } else {
+            getStatistics().jobUpdated(js,
+                                       eventType == SchedulerEvent.JOB_PENDING_TO_RUNNING,
+                                       eventType == SchedulerEvent.JOB_PENDING_TO_FINISHED ||
+                                                                                  eventType == SchedulerEvent.JOB_RUNNING_TO_FINISHED);
+        }
+    }
+
     @Override
     public synchronized void jobUpdatedFullData(JobState jobstate) {
         ClientJobState storedJobState = new ClientJobState(jobstate);
+        // the full data of a job removed by the housekeeping must not count it again
+        if (jobsMap.containsKey(jobstate.getId())) {
+            getStatistics().jobUpdated(storedJobState, false, false);
+        }
         dispatchJobUpdatedFullData(storedJobState);
     }
 
@@ -1149,6 +1212,8 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     public synchronized void taskStateUpdated(String owner, NotificationData<TaskInfo> notification) {
         JobState jobState = jobsMap.get(notification.getData().getJobId());
         synchronized (jobState) {
+            TaskState previousState = jobState.getHMTasks().get(notification.getData().getTaskId());
+            TaskStatus previousStatus = previousState == null ? null : previousState.getStatus();
             jobState.update(notification.getData());
             switch (notification.getEventType()) {
                 case TASK_PENDING_TO_RUNNING:
@@ -1158,6 +1223,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
                 case TASK_SKIPPED:
                 case TASK_REPLICATED:
                 case TASK_IN_ERROR_TO_FINISHED:
+                    getStatistics().taskUpdated(jobState, previousStatus, notification.getData().getStatus());
                     dispatchTaskStateUpdated(owner, notification);
                     break;
                 case TASK_PROGRESS:
@@ -1191,7 +1257,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     public String getCurrentUser() throws NotConnectedException {
         UniqueID id = checkAccess();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        UserIdentificationImpl ident = getListeningUser(id).getUser();
         // renew session for this user
         renewUserSession(id, ident);
         return ident.getUsername();
@@ -1200,7 +1266,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     public UserData getCurrentUserData() throws NotConnectedException {
         UniqueID id = checkAccess();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        UserIdentificationImpl ident = getListeningUser(id).getUser();
         // renew session for this user
         renewUserSession(id, ident);
         UserData userData = new UserData();
@@ -1209,7 +1275,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
         return userData;
     }
 
-    synchronized List<SchedulerUserInfo> getUsers() {
+    List<SchedulerUserInfo> getUsers() {
         List<SchedulerUserInfo> users = new ArrayList<>(identifications.size());
         for (ListeningUser listeningUser : identifications.values()) {
             UserIdentificationImpl user = listeningUser.getUser();
@@ -1225,7 +1291,7 @@ class SchedulerFrontendState implements SchedulerStateUpdate {
     public Map<String, Object> getSchedulerProperties() throws NotConnectedException {
         UniqueID id = checkAccess();
 
-        UserIdentificationImpl ident = identifications.get(id).getUser();
+        UserIdentificationImpl ident = getListeningUser(id).getUser();
         renewUserSession(id, ident);
         return PASchedulerProperties.getPropertiesAsHashMap();
     }
@@ -30,6 +30,7 @@ import java.io.Serializable;
 import java.security.PrivateKey;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -58,6 +59,7 @@ import org.ow2.proactive.scheduler.common.task.TaskStatus;
 import org.ow2.proactive.scheduler.common.util.VariableSubstitutor;
 import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
 import org.ow2.proactive.scheduler.core.helpers.VariableBatchSizeIterator;
+import org.ow2.proactive.scheduler.core.locality.DataLocalityRegistry;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.scheduler.core.rmproxies.RMProxiesManager;
 import org.ow2.proactive.scheduler.core.rmproxies.RMProxyCreationException;
@@ -117,20 +119,47 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
 
     private CheckEligibleTaskDescriptorScript checkEligibleTaskDescriptorScript;
 
+    /** Number of alive nodes in the resource manager at the current scheduling cycle */
+    private int aliveNodesNumber;
+
+    /** Nodes reserved during the current scheduling cycle, in backfilling mode */
+    private BackfillingReservation backfillingReservation;
+
+    /** Urls of the free nodes during the current scheduling cycle */
+    private Set<String> freeNodesUrls;
+
+    /** Location of the data of the started tasks */
+    private final DataLocalityRegistry dataLocality = new DataLocalityRegistry();
+
     public SchedulingMethodImpl(SchedulingService schedulingService) throws Exception {
+        this(schedulingService,
+             createTerminateNotification(schedulingService),
+             Credentials.getPrivateKey(PASchedulerProperties.getAbsolutePath(PASchedulerProperties.SCHEDULER_AUTH_PRIVKEY_PATH.getValueAsString())));
+    }
+
+    /**
+     * Creates the scheduling method with the given task termination notification and private key,
+     * without creating any active object.
+     */
+    SchedulingMethodImpl(SchedulingService schedulingService, TaskTerminateNotification terminateNotification,
+            PrivateKey corePrivateKey) {
         this.schedulingService = schedulingService;
         this.checkEligibleTaskDescriptorScript = new CheckEligibleTaskDescriptorScript();
-        terminateNotification = new TerminateNotification(schedulingService);
+        this.terminateNotification = terminateNotification;
+        this.threadPool = TimeoutThreadPoolExecutor.newFixedThreadPool(PASchedulerProperties.SCHEDULER_STARTTASK_THREADNUMBER.getValueAsInt(),
+                                                                       new NamedThreadFactory("DoTask_Action"));
+        this.corePrivateKey = corePrivateKey;
+    }
+
+    private static TaskTerminateNotification createTerminateNotification(SchedulingService schedulingService)
+            throws Exception {
+        TaskTerminateNotification terminateNotification = new TerminateNotification(schedulingService);
         Node terminateNotificationNode = NodeFactory.createLocalNode("taskTerminationNode",
                                                                      true,
                                                                      "taskTerminationVNode");
-        terminateNotification = PAActiveObject.turnActive(terminateNotification,
-                                                          TaskTerminateNotification.class.getName(),
-                                                          terminateNotificationNode);
-
-        this.threadPool = TimeoutThreadPoolExecutor.newFixedThreadPool(PASchedulerProperties.SCHEDULER_STARTTASK_THREADNUMBER.getValueAsInt(),
-                                                                       new NamedThreadFactory("DoTask_Action"));
-        this.corePrivateKey = Credentials.getPrivateKey(PASchedulerProperties.getAbsolutePath(PASchedulerProperties.SCHEDULER_AUTH_PRIVKEY_PATH.getValueAsString()));
+        return PAActiveObject.turnActive(terminateNotification,
+                                         TaskTerminateNotification.class.getName(),
+                                         terminateNotificationNode);
     }
 
     RMProxiesManager getRMProxiesManager() {
@@ -192,6 +221,12 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
                 return 0;
             }
 
+            // the tasks held back by the policy until their start time are eligible again once it is passed
+            long now = System.currentTimeMillis();
+            for (JobDescriptor descriptor : descriptors) {
+                ((JobDescriptorImpl) descriptor).releaseDeferredTasks(now);
+            }
+
             // ask the policy all the tasks to be schedule according to the jobs list.
             LinkedList<EligibleTaskDescriptor> fullListOfTaskRetrievedFromPolicy = currentPolicy.getOrderedTasks(descriptors);
 
@@ -226,6 +261,7 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
         RMState rmState = getRMProxiesManager().getRmProxy().getState();
         currentPolicy.setRMState(rmState);
         Set<String> freeResources = rmState.getFreeNodes();
+        aliveNodesNumber = rmState.getTotalAliveNodesNumber();
         if (logger.isDebugEnabled()) {
             logger.debug("eligible nodes : " + (freeResources.size() < 5 ? freeResources : freeResources.size()));
         }
@@ -244,6 +280,8 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
     private int selectAndStartTasks(Policy currentPolicy, Map<JobId, JobDescriptor> jobMap, Set<String> freeResources,
             LinkedList<EligibleTaskDescriptor> fullListOfTaskRetrievedFromPolicy) {
         int numberOfTaskStarted = 0;
+        backfillingReservation = null;
+        freeNodesUrls = freeResources;
 
         VariableBatchSizeIterator progressiveIterator = new VariableBatchSizeIterator(fullListOfTaskRetrievedFromPolicy);
 
@@ -303,12 +341,26 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
                         currentJob = ((JobDescriptorImpl) jobMap.get(taskDescriptor.getJobId())).getInternal();
                         InternalTask internalTask = ((EligibleTaskDescriptorImpl) taskDescriptor).getInternal();
 
-                        if (currentPolicy.isTaskExecutable(nodeSet, taskDescriptor)) {
+                        if (isTaskExecutable(currentPolicy, nodeSet, internalTask, taskDescriptor)) {
                             //create launcher and try to start the task
                             node = nodeSet.get(0);
 
-                            if (createExecution(nodeSet, node, currentJob, internalTask, taskDescriptor)) {
+                            boolean started;
+                            try {
+                                started = createExecution(nodeSet, node, currentJob, internalTask, taskDescriptor);
+                            } catch (Exception e) {
+                                currentPolicy.taskNotStarted(taskDescriptor);
+                                throw e;
+                            }
+                            if (started) {
                                 numberOfTaskStarted++;
+                                if (isDataLocalityEnabled()) {
+                                    dataLocality.taskStarted(internalTask,
+                                                             node.getNodeInformation().getURL(),
+                                                             node.getVMInformation().getHostName());
+                                }
+                            } else {
+                                currentPolicy.taskNotStarted(taskDescriptor);
                             }
 
                         }
@@ -427,14 +479,20 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
                     //the current task would be retried on the next step
                     //we continue to start the maximum number of task in a single scheduling loop.
                     //this case will focus on starting single node task first if lot of resources are busy.
-                    //(multi-nodes starvation may occurs)
+                    //(multi-nodes starvation may occurs, unless nodes are reserved in backfilling mode)
+                    reserveNodes(internalTask, neededNodes, maxResource);
                 } else {
                     //check if the task is compatible with the other previous one
                     if (referent.equals(new SchedulingTaskComparator(internalTask, currentJob))) {
-                        tlogger.debug(internalTask.getId(), "scheduling");
-                        neededResource += neededNodes;
-                        maxResource -= neededNodes;
-                        toFill.add(etd);
+                        //a task which waits for the nodes holding its data, or which would delay
+                        //the reserved one, is retried on the next step. Backfilling consumes the
+                        //reserved nodes, so it is only done for a task which is started
+                        if (!waitForData(internalTask) && backfill(internalTask, neededNodes)) {
+                            tlogger.debug(internalTask.getId(), "scheduling");
+                            neededResource += neededNodes;
+                            maxResource -= neededNodes;
+                            toFill.add(etd);
+                        }
                     } else {
                         bagOfTasks.addFirst(etd);
                         break;
@@ -445,6 +503,96 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
         return neededResource;
     }
 
+    /**
+     * In backfilling mode, reserve nodes for the first task which needs more nodes than free during this
+     * scheduling cycle. Tasks needing more nodes than alive in the resource manager are not reserved for,
+     * as they could hold the following tasks indefinitely.
+     *
+     * @param task the task which cannot be started
+     * @param neededNodes the number of nodes needed by the task
+     * @param freeNodes the number of free nodes
+     */
+    private void reserveNodes(InternalTask task, int neededNodes, int freeNodes) {
+        if (!PASchedulerProperties.SCHEDULER_BACKFILLING.getValueAsBoolean() || backfillingReservation != null ||
+            neededNodes > aliveNodesNumber) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<BackfillingReservation.NodeRelease> releases = new ArrayList<>();
+        for (RunningTaskData taskData : schedulingService.getRunningTasks()) {
+            InternalTask runningTask = taskData.getTask();
+            long releaseTime = BackfillingReservation.UNKNOWN;
+            if (runningTask.isWallTimeSet()) {
+                long startTime = runningTask.getStartTime() > 0 ? runningTask.getStartTime() : now;
+                releaseTime = startTime + runningTask.getWallTime();
+            }
+            releases.add(new BackfillingReservation.NodeRelease(releaseTime, runningTask.getNumberOfNodesNeeded()));
+        }
+        backfillingReservation = BackfillingReservation.reserve(neededNodes, freeNodes, now, releases);
+        if (tlogger.isDebugEnabled()) {
+            long startTime = backfillingReservation.getStartTime();
+            tlogger.debug(task.getId(),
+                          "reserves " + neededNodes + " nodes, projected start " +
+                                        (startTime == BackfillingReservation.UNKNOWN ? "unknown"
+                                                                                      : new Date(startTime)) +
+                                        ", " + backfillingReservation.getExtraNodes() + " nodes left to backfill");
+        }
+    }
+
+    /**
+     * Decide whether a task can be started without delaying the task for which nodes are reserved.
+     *
+     * @param task the task to start
+     * @param neededNodes the number of nodes needed by the task
+     * @return true if no nodes are reserved or if the task can be backfilled
+     */
+    private boolean backfill(InternalTask task, int neededNodes) {
+        return backfillingReservation == null ||
+               backfillingReservation.backfill(neededNodes,
+                                               task.isWallTimeSet() ? task.getWallTime() : 0,
+                                               System.currentTimeMillis());
+    }
+
+    /**
+     * Decide whether a task should rather wait for the nodes holding its data to be free.
+     *
+     * @param task the task to start
+     * @return true if data locality is enabled and the task waits for its nodes
+     */
+    private boolean waitForData(InternalTask task) {
+        if (!isDataLocalityEnabled() || freeNodesUrls == null) {
+            return false;
+        }
+        boolean waiting = dataLocality.isWaiting(task, freeNodesUrls, System.currentTimeMillis());
+        if (waiting) {
+            tlogger.debug(task.getId(), "waits for the nodes holding its data");
+        }
+        return waiting;
+    }
+
+    /**
+     * Moves first in the node set the node holding the data of the task, then asks the policy whether
+     * the task can be started. The task is started on the first node of the set, and the policies book
+     * their resources (RAM, licenses) against this node when they accept the task.
+     *
+     * @param currentPolicy the scheduling policy
+     * @param nodeSet the nodes given to the task
+     * @param internalTask the task to start
+     * @param taskDescriptor the descriptor of the task
+     * @return true if the policy accepts to start the task on the first node of the set
+     */
+    boolean isTaskExecutable(Policy currentPolicy, NodeSet nodeSet, InternalTask internalTask,
+            EligibleTaskDescriptor taskDescriptor) {
+        if (isDataLocalityEnabled()) {
+            dataLocality.arrange(nodeSet, internalTask);
+        }
+        return currentPolicy.isTaskExecutable(nodeSet, taskDescriptor);
+    }
+
+    private boolean isDataLocalityEnabled() {
+        return PASchedulerProperties.SCHEDULER_LOCALITY.getValueAsBoolean();
+    }
+
     /**
      * Ask to the RM the given number of node resources.<br>
      * If there is a problem with these task selection (such as bad selectionScript) this method
@@ -507,6 +655,14 @@ public final class SchedulingMethodImpl implements SchedulingMethod {
 
                 criteria.setComputationDescriptors(computationDescriptors);
 
+                if (isDataLocalityEnabled()) {
+                    List<InternalTask> internalTasks = new ArrayList<>(tasksToSchedule.size());
+                    for (EligibleTaskDescriptor task : tasksToSchedule) {
+                        internalTasks.add(((EligibleTaskDescriptorImpl) task).getInternal());
+                    }
+                    dataLocality.prefer(criteria, internalTasks);
+                }
+
                 nodeSet = getRMProxiesManager().getUserRMProxy(currentJob.getOwner(), currentJob.getCredentials())
                                                .getNodes(criteria);
             } catch (TopologyDisabledException tde) {
@@ -37,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.core.node.Node;
@@ -60,6 +61,7 @@ import org.ow2.proactive.scheduler.common.task.TaskResult;
 import org.ow2.proactive.scheduler.common.util.logforwarder.AppenderProvider;
 import org.ow2.proactive.scheduler.core.db.RecoveredSchedulerState;
 import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
+import org.ow2.proactive.scheduler.core.prediction.TaskRuntimePredictor;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
 import org.ow2.proactive.scheduler.job.InternalJob;
@@ -107,6 +109,8 @@ public class SchedulingService {
 
     private volatile Policy policy;
 
+    private final TaskRuntimePredictor runtimePredictor;
+
     private final SchedulingThread schedulingThread;
 
     private Thread pinger;
@@ -131,10 +135,14 @@ public class SchedulingService {
         }
         this.listenJobLogsSupport = ListenJobLogsSupport.newInstance(infrastructure.getDBManager(), jobs);
 
+        this.runtimePredictor = new TaskRuntimePredictor(infrastructure.getDBManager());
+        this.runtimePredictor.initialize(PASchedulerProperties.SCHEDULER_PREDICTION_HISTORY.getValueAsInt());
+
         this.policy = (Policy) Class.forName(policyClassName).newInstance();
         if (!this.policy.reloadConfig()) {
             throw new RuntimeException("Scheduling policy cannot be started, see log file for details.");
         }
+        this.policy.setRuntimePredictor(runtimePredictor);
         logger.debug("Instantiated policy : " + policyClassName);
 
         lastRmUrl = infrastructure.getRMProxiesManager().getRmUrl();
@@ -180,6 +188,10 @@ public class SchedulingService {
         return jobs;
     }
 
+    public TaskRuntimePredictor getRuntimePredictor() {
+        return runtimePredictor;
+    }
+
     public SchedulerStateUpdate getListener() {
         return listener;
     }
@@ -373,6 +385,7 @@ public class SchedulingService {
             if (!newPolicy.reloadConfig()) {
                 return false;
             }
+            newPolicy.setRuntimePredictor(runtimePredictor);
             //if success, change current policy
             policy = newPolicy;
             listener.schedulerStateUpdated(SchedulerEvent.POLICY_CHANGED);
@@ -433,6 +446,13 @@ public class SchedulingService {
         jobs.unlockJobsToSchedule(jobDescriptors);
     }
 
+    /*
+     * Should be called only by scheduling method impl
+     */
+    Collection<RunningTaskData> getRunningTasks() {
+        return jobs.getRunningTasks();
+    }
+
     /*
      * Should be called only by scheduling method impl while it holds job lock
      */
@@ -489,7 +509,11 @@ public class SchedulingService {
             return infrastructure.getClientOperationsThreadPool().submit(new Callable<Boolean>() {
                 @Override
                 public Boolean call() throws Exception {
-                    return jobs.updateStartAt(jobId, startAt);
+                    boolean updated = jobs.updateStartAt(jobId, startAt);
+                    if (updated) {
+                        policy.jobStartAtChanged(jobId);
+                    }
+                    return updated;
                 }
 
             }).get();
@@ -805,6 +829,9 @@ public class SchedulingService {
                 try {
                     TerminationData terminationData = jobs.taskTerminatedWithResult(taskId,
                                                                                     (TaskResultImpl) taskResult);
+                    if (!terminationData.isEmpty() && !taskResult.hadException()) {
+                        runtimePredictor.taskFinished(taskId, ((TaskResultImpl) taskResult).getTaskDuration());
+                    }
                     terminationData.handleTermination(SchedulingService.this);
                     wakeUpSchedulingThread();
                 } catch (Throwable e) {
@@ -1109,10 +1136,17 @@ public class SchedulingService {
     }
 
     /**
-     * This Runnable handles the Housekeeping
+     * This Runnable handles the Housekeeping.
+     *
+     * Jobs are removed by batches of {@link PASchedulerProperties#SCHEDULER_HOUSEKEEPING_BATCH_SIZE}, each batch
+     * in its own transaction, and the runner pauses between batches according to
+     * {@link PASchedulerProperties#SCHEDULER_HOUSEKEEPING_MAX_LOAD}.
      */
     public class HousekeepingRunner implements Runnable {
 
+        /** Prevents two housekeeping executions to overlap when a large backlog is removed */
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
         private List<Long> removeFromContext(List<JobId> jobIdList) {
             List<Long> longList = new ArrayList<>(jobIdList.size());
             for (JobId jobId : jobIdList) {
@@ -1122,8 +1156,9 @@ public class SchedulingService {
             }
             List<InternalJob> jobsFromDB;
             if (!jobIdList.isEmpty()) {
+                // tasks are not needed to notify the removal
                 jobsFromDB = getInfrastructure().getDBManager()
-                                                .loadJobWithTasksIfNotRemoved(jobIdList.toArray(new JobId[0]));
+                                                .loadJobsWithoutTasksIfNotRemoved(jobIdList.toArray(new JobId[0]));
             } else {
                 jobsFromDB = Collections.emptyList();
             }
@@ -1152,27 +1187,60 @@ public class SchedulingService {
             }
         }
 
-        @Override
-        public void run() {
-            long timeNow = System.currentTimeMillis();
-            try {
-                List<JobId> jobIdList = getInfrastructure().getDBManager().getJobsToRemove(timeNow);
+        /**
+         * Remove one batch of jobs from the memory context and from the database.
+         *
+         * @return the number of jobs removed
+         */
+        private int removeBatch(long timeNow, int batchSize) {
+            List<JobId> jobIdList = getInfrastructure().getDBManager().getJobsToRemove(timeNow, batchSize);
 
-                // remove from the memory context
-                long inMemoryTimeStart = System.currentTimeMillis();
-                List<Long> longJobIdList = removeFromContext(jobIdList);
-                long inMemoryTimeStop = System.currentTimeMillis();
+            // remove from the memory context
+            long inMemoryTimeStart = System.currentTimeMillis();
+            List<Long> longJobIdList = removeFromContext(jobIdList);
+            long inMemoryTimeStop = System.currentTimeMillis();
 
-                // set the removedTime and also remove if required by the JOB_REMOVE_FROM_DB setting
-                long dbTimeStart = System.currentTimeMillis();
-                removeFromDB(longJobIdList);
-                long dbTimeStop = System.currentTimeMillis();
+            // set the removedTime and also remove if required by the JOB_REMOVE_FROM_DB setting
+            long dbTimeStart = System.currentTimeMillis();
+            removeFromDB(longJobIdList);
+            long dbTimeStop = System.currentTimeMillis();
 
+            if (!longJobIdList.isEmpty()) {
                 logger.info("HOUSEKEEPING of jobs " + longJobIdList + " performed (Hibernate context removal took " +
                             (inMemoryTimeStop - inMemoryTimeStart) + " ms" + " and db removal took " +
                             (dbTimeStop - dbTimeStart) + " ms)");
+            }
+            return longJobIdList.size();
+        }
+
+        @Override
+        public void run() {
+            if (!running.compareAndSet(false, true)) {
+                logger.info("HOUSEKEEPING is still in progress, skipping this execution");
+                return;
+            }
+            long timeNow = System.currentTimeMillis();
+            int batchSize = PASchedulerProperties.SCHEDULER_HOUSEKEEPING_BATCH_SIZE.getValueAsInt();
+            int maxLoad = PASchedulerProperties.SCHEDULER_HOUSEKEEPING_MAX_LOAD.getValueAsInt();
+            maxLoad = Math.max(1, Math.min(100, maxLoad));
+            try {
+                int removed;
+                do {
+                    long batchStart = System.currentTimeMillis();
+                    removed = removeBatch(timeNow, batchSize);
+                    long batchDuration = System.currentTimeMillis() - batchStart;
+                    if (removed == batchSize && maxLoad < 100) {
+                        // a slow batch means a loaded scheduler: give it time proportionally
+                        Thread.sleep(batchDuration * (100 - maxLoad) / maxLoad);
+                    }
+                } while (removed == batchSize && !status.isUnusable());
+            } catch (InterruptedException e) {
+                logger.warn("HOUSEKEEPING interrupted, it will resume at its next execution");
+                Thread.currentThread().interrupt();
             } catch (Throwable e) {
                 logger.error("Error performing HOUSEKEEPING of jobs", e);
+            } finally {
+                running.set(false);
             }
         }
     }
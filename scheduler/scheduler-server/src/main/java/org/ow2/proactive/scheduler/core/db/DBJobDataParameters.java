@@ -32,6 +32,7 @@ import java.util.Set;
 
 import org.ow2.proactive.db.SortParameter;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.job.JobStatus;
 
 
@@ -54,10 +55,17 @@ public class DBJobDataParameters {
 
     private final List<SortParameter<JobSortParameter>> sortParameters;
 
+    private final PageCursor cursor;
+
     private final Set<JobStatus> status;
 
     DBJobDataParameters(int offset, int limit, String user, boolean pending, boolean running, boolean finished,
             List<SortParameter<JobSortParameter>> sortParameters) {
+        this(offset, limit, user, pending, running, finished, sortParameters, null);
+    }
+
+    DBJobDataParameters(int offset, int limit, String user, boolean pending, boolean running, boolean finished,
+            List<SortParameter<JobSortParameter>> sortParameters, PageCursor cursor) {
         this.offset = offset;
         this.limit = limit;
         this.user = user;
@@ -65,6 +73,7 @@ public class DBJobDataParameters {
         this.running = running;
         this.finished = finished;
         this.sortParameters = sortParameters;
+        this.cursor = cursor;
 
         Set<JobStatus> newStatus = new HashSet<JobStatus>();
         if (pending) {
@@ -92,6 +101,18 @@ public class DBJobDataParameters {
         return user;
     }
 
+    public boolean isPending() {
+        return pending;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
     public List<SortParameter<JobSortParameter>> getSortParameters() {
         return sortParameters;
     }
@@ -99,4 +120,20 @@ public class DBJobDataParameters {
     public Set<JobStatus> getStatuses() {
         return status;
     }
+
+    /**
+     * @return the position of the requested page when jobs are paginated by
+     *         key rather than by offset, null otherwise
+     */
+    public PageCursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return the filters determining the total number of jobs, to cache it
+     */
+    PageCountCache.CountKey getCountKey() {
+        boolean hasUser = user != null && !user.isEmpty();
+        return PageCountCache.CountKey.jobs(hasUser ? user : null, status);
+    }
 }
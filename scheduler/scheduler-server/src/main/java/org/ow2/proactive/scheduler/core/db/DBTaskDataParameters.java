@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.SortSpecifierContainer;
 import org.ow2.proactive.scheduler.common.task.TaskStatus;
 
@@ -62,10 +63,17 @@ public class DBTaskDataParameters {
 
     private final SortSpecifierContainer sortParams;
 
+    private final PageCursor cursor;
+
     private final Set<TaskStatus> status;
 
     DBTaskDataParameters(String tag, long from, long to, int offset, int limit, String user, boolean pending,
             boolean running, boolean finished, SortSpecifierContainer sortParams) {
+        this(tag, from, to, offset, limit, user, pending, running, finished, sortParams, null);
+    }
+
+    DBTaskDataParameters(String tag, long from, long to, int offset, int limit, String user, boolean pending,
+            boolean running, boolean finished, SortSpecifierContainer sortParams, PageCursor cursor) {
         this.tag = tag;
         this.from = from;
         this.to = to;
@@ -76,6 +84,7 @@ public class DBTaskDataParameters {
         this.running = running;
         this.finished = finished;
         this.sortParams = sortParams;
+        this.cursor = cursor;
 
         Set<TaskStatus> newStatus = new HashSet<>();
 
@@ -154,6 +163,25 @@ public class DBTaskDataParameters {
         return sortParams;
     }
 
+    /**
+     * @return the position of the requested page when tasks are paginated by
+     *         key rather than by offset, null otherwise
+     */
+    public PageCursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return the filters determining the total number of tasks, to cache it
+     */
+    PageCountCache.CountKey getCountKey() {
+        return PageCountCache.CountKey.tasks(hasTag() ? tag : null,
+                                             hasDateFrom() ? from : 0L,
+                                             hasDateTo() ? to : 0L,
+                                             hasUser() ? user : null,
+                                             status);
+    }
+
     public static class Builder {
 
         private String tag;
@@ -176,6 +204,8 @@ public class DBTaskDataParameters {
 
         private SortSpecifierContainer sortParams;
 
+        private PageCursor cursor;
+
         private Builder() {
             sortParams = new SortSpecifierContainer();
         }
@@ -234,6 +264,11 @@ public class DBTaskDataParameters {
             return this;
         }
 
+        public Builder setCursor(PageCursor cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
         public Builder but() {
             return create().setTag(tag)
                            .setFrom(from)
@@ -243,11 +278,22 @@ public class DBTaskDataParameters {
                            .setPending(pending)
                            .setRunning(running)
                            .setFinished(finished)
-                           .setSortParams(sortParams);
+                           .setSortParams(sortParams)
+                           .setCursor(cursor);
         }
 
         public DBTaskDataParameters build() {
-            return new DBTaskDataParameters(tag, from, to, offset, limit, user, pending, running, finished, sortParams);
+            return new DBTaskDataParameters(tag,
+                                            from,
+                                            to,
+                                            offset,
+                                            limit,
+                                            user,
+                                            pending,
+                                            running,
+                                            finished,
+                                            sortParams,
+                                            cursor);
         }
     }
 
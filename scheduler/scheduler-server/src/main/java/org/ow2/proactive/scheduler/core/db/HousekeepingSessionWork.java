@@ -40,9 +40,9 @@ import org.ow2.proactive.db.SessionWork;
  */
 public class HousekeepingSessionWork implements SessionWork<Void> {
 
-    private static List<Long> jobIdList;
+    private final List<Long> jobIdList;
 
-    private static boolean shouldRemoveFromDb;
+    private final boolean shouldRemoveFromDb;
 
     public HousekeepingSessionWork(List<Long> jobIdList, boolean shouldRemoveFromDb) {
         this.jobIdList = jobIdList;
@@ -59,6 +59,7 @@ public class HousekeepingSessionWork implements SessionWork<Void> {
     }
 
     private void removeJobScriptsInBulk(Session session, List<Long> jobIdList) {
+        ScriptContentReferences.release(session, jobIdList);
         session.getNamedQuery("updateTaskDataJobScriptsInBulk")
                .setParameterList("jobIdList", jobIdList)
                .executeUpdate();
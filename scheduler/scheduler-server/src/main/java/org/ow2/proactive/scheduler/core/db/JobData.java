@@ -82,6 +82,8 @@ import com.google.common.collect.Lists;
                 @NamedQuery(name = "countJobData", query = "select count (*) from JobData"),
                 @NamedQuery(name = "deleteJobData", query = "delete from JobData where id = :jobId"),
                 @NamedQuery(name = "findUsersWithJobs", query = "select owner, count(owner), max(submittedTime) from JobData group by owner"),
+                @NamedQuery(name = "getJobExecutionTimeStatistics", query = "select count(*), sum(finishedTime - startTime) from JobData where startTime > 0 and finishedTime > 0"),
+                @NamedQuery(name = "getJobPendingTimeStatistics", query = "select count(*), sum(startTime - submittedTime) from JobData where startTime > 0 and submittedTime > 0"),
                 @NamedQuery(name = "getJobsNumberWithStatus", query = "select count(*) from JobData where status in (:status) and removedTime = -1"),
                 @NamedQuery(name = "getJobSubmittedTime", query = "select submittedTime from JobData where id = :id"),
                 @NamedQuery(name = "getMeanJobExecutionTime", query = "select avg(finishedTime - startTime) from JobData where startTime > 0 and finishedTime > 0"),
@@ -124,9 +126,12 @@ import com.google.common.collect.Lists;
                                                                        "numberOfRunningTasks = :numberOfRunningTasks, lastUpdatedTime = :lastUpdatedTime where id = :jobId") })
 @Table(name = "JOB_DATA", indexes = { @Index(name = "JOB_DATA_FINISH_TIME", columnList = "FINISH_TIME"),
                                       @Index(name = "JOB_DATA_OWNER", columnList = "OWNER"),
+                                      @Index(name = "JOB_DATA_OWNER_SUBMIT_TIME_ID", columnList = "OWNER,SUBMIT_TIME,ID"),
                                       @Index(name = "JOB_DATA_REMOVE_TIME", columnList = "REMOVE_TIME"),
+                                      @Index(name = "JOB_DATA_SCHEDULED_REMOVAL", columnList = "SCHEDULED_TIME_FOR_REMOVAL"),
                                       @Index(name = "JOB_DATA_START_TIME", columnList = "START_TIME"),
-                                      @Index(name = "JOB_DATA_STATUS", columnList = "STATUS"), })
+                                      @Index(name = "JOB_DATA_STATUS", columnList = "STATUS"),
+                                      @Index(name = "JOB_DATA_SUBMIT_TIME_ID", columnList = "SUBMIT_TIME,ID"), })
 public class JobData implements Serializable {
 
     private Long id;
@@ -0,0 +1,317 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.db;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+
+/**
+ * Total numbers of jobs or tasks of the paged listings, by filters.
+ * <p>
+ * The modifications of jobs and tasks are notified to the cache, which invalidates the
+ * counts whose filters can match the modified job. An invalidated count is no longer
+ * exact, but can still be used as an approximation while it is recent enough.
+ *
+ * @author ActiveEon Team
+ */
+class PageCountCache {
+
+    /**
+     * Number of recent modifications kept to know if they happened while a count was made
+     */
+    private static final int MAX_RECENT_MODIFICATIONS = 256;
+
+    private final Cache<CountKey, CachedCount> counts;
+
+    private final long approximationValidity;
+
+    /**
+     * Number of modifications notified so far, guarded by this
+     */
+    private long generation = 0;
+
+    /**
+     * Latest modifications, guarded by this
+     */
+    private final ArrayDeque<Modification> recentModifications = new ArrayDeque<>();
+
+    /**
+     * @param maximumSize           maximum number of filters whose total is kept
+     * @param approximationValidity time in milliseconds during which a count can be used as an approximation
+     */
+    PageCountCache(int maximumSize, long approximationValidity) {
+        this.counts = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.approximationValidity = approximationValidity;
+    }
+
+    /**
+     * @return the current generation, to read before counting
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param key         the filters of the count
+     * @param approximate true if a count invalidated by the latest modifications can be returned
+     * @return the total number of elements matching the filters, null if it must be counted
+     */
+    Integer get(CountKey key, boolean approximate) {
+        CachedCount cached = counts.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.exact || (approximate && System.currentTimeMillis() - cached.time < approximationValidity)) {
+            return cached.count;
+        }
+        return null;
+    }
+
+    /**
+     * @param key        the filters of the count
+     * @param generation the generation read before counting
+     * @param count      the total number of elements matching the filters
+     */
+    synchronized void put(CountKey key, long generation, int count) {
+        counts.put(key, new CachedCount(count, !isModifiedSince(key, generation)));
+    }
+
+    /**
+     * Called when a job and its tasks are submitted or removed.
+     *
+     * @param owner  owner of the job, null if unknown
+     * @param status status of the job
+     */
+    void jobAddedOrRemoved(String owner, JobStatus status) {
+        invalidate(new Modification(ModificationKind.JOB_ADDED_OR_REMOVED, owner, status));
+    }
+
+    /**
+     * Called when tasks are added to a job, e.g. replicated tasks.
+     *
+     * @param owner owner of the job, null if unknown
+     */
+    void tasksAdded(String owner) {
+        invalidate(new Modification(ModificationKind.TASKS_ADDED, owner, null));
+    }
+
+    /**
+     * Called when the status of a job or of its tasks, or the times of its tasks, are modified.
+     *
+     * @param owner owner of the job, null if unknown
+     */
+    void jobModified(String owner) {
+        invalidate(new Modification(ModificationKind.STATUS_OR_TIME_MODIFIED, owner, null));
+    }
+
+    private synchronized void invalidate(Modification modification) {
+        modification.generation = ++generation;
+        recentModifications.addLast(modification);
+        if (recentModifications.size() > MAX_RECENT_MODIFICATIONS) {
+            recentModifications.removeFirst();
+        }
+        for (Map.Entry<CountKey, CachedCount> entry : counts.asMap().entrySet()) {
+            CachedCount cached = entry.getValue();
+            if (cached.exact && modification.affects(entry.getKey())) {
+                counts.asMap().replace(entry.getKey(), cached, cached.invalidated());
+            }
+        }
+    }
+
+    /**
+     * Must be called with the monitor held.
+     *
+     * @return true if a modification notified after the given generation affects the count
+     */
+    private boolean isModifiedSince(CountKey key, long generation) {
+        if (generation == this.generation) {
+            return false;
+        }
+        if (recentModifications.isEmpty() || recentModifications.getFirst().generation > generation + 1) {
+            // the modifications made since then are no longer known
+            return true;
+        }
+        Iterator<Modification> modifications = recentModifications.descendingIterator();
+        while (modifications.hasNext()) {
+            Modification modification = modifications.next();
+            if (modification.generation <= generation) {
+                return false;
+            }
+            if (modification.affects(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Filters determining the total number of a listing
+     */
+    static final class CountKey {
+
+        private final List<Object> filters;
+
+        private final boolean tasks;
+
+        private final String user;
+
+        private final Set<?> statuses;
+
+        private final boolean allStatuses;
+
+        private final boolean timeFiltered;
+
+        private CountKey(List<Object> filters, boolean tasks, String user, Set<?> statuses, boolean allStatuses,
+                boolean timeFiltered) {
+            this.filters = filters;
+            this.tasks = tasks;
+            this.user = user;
+            this.statuses = statuses;
+            this.allStatuses = allStatuses;
+            this.timeFiltered = timeFiltered;
+        }
+
+        /**
+         * @param user     owner of the jobs, null for all users
+         * @param statuses statuses of the jobs
+         */
+        static CountKey jobs(String user, Set<JobStatus> statuses) {
+            return new CountKey(Arrays.<Object> asList("jobs", user, statuses),
+                                false,
+                                user,
+                                statuses,
+                                statuses.containsAll(EnumSet.allOf(JobStatus.class)),
+                                false);
+        }
+
+        /**
+         * @param tag      tag of the tasks, null for all tags
+         * @param from     start of the time range of the tasks, 0 if none
+         * @param to       end of the time range of the tasks, 0 if none
+         * @param user     owner of the tasks, null for all users
+         * @param statuses statuses of the tasks
+         */
+        static CountKey tasks(String tag, long from, long to, String user, Set<TaskStatus> statuses) {
+            return new CountKey(Arrays.<Object> asList("tasks", tag, from, to, user, statuses),
+                                true,
+                                user,
+                                statuses,
+                                statuses.containsAll(EnumSet.allOf(TaskStatus.class)),
+                                from != 0 || to != 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountKey && filters.equals(((CountKey) o).filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return filters.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return filters.toString();
+        }
+    }
+
+    private enum ModificationKind {
+        JOB_ADDED_OR_REMOVED,
+        TASKS_ADDED,
+        STATUS_OR_TIME_MODIFIED
+    }
+
+    private static final class Modification {
+
+        private final ModificationKind kind;
+
+        private final String owner;
+
+        /**
+         * Status of the job submitted or removed
+         */
+        private final JobStatus jobStatus;
+
+        private long generation;
+
+        Modification(ModificationKind kind, String owner, JobStatus jobStatus) {
+            this.kind = kind;
+            this.owner = owner;
+            this.jobStatus = jobStatus;
+        }
+
+        boolean affects(CountKey key) {
+            if (key.user != null && owner != null && !key.user.equals(owner)) {
+                return false;
+            }
+            switch (kind) {
+                case JOB_ADDED_OR_REMOVED:
+                    return key.tasks || key.statuses.contains(jobStatus);
+                case TASKS_ADDED:
+                    return key.tasks;
+                default:
+                    // jobs and tasks move from a status to another, the counts over all statuses do not change
+                    return !key.allStatuses || key.timeFiltered;
+            }
+        }
+    }
+
+    private static final class CachedCount {
+
+        private final long time;
+
+        private final int count;
+
+        private final boolean exact;
+
+        CachedCount(int count, boolean exact) {
+            this(System.currentTimeMillis(), count, exact);
+        }
+
+        private CachedCount(long time, int count, boolean exact) {
+            this.time = time;
+            this.count = count;
+            this.exact = exact;
+        }
+
+        CachedCount invalidated() {
+            return new CachedCount(time, count, false);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.db;
+
+import org.ow2.proactive.scheduler.common.Page;
+
+
+/**
+ * How the size of a {@link Page} of jobs or tasks is computed when the page is
+ * loaded from the database.
+ *
+ * @author ActiveEon Team
+ */
+public enum PageCountMode {
+
+    /**
+     * Exact total number of elements matching the filters. The total is counted
+     * again only when jobs or tasks that can match the filters were submitted,
+     * modified or removed since the last count made with the same filters.
+     */
+    EXACT,
+
+    /**
+     * Total number of elements matching the filters, possibly counted before the
+     * latest modifications of jobs or tasks. A total is reused for a limited
+     * period and is never lower than the number of elements up to the end of
+     * the page.
+     */
+    APPROXIMATE,
+
+    /**
+     * No total is counted. The size of the page is the number of elements up to
+     * the end of the page, plus one when more elements follow the page.
+     */
+    HAS_MORE
+}
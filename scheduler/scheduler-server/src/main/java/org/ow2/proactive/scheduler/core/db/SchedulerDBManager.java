@@ -25,10 +25,18 @@
  */
 package org.ow2.proactive.scheduler.core.db;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,7 +44,6 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -46,6 +53,7 @@ import org.apache.log4j.Logger;
 import org.hibernate.Criteria;
 import org.hibernate.FetchMode;
 import org.hibernate.HibernateException;
+import org.hibernate.jdbc.ReturningWork;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -64,6 +72,7 @@ import org.ow2.proactive.db.SortParameter;
 import org.ow2.proactive.db.TransactionHelper;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.SortSpecifierContainer;
 import org.ow2.proactive.scheduler.common.job.Job;
 import org.ow2.proactive.scheduler.common.job.JobId;
@@ -75,7 +84,9 @@ import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
 import org.ow2.proactive.scheduler.common.task.Task;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskLogs;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.task.TaskStatus;
 import org.ow2.proactive.scheduler.common.task.dataspaces.InputSelector;
@@ -98,8 +109,11 @@ import org.ow2.proactive.scheduler.task.internal.InternalTask;
 import org.ow2.proactive.scripting.InvalidScriptException;
 import org.ow2.proactive.utils.FileToBytesConverter;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
 
 
 @SuppressWarnings("JpaQueryApiInspection")
@@ -111,6 +125,12 @@ public class SchedulerDBManager {
 
     private static final Logger logger = Logger.getLogger(SchedulerDBManager.class);
 
+    private static final String LAST_TASK_RESULT_ID_QUERY = "select ID from TASK_RESULT_DATA " +
+                                                            "where JOB_ID = ? and TASK_ID = ? order by RESULT_TIME desc";
+
+    private static final String LOAD_TASK_RESULT_VALUE_QUERY = "select RESULT_VALUE from TASK_RESULT_DATA " +
+                                                               "where ID = ? and JOB_ID = ? and TASK_ID = ?";
+
     public static final Set<JobStatus> FINISHED_JOB_STATUSES = ImmutableSet.of(JobStatus.CANCELED,
                                                                                JobStatus.FAILED,
                                                                                JobStatus.KILLED,
@@ -149,6 +169,18 @@ public class SchedulerDBManager {
 
     private final TransactionHelper transactionHelper;
 
+    /** Script contents of the executable containers, by hash */
+    private final Cache<String, String> scriptContentCache = CacheBuilder.newBuilder()
+                                                                         .maximumSize(PASchedulerProperties.SCHEDULER_DB_SCRIPT_CACHE_SIZE.getValueAsInt())
+                                                                         .build();
+
+    /** Total numbers of jobs and tasks of the paged listings, by filters */
+    private final PageCountCache pageCountCache = new PageCountCache(PASchedulerProperties.SCHEDULER_DB_PAGE_COUNT_CACHE_SIZE.getValueAsInt(),
+                                                                     PASchedulerProperties.SCHEDULER_DB_PAGE_COUNT_APPROXIMATION_VALIDITY.getValueAsLong());
+
+    /** How the size of the pages is computed when no mode is given */
+    private final PageCountMode defaultPageCountMode = readDefaultPageCountMode();
+
     public static SchedulerDBManager createUsingProperties() {
         if (System.getProperty(JAVA_PROPERTYNAME_NODB) != null) {
             return createInMemorySchedulerDBManager();
@@ -191,6 +223,7 @@ public class SchedulerDBManager {
             configuration.addAnnotatedClass(TaskResultData.class);
             configuration.addAnnotatedClass(ScriptData.class);
             configuration.addAnnotatedClass(SelectionScriptData.class);
+            configuration.addAnnotatedClass(ScriptContentData.class);
             configuration.addAnnotatedClass(EnvironmentModifierData.class);
             configuration.addAnnotatedClass(SelectorData.class);
             configuration.addAnnotatedClass(ThirdPartyCredentialData.class);
@@ -213,46 +246,120 @@ public class SchedulerDBManager {
         }
     }
 
+    private static PageCountMode readDefaultPageCountMode() {
+        String mode = PASchedulerProperties.SCHEDULER_DB_PAGE_COUNT_MODE.getValueAsString();
+        try {
+            return PageCountMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid value for " + PASchedulerProperties.SCHEDULER_DB_PAGE_COUNT_MODE.getKey() + ": " +
+                        mode + ", using " + PageCountMode.EXACT);
+            return PageCountMode.EXACT;
+        }
+    }
+
     public Page<JobInfo> getJobs(final int offset, final int limit, final String user, final boolean pending,
             final boolean running, final boolean finished, final List<SortParameter<JobSortParameter>> sortParameters) {
+        return getJobs(offset, limit, user, pending, running, finished, sortParameters, defaultPageCountMode);
+    }
+
+    /**
+     * @param countMode
+     *            how the size of the returned page is computed
+     */
+    public Page<JobInfo> getJobs(final int offset, final int limit, final String user, final boolean pending,
+            final boolean running, final boolean finished, final List<SortParameter<JobSortParameter>> sortParameters,
+            final PageCountMode countMode) {
 
         if (!pending && !running && !finished) {
             return new Page<>(new ArrayList<JobInfo>(0), 0);
         }
 
         DBJobDataParameters params = new DBJobDataParameters(offset,
-                                                             limit,
+                                                             fetchLimit(limit, countMode),
                                                              user,
                                                              pending,
                                                              running,
                                                              finished,
                                                              sortParameters);
-        int totalNbJobs = getTotalNumberOfJobs(params);
+        return getJobs(params, limit, countMode);
+    }
+
+    /**
+     * Loads the page of jobs following the given cursor, the most recently
+     * submitted jobs first. Unlike an offset, the cursor is resolved through
+     * the (SUBMIT_TIME, ID) index so that deep pages are as fast as the first
+     * one.
+     *
+     * @param cursor
+     *            the key of the last job of the previous page, null or
+     *            {@link PageCursor#FIRST} for the first page
+     */
+    public Page<JobInfo> getJobs(final PageCursor cursor, final int limit, final String user, final boolean pending,
+            final boolean running, final boolean finished) {
+        return getJobs(cursor, limit, user, pending, running, finished, defaultPageCountMode);
+    }
+
+    /**
+     * Loads the page of jobs following the given cursor.
+     *
+     * @see #getJobs(PageCursor, int, String, boolean, boolean, boolean)
+     * @param countMode
+     *            how the size of the returned page is computed, with
+     *            {@link PageCountMode#HAS_MORE} the size only tells if more jobs
+     *            follow the cursor
+     */
+    public Page<JobInfo> getJobs(final PageCursor cursor, final int limit, final String user, final boolean pending,
+            final boolean running, final boolean finished, final PageCountMode countMode) {
+
+        if (!pending && !running && !finished) {
+            return new Page<>(new ArrayList<JobInfo>(0), 0);
+        }
+
+        DBJobDataParameters params = new DBJobDataParameters(0,
+                                                             fetchLimit(limit, countMode),
+                                                             user,
+                                                             pending,
+                                                             running,
+                                                             finished,
+                                                             null,
+                                                             cursor == null ? PageCursor.FIRST : cursor);
+        return getJobs(params, limit, countMode);
+    }
+
+    private Page<JobInfo> getJobs(final DBJobDataParameters params, int limit, PageCountMode countMode) {
         final Set<JobStatus> jobStatuses = params.getStatuses();
         List<JobInfo> lJobs = executeReadOnlyTransaction(new SessionWork<List<JobInfo>>() {
             @Override
             @SuppressWarnings("unchecked")
             public List<JobInfo> doInTransaction(Session session) {
                 Criteria criteria = session.createCriteria(JobData.class);
-                if (limit > 0) {
-                    criteria.setMaxResults(limit);
+                if (params.getLimit() > 0) {
+                    criteria.setMaxResults(params.getLimit());
                 }
-                if (offset >= 0) {
-                    criteria.setFirstResult(offset);
+                PageCursor cursor = params.getCursor();
+                if (cursor == null && params.getOffset() >= 0) {
+                    criteria.setFirstResult(params.getOffset());
                 }
-                if (user != null) {
-                    criteria.add(Restrictions.eq("owner", user));
+                if (params.getUser() != null) {
+                    criteria.add(Restrictions.eq("owner", params.getUser()));
                 }
-                boolean allJobs = pending && running && finished;
+                boolean allJobs = params.isPending() && params.isRunning() && params.isFinished();
                 if (!allJobs) {
                     criteria.add(Restrictions.in("status", jobStatuses));
                 }
 
                 criteria.add(Restrictions.eq("removedTime", -1L));
 
-                if (sortParameters != null) {
+                if (cursor != null) {
+                    criteria.add(Restrictions.or(Restrictions.lt("submittedTime", cursor.getSortKey()),
+                                                 Restrictions.and(Restrictions.eq("submittedTime",
+                                                                                  cursor.getSortKey()),
+                                                                  Restrictions.lt("id", cursor.getId()))));
+                    criteria.addOrder(Order.desc("submittedTime"));
+                    criteria.addOrder(Order.desc("id"));
+                } else if (params.getSortParameters() != null) {
                     Order sortOrder;
-                    for (SortParameter<JobSortParameter> param : sortParameters) {
+                    for (SortParameter<JobSortParameter> param : params.getSortParameters()) {
                         switch (param.getParameter()) {
                             case ID:
                                 sortOrder = configureSortOrder(param, Property.forName("id"));
@@ -289,57 +396,165 @@ public class SchedulerDBManager {
 
         });
 
-        return new Page<JobInfo>(lJobs, totalNbJobs);
+        return toPage(lJobs, params.getOffset(), limit, countMode, params.getCountKey(), getTotalNumberOfJobs(params));
     }
 
     public Page<TaskState> getTaskStates(final long from, final long to, final String tag, final int offset,
             final int limit, final String user, final boolean pending, final boolean running, final boolean finished,
             SortSpecifierContainer sortParams) {
+        return getTaskStates(from,
+                             to,
+                             tag,
+                             offset,
+                             limit,
+                             user,
+                             pending,
+                             running,
+                             finished,
+                             sortParams,
+                             defaultPageCountMode);
+    }
+
+    /**
+     * @param countMode
+     *            how the size of the returned page is computed
+     */
+    public Page<TaskState> getTaskStates(final long from, final long to, final String tag, final int offset,
+            final int limit, final String user, final boolean pending, final boolean running, final boolean finished,
+            SortSpecifierContainer sortParams, PageCountMode countMode) {
 
         DBTaskDataParameters parameters = new DBTaskDataParameters(tag,
                                                                    from,
                                                                    to,
                                                                    offset,
-                                                                   limit,
+                                                                   fetchLimit(limit, countMode),
                                                                    user,
                                                                    pending,
                                                                    running,
                                                                    finished,
                                                                    sortParams);
-        int totalNbTasks = getTotalNumberOfTasks(parameters);
         List<TaskState> lTasks = executeReadOnlyTransaction(TaskDBUtils.taskStateSessionWork(parameters));
 
-        return new Page<>(lTasks, totalNbTasks);
+        return toPage(lTasks,
+                      offset,
+                      limit,
+                      countMode,
+                      parameters.getCountKey(),
+                      TaskDBUtils.getTotalNumberOfTasks(parameters));
+    }
+
+    /**
+     * Loads the page of task states following the given cursor, the tasks of
+     * the most recent jobs first. The cursor is resolved through the primary
+     * key index so that deep pages are as fast as the first one.
+     *
+     * @param cursor
+     *            the key of the last task of the previous page, null or
+     *            {@link PageCursor#FIRST} for the first page
+     */
+    public Page<TaskState> getTaskStates(final long from, final long to, final String tag, final PageCursor cursor,
+            final int limit, final String user, final boolean pending, final boolean running, final boolean finished) {
+        return getTaskStates(from, to, tag, cursor, limit, user, pending, running, finished, defaultPageCountMode);
+    }
+
+    /**
+     * Loads the page of task states following the given cursor.
+     *
+     * @see #getTaskStates(long, long, String, PageCursor, int, String, boolean, boolean, boolean)
+     * @param countMode
+     *            how the size of the returned page is computed, with
+     *            {@link PageCountMode#HAS_MORE} the size only tells if more tasks
+     *            follow the cursor
+     */
+    public Page<TaskState> getTaskStates(final long from, final long to, final String tag, final PageCursor cursor,
+            final int limit, final String user, final boolean pending, final boolean running, final boolean finished,
+            PageCountMode countMode) {
+
+        DBTaskDataParameters parameters = new DBTaskDataParameters(tag,
+                                                                   from,
+                                                                   to,
+                                                                   0,
+                                                                   fetchLimit(limit, countMode),
+                                                                   user,
+                                                                   pending,
+                                                                   running,
+                                                                   finished,
+                                                                   SortSpecifierContainer.EMPTY_CONTAINER,
+                                                                   cursor == null ? PageCursor.FIRST : cursor);
+        List<TaskState> lTasks = executeReadOnlyTransaction(TaskDBUtils.taskStateSessionWork(parameters));
+
+        return toPage(lTasks,
+                      0,
+                      limit,
+                      countMode,
+                      parameters.getCountKey(),
+                      TaskDBUtils.getTotalNumberOfTasks(parameters));
     }
 
     public Page<TaskInfo> getTasks(final long from, final long to, final String tag, final int offset, final int limit,
             final String user, final boolean pending, final boolean running, final boolean finished) {
+        return getTasks(from, to, tag, offset, limit, user, pending, running, finished, defaultPageCountMode);
+    }
+
+    /**
+     * @param countMode
+     *            how the size of the returned page is computed
+     */
+    public Page<TaskInfo> getTasks(final long from, final long to, final String tag, final int offset, final int limit,
+            final String user, final boolean pending, final boolean running, final boolean finished,
+            PageCountMode countMode) {
 
         DBTaskDataParameters parameters = new DBTaskDataParameters(tag,
                                                                    from,
                                                                    to,
                                                                    offset,
-                                                                   limit,
+                                                                   fetchLimit(limit, countMode),
                                                                    user,
                                                                    pending,
                                                                    running,
                                                                    finished,
                                                                    SortSpecifierContainer.EMPTY_CONTAINER);
-        int totalNbTasks = getTotalNumberOfTasks(parameters);
         List<TaskInfo> lTaskInfo = executeReadOnlyTransaction(TaskDBUtils.taskInfoSessionWork(parameters));
 
-        return new Page<>(lTaskInfo, totalNbTasks);
+        return toPage(lTaskInfo,
+                      offset,
+                      limit,
+                      countMode,
+                      parameters.getCountKey(),
+                      TaskDBUtils.getTotalNumberOfTasks(parameters));
     }
 
-    private int getTotalNumberOfTasks(final DBTaskDataParameters params) {
+    /**
+     * With {@link PageCountMode#HAS_MORE}, one more element than the limit is
+     * loaded to know if the page is the last one.
+     */
+    private static int fetchLimit(int limit, PageCountMode countMode) {
+        return countMode == PageCountMode.HAS_MORE && limit > 0 ? limit + 1 : limit;
+    }
 
-        return executeReadOnlyTransaction(TaskDBUtils.getTotalNumberOfTasks(params));
+    private <T extends Serializable> Page<T> toPage(List<T> elements, int offset, int limit,
+            PageCountMode countMode, PageCountCache.CountKey countKey, SessionWork<Integer> countWork) {
+        int seen = Math.max(offset, 0) + elements.size();
+        if (countMode == PageCountMode.HAS_MORE) {
+            if (limit > 0 && elements.size() > limit) {
+                return new Page<>(elements.subList(0, limit), seen);
+            }
+            return new Page<>(elements, seen);
+        }
 
+        boolean approximate = countMode == PageCountMode.APPROXIMATE;
+        Integer total = pageCountCache.get(countKey, approximate);
+        if (total == null) {
+            long generation = pageCountCache.getGeneration();
+            total = executeReadOnlyTransaction(countWork);
+            pageCountCache.put(countKey, generation, total);
+        }
+        return new Page<>(elements, approximate ? Math.max(total, seen) : total);
     }
 
-    private int getTotalNumberOfJobs(final DBJobDataParameters params) {
+    private SessionWork<Integer> getTotalNumberOfJobs(final DBJobDataParameters params) {
 
-        return executeReadOnlyTransaction(new SessionWork<Integer>() {
+        return new SessionWork<Integer>() {
 
             @Override
             public Integer doInTransaction(Session session) {
@@ -371,7 +586,7 @@ public class SchedulerDBManager {
                     return count.intValue();
                 }
             }
-        });
+        };
     }
 
     private Order configureSortOrder(SortParameter<JobSortParameter> param, Property property) {
@@ -569,6 +784,50 @@ public class SchedulerDBManager {
         });
     }
 
+    /**
+     * @return the number of started jobs and the sum of their pending times
+     */
+    public long[] getJobPendingTimeStatistics() {
+        return getCountAndSum("getJobPendingTimeStatistics");
+    }
+
+    /**
+     * @return the number of executed jobs and the sum of their execution times
+     */
+    public long[] getJobExecutionTimeStatistics() {
+        return getCountAndSum("getJobExecutionTimeStatistics");
+    }
+
+    private long[] getCountAndSum(final String queryName) {
+        return executeReadOnlyTransaction(new SessionWork<long[]>() {
+            @Override
+            public long[] doInTransaction(Session session) {
+                Object[] result = (Object[]) session.getNamedQuery(queryName).uniqueResult();
+                Long count = (Long) result[0];
+                Number sum = (Number) result[1];
+                return new long[] { count, sum == null ? 0 : sum.longValue() };
+            }
+        });
+    }
+
+    /**
+     * @return the number of submitted jobs, the first and the last submission times
+     */
+    public long[] getJobSubmittedTimeStatistics() {
+        return executeReadOnlyTransaction(new SessionWork<long[]>() {
+            @Override
+            public long[] doInTransaction(Session session) {
+                Object[] result = (Object[]) session.getNamedQuery("getMeanJobSubmittingPeriod").uniqueResult();
+                Long count = (Long) result[0];
+                Long minSubmittedTime = (Long) result[1];
+                Long maxSubmittedTime = (Long) result[2];
+                return new long[] { count,
+                                    minSubmittedTime == null ? 0 : minSubmittedTime,
+                                    maxSubmittedTime == null ? 0 : maxSubmittedTime };
+            }
+        });
+    }
+
     public long getJobRunningTime(final String jobId) {
         final long id = Long.parseLong(jobId);
 
@@ -641,6 +900,21 @@ public class SchedulerDBManager {
         }
     }
 
+    /**
+     * @param maxResults the maximum number of tasks to return
+     * @return the job name, the task name and the execution duration of the most recently finished
+     * tasks without error, the most recent first
+     */
+    public List<Object[]> getFinishedTaskDurations(final int maxResults) {
+        return executeReadOnlyTransaction(new SessionWork<List<Object[]>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object[]> doInTransaction(Session session) {
+                return session.getNamedQuery("getFinishedTaskDurations").setMaxResults(maxResults).list();
+            }
+        });
+    }
+
     public double getMeanTaskRunningTime(String jobId) {
         final long id = Long.parseLong(jobId);
         Double result = executeReadOnlyTransaction(new SessionWork<Double>() {
@@ -720,6 +994,7 @@ public class SchedulerDBManager {
     }
 
     private void removeJobScripts(Session session, long jobId) {
+        ScriptContentReferences.release(session, Collections.singletonList(jobId));
         session.getNamedQuery("updateTaskDataJobScripts").setParameter("jobId", jobId).executeUpdate();
         session.getNamedQuery("deleteScriptData").setParameter("jobId", jobId).executeUpdate();
         session.getNamedQuery("deleteSelectionScriptData").setParameter("jobId", jobId).executeUpdate();
@@ -752,35 +1027,66 @@ public class SchedulerDBManager {
         });
     }
 
-    public List<JobId> getJobsToRemove(final long time) {
-        List<JobId> jobIdsList = executeReadOnlyTransaction(new SessionWork<List<JobId>>() {
+    /**
+     * Get the next jobs to be removed by the housekeeping, ordered by their scheduled time for removal.
+     * Jobs already removed are ignored: as each batch is committed separately, the housekeeping resumes
+     * with the remaining jobs after an interruption.
+     *
+     * @param time the jobs scheduled for removal before this time are returned
+     * @param maxResults maximum number of jobs returned
+     * @return the ids of the jobs to remove
+     */
+    public List<JobId> getJobsToRemove(final long time, final int maxResults) {
+        return executeReadOnlyTransaction(new SessionWork<List<JobId>>() {
             @Override
             public List<JobId> doInTransaction(Session session) {
-                List<JobId> jobsToRemove = new ArrayList<JobId>();
                 Query query = session.createSQLQuery("select ID from JOB_DATA where " +
                                                      "SCHEDULED_TIME_FOR_REMOVAL <> 0 and " +
-                                                     "SCHEDULED_TIME_FOR_REMOVAL < :timeLimit")
-                                     .setParameter("timeLimit", time);
-                Iterator jobIdIterator = query.list().iterator();
-                while (jobIdIterator.hasNext()) {
-                    jobsToRemove.add(JobIdImpl.makeJobId((jobIdIterator.next()).toString()));
+                                                     "SCHEDULED_TIME_FOR_REMOVAL < :timeLimit and " +
+                                                     "REMOVE_TIME = -1 " +
+                                                     "order by SCHEDULED_TIME_FOR_REMOVAL, ID")
+                                     .setParameter("timeLimit", time)
+                                     .setMaxResults(maxResults);
+                List<JobId> jobsToRemove = new ArrayList<>(maxResults);
+                for (Object jobId : query.list()) {
+                    jobsToRemove.add(JobIdImpl.makeJobId(jobId.toString()));
                 }
                 return jobsToRemove;
             }
         });
-        return jobIdsList;
     }
 
     public void executeHousekeepingInDB(final List<Long> jobIdList, final boolean shouldRemoveFromDb) {
+        if (jobIdList.isEmpty()) {
+            return;
+        }
+        List<Object[]> removedJobs = executeReadOnlyTransaction(new SessionWork<List<Object[]>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object[]> doInTransaction(Session session) {
+                return session.createQuery("select distinct owner, status from JobData " +
+                                           "where id in (:jobIdList) and removedTime = -1")
+                              .setParameterList("jobIdList", jobIdList)
+                              .list();
+            }
+        });
         executeReadWriteTransaction(new HousekeepingSessionWork(jobIdList, shouldRemoveFromDb));
+        for (Object[] ownerAndStatus : removedJobs) {
+            pageCountCache.jobAddedOrRemoved((String) ownerAndStatus[0], (JobStatus) ownerAndStatus[1]);
+        }
     }
 
     public void removeJob(final JobId jobId, final long removedTime, final boolean removeData) {
-        executeReadWriteTransaction(new SessionWork<Void>() {
+        Object[] ownerAndStatus = executeReadWriteTransaction(new SessionWork<Object[]>() {
             @Override
-            public Void doInTransaction(Session session) {
+            public Object[] doInTransaction(Session session) {
                 long id = jobId(jobId);
 
+                Object[] ownerAndStatus = (Object[]) session.createQuery("select owner, status from JobData " +
+                                                                         "where id = :jobId and removedTime = -1")
+                                                            .setParameter("jobId", id)
+                                                            .uniqueResult();
+
                 if (removeData) {
                     session.createSQLQuery("delete from TASK_DATA_DEPENDENCIES where JOB_ID = :jobId")
                            .setParameter("jobId", id)
@@ -802,10 +1108,13 @@ public class SchedulerDBManager {
                            .setParameter("jobId", id)
                            .executeUpdate();
                 }
-                return null;
+                return ownerAndStatus;
             }
 
         });
+        if (ownerAndStatus != null) {
+            pageCountCache.jobAddedOrRemoved((String) ownerAndStatus[0], (JobStatus) ownerAndStatus[1]);
+        }
     }
 
     public List<InternalJob> loadNotFinishedJobs(boolean fullState) {
@@ -862,6 +1171,34 @@ public class SchedulerDBManager {
         });
     }
 
+    /**
+     * Load the given jobs if they are not removed, without their tasks.
+     */
+    public List<InternalJob> loadJobsWithoutTasksIfNotRemoved(final JobId... jobIds) {
+        return executeReadOnlyTransaction(new SessionWork<List<InternalJob>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<InternalJob> doInTransaction(Session session) {
+                List<Long> ids = new ArrayList<>(jobIds.length);
+                for (JobId jobId : jobIds) {
+                    ids.add(jobId(jobId));
+                }
+
+                List<JobData> jobsList = session.getNamedQuery("loadJobDataIfNotRemoved")
+                                                .setReadOnly(true)
+                                                .setParameterList("ids", ids)
+                                                .list();
+
+                List<InternalJob> result = new ArrayList<>(jobsList.size());
+                for (JobData jobData : jobsList) {
+                    result.add(jobData.toInternalJob());
+                }
+                return result;
+            }
+
+        });
+    }
+
     public List<InternalJob> loadJobs(final boolean fullState, final JobId... jobIds) {
         return executeReadOnlyTransaction(new SessionWork<List<InternalJob>>() {
             @Override
@@ -1067,6 +1404,7 @@ public class SchedulerDBManager {
             }
 
         });
+        pageCountCache.jobModified(job.getOwner());
     }
 
     public void taskRestarted(final InternalJob job, final InternalTask task, final TaskResultImpl result) {
@@ -1107,6 +1445,7 @@ public class SchedulerDBManager {
             }
 
         });
+        pageCountCache.jobModified(job.getOwner());
     }
 
     @SuppressWarnings("unchecked")
@@ -1155,24 +1494,32 @@ public class SchedulerDBManager {
                     saveSingleTaskDependencies(session, task, taskData);
                 }
 
+                ScriptContentReferences scriptContents = new ScriptContentReferences(session);
                 int counter = 0;
+                // replicas share the container of their template, load it once per template
+                Map<InternalTask, ExecutableContainer> templateContainers = new HashMap<>();
                 for (TaskId newTaskId : newTasks) {
                     InternalTask task = job.getIHMTasks().get(newTaskId);
                     if (task.getExecutableContainer() == null) {
                         InternalTask from = task.getReplicatedFrom();
                         ExecutableContainer container = from.getExecutableContainer();
                         if (container == null) {
-                            container = loadExecutableContainer(session, from);
+                            container = templateContainers.get(from);
+                            if (container == null) {
+                                container = loadExecutableContainer(session, from);
+                                templateContainers.put(from, container);
+                            }
                         }
                         task.setExecutableContainer(container);
                     }
-                    TaskData taskData = saveNewTask(session, jobRuntimeData, task);
+                    TaskData taskData = saveNewTask(session, scriptContents, jobRuntimeData, task);
                     saveSingleTaskDependencies(session, task, taskData);
                     if (++counter % 50 == 0) {
                         session.flush();
                         session.clear();
                     }
                 }
+                scriptContents.flush();
 
                 TaskData.DBTaskId taskId = taskId(result.getTaskId());
                 saveTaskResult(taskId, result, session);
@@ -1185,6 +1532,10 @@ public class SchedulerDBManager {
             }
 
         }, false);
+        pageCountCache.jobModified(job.getOwner());
+        if (!changesInfo.getNewTasks().isEmpty()) {
+            pageCountCache.tasksAdded(job.getOwner());
+        }
     }
 
     public void updateAfterJobKilled(InternalJob job, Set<TaskId> tasksToUpdate) {
@@ -1221,6 +1572,7 @@ public class SchedulerDBManager {
             }
 
         });
+        pageCountCache.jobModified(job.getOwner());
     }
 
     public void updateTaskSchedulingTime(final InternalJob job, final long scheduledTime) {
@@ -1229,13 +1581,17 @@ public class SchedulerDBManager {
             public Void doInTransaction(Session session) {
 
                 for (TaskState task : job.getTasks()) {
-                    updateScheduledTime(job.getId().longValue(), task.getId().longValue(), scheduledTime);
+                    updateStartOrEndOrScheduledTime(job.getId().longValue(),
+                                                    task.getId().longValue(),
+                                                    "scheduledTime",
+                                                    scheduledTime);
                 }
 
                 return null;
             }
 
         });
+        pageCountCache.jobModified(job.getOwner());
     }
 
     public void updateTaskState(final TaskState task) {
@@ -1248,6 +1604,7 @@ public class SchedulerDBManager {
             }
 
         });
+        pageCountCache.jobModified(null);
     }
 
     private int updateTaskData(final TaskState task, Session session) {
@@ -1267,14 +1624,17 @@ public class SchedulerDBManager {
 
     public void updateStartTime(long jobId, long taskId, long newStartTime) {
         updateStartOrEndOrScheduledTime(jobId, taskId, "startTime", newStartTime);
+        pageCountCache.jobModified(null);
     }
 
     public void updateFinishedTime(long jobId, long taskId, long newFinishedTime) {
         updateStartOrEndOrScheduledTime(jobId, taskId, "finishedTime", newFinishedTime);
+        pageCountCache.jobModified(null);
     }
 
     public void updateScheduledTime(long jobId, long taskId, long newScheduledTime) {
         updateStartOrEndOrScheduledTime(jobId, taskId, "scheduledTime", newScheduledTime);
+        pageCountCache.jobModified(null);
     }
 
     private void updateStartOrEndOrScheduledTime(final long jobId, final long taskId, final String fieldName,
@@ -1361,6 +1721,7 @@ public class SchedulerDBManager {
             }
 
         });
+        pageCountCache.jobModified(job.getOwner());
     }
 
     private TaskResultData saveTaskResult(TaskData.DBTaskId taskId, TaskResultImpl result, Session session) {
@@ -1543,6 +1904,112 @@ public class SchedulerDBManager {
         });
     }
 
+    /**
+     * Loads the logs of the last result of the given task, without its value.
+     *
+     * @return the logs, or null if the task has no result or no logs
+     */
+    public TaskLogs loadTaskLogs(final TaskId taskId) {
+        return executeReadOnlyTransaction(new SessionWork<TaskLogs>() {
+            @Override
+            public TaskLogs doInTransaction(Session session) {
+                TaskData task = session.load(TaskData.class, taskId(taskId));
+                List<TaskLogs> logs = (List<TaskLogs>) session.getNamedQuery("loadTaskLogsByTask")
+                                                              .setParameter("task", task)
+                                                              .setMaxResults(1)
+                                                              .list();
+                return logs.isEmpty() ? null : logs.get(0);
+            }
+        });
+    }
+
+    /**
+     * Reads a range of the serialized value of a result of the given task.
+     * Only the requested range is read from the database when the driver
+     * gives access to the value as a LOB, otherwise the value is streamed up
+     * to the end of the range.
+     *
+     * @param resultId the id of the result to read, or
+     *            {@link TaskResultValueRange#LAST_RESULT} for the last result
+     * @return the range read, or null if the result does not exist or has no
+     *         value
+     */
+    public TaskResultValueRange loadTaskResultSerializedValue(final TaskId taskId, final long resultId,
+            final long offset, final int length) {
+        return executeReadOnlyTransaction(new SessionWork<TaskResultValueRange>() {
+            @Override
+            public TaskResultValueRange doInTransaction(Session session) {
+                return session.doReturningWork(new ReturningWork<TaskResultValueRange>() {
+                    @Override
+                    public TaskResultValueRange execute(Connection connection) throws SQLException {
+                        long id = resultId;
+                        if (id == TaskResultValueRange.LAST_RESULT) {
+                            try (PreparedStatement statement = connection.prepareStatement(LAST_TASK_RESULT_ID_QUERY)) {
+                                statement.setLong(1, jobId(taskId.getJobId()));
+                                statement.setLong(2, taskId.longValue());
+                                statement.setMaxRows(1);
+                                try (ResultSet resultSet = statement.executeQuery()) {
+                                    if (!resultSet.next()) {
+                                        return null;
+                                    }
+                                    id = resultSet.getLong(1);
+                                }
+                            }
+                        }
+                        try (PreparedStatement statement = connection.prepareStatement(LOAD_TASK_RESULT_VALUE_QUERY)) {
+                            statement.setLong(1, id);
+                            statement.setLong(2, jobId(taskId.getJobId()));
+                            statement.setLong(3, taskId.longValue());
+                            try (ResultSet resultSet = statement.executeQuery()) {
+                                if (!resultSet.next()) {
+                                    return null;
+                                }
+                                byte[] bytes = readRange(resultSet, offset, length);
+                                return bytes == null ? null : new TaskResultValueRange(id, offset, bytes);
+                            }
+                        } catch (IOException e) {
+                            throw new DatabaseManagerException("Failed to read the result value of task " + taskId, e);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static byte[] readRange(ResultSet resultSet, long offset, int length) throws SQLException, IOException {
+        Blob value;
+        try {
+            value = resultSet.getBlob(1);
+        } catch (SQLException e) {
+            // the value is not stored as a LOB by this database (e.g. bytea)
+            logger.trace("Result value is not a LOB, streaming it", e);
+            try (InputStream stream = resultSet.getBinaryStream(1)) {
+                return stream == null ? null : readRange(stream, offset, length);
+            }
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            long valueLength = value.length();
+            if (offset >= valueLength) {
+                return new byte[0];
+            }
+            return value.getBytes(offset + 1, (int) Math.min(length, valueLength - offset));
+        } finally {
+            value.free();
+        }
+    }
+
+    private static byte[] readRange(InputStream value, long offset, int length) throws IOException {
+        try {
+            ByteStreams.skipFully(value, offset);
+        } catch (EOFException e) {
+            return new byte[0];
+        }
+        return ByteStreams.toByteArray(ByteStreams.limit(value, length));
+    }
+
     @SuppressWarnings("unchecked")
     private TaskResult loadTaskResult(Session session, TaskId taskId, int resultIndex) {
         DBTaskId dbTaskId = taskId(taskId);
@@ -1590,15 +2057,18 @@ public class SchedulerDBManager {
 
                 List<InternalTask> tasks = job.getITasks();
                 List<TaskData> taskRuntimeDataList = new ArrayList<>(tasks.size());
+                ScriptContentReferences scriptContents = new ScriptContentReferences(session);
                 for (InternalTask task : tasks) {
-                    taskRuntimeDataList.add(saveNewTask(session, jobRuntimeData, task));
+                    taskRuntimeDataList.add(saveNewTask(session, scriptContents, jobRuntimeData, task));
                 }
+                scriptContents.flush();
                 saveTaskDependencies(session, tasks, taskRuntimeDataList);
 
                 return jobRuntimeData;
             }
 
         });
+        pageCountCache.jobAddedOrRemoved(job.getOwner(), job.getStatus());
     }
 
     private TaskData getTaskReference(Session session, InternalTask task) {
@@ -1640,10 +2110,12 @@ public class SchedulerDBManager {
         }
     }
 
-    private TaskData saveNewTask(Session session, JobData jobRuntimeData, InternalTask task) {
+    private TaskData saveNewTask(Session session, ScriptContentReferences scriptContents, JobData jobRuntimeData,
+            InternalTask task) {
         // TODO: use double dispatch to prevent branching
         if (isScriptTask(task)) {
             TaskData taskRuntimeData = TaskData.createTaskData(jobRuntimeData, (InternalScriptTask) task);
+            scriptContents.share(taskRuntimeData);
             session.save(taskRuntimeData);
             return taskRuntimeData;
         } else {
@@ -1659,7 +2131,7 @@ public class SchedulerDBManager {
                 TaskData taskData = queryScriptTaskData(session, task);
 
                 if (taskData != null) {
-                    container = taskData.createExecutableContainer();
+                    container = taskData.createExecutableContainer(scriptContentCache);
                 }
             } else {
                 throw new IllegalArgumentException("Unexpected task class: " + task.getClass());
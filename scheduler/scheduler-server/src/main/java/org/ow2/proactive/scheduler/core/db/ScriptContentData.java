@@ -0,0 +1,107 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.db;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.BatchSize;
+
+import com.google.common.hash.Hashing;
+
+
+/**
+ * Content of a script, stored once whatever the number of tasks using it.
+ * <p>
+ * {@link ScriptData} and {@link SelectionScriptData} rows reference their content by hash.
+ * The reference count is maintained when task scripts are saved and removed, a content
+ * is deleted once no script references it anymore.
+ */
+@Entity
+@NamedQueries({ @NamedQuery(name = "addScriptContentReferences", query = "update ScriptContentData set referenceCount = referenceCount + :count where hash = :hash"),
+                @NamedQuery(name = "removeScriptContentReferences", query = "update ScriptContentData set referenceCount = referenceCount - :count where hash = :hash"),
+                @NamedQuery(name = "deleteUnreferencedScriptContent", query = "delete from ScriptContentData where referenceCount <= 0"),
+                @NamedQuery(name = "countScriptContentData", query = "select count (*) from ScriptContentData") })
+@Table(name = "SCRIPT_CONTENT_DATA")
+@BatchSize(size = 100)
+public class ScriptContentData {
+
+    private String hash;
+
+    private String script;
+
+    private long referenceCount;
+
+    public ScriptContentData() {
+    }
+
+    ScriptContentData(String hash, String script, long referenceCount) {
+        this.hash = hash;
+        this.script = script;
+        this.referenceCount = referenceCount;
+    }
+
+    static String hash(String script) {
+        return Hashing.sha256().hashString(script, StandardCharsets.UTF_8).toString();
+    }
+
+    @Id
+    @Column(name = "HASH", length = 64)
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    @Column(name = "SCRIPT", length = Integer.MAX_VALUE)
+    @Lob
+    public String getScript() {
+        return script;
+    }
+
+    public void setScript(String script) {
+        this.script = script;
+    }
+
+    @Column(name = "REFERENCE_COUNT")
+    public long getReferenceCount() {
+        return referenceCount;
+    }
+
+    public void setReferenceCount(long referenceCount) {
+        this.referenceCount = referenceCount;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.db;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+
+
+/**
+ * Moves the text of the scripts of new tasks to the shared {@link ScriptContentData} and
+ * maintains their reference counts.
+ * <p>
+ * An instance is bound to a single transaction: the first reference to a content in the
+ * transaction is counted immediately, so that the row is locked and cannot be removed by a
+ * concurrent housekeeping, further references are accumulated and applied by {@link #flush()}.
+ * A new content is inserted under a savepoint: if a concurrent transaction inserts the same
+ * content, the insertion waits for it and the conflict is rolled back to the savepoint, the
+ * content inserted by the other transaction is then referenced.
+ */
+class ScriptContentReferences {
+
+    private static final String INSERT_CONTENT = "insert into SCRIPT_CONTENT_DATA (HASH, SCRIPT, REFERENCE_COUNT) values (?, ?, ?)";
+
+    /** SQLSTATE class of the unique constraint violations */
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+    private final Session session;
+
+    private final Map<String, Long> pendingReferences = new HashMap<>();
+
+    ScriptContentReferences(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Must be called before the task data is saved.
+     */
+    void share(TaskData taskData) {
+        share(taskData.getScript());
+        share(taskData.getPreScript());
+        share(taskData.getPostScript());
+        share(taskData.getCleanScript());
+        share(taskData.getFlowScript());
+        share(taskData.getEnvScript());
+        if (taskData.getSelectionScripts() != null) {
+            for (SelectionScriptData selectionScript : taskData.getSelectionScripts()) {
+                if (selectionScript.getScript() != null) {
+                    selectionScript.setContent(reference(selectionScript.getScript()));
+                    selectionScript.setScript(null);
+                }
+            }
+        }
+    }
+
+    private void share(ScriptData scriptData) {
+        if (scriptData != null && scriptData.getScript() != null) {
+            scriptData.setContent(reference(scriptData.getScript()));
+            scriptData.setScript(null);
+        }
+    }
+
+    private ScriptContentData reference(String script) {
+        String hash = ScriptContentData.hash(script);
+        Long pending = pendingReferences.get(hash);
+        if (pending == null) {
+            while (addReferences(session, hash, 1) == 0 && !insert(hash, script)) {
+                // inserted by a concurrent transaction, reference it
+            }
+            pendingReferences.put(hash, 0L);
+        } else {
+            pendingReferences.put(hash, pending + 1);
+        }
+        return session.load(ScriptContentData.class, hash);
+    }
+
+    /**
+     * Inserts a new content referenced once.
+     *
+     * @return false if the content was inserted by a concurrent transaction
+     */
+    private boolean insert(final String hash, final String script) {
+        return session.doReturningWork(new ReturningWork<Boolean>() {
+            @Override
+            public Boolean execute(Connection connection) throws SQLException {
+                Savepoint savepoint = connection.setSavepoint();
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_CONTENT)) {
+                    statement.setString(1, hash);
+                    statement.setCharacterStream(2, new StringReader(script), script.length());
+                    statement.setLong(3, 1);
+                    statement.executeUpdate();
+                    return true;
+                } catch (SQLException e) {
+                    if (e.getSQLState() == null || !e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                        throw e;
+                    }
+                    connection.rollback(savepoint);
+                    return false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the references accumulated since the first reference to each content.
+     */
+    void flush() {
+        session.flush();
+        for (Map.Entry<String, Long> entry : pendingReferences.entrySet()) {
+            if (entry.getValue() > 0) {
+                addReferences(session, entry.getKey(), entry.getValue());
+                entry.setValue(0L);
+            }
+        }
+    }
+
+    /**
+     * Releases the contents referenced by the scripts of the given jobs, and deletes the
+     * contents which are not referenced anymore. Must be called before the scripts are deleted.
+     */
+    static void release(Session session, List<Long> jobIdList) {
+        release(session,
+                session.getNamedQuery("countScriptDataContentReferencesInBulk")
+                       .setParameterList("jobIdList", jobIdList)
+                       .list());
+        release(session,
+                session.getNamedQuery("countSelectionScriptDataContentReferencesInBulk")
+                       .setParameterList("jobIdList", jobIdList)
+                       .list());
+        session.getNamedQuery("deleteUnreferencedScriptContent").executeUpdate();
+    }
+
+    private static void release(Session session, List<?> referencesByHash) {
+        for (Object row : referencesByHash) {
+            Object[] references = (Object[]) row;
+            session.getNamedQuery("removeScriptContentReferences")
+                   .setParameter("count", ((Number) references[1]).longValue())
+                   .setParameter("hash", references[0])
+                   .executeUpdate();
+        }
+    }
+
+    private static int addReferences(Session session, String hash, long count) {
+        return session.getNamedQuery("addScriptContentReferences")
+                      .setParameter("count", count)
+                      .setParameter("hash", hash)
+                      .executeUpdate();
+    }
+
+}
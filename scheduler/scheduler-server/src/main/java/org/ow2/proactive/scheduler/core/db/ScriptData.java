@@ -44,10 +44,14 @@ import org.ow2.proactive.scripting.InvalidScriptException;
 import org.ow2.proactive.scripting.Script;
 import org.ow2.proactive.scripting.SimpleScript;
 
+import com.google.common.cache.Cache;
+
 
 @Entity
 @NamedQueries({ @NamedQuery(name = "deleteScriptData", query = "delete from ScriptData where taskData.id.jobId = :jobId"),
                 @NamedQuery(name = "deleteScriptDataInBulk", query = "delete from ScriptData where taskData.id.jobId in :jobIdList"),
+                @NamedQuery(name = "countScriptDataContentReferencesInBulk", query = "select content.hash, count (*) from ScriptData where taskData.id.jobId in :jobIdList " +
+                                                                                     "and content is not null group by content.hash order by content.hash"),
                 @NamedQuery(name = "countScriptData", query = "select count (*) from ScriptData") })
 @BatchSize(size = 100)
 public class ScriptData {
@@ -58,6 +62,8 @@ public class ScriptData {
 
     private String script;
 
+    private ScriptContentData content;
+
     private String url;
 
     private List<Serializable> scriptParameters;
@@ -109,33 +115,65 @@ public class ScriptData {
         if (flowScriptActionType.equals(FlowActionType.CONTINUE.toString())) {
             return FlowScript.createContinueFlowScript();
         } else if (flowScriptActionType.equals(FlowActionType.IF.toString())) {
-            return FlowScript.createIfFlowScript(getScript(),
+            return FlowScript.createIfFlowScript(scriptContent(),
                                                  getScriptEngine(),
                                                  getFlowScriptTarget(),
                                                  getFlowScriptTargetElse(),
                                                  getFlowScriptTargetContinuation());
         } else if (flowScriptActionType.equals(FlowActionType.LOOP.toString())) {
-            return FlowScript.createLoopFlowScript(getScript(), getScriptEngine(), getFlowScriptTarget());
+            return FlowScript.createLoopFlowScript(scriptContent(), getScriptEngine(), getFlowScriptTarget());
         }
         if (flowScriptActionType.equals(FlowActionType.REPLICATE.toString())) {
-            return FlowScript.createReplicateFlowScript(getScript(), getScriptEngine());
+            return FlowScript.createReplicateFlowScript(scriptContent(), getScriptEngine());
         } else {
             throw new DatabaseManagerException("Invalid flow script action: " + flowScriptActionType);
         }
     }
 
     SimpleScript createSimpleScript() throws InvalidScriptException {
-        if (script == null && url != null) {
+        return createSimpleScript(scriptContent());
+    }
+
+    /**
+     * Same as {@link #createSimpleScript()}, the shared content being looked up in the given
+     * cache before being loaded from the database.
+     */
+    SimpleScript createSimpleScript(Cache<String, String> contents) throws InvalidScriptException {
+        if (script != null || content == null) {
+            return createSimpleScript(script);
+        }
+        String hash = content.getHash();
+        String text = contents.getIfPresent(hash);
+        if (text == null) {
+            text = content.getScript();
+            contents.put(hash, text);
+        }
+        return createSimpleScript(text);
+    }
+
+    private SimpleScript createSimpleScript(String text) throws InvalidScriptException {
+        if (text == null && url != null) {
             try {
                 return new SimpleScript(new URL(url), scriptEngine, parameters());
             } catch (MalformedURLException e) {
                 throw new InvalidScriptException(e);
             }
         } else {
-            return new SimpleScript(script, scriptEngine, parameters());
+            return new SimpleScript(text, scriptEngine, parameters());
         }
     }
 
+    /**
+     * @return the script text, either stored inline (rows written before the content store
+     * was introduced) or in the shared content
+     */
+    String scriptContent() {
+        if (script == null && content != null) {
+            return content.getScript();
+        }
+        return script;
+    }
+
     private Serializable[] parameters() {
         if (scriptParameters != null) {
             return scriptParameters.toArray(new Serializable[scriptParameters.size()]);
@@ -186,6 +224,17 @@ public class ScriptData {
         this.script = script;
     }
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    // disable foreign key, the content is removed by reference counting
+    @JoinColumn(name = "CONTENT_HASH", foreignKey = @ForeignKey(name = "none", value = ConstraintMode.NO_CONSTRAINT))
+    public ScriptContentData getContent() {
+        return content;
+    }
+
+    public void setContent(ScriptContentData content) {
+        this.content = content;
+    }
+
     @Column(name = "URL", length = Integer.MAX_VALUE)
     @Lob
     public String getURL() {
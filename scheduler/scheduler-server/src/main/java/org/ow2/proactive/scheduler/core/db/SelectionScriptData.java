@@ -45,6 +45,8 @@ import org.ow2.proactive.scripting.SelectionScript;
 @Entity
 @NamedQueries({ @NamedQuery(name = "deleteSelectionScriptData", query = "delete from SelectionScriptData where taskData.id.jobId = :jobId"),
                 @NamedQuery(name = "deleteSelectionScriptDataInBulk", query = "delete from SelectionScriptData where taskData.id.jobId in :jobIdList"),
+                @NamedQuery(name = "countSelectionScriptDataContentReferencesInBulk", query = "select content.hash, count (*) from SelectionScriptData where taskData.id.jobId in :jobIdList " +
+                                                                                              "and content is not null group by content.hash order by content.hash"),
                 @NamedQuery(name = "countSelectionScriptData", query = "select count (*) from SelectionScriptData") })
 @Table(name = "SELECTION_SCRIPT_DATA", indexes = { @Index(name = "SELECTION_SCRIPT_DATA_JOB_ID", columnList = "JOB_ID"),
                                                    @Index(name = "SELECTION_SCRIPT_DATA_TASK_ID", columnList = "TASK_ID") })
@@ -57,6 +59,8 @@ public class SelectionScriptData {
 
     private String script;
 
+    private ScriptContentData content;
+
     private String url;
 
     private List<Serializable> scriptParameters;
@@ -85,17 +89,29 @@ public class SelectionScriptData {
     }
 
     SelectionScript createSelectionScript() throws InvalidScriptException {
-        if (script == null && url != null) {
+        String text = scriptContent();
+        if (text == null && url != null) {
             try {
                 return new SelectionScript(new URL(url), getScriptEngine(), parameters(), isSelectionScriptDynamic());
             } catch (MalformedURLException e) {
                 throw new InvalidScriptException(e);
             }
         } else {
-            return new SelectionScript(getScript(), getScriptEngine(), parameters(), isSelectionScriptDynamic());
+            return new SelectionScript(text, getScriptEngine(), parameters(), isSelectionScriptDynamic());
         }
     }
 
+    /**
+     * @return the script text, either stored inline (rows written before the content store
+     * was introduced) or in the shared content
+     */
+    String scriptContent() {
+        if (script == null && content != null) {
+            return content.getScript();
+        }
+        return script;
+    }
+
     private Serializable[] parameters() {
         if (scriptParameters != null) {
             return scriptParameters.toArray(new Serializable[scriptParameters.size()]);
@@ -146,6 +162,17 @@ public class SelectionScriptData {
         this.script = script;
     }
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    // disable foreign key, the content is removed by reference counting
+    @JoinColumn(name = "CONTENT_HASH", foreignKey = @ForeignKey(name = "none", value = ConstraintMode.NO_CONSTRAINT))
+    public ScriptContentData getContent() {
+        return content;
+    }
+
+    public void setContent(ScriptContentData content) {
+        this.content = content;
+    }
+
     @Column(name = "URL", length = Integer.MAX_VALUE)
     @Lob
     public String getURL() {
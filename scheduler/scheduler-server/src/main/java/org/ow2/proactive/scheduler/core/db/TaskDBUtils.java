@@ -32,6 +32,7 @@ import java.util.Set;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.ow2.proactive.db.SessionWork;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.SortSpecifierContainer;
 import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive.scheduler.common.task.TaskState;
@@ -71,6 +72,7 @@ public class TaskDBUtils {
                                        hasDateFrom,
                                        hasDateTo,
                                        SortSpecifierContainer.EMPTY_CONTAINER,
+                                       null,
                                        queryPrefix);
 
                 Long count = (Long) query.uniqueResult();
@@ -140,27 +142,35 @@ public class TaskDBUtils {
                                hasDateFrom,
                                hasDateTo,
                                params.getSortParams(),
+                               params.getCursor(),
                                queryPrefix);
         query.setMaxResults(params.getLimit());
-        query.setFirstResult(params.getOffset());
+        if (params.getCursor() == null) {
+            query.setFirstResult(params.getOffset());
+        }
 
         return query.list();
     }
 
     private static Query getQuery(Session session, DBTaskDataParameters params, Set<TaskStatus> taskStatuses,
             boolean hasUser, boolean hasTag, boolean hasDateFrom, boolean hasDateTo, SortSpecifierContainer sortParams,
-            String queryPrefix) {
+            PageCursor cursor, String queryPrefix) {
         StringBuilder queryString = new StringBuilder(queryPrefix);
-        queryString.append(getQueryFilteringExpression(hasUser, hasTag, hasDateFrom, hasDateTo, sortParams));
+        queryString.append(getQueryFilteringExpression(hasUser, hasTag, hasDateFrom, hasDateTo, sortParams, cursor));
         Query query = session.createQuery(queryString.toString());
 
         setQueryParameters(taskStatuses, hasUser, hasTag, hasDateFrom, hasDateTo, query, params);
 
+        if (cursor != null) {
+            query.setParameter("cursorJobId", cursor.getSortKey());
+            query.setParameter("cursorTaskId", cursor.getId());
+        }
+
         return query;
     }
 
     private static StringBuilder getQueryFilteringExpression(boolean hasUser, boolean hasTag, boolean hasDateFrom,
-            boolean hasDateTo, SortSpecifierContainer sortParams) {
+            boolean hasDateTo, SortSpecifierContainer sortParams, PageCursor cursor) {
         StringBuilder result = new StringBuilder();
 
         result.append("T.jobData.removedTime = -1 ");
@@ -189,7 +199,12 @@ public class TaskDBUtils {
 
         result.append("and taskStatus in (:taskStatus) ");
 
-        if (!sortParams.getSortParameters().isEmpty()) {
+        if (cursor != null) {
+            // keyset pagination, the primary key index leads straight to the page
+            result.append("and ( T.id.jobId < :cursorJobId " +
+                          "or ( T.id.jobId = :cursorJobId and T.id.taskId < :cursorTaskId ) ) ");
+            result.append("order by T.id.jobId DESC, T.id.taskId DESC ");
+        } else if (!sortParams.getSortParameters().isEmpty()) {
             result.append("order by ");
             List<SortSpecifierContainer.SortSpecifierItem> items = sortParams.getSortParameters();
             for (int i = 0; i < items.size(); i++) {
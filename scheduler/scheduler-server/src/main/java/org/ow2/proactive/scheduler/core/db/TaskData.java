@@ -95,12 +95,17 @@ import org.ow2.proactive.topology.descriptor.SingleHostExclusiveDescriptor;
 import org.ow2.proactive.topology.descriptor.ThresholdProximityDescriptor;
 import org.ow2.proactive.topology.descriptor.TopologyDescriptor;
 
+import com.google.common.cache.Cache;
+
 
 @Entity
 @NamedQueries({ @NamedQuery(name = "deleteTaskDataInBulk", query = "delete from TaskData where jobData.id in :jobIdList"),
                 @NamedQuery(name = "countTaskData", query = "select count (*) from TaskData"),
                 @NamedQuery(name = "countTaskDataNotFinished", query = "select count (*) from TaskData where taskStatus <> org.ow2.proactive.scheduler.common.task.TaskStatus.FINISHED"),
                 @NamedQuery(name = "getFinishedTasksCount", query = "select count(*) from TaskData task where taskStatus in (:taskStatus) and task.jobData.removedTime = -1"),
+                @NamedQuery(name = "getFinishedTaskDurations", query = "select task.jobData.jobName, task.taskName, task.executionDuration from TaskData task " +
+                                                                       "where task.taskStatus = org.ow2.proactive.scheduler.common.task.TaskStatus.FINISHED " +
+                                                                       "and task.executionDuration > 0 order by task.finishedTime desc"),
                 @NamedQuery(name = "getMeanTaskPendingTime", query = "select avg(startTime - :jobSubmittedTime) from TaskData task where task.jobData.id = :id and task.startTime > 0"),
                 @NamedQuery(name = "getMeanTaskRunningTime", query = "select avg(task.finishedTime - task.startTime) from TaskData task where task.startTime > 0 and task.finishedTime > 0 and task.jobData.id = :id"),
                 @NamedQuery(name = "getPendingTasksCount", query = "select count(*) from TaskData task where taskStatus in (:taskStatus) and task.jobData.status in (:jobStatus) and task.jobData.removedTime = -1"),
@@ -152,6 +157,7 @@ import org.ow2.proactive.topology.descriptor.TopologyDescriptor;
                                        @Index(name = "TASK_DATA_START_TIME", columnList = "START_TIME"),
                                        @Index(name = "TASK_DATA_STATUS", columnList = "STATUS"),
                                        @Index(name = "TASK_DATA_TAG", columnList = "TAG"),
+                                       @Index(name = "TASK_DATA_TAG_JOB_TASK_ID", columnList = "TAG,TASK_ID_JOB,TASK_ID_TASK"),
                                        @Index(name = "TASK_DATA_TASK_ID_JOB", columnList = "TASK_ID_JOB"),
                                        @Index(name = "TASK_DATA_TASK_ID_TASK", columnList = "TASK_ID_TASK"),
                                        @Index(name = "TASK_DATA_TASK_NAME", columnList = "TASK_NAME") })
@@ -373,6 +379,10 @@ public class TaskData {
         return new ScriptExecutableContainer(new TaskScript(script.createSimpleScript()));
     }
 
+    ExecutableContainer createExecutableContainer(Cache<String, String> scriptContents) throws InvalidScriptException {
+        return new ScriptExecutableContainer(new TaskScript(script.createSimpleScript(scriptContents)));
+    }
+
     @Embeddable
     public static class DBTaskId implements Serializable {
 
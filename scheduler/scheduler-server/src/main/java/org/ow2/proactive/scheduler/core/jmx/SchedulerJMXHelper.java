@@ -123,6 +123,7 @@ public class SchedulerJMXHelper extends AbstractJMXHelper {
             setDataStore(new RRDDataStore((StandardMBean) schedulerRuntimeMBean,
                                           dataBaseName,
                                           PASchedulerProperties.SCHEDULER_RRD_STEP.getValueAsInt(),
+                                          PASchedulerProperties.SCHEDULER_RRD_ARCHIVES.getValueAsString(),
                                           Logger.getLogger(SchedulerJMXHelper.class)));
 
         } catch (Exception e) {
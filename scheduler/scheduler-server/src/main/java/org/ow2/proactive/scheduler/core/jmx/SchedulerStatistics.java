@@ -0,0 +1,352 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.jmx;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
+
+
+/**
+ * Jobs and tasks statistics of the Scheduler, maintained incrementally from the
+ * job and task events instead of being computed by aggregate queries on the
+ * whole database each time they are read.
+ * <p>
+ * The statistics are computed once from the database when the Scheduler state is
+ * recovered. Each job known by the Scheduler front-end then records its own
+ * contribution to the counters, so that a task event only moves one task from
+ * a counter to another, and a job event only replaces the contribution of the job.
+ * Until they are initialized, the statistics are read from the database.
+ * <p>
+ * The mean times are kept as running sums: a job deleted from the database still
+ * contributes to them until the statistics are computed again at the next start.
+ *
+ * @author The ProActive Team
+ */
+public class SchedulerStatistics {
+
+    private static final Logger logger = Logger.getLogger(SchedulerStatistics.class);
+
+    // job and task statuses counted by the corresponding database queries
+
+    private static final Set<JobStatus> PENDING_JOB_STATUSES = EnumSet.of(JobStatus.PAUSED, JobStatus.PENDING);
+
+    private static final Set<JobStatus> RUNNING_JOB_STATUSES = EnumSet.of(JobStatus.RUNNING, JobStatus.STALLED);
+
+    private static final Set<TaskStatus> PENDING_TASK_STATUSES = EnumSet.of(TaskStatus.SUBMITTED,
+                                                                            TaskStatus.PAUSED,
+                                                                            TaskStatus.PENDING,
+                                                                            TaskStatus.WAITING_ON_ERROR,
+                                                                            TaskStatus.WAITING_ON_FAILURE);
+
+    private static final Set<TaskStatus> FINISHED_TASK_STATUSES = EnumSet.of(TaskStatus.FINISHED, TaskStatus.FAULTY);
+
+    private final SchedulerDBManager dbManager;
+
+    private final Map<JobId, JobCounters> jobs = new HashMap<>();
+
+    private boolean initialized = false;
+
+    private long pendingJobs;
+
+    private long runningJobs;
+
+    private long finishedJobs;
+
+    private long totalJobs;
+
+    private long pendingTasks;
+
+    private long runningTasks;
+
+    private long finishedTasks;
+
+    private long totalTasks;
+
+    private long startedJobs;
+
+    private long totalPendingTime;
+
+    private long executedJobs;
+
+    private long totalExecutionTime;
+
+    private long submittedJobs;
+
+    private long firstSubmittedTime;
+
+    private long lastSubmittedTime;
+
+    public SchedulerStatistics(SchedulerDBManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Computes the statistics from the database, then records the contribution of the given jobs.
+     *
+     * @param recoveredJobs the jobs recovered by the Scheduler front-end
+     */
+    public synchronized void initialize(Collection<? extends JobState> recoveredJobs) {
+        if (dbManager != null) {
+            long start = System.currentTimeMillis();
+            pendingJobs = dbManager.getPendingJobsCount();
+            runningJobs = dbManager.getRunningJobsCount();
+            finishedJobs = dbManager.getFinishedJobsCount();
+            totalJobs = dbManager.getTotalJobsCount();
+            pendingTasks = dbManager.getPendingTasksCount();
+            runningTasks = dbManager.getRunningTasksCount();
+            finishedTasks = dbManager.getFinishedTasksCount();
+            totalTasks = dbManager.getTotalTasksCount();
+            long[] pendingTime = dbManager.getJobPendingTimeStatistics();
+            startedJobs = pendingTime[0];
+            totalPendingTime = pendingTime[1];
+            long[] executionTime = dbManager.getJobExecutionTimeStatistics();
+            executedJobs = executionTime[0];
+            totalExecutionTime = executionTime[1];
+            long[] submittedTime = dbManager.getJobSubmittedTimeStatistics();
+            submittedJobs = submittedTime[0];
+            firstSubmittedTime = submittedTime[1];
+            lastSubmittedTime = submittedTime[2];
+            logger.info("Scheduler statistics computed in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        jobs.clear();
+        for (JobState job : recoveredJobs) {
+            // already counted by the database
+            jobs.put(job.getId(), new JobCounters(job));
+        }
+        initialized = true;
+    }
+
+    public synchronized boolean isInitialized() {
+        return initialized;
+    }
+
+    public synchronized void jobSubmitted(JobState job) {
+        if (!initialized) {
+            return;
+        }
+        JobCounters counters = new JobCounters(job);
+        jobs.put(job.getId(), counters);
+        apply(counters, 1);
+
+        long submittedTime = job.getSubmittedTime();
+        if (submittedJobs == 0 || submittedTime < firstSubmittedTime) {
+            firstSubmittedTime = submittedTime;
+        }
+        if (submittedJobs == 0 || submittedTime > lastSubmittedTime) {
+            lastSubmittedTime = submittedTime;
+        }
+        submittedJobs++;
+    }
+
+    /**
+     * Replaces the contribution of the given job once its state has been updated.
+     *
+     * @param job     the updated job
+     * @param started true if the job has just started
+     * @param ended   true if the job has just finished
+     */
+    public synchronized void jobUpdated(JobState job, boolean started, boolean ended) {
+        if (!initialized) {
+            return;
+        }
+        JobCounters previous = jobs.get(job.getId());
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        JobCounters counters = new JobCounters(job);
+        jobs.put(job.getId(), counters);
+        apply(counters, 1);
+
+        if (started && job.getStartTime() > 0 && job.getSubmittedTime() > 0) {
+            startedJobs++;
+            totalPendingTime += job.getStartTime() - job.getSubmittedTime();
+        }
+        if (ended && job.getStartTime() > 0 && job.getFinishedTime() > 0) {
+            executedJobs++;
+            totalExecutionTime += job.getFinishedTime() - job.getStartTime();
+        }
+    }
+
+    public synchronized void jobRemoved(JobId jobId) {
+        if (!initialized) {
+            return;
+        }
+        JobCounters counters = jobs.remove(jobId);
+        if (counters != null) {
+            apply(counters, -1);
+        }
+    }
+
+    /**
+     * Moves a task from the counter of its previous status to the counter of its new status.
+     *
+     * @param job            the job of the task, already updated
+     * @param previousStatus the status of the task before the update, null if the task is new
+     * @param status         the status of the task after the update
+     */
+    public synchronized void taskUpdated(JobState job, TaskStatus previousStatus, TaskStatus status) {
+        if (!initialized) {
+            return;
+        }
+        JobCounters counters = jobs.get(job.getId());
+        if (counters == null || previousStatus == null) {
+            jobUpdated(job, false, false);
+            return;
+        }
+        if (previousStatus == status) {
+            return;
+        }
+        apply(counters, -1);
+        counters.remove(previousStatus);
+        counters.add(status);
+        apply(counters, 1);
+    }
+
+    private void apply(JobCounters counters, int sign) {
+        totalJobs += sign;
+        totalTasks += sign * counters.tasks;
+        finishedTasks += sign * counters.finishedTasks;
+        if (SchedulerDBManager.FINISHED_JOB_STATUSES.contains(counters.status)) {
+            finishedJobs += sign;
+            return;
+        }
+        if (PENDING_JOB_STATUSES.contains(counters.status)) {
+            pendingJobs += sign;
+        } else if (RUNNING_JOB_STATUSES.contains(counters.status)) {
+            runningJobs += sign;
+        }
+        // pending and running tasks are only counted for jobs not finished
+        pendingTasks += sign * counters.pendingTasks;
+        runningTasks += sign * counters.runningTasks;
+    }
+
+    public synchronized long getPendingJobsCount() {
+        return initialized ? pendingJobs : dbManager.getPendingJobsCount();
+    }
+
+    public synchronized long getRunningJobsCount() {
+        return initialized ? runningJobs : dbManager.getRunningJobsCount();
+    }
+
+    public synchronized long getFinishedJobsCount() {
+        return initialized ? finishedJobs : dbManager.getFinishedJobsCount();
+    }
+
+    public synchronized long getTotalJobsCount() {
+        return initialized ? totalJobs : dbManager.getTotalJobsCount();
+    }
+
+    public synchronized long getPendingTasksCount() {
+        return initialized ? pendingTasks : dbManager.getPendingTasksCount();
+    }
+
+    public synchronized long getRunningTasksCount() {
+        return initialized ? runningTasks : dbManager.getRunningTasksCount();
+    }
+
+    public synchronized long getFinishedTasksCount() {
+        return initialized ? finishedTasks : dbManager.getFinishedTasksCount();
+    }
+
+    public synchronized long getTotalTasksCount() {
+        return initialized ? totalTasks : dbManager.getTotalTasksCount();
+    }
+
+    public synchronized double getMeanJobPendingTime() {
+        if (!initialized) {
+            return dbManager.getMeanJobPendingTime();
+        }
+        return startedJobs == 0 ? 0 : totalPendingTime / (double) startedJobs;
+    }
+
+    public synchronized double getMeanJobExecutionTime() {
+        if (!initialized) {
+            return dbManager.getMeanJobExecutionTime();
+        }
+        return executedJobs == 0 ? 0 : totalExecutionTime / (double) executedJobs;
+    }
+
+    public synchronized double getMeanJobSubmittingPeriod() {
+        if (!initialized) {
+            return dbManager.getMeanJobSubmittingPeriod();
+        }
+        return submittedJobs < 2 ? 0 : (lastSubmittedTime - firstSubmittedTime) / (double) (submittedJobs - 1);
+    }
+
+    /**
+     * Contribution of a job to the counters
+     */
+    private static class JobCounters {
+
+        private final JobStatus status;
+
+        private int tasks;
+
+        private int pendingTasks;
+
+        private int runningTasks;
+
+        private int finishedTasks;
+
+        JobCounters(JobState job) {
+            this.status = job.getStatus();
+            for (TaskState task : job.getTasks()) {
+                add(task.getStatus());
+            }
+        }
+
+        void add(TaskStatus taskStatus) {
+            update(taskStatus, 1);
+        }
+
+        void remove(TaskStatus taskStatus) {
+            update(taskStatus, -1);
+        }
+
+        private void update(TaskStatus taskStatus, int sign) {
+            tasks += sign;
+            if (PENDING_TASK_STATUSES.contains(taskStatus)) {
+                pendingTasks += sign;
+            } else if (taskStatus == TaskStatus.RUNNING) {
+                runningTasks += sign;
+            } else if (FINISHED_TASK_STATUSES.contains(taskStatus)) {
+                finishedTasks += sign;
+            }
+        }
+    }
+
+}
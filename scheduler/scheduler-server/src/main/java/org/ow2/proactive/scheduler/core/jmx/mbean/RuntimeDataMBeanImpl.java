@@ -37,6 +37,7 @@ import org.ow2.proactive.scheduler.common.SchedulerUsers;
 import org.ow2.proactive.scheduler.common.job.UserIdentification;
 import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
 import org.ow2.proactive.scheduler.core.jmx.SchedulerJMXHelper;
+import org.ow2.proactive.scheduler.core.jmx.SchedulerStatistics;
 import org.ow2.proactive.utils.Tools;
 
 
@@ -52,6 +53,9 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
 
     private final SchedulerUsers schedulerClients;
 
+    /** Job and task counters maintained from scheduler events */
+    private final SchedulerStatistics statistics;
+
     /** Current Scheduler status typed as scheduler event */
     private volatile SchedulerEvent schedulerStatus;
 
@@ -59,6 +63,14 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
         super(RuntimeDataMBean.class);
         this.schedulerClients = new SchedulerUsers();
         this.dbManager = dbManager;
+        this.statistics = new SchedulerStatistics(dbManager);
+    }
+
+    /**
+     * @return the incrementally maintained job and task statistics
+     */
+    public SchedulerStatistics getStatistics() {
+        return statistics;
     }
 
     public void usersUpdatedEvent(final NotificationData<UserIdentification> notificationData) {
@@ -97,56 +109,56 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getFinishedJobsCount() {
-        return (int) dbManager.getFinishedJobsCount();
+        return (int) statistics.getFinishedJobsCount();
     }
 
     /**
      * @return current number of pending jobs
      */
     public int getPendingJobsCount() {
-        return (int) dbManager.getPendingJobsCount();
+        return (int) statistics.getPendingJobsCount();
     }
 
     /**
      * @return current number of running jobs
      */
     public int getRunningJobsCount() {
-        return (int) dbManager.getRunningJobsCount();
+        return (int) statistics.getRunningJobsCount();
     }
 
     /**
      * @return current number of jobs submitted to the Scheduler
      */
     public int getTotalJobsCount() {
-        return (int) dbManager.getTotalJobsCount();
+        return (int) statistics.getTotalJobsCount();
     }
 
     /**
      * @return current number of pending tasks
      */
     public int getPendingTasksCount() {
-        return (int) dbManager.getPendingTasksCount();
+        return (int) statistics.getPendingTasksCount();
     }
 
     /**
      * @return current number of finished tasks
      */
     public int getFinishedTasksCount() {
-        return (int) dbManager.getFinishedTasksCount();
+        return (int) statistics.getFinishedTasksCount();
     }
 
     /**
      * @return current number of running tasks
      */
     public int getRunningTasksCount() {
-        return (int) dbManager.getRunningTasksCount();
+        return (int) statistics.getRunningTasksCount();
     }
 
     /**
      * @return current number of tasks submitted to the Scheduler
      */
     public int getTotalTasksCount() {
-        return (int) dbManager.getTotalTasksCount();
+        return (int) statistics.getTotalTasksCount();
     }
 
     /**
@@ -163,7 +175,7 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getMeanJobPendingTime() {
-        return (int) dbManager.getMeanJobPendingTime();
+        return (int) statistics.getMeanJobPendingTime();
     }
 
     /**
@@ -171,7 +183,7 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getMeanJobExecutionTime() {
-        return (int) dbManager.getMeanJobExecutionTime();
+        return (int) statistics.getMeanJobExecutionTime();
     }
 
     /**
@@ -179,7 +191,7 @@ public final class RuntimeDataMBeanImpl extends StandardMBean implements Runtime
      */
     @Chronological
     public int getJobSubmittingPeriod() {
-        return (int) dbManager.getMeanJobSubmittingPeriod();
+        return (int) statistics.getMeanJobSubmittingPeriod();
     }
 
     // UTILITY METHODS
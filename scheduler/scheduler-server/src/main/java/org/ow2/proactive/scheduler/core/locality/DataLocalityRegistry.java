@@ -0,0 +1,378 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.locality;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.proactive.core.node.Node;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.dataspaces.InputAccessMode;
+import org.ow2.proactive.scheduler.common.task.dataspaces.InputSelector;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputAccessMode;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.proactive.utils.Criteria;
+import org.ow2.proactive.utils.NodeSet;
+
+
+/**
+ * Remembers on which node and host the data of the tasks is, so that the tasks are started close to it.
+ * <p>
+ * The output files of a task are written from the node which ran it, and the files a task caches
+ * are kept in the cache space of its node. When such a task starts, its node and host are recorded.
+ * A task then prefers the nodes of its parents, weighted by the number of output file selectors they
+ * transfer and, if the task caches input files, by the number of files cached by the parents, as well
+ * as the node of its own previous execution (re-execution, loop iteration) for its cached files.
+ * <p>
+ * If none of the preferred nodes or hosts is free, a task waits up to a configurable time before
+ * being started on any other node, trading some waiting for data transfers. The host of a free node
+ * which never ran a task is the host part of its url, compared to the urls of the preferred nodes.
+ * <p>
+ * This class is only used by the scheduling thread, it is not thread safe.
+ *
+ * @author The ProActive Team
+ */
+public class DataLocalityRegistry {
+
+    private static final Set<InputAccessMode> CACHED_INPUT_MODES = EnumSet.of(InputAccessMode.CacheFromInputSpace,
+                                                                              InputAccessMode.CacheFromOutputSpace,
+                                                                              InputAccessMode.CacheFromGlobalSpace,
+                                                                              InputAccessMode.CacheFromUserSpace);
+
+    private final long maxWait;
+
+    /** Node and host of the tasks holding data */
+    private final Map<TaskId, Location> locations;
+
+    /** Host of the nodes which ran tasks, by node url */
+    private final Map<String, String> hosts;
+
+    /** Time at which the tasks started to wait for the nodes holding their data */
+    private final Map<TaskId, Long> waitingTasks;
+
+    public DataLocalityRegistry() {
+        this(PASchedulerProperties.SCHEDULER_LOCALITY_MAX_TASKS.getValueAsInt(),
+             PASchedulerProperties.SCHEDULER_LOCALITY_WAIT.getValueAsInt());
+    }
+
+    DataLocalityRegistry(int maxTasks, long maxWait) {
+        this.maxWait = maxWait;
+        this.locations = new BoundedMap<>(maxTasks, true);
+        this.hosts = new BoundedMap<>(maxTasks, true);
+        this.waitingTasks = new BoundedMap<>(maxTasks, false);
+    }
+
+    /**
+     * Records the node on which a task was started.
+     *
+     * @param task the started task
+     * @param nodeUrl the url of the node running the task
+     * @param hostName the host of the node running the task
+     */
+    public void taskStarted(InternalTask task, String nodeUrl, String hostName) {
+        waitingTasks.remove(task.getId());
+        hosts.put(nodeUrl, hostName);
+        if (countTransferredOutputs(task) > 0 || countCachedInputs(task) > 0) {
+            locations.put(task.getId(), new Location(nodeUrl, hostName));
+        }
+    }
+
+    /**
+     * Returns where the data of the given tasks is, the nodes and hosts holding most of it first.
+     *
+     * @param tasks the tasks to start
+     * @return the preferred nodes and hosts, empty if the location of the data is unknown
+     */
+    public Preference getPreference(Collection<InternalTask> tasks) {
+        Map<String, Integer> nodesWeights = new HashMap<>();
+        Map<String, Integer> hostsWeights = new HashMap<>();
+        for (InternalTask task : tasks) {
+            int cachedInputs = countCachedInputs(task);
+            if (task.hasDependences()) {
+                for (InternalTask parent : task.getIDependences()) {
+                    int weight = countTransferredOutputs(parent);
+                    if (cachedInputs > 0) {
+                        weight += countCachedInputs(parent);
+                    }
+                    addWeight(locations.get(parent.getId()), weight, nodesWeights, hostsWeights);
+                }
+            }
+            addWeight(locations.get(task.getId()), cachedInputs, nodesWeights, hostsWeights);
+        }
+        return new Preference(sortByWeight(nodesWeights), sortByWeight(hostsWeights));
+    }
+
+    /**
+     * Sets the nodes and hosts holding the data of the given tasks as preferred in the criteria.
+     *
+     * @param criteria the criteria used to get nodes for the tasks
+     * @param tasks the tasks to start
+     */
+    public void prefer(Criteria criteria, Collection<InternalTask> tasks) {
+        Preference preference = getPreference(tasks);
+        if (!preference.isEmpty()) {
+            criteria.setPreferredNodesUrls(preference.getNodesUrls());
+            criteria.setPreferredHosts(preference.getHosts());
+        }
+    }
+
+    /**
+     * Decides whether a task should rather wait for the nodes holding its data than be started now.
+     * A task waits if none of the nodes or hosts holding its data is free, and if it has waited for
+     * less than the maximum waiting time.
+     *
+     * @param task the task to start
+     * @param freeNodesUrls the urls of the free nodes
+     * @param now the current time
+     * @return true if the task should not be started during this scheduling cycle
+     */
+    public boolean isWaiting(InternalTask task, Set<String> freeNodesUrls, long now) {
+        if (maxWait <= 0) {
+            return false;
+        }
+        Preference preference = getPreference(Collections.singletonList(task));
+        if (preference.isEmpty()) {
+            return false;
+        }
+        Set<String> preferredUrlHosts = null;
+        for (String nodeUrl : freeNodesUrls) {
+            boolean preferred;
+            if (preference.getNodesUrls().contains(nodeUrl)) {
+                preferred = true;
+            } else if (hosts.containsKey(nodeUrl)) {
+                preferred = preference.getHosts().contains(hosts.get(nodeUrl));
+            } else {
+                if (preferredUrlHosts == null) {
+                    preferredUrlHosts = getUrlHosts(preference.getNodesUrls());
+                }
+                String urlHost = getUrlHost(nodeUrl);
+                preferred = urlHost != null && preferredUrlHosts.contains(urlHost);
+            }
+            if (preferred) {
+                waitingTasks.remove(task.getId());
+                return false;
+            }
+        }
+        Long waitingSince = waitingTasks.get(task.getId());
+        if (waitingSince == null) {
+            waitingSince = now;
+            waitingTasks.put(task.getId(), now);
+        }
+        return now - waitingSince < maxWait;
+    }
+
+    /**
+     * Moves first in the node set the node which holds most of the data of the task, if any, as
+     * the first node of the set is the one on which the task is started.
+     *
+     * @param nodeSet the nodes given to the task
+     * @param task the task to start
+     */
+    public void arrange(NodeSet nodeSet, InternalTask task) {
+        if (nodeSet.size() < 2) {
+            return;
+        }
+        Preference preference = getPreference(Collections.singletonList(task));
+        if (preference.isEmpty()) {
+            return;
+        }
+        int best = 0;
+        int bestRank = Integer.MAX_VALUE;
+        for (int i = 0; i < nodeSet.size(); i++) {
+            int rank = preference.rank(nodeSet.get(i));
+            if (rank < bestRank) {
+                best = i;
+                bestRank = rank;
+            }
+        }
+        if (best > 0) {
+            nodeSet.add(0, nodeSet.remove(best));
+        }
+    }
+
+    private static Set<String> getUrlHosts(Collection<String> nodesUrls) {
+        Set<String> urlHosts = new HashSet<>();
+        for (String nodeUrl : nodesUrls) {
+            String urlHost = getUrlHost(nodeUrl);
+            if (urlHost != null) {
+                urlHosts.add(urlHost);
+            }
+        }
+        return urlHosts;
+    }
+
+    /**
+     * @return the host part of a node url, or null if the url has none
+     */
+    private static String getUrlHost(String nodeUrl) {
+        try {
+            return URI.create(nodeUrl).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void addWeight(Location location, int weight, Map<String, Integer> nodesWeights,
+            Map<String, Integer> hostsWeights) {
+        if (location == null || weight <= 0) {
+            return;
+        }
+        Integer nodeWeight = nodesWeights.get(location.getNodeUrl());
+        nodesWeights.put(location.getNodeUrl(), nodeWeight == null ? weight : nodeWeight + weight);
+        if (location.getHostName() != null) {
+            Integer hostWeight = hostsWeights.get(location.getHostName());
+            hostsWeights.put(location.getHostName(), hostWeight == null ? weight : hostWeight + weight);
+        }
+    }
+
+    private static List<String> sortByWeight(final Map<String, Integer> weights) {
+        List<String> sorted = new ArrayList<>(weights.keySet());
+        Collections.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String key1, String key2) {
+                int byWeight = Integer.compare(weights.get(key2), weights.get(key1));
+                return byWeight != 0 ? byWeight : key1.compareTo(key2);
+            }
+        });
+        return sorted;
+    }
+
+    private static int countTransferredOutputs(InternalTask task) {
+        int count = 0;
+        if (task.getOutputFilesList() != null) {
+            for (OutputSelector selector : task.getOutputFilesList()) {
+                if (selector.getMode() != OutputAccessMode.none) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int countCachedInputs(InternalTask task) {
+        int count = 0;
+        if (task.getInputFilesList() != null) {
+            for (InputSelector selector : task.getInputFilesList()) {
+                if (CACHED_INPUT_MODES.contains(selector.getMode())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Node and host on which a task ran.
+     */
+    static final class Location {
+
+        private final String nodeUrl;
+
+        private final String hostName;
+
+        Location(String nodeUrl, String hostName) {
+            this.nodeUrl = nodeUrl;
+            this.hostName = hostName;
+        }
+
+        String getNodeUrl() {
+            return nodeUrl;
+        }
+
+        String getHostName() {
+            return hostName;
+        }
+    }
+
+    /**
+     * Nodes and hosts holding the data of tasks, in order of preference.
+     */
+    public static final class Preference {
+
+        private final List<String> nodesUrls;
+
+        private final List<String> hosts;
+
+        Preference(List<String> nodesUrls, List<String> hosts) {
+            this.nodesUrls = nodesUrls;
+            this.hosts = hosts;
+        }
+
+        public List<String> getNodesUrls() {
+            return nodesUrls;
+        }
+
+        public List<String> getHosts() {
+            return hosts;
+        }
+
+        public boolean isEmpty() {
+            return nodesUrls.isEmpty();
+        }
+
+        int rank(Node node) {
+            int index = nodesUrls.indexOf(node.getNodeInformation().getURL());
+            if (index >= 0) {
+                return index;
+            }
+            index = hosts.indexOf(node.getVMInformation().getHostName());
+            if (index >= 0) {
+                return nodesUrls.size() + index;
+            }
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Map dropping its eldest entries beyond a maximum size.
+     */
+    private static final class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maxSize;
+
+        BoundedMap(int maxSize, boolean accessOrder) {
+            super(16, 0.75f, accessOrder);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.prediction;
+
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
+
+
+/**
+ * Distribution of the execution durations of a group of tasks, learned incrementally.
+ * <p>
+ * Durations are counted in buckets growing geometrically, four buckets for each doubling of the
+ * duration, so that percentiles are known within about 10% with a fixed memory. The mean and the
+ * variance are maintained with Welford's algorithm. When the number of durations reaches the
+ * window, all the counts are halved, so that recent durations weight more than older ones.
+ * <p>
+ * Not thread safe.
+ */
+class RuntimeDistribution {
+
+    private static final int BUCKETS_PER_OCTAVE = 4;
+
+    /** Durations up to 2^42 ms, more than a century */
+    private static final int NB_BUCKETS = 42 * BUCKETS_PER_OCTAVE + 1;
+
+    private final int[] counts = new int[NB_BUCKETS];
+
+    private long count;
+
+    private double weight;
+
+    private double mean;
+
+    private double m2;
+
+    private long max;
+
+    /**
+     * @param duration the execution duration of a finished task, in milliseconds
+     * @param window the number of durations after which the counts are halved
+     */
+    void add(long duration, int window) {
+        duration = Math.max(duration, 0);
+        counts[bucket(duration)]++;
+        count++;
+        weight++;
+        double delta = duration - mean;
+        mean += delta / weight;
+        m2 += delta * (duration - mean);
+        max = Math.max(max, duration);
+        if (count >= window) {
+            age();
+        }
+    }
+
+    private void age() {
+        count = 0;
+        int highest = 0;
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            counts[i] >>= 1;
+            count += counts[i];
+            if (counts[i] > 0) {
+                highest = i;
+            }
+        }
+        weight /= 2;
+        m2 /= 2;
+        max = Math.min(max, (long) Math.ceil(upperBound(highest)));
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile a value between 0 and 1
+     * @return the approximate duration below which the given fraction of the durations are
+     */
+    long getQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulated = 0;
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            cumulated += counts[i];
+            if (cumulated >= rank) {
+                return Math.min(max, representative(i));
+            }
+        }
+        return max;
+    }
+
+    TaskRuntimePrediction toPrediction(String jobName, String taskName) {
+        double variance = weight > 1 ? m2 / (weight - 1) : 0;
+        return new TaskRuntimePrediction(jobName,
+                                         taskName,
+                                         count,
+                                         Math.round(mean),
+                                         Math.round(Math.sqrt(Math.max(variance, 0))),
+                                         getQuantile(0.5),
+                                         getQuantile(0.9),
+                                         getQuantile(0.99),
+                                         max);
+    }
+
+    /**
+     * Bucket 0 holds null durations, bucket i &gt; 0 the durations from 2^((i - 1) / 4) to 2^(i / 4).
+     */
+    static int bucket(long duration) {
+        if (duration < 1) {
+            return 0;
+        }
+        int bucket = 1 + (int) Math.floor(Math.log(duration) / Math.log(2) * BUCKETS_PER_OCTAVE);
+        return Math.min(bucket, NB_BUCKETS - 1);
+    }
+
+    private static double upperBound(int bucket) {
+        return bucket == 0 ? 0 : Math.pow(2, (double) bucket / BUCKETS_PER_OCTAVE);
+    }
+
+    private static long representative(int bucket) {
+        return bucket == 0 ? 0 : Math.round(Math.pow(2, (bucket - 0.5) / BUCKETS_PER_OCTAVE));
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.prediction;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
+import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+
+
+/**
+ * Predicts the execution duration of tasks from the tasks which finished successfully before.
+ * <p>
+ * A distribution of the execution durations is learned for each task name within each job name,
+ * and one for each job name over all its tasks, used when a task name has too few samples, for
+ * instance the first time a new task of a known workflow runs. Iteration and replication indexes
+ * are removed from the task names, so that all the iterations of a loop share their distribution.
+ * <p>
+ * The distributions are first learned from the most recent finished tasks of the database, then
+ * from the results of the tasks as they terminate. The least recently used distributions are
+ * dropped when there are too many of them.
+ *
+ * @author The ProActive Team
+ */
+public class TaskRuntimePredictor {
+
+    private static final Logger logger = Logger.getLogger(TaskRuntimePredictor.class);
+
+    private final SchedulerDBManager dbManager;
+
+    private final int minSamples;
+
+    private final int window;
+
+    private final Map<Key, RuntimeDistribution> distributions;
+
+    public TaskRuntimePredictor(SchedulerDBManager dbManager) {
+        this(dbManager,
+             PASchedulerProperties.SCHEDULER_PREDICTION_MAX_DISTRIBUTIONS.getValueAsInt(),
+             PASchedulerProperties.SCHEDULER_PREDICTION_MIN_SAMPLES.getValueAsInt(),
+             PASchedulerProperties.SCHEDULER_PREDICTION_WINDOW.getValueAsInt());
+    }
+
+    TaskRuntimePredictor(SchedulerDBManager dbManager, final int maxDistributions, int minSamples, int window) {
+        this.dbManager = dbManager;
+        this.minSamples = Math.max(minSamples, 1);
+        this.window = Math.max(window, 2);
+        this.distributions = new LinkedHashMap<Key, RuntimeDistribution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, RuntimeDistribution> eldest) {
+                return size() > maxDistributions;
+            }
+        };
+    }
+
+    /**
+     * Learns the distributions from the given number of most recent finished tasks of the database.
+     *
+     * @param history the maximum number of finished tasks to read
+     */
+    public void initialize(int history) {
+        if (dbManager == null || history <= 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Object[]> durations;
+        try {
+            durations = dbManager.getFinishedTaskDurations(history);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read the durations of the finished tasks, runtime predictions start empty", e);
+            return;
+        }
+        synchronized (this) {
+            // oldest first, so that the most recent durations weight more
+            for (int i = durations.size() - 1; i >= 0; i--) {
+                Object[] duration = durations.get(i);
+                taskFinished((String) duration[0], (String) duration[1], (Long) duration[2]);
+            }
+        }
+        logger.info("Task runtime predictions learned from " + durations.size() + " finished tasks in " +
+                    (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Records the execution duration of a task which finished successfully.
+     *
+     * @param taskId the id of the task, carrying the task and job names
+     * @param duration the execution duration of the task, in milliseconds
+     */
+    public void taskFinished(TaskId taskId, long duration) {
+        taskFinished(taskId.getJobId().getReadableName(), taskId.getReadableName(), duration);
+    }
+
+    /**
+     * Records the execution duration of a task which finished successfully.
+     *
+     * @param jobName the name of the job of the task
+     * @param taskName the name of the task
+     * @param duration the execution duration of the task, in milliseconds
+     */
+    public synchronized void taskFinished(String jobName, String taskName, long duration) {
+        if (jobName == null || taskName == null || duration < 0) {
+            return;
+        }
+        getDistribution(new Key(jobName, getBaseName(taskName))).add(duration, window);
+        getDistribution(new Key(jobName, null)).add(duration, window);
+    }
+
+    private RuntimeDistribution getDistribution(Key key) {
+        RuntimeDistribution distribution = distributions.get(key);
+        if (distribution == null) {
+            distribution = new RuntimeDistribution();
+            distributions.put(key, distribution);
+        }
+        return distribution;
+    }
+
+    /**
+     * @param taskId the id of the task, carrying the task and job names
+     * @return the predicted execution duration of the task, <code>null</code> if unknown
+     * @see #getPrediction(String, String)
+     */
+    public TaskRuntimePrediction getPrediction(TaskId taskId) {
+        return getPrediction(taskId.getJobId().getReadableName(), taskId.getReadableName());
+    }
+
+    /**
+     * Predicts the execution duration of a task from the tasks of the same name in the jobs of the
+     * same name, or from all the tasks of the jobs of the same name if there are too few of them.
+     *
+     * @param jobName the name of the job
+     * @param taskName the name of the task, <code>null</code> for a prediction over all the tasks
+     * of the job
+     * @return the predicted execution duration, <code>null</code> if unknown
+     */
+    public synchronized TaskRuntimePrediction getPrediction(String jobName, String taskName) {
+        if (jobName == null) {
+            return null;
+        }
+        if (taskName != null) {
+            String baseName = getBaseName(taskName);
+            RuntimeDistribution distribution = distributions.get(new Key(jobName, baseName));
+            if (distribution != null && distribution.getCount() >= minSamples) {
+                return distribution.toPrediction(jobName, baseName);
+            }
+        }
+        RuntimeDistribution distribution = distributions.get(new Key(jobName, null));
+        if (distribution != null && distribution.getCount() >= minSamples) {
+            return distribution.toPrediction(jobName, null);
+        }
+        return null;
+    }
+
+    synchronized int getDistributionsNumber() {
+        return distributions.size();
+    }
+
+    /**
+     * @return the name of the task without its iteration and replication indexes
+     */
+    static String getBaseName(String taskName) {
+        int end = taskName.length();
+        int iteration = taskName.indexOf(TaskId.ITERATION_SEPARATOR);
+        if (iteration != -1) {
+            end = iteration;
+        }
+        int replication = taskName.indexOf(TaskId.REPLICATION_SEPARATOR);
+        if (replication != -1 && replication < end) {
+            end = replication;
+        }
+        return taskName.substring(0, end);
+    }
+
+    private static final class Key {
+
+        private final String jobName;
+
+        private final String taskName;
+
+        private Key(String jobName, String taskName) {
+            this.jobName = jobName;
+            this.taskName = taskName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return jobName.equals(key.jobName) &&
+                   (taskName == null ? key.taskName == null : taskName.equals(key.taskName));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * jobName.hashCode() + (taskName == null ? 0 : taskName.hashCode());
+        }
+    }
+}
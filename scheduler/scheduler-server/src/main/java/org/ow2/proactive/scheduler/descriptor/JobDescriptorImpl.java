@@ -25,6 +25,7 @@
  */
 package org.ow2.proactive.scheduler.descriptor;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -34,6 +35,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
@@ -96,6 +98,12 @@ public class JobDescriptorImpl implements JobDescriptor {
     /** Job paused tasks */
     private Map<TaskId, EligibleTaskDescriptor> pausedTasks = new HashMap<>();
 
+    /** Eligible tasks held back by the policy until their start time */
+    private Map<TaskId, DeferredTask> deferredTasks = new HashMap<>();
+
+    /** Deferred tasks ordered by start time, may contain tasks which are not deferred anymore */
+    private PriorityQueue<DeferredTask> deferredTasksByStartTime = new PriorityQueue<>();
+
     /** All tasks with their children */
     private final Map<InternalTask, TaskDescriptor> allTasksWithTheirChildren = new HashMap<>();
 
@@ -608,6 +616,9 @@ public class JobDescriptorImpl implements JobDescriptor {
         if (taskToRun == null) {
             taskToRun = pausedTasks.remove(taskId);
         }
+        if (taskToRun == null) {
+            taskToRun = removeDeferredTask(taskId);
+        }
         if (taskToRun != null) {
             runningTasks.put(taskId, taskToRun);
             terminate(taskId);
@@ -622,11 +633,16 @@ public class JobDescriptorImpl implements JobDescriptor {
     public void failed() {
         eligibleTasks.clear();
         runningTasks.clear();
+        deferredTasks.clear();
+        deferredTasksByStartTime.clear();
     }
 
     public void pause(TaskId taskId) {
         if (getInternal().getType() == JobType.TASKSFLOW) {
             EligibleTaskDescriptor eligibleTaskDescriptor = eligibleTasks.remove(taskId);
+            if (eligibleTaskDescriptor == null) {
+                eligibleTaskDescriptor = removeDeferredTask(taskId);
+            }
 
             if (eligibleTaskDescriptor != null) {
                 pausedTasks.put(taskId, eligibleTaskDescriptor);
@@ -654,6 +670,60 @@ public class JobDescriptorImpl implements JobDescriptor {
         }
     }
 
+    /**
+     * Hold an eligible task back until the given start time. The task is not given to the policy
+     * anymore until it is released by {@link #releaseDeferredTasks(long)}.
+     *
+     * @param taskId the id of the eligible task to defer.
+     * @param startTime the time from which the task can be started, in milliseconds.
+     */
+    public void defer(TaskId taskId, long startTime) {
+        EligibleTaskDescriptor eligibleTaskDescriptor = eligibleTasks.remove(taskId);
+
+        if (eligibleTaskDescriptor != null) {
+            DeferredTask deferredTask = new DeferredTask(eligibleTaskDescriptor, startTime);
+            deferredTasks.put(taskId, deferredTask);
+            deferredTasksByStartTime.add(deferredTask);
+        }
+    }
+
+    /**
+     * Make eligible again the deferred tasks whose start time is passed. Only the released tasks
+     * are looked at.
+     *
+     * @param now the current time in milliseconds.
+     */
+    public void releaseDeferredTasks(long now) {
+        DeferredTask deferredTask;
+        while ((deferredTask = deferredTasksByStartTime.peek()) != null && deferredTask.startTime < now) {
+            release(deferredTasksByStartTime.poll());
+        }
+    }
+
+    /**
+     * Make eligible again all the deferred tasks, whatever their start time.
+     */
+    public void releaseAllDeferredTasks() {
+        DeferredTask deferredTask;
+        while ((deferredTask = deferredTasksByStartTime.poll()) != null) {
+            release(deferredTask);
+        }
+    }
+
+    private void release(DeferredTask deferredTask) {
+        TaskId taskId = deferredTask.task.getTaskId();
+        // the task may have been paused or deferred again since it was queued
+        if (deferredTasks.get(taskId) == deferredTask) {
+            deferredTasks.remove(taskId);
+            eligibleTasks.put(taskId, deferredTask.task);
+        }
+    }
+
+    private EligibleTaskDescriptor removeDeferredTask(TaskId taskId) {
+        DeferredTask deferredTask = deferredTasks.remove(taskId);
+        return deferredTask == null ? null : deferredTask.task;
+    }
+
     public EligibleTaskDescriptor removePausedTask(TaskId taskId) {
         if (getInternal().getType() == JobType.TASKSFLOW) {
             return pausedTasks.remove(taskId);
@@ -793,4 +863,21 @@ public class JobDescriptorImpl implements JobDescriptor {
         return "JobDescriptor(" + getJobId() + ")";
     }
 
+    private static final class DeferredTask implements Comparable<DeferredTask>, Serializable {
+
+        private final EligibleTaskDescriptor task;
+
+        private final long startTime;
+
+        private DeferredTask(EligibleTaskDescriptor task, long startTime) {
+            this.task = task;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public int compareTo(DeferredTask other) {
+            return Long.compare(startTime, other.startTime);
+        }
+    }
+
 }
@@ -27,13 +27,13 @@ package org.ow2.proactive.scheduler.policy;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.ow2.proactive.scheduler.common.JobDescriptor;
 import org.ow2.proactive.scheduler.common.TaskDescriptor;
+import org.ow2.proactive.scheduler.common.job.JobId;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
 import org.ow2.proactive.scheduler.descriptor.JobDescriptorImpl;
@@ -59,53 +59,85 @@ public class ExtendedSchedulerPolicy extends DefaultPolicy {
 
     public static final String GENERIC_INFORMATION_KEY_START_AT = "START_AT";
 
+    /** Start time of a task which can start immediately */
+    private static final long IMMEDIATE = Long.MIN_VALUE;
+
+    private final StartAtIndex startAtIndex = new StartAtIndex();
+
     /*
      * Utilize 'startAt' generic info and filter any tasks that should not be scheduled for current
-     * execution cycle.
+     * execution cycle. The START_AT of a task is only resolved and parsed when it becomes eligible.
+     * A task whose start time is not reached is deferred in its job descriptor, which holds it back
+     * until then, so that each cycle only goes through the tasks which can be started.
      */
     @Override
     public LinkedList<EligibleTaskDescriptor> getOrderedTasks(List<JobDescriptor> jobDescList) {
-        Date now = new Date();
+        long now = System.currentTimeMillis();
         LinkedList<EligibleTaskDescriptor> executionCycleTasks = new LinkedList<>();
         Collections.sort(jobDescList, FIFO_BY_PRIORITY_COMPARATOR);
 
+        startAtIndex.beginCycle();
         for (JobDescriptor jobDesc : jobDescList) {
+            boolean startAtChanged = startAtIndex.consumeChange(jobDesc.getJobId());
+            if (startAtChanged) {
+                ((JobDescriptorImpl) jobDesc).releaseAllDeferredTasks();
+            }
             Collection<TaskDescriptor> tasks = jobDesc.getEligibleTasks();
             Collection<EligibleTaskDescriptor> eligibleTasks = (Collection) tasks;
             for (EligibleTaskDescriptor candidate : eligibleTasks) {
-                String startAt = getStartAtValue(jobDesc, candidate);
-                if (startAt == null) {
-                    executionCycleTasks.add(candidate);
-                } else {
-                    try {
-                        if (now.after(ISO8601DateUtil.toDate(startAt))) {
-                            executionCycleTasks.add(candidate);
-
-                        } else {
-                            if (logger.isTraceEnabled()) {
-                                logger.trace(String.format("Task [jobId:\"%s\", taskId:\"%s\"] is scheduled to be executed at %s." +
-                                                           " It will not be scheduled for this execution cycle at %s.",
-                                                           jobDesc.getJobId(),
-                                                           candidate.getTaskId(),
-                                                           startAt,
-                                                           ISO8601DateUtil.parse(now)));
-                            }
-                        }
-                    } catch (IllegalArgumentException e) {
-                        logger.error(String.format("An error occurred while processing 'startAt' generic info.%n" +
-                                                   "Task ([job-id:\"%s\", task-id:\"%s\"]) will be scheduled immediately for execution.",
-                                                   jobDesc.getJobId().toString(),
-                                                   candidate.getTaskId().toString()),
-                                     e);
-                        executionCycleTasks.add(candidate);
+                boolean startable = !startAtChanged && startAtIndex.isStartable(candidate.getTaskId());
+                if (!startable) {
+                    long startTime = readStartTime(jobDesc, candidate, now);
+                    startable = startTime < now;
+                    if (startable) {
+                        startAtIndex.putStartable(candidate.getTaskId());
+                    } else {
+                        ((JobDescriptorImpl) jobDesc).defer(candidate.getTaskId(), startTime);
                     }
-
+                }
+                if (startable) {
+                    executionCycleTasks.add(candidate);
                 }
             }
         }
+        startAtIndex.endCycle();
         return executionCycleTasks;
     }
 
+    @Override
+    public void jobStartAtChanged(JobId jobId) {
+        startAtIndex.invalidate(jobId);
+    }
+
+    /*
+     * Returns the time at which the task can start, or IMMEDIATE if it has no or a malformed
+     * 'startAt' generic info.
+     */
+    private long readStartTime(JobDescriptor jobDesc, EligibleTaskDescriptor candidate, long now) {
+        String startAt = getStartAtValue(jobDesc, candidate);
+        if (startAt == null) {
+            return IMMEDIATE;
+        }
+        try {
+            long startTime = ISO8601DateUtil.toDate(startAt).getTime();
+            if (startTime >= now && logger.isTraceEnabled()) {
+                logger.trace(String.format("Task [jobId:\"%s\", taskId:\"%s\"] is scheduled to be executed at %s." +
+                                           " It will not be scheduled before.",
+                                           jobDesc.getJobId(),
+                                           candidate.getTaskId(),
+                                           startAt));
+            }
+            return startTime;
+        } catch (IllegalArgumentException e) {
+            logger.error(String.format("An error occurred while processing 'startAt' generic info.%n" +
+                                       "Task ([job-id:\"%s\", task-id:\"%s\"]) will be scheduled immediately for execution.",
+                                       jobDesc.getJobId().toString(),
+                                       candidate.getTaskId().toString()),
+                         e);
+            return IMMEDIATE;
+        }
+    }
+
     /*
      * START_AT property defined at task level always has the precedence over the same property
      * defined job level.
@@ -38,6 +38,10 @@ import org.objectweb.proactive.annotation.PublicAPI;
 import org.ow2.proactive.resourcemanager.common.RMState;
 import org.ow2.proactive.scheduler.common.JobDescriptor;
 import org.ow2.proactive.scheduler.common.Scheduler;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
+import org.ow2.proactive.scheduler.core.prediction.TaskRuntimePredictor;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
 import org.ow2.proactive.utils.NodeSet;
@@ -65,6 +69,9 @@ public abstract class Policy implements Serializable {
     /** Config properties */
     protected Properties configProperties = null;
 
+    /** Runtime predictions learned from the finished tasks, null until set by the scheduler */
+    private transient TaskRuntimePredictor runtimePredictor = null;
+
     /**
      * Create a new instance of Policy (must be public).
      * Called by class.forname when instantiating the policy.
@@ -102,6 +109,34 @@ public abstract class Policy implements Serializable {
         return true;
     }
 
+    /**
+     * Called when a task accepted by {@link #isTaskExecutable(NodeSet, EligibleTaskDescriptor)} could not be
+     * started in the same scheduling loop (the task will be scheduled again later).
+     * Overriding this method allows to roll back the resources booked for the task.
+     *
+     * @param task task which was accepted but not started
+     */
+    public void taskNotStarted(EligibleTaskDescriptor task) {
+    }
+
+    /**
+     * Called when a running task terminates, whatever the reason (finished, faulty, killed, node failure...).
+     * Overriding this method allows to release the resources booked for the task as soon as it ends.
+     *
+     * @param taskId id of the terminated task
+     */
+    public void taskTerminated(TaskId taskId) {
+    }
+
+    /**
+     * Called when the START_AT of a job has been changed while it is pending or running.
+     * Overriding this method allows to drop what the policy computed from the former value.
+     *
+     * @param jobId id of the changed job
+     */
+    public void jobStartAtChanged(JobId jobId) {
+    }
+
     /**
      * Set the RM state
      *
@@ -111,6 +146,30 @@ public abstract class Policy implements Serializable {
         this.RMState = state;
     }
 
+    /**
+     * Set the runtime predictions of the tasks
+     *
+     * @param runtimePredictor predictions learned from the finished tasks
+     */
+    public final void setRuntimePredictor(TaskRuntimePredictor runtimePredictor) {
+        this.runtimePredictor = runtimePredictor;
+    }
+
+    /**
+     * Return the expected execution duration of the given task, learned from the tasks of the same name which
+     * finished successfully in the jobs of the same name.
+     * Can be used in an inherit policy to order the tasks or to estimate when resources will be released.
+     *
+     * @param task an eligible task
+     * @return the predicted execution duration of the task, or null if it is unknown
+     */
+    protected final TaskRuntimePrediction getRuntimePrediction(EligibleTaskDescriptor task) {
+        if (runtimePredictor == null) {
+            return null;
+        }
+        return runtimePredictor.getPrediction(task.getTaskId());
+    }
+
     /**
      * Return the configuration as properties (key-&gt;value) read in the policy config file.
      * The returned value can be null or empty if no property has been loaded.
@@ -0,0 +1,127 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+
+
+/**
+ * Eligible tasks whose start time, as given by their START_AT generic information, is passed.
+ * <p>
+ * Resolving the generic information of a task and parsing its date is done once, when the task
+ * is first seen eligible. A task whose start time is not reached is deferred in its job
+ * descriptor instead, and is read again when it is released. A task which is not eligible
+ * anymore at the end of a scheduling cycle (started, killed, its job finished) is dropped from
+ * the index, so that its START_AT is read again, with its variables of the moment, if it becomes
+ * eligible again. The index thus only holds tasks which can be started.
+ * <p>
+ * The index is only used from the scheduling loop, except {@link #invalidate(JobId)}.
+ */
+class StartAtIndex implements Serializable {
+
+    private final Map<TaskId, Entry> entries = new HashMap<>();
+
+    /** Jobs whose START_AT changed, filled by the client threads */
+    private final Queue<JobId> invalidatedJobs = new ConcurrentLinkedQueue<>();
+
+    /** Jobs whose START_AT changed, not seen in a scheduling cycle since */
+    private final Set<JobId> changedJobs = new HashSet<>();
+
+    private long cycle = 0;
+
+    /**
+     * Starts a new scheduling cycle.
+     */
+    void beginCycle() {
+        cycle++;
+        JobId jobId;
+        while ((jobId = invalidatedJobs.poll()) != null) {
+            changedJobs.add(jobId);
+        }
+    }
+
+    /**
+     * Makes the START_AT of the tasks of the job read again at the next cycle which sees the job.
+     * Can be called from any thread.
+     */
+    void invalidate(JobId jobId) {
+        invalidatedJobs.add(jobId);
+    }
+
+    /**
+     * @return true, only once, if the START_AT of the job changed since its tasks were read
+     */
+    boolean consumeChange(JobId jobId) {
+        return !changedJobs.isEmpty() && changedJobs.remove(jobId);
+    }
+
+    /**
+     * @return true if the start time of the task is known to be passed
+     */
+    boolean isStartable(TaskId taskId) {
+        Entry entry = entries.get(taskId);
+        if (entry == null) {
+            return false;
+        }
+        entry.lastSeenCycle = cycle;
+        return true;
+    }
+
+    void putStartable(TaskId taskId) {
+        entries.put(taskId, new Entry(cycle));
+    }
+
+    /**
+     * Ends the scheduling cycle, dropping the tasks which have not been seen during it.
+     */
+    void endCycle() {
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().lastSeenCycle != cycle) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Entry implements Serializable {
+
+        private long lastSeenCycle;
+
+        private Entry(long lastSeenCycle) {
+            this.lastSeenCycle = lastSeenCycle;
+        }
+    }
+
+}
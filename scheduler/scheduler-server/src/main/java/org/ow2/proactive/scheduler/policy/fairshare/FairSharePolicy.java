@@ -0,0 +1,353 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.fairshare;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.log4j.Logger;
+import org.ow2.proactive.scheduler.common.JobDescriptor;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptorImpl;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.policy.ExtendedSchedulerPolicy;
+import org.ow2.proactive.utils.NodeSet;
+
+
+/**
+ * Fair-share policy: the eligible tasks of the users who consumed the least resources
+ * relatively to their share are scheduled first.
+ * <p>
+ * Shares are set per user and per group in the policy configuration file:
+ * <ul>
+ * <li>{@code user.<name>.share} and {@code group.<name>.share} give the share of a user or a
+ * group, {@code default.share} the share of the ones not listed (1 by default).</li>
+ * <li>{@code user.<name>.group} puts a user in a group. A user without group is scheduled as
+ * if it was alone in its own group.</li>
+ * <li>{@code usage.half.life} is the half-life in milliseconds of the historical usage
+ * (one day by default).</li>
+ * <li>{@code usage.cycle.charge} is the usage in milliseconds charged in advance to a user for
+ * each node of a task ordered in a scheduling cycle (one minute by default), so that the tasks of
+ * the users are interleaved within a cycle instead of being granted to the least consuming user
+ * only.</li>
+ * </ul>
+ * The usage is maintained incrementally when tasks start and terminate, see
+ * {@link FairShareUsageLedger}. Each cycle, the tasks are ordered by merging per user queues
+ * through a heap of groups, each one holding a heap of its users: ordering n tasks of u users
+ * costs O(n.log(u)). Job priorities still prevail over the shares, and within a user the tasks
+ * keep the order of {@link ExtendedSchedulerPolicy}, which also filters the tasks which must
+ * not start yet.
+ */
+public class FairSharePolicy extends ExtendedSchedulerPolicy {
+
+    private static final Logger logger = Logger.getLogger(FairSharePolicy.class);
+
+    public static final String DEFAULT_SHARE_PROPERTY = "default.share";
+
+    public static final String USAGE_HALF_LIFE_PROPERTY = "usage.half.life";
+
+    public static final String USAGE_CYCLE_CHARGE_PROPERTY = "usage.cycle.charge";
+
+    private static final String USER_PREFIX = "user.";
+
+    private static final String GROUP_PREFIX = "group.";
+
+    private static final String SHARE_SUFFIX = ".share";
+
+    private static final String GROUP_SUFFIX = ".group";
+
+    private static final long DEFAULT_CYCLE_CHARGE = 60 * 1000;
+
+    private final FairShareUsageLedger ledger = new FairShareUsageLedger();
+
+    private long cycleCharge = DEFAULT_CYCLE_CHARGE;
+
+    /** Owner of the jobs of the last cycle, to account the tasks when they start */
+    private Map<JobId, String> owners = new HashMap<>();
+
+    @Override
+    public boolean reloadConfig() {
+        boolean loaded = super.reloadConfig();
+        Map<String, Double> userShares = new HashMap<>();
+        Map<String, Double> groupShares = new HashMap<>();
+        Map<String, String> userGroups = new HashMap<>();
+        double defaultShare = FairShareUsageLedger.DEFAULT_SHARE;
+        long halfLife = FairShareUsageLedger.DEFAULT_HALF_LIFE;
+        long charge = DEFAULT_CYCLE_CHARGE;
+        if (getConfigurationProperties() != null) {
+            for (String name : getConfigurationProperties().stringPropertyNames()) {
+                String value = getProperty(name).trim();
+                try {
+                    if (name.equals(DEFAULT_SHARE_PROPERTY)) {
+                        defaultShare = parseShare(value);
+                    } else if (name.equals(USAGE_HALF_LIFE_PROPERTY)) {
+                        halfLife = Long.parseLong(value);
+                    } else if (name.equals(USAGE_CYCLE_CHARGE_PROPERTY)) {
+                        charge = Long.parseLong(value);
+                    } else if (name.startsWith(USER_PREFIX) && name.endsWith(SHARE_SUFFIX)) {
+                        userShares.put(strip(name, USER_PREFIX, SHARE_SUFFIX), parseShare(value));
+                    } else if (name.startsWith(USER_PREFIX) && name.endsWith(GROUP_SUFFIX)) {
+                        userGroups.put(strip(name, USER_PREFIX, GROUP_SUFFIX), value);
+                    } else if (name.startsWith(GROUP_PREFIX) && name.endsWith(SHARE_SUFFIX)) {
+                        groupShares.put(strip(name, GROUP_PREFIX, SHARE_SUFFIX), parseShare(value));
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring fair-share property " + name + " : " + value + " is not a valid number");
+                }
+            }
+        }
+        ledger.configure(halfLife, defaultShare, userShares, groupShares, userGroups, now());
+        cycleCharge = charge;
+        if (!loaded) {
+            logger.warn("Fair-share configuration not loaded, every user and group has the default share");
+        }
+        // a missing configuration only means that everyone has the same share
+        return true;
+    }
+
+    @Override
+    public LinkedList<EligibleTaskDescriptor> getOrderedTasks(List<JobDescriptor> jobs) {
+        Map<JobId, String> jobOwners = new HashMap<>(jobs.size());
+        Map<JobId, JobPriority> jobPriorities = new HashMap<>(jobs.size());
+        for (JobDescriptor job : jobs) {
+            InternalJob internalJob = ((JobDescriptorImpl) job).getInternal();
+            jobOwners.put(job.getJobId(), internalJob.getOwner());
+            jobPriorities.put(job.getJobId(), internalJob.getPriority());
+        }
+        owners = jobOwners;
+
+        // tasks sorted by priority and submission, per user
+        LinkedList<EligibleTaskDescriptor> candidates = super.getOrderedTasks(jobs);
+        long now = now();
+        Map<String, UserQueue> userQueues = new HashMap<>();
+        Map<String, GroupQueue> groupQueues = new HashMap<>();
+        long sequence = 0;
+        for (EligibleTaskDescriptor task : candidates) {
+            String user = jobOwners.get(task.getJobId());
+            UserQueue userQueue = userQueues.get(user);
+            if (userQueue == null) {
+                userQueue = newUserQueue(user, groupQueues, now);
+                userQueues.put(user, userQueue);
+            }
+            userQueue.tasks.add(new QueuedTask(task, jobPriorities.get(task.getJobId()), sequence++));
+        }
+        // the heaps order the queues by their head task, they are filled once the queues are
+        for (UserQueue userQueue : userQueues.values()) {
+            userQueue.group.users.add(userQueue);
+        }
+
+        PriorityQueue<GroupQueue> heap = new PriorityQueue<>(Math.max(1, groupQueues.size()), GROUP_ORDER);
+        for (GroupQueue groupQueue : groupQueues.values()) {
+            heap.add(groupQueue);
+        }
+        LinkedList<EligibleTaskDescriptor> ordered = new LinkedList<>();
+        while (!heap.isEmpty()) {
+            GroupQueue groupQueue = heap.poll();
+            UserQueue userQueue = groupQueue.users.poll();
+            QueuedTask next = userQueue.tasks.poll();
+            ordered.add(next.task);
+
+            double charge = (double) cycleCharge * getNodesNumber(next.task);
+            userQueue.usage += charge / userQueue.share;
+            groupQueue.usage += charge / groupQueue.share;
+            // both queues are out of their heaps while their order changes
+            if (!userQueue.tasks.isEmpty()) {
+                groupQueue.users.add(userQueue);
+            }
+            if (!groupQueue.users.isEmpty()) {
+                heap.add(groupQueue);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Accounts the nodes of the task as soon as it is about to start.
+     */
+    @Override
+    public boolean isTaskExecutable(NodeSet selectedNodes, EligibleTaskDescriptor task) {
+        String owner = owners.get(task.getJobId());
+        if (owner != null) {
+            ledger.taskStarted(task.getTaskId(), owner, getNodesNumber(task), now());
+        }
+        return true;
+    }
+
+    @Override
+    public void taskNotStarted(EligibleTaskDescriptor task) {
+        ledger.taskTerminated(task.getTaskId(), now());
+    }
+
+    @Override
+    public void taskTerminated(TaskId taskId) {
+        ledger.taskTerminated(taskId, now());
+    }
+
+    FairShareUsageLedger getLedger() {
+        return ledger;
+    }
+
+    /**
+     * @return the current time in milliseconds, overridden by the simulations
+     */
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private UserQueue newUserQueue(String user, Map<String, GroupQueue> groupQueues, long now) {
+        double share = ledger.getUserShare(user);
+        double usage = ledger.getUserUsage(user, now);
+        String group = ledger.getGroup(user);
+        // a user without group competes alone with the groups, using its own share
+        String groupKey = group == null ? USER_PREFIX + user : GROUP_PREFIX + group;
+        GroupQueue groupQueue = groupQueues.get(groupKey);
+        if (groupQueue == null) {
+            if (group == null) {
+                groupQueue = new GroupQueue(share, usage);
+            } else {
+                groupQueue = new GroupQueue(ledger.getGroupShare(group), ledger.getGroupUsage(group, now));
+            }
+            groupQueues.put(groupKey, groupQueue);
+        }
+        return new UserQueue(groupQueue, share, usage);
+    }
+
+    private static int getNodesNumber(EligibleTaskDescriptor task) {
+        return Math.max(1, ((EligibleTaskDescriptorImpl) task).getInternal().getNumberOfNodesNeeded());
+    }
+
+    private static double parseShare(String value) {
+        double share = Double.parseDouble(value);
+        if (!(share > 0)) {
+            throw new NumberFormatException("A share must be positive");
+        }
+        return share;
+    }
+
+    private static String strip(String name, String prefix, String suffix) {
+        return name.substring(prefix.length(), name.length() - suffix.length());
+    }
+
+    private static final class QueuedTask {
+
+        private final EligibleTaskDescriptor task;
+
+        private final JobPriority priority;
+
+        /** Position of the task in the priority and submission order */
+        private final long sequence;
+
+        private QueuedTask(EligibleTaskDescriptor task, JobPriority priority, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class UserQueue {
+
+        private final ArrayDeque<QueuedTask> tasks = new ArrayDeque<>();
+
+        private final GroupQueue group;
+
+        private final double share;
+
+        /** Usage relatively to the share, including the charges of the current cycle */
+        private double usage;
+
+        private UserQueue(GroupQueue group, double share, double usage) {
+            this.group = group;
+            this.share = share;
+            this.usage = usage / share;
+        }
+    }
+
+    private static final class GroupQueue {
+
+        private final PriorityQueue<UserQueue> users = new PriorityQueue<>(1, USER_ORDER);
+
+        private final double share;
+
+        /** Usage relatively to the share, including the charges of the current cycle */
+        private double usage;
+
+        private GroupQueue(double share, double usage) {
+            this.share = share;
+            this.usage = usage / share;
+        }
+    }
+
+    /**
+     * Higher job priority first, then lower relative usage, then priority and submission order.
+     */
+    private static final Comparator<UserQueue> USER_ORDER = new Comparator<UserQueue>() {
+        @Override
+        public int compare(UserQueue user1, UserQueue user2) {
+            QueuedTask head1 = user1.tasks.peek();
+            QueuedTask head2 = user2.tasks.peek();
+            int byPriority = comparePriority(head1, head2);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            int byUsage = Double.compare(user1.usage, user2.usage);
+            if (byUsage != 0) {
+                return byUsage;
+            }
+            return Long.compare(head1.sequence, head2.sequence);
+        }
+    };
+
+    private static final Comparator<GroupQueue> GROUP_ORDER = new Comparator<GroupQueue>() {
+        @Override
+        public int compare(GroupQueue group1, GroupQueue group2) {
+            QueuedTask head1 = group1.users.peek().tasks.peek();
+            QueuedTask head2 = group2.users.peek().tasks.peek();
+            int byPriority = comparePriority(head1, head2);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            int byUsage = Double.compare(group1.usage, group2.usage);
+            if (byUsage != 0) {
+                return byUsage;
+            }
+            return Long.compare(head1.sequence, head2.sequence);
+        }
+    };
+
+    private static int comparePriority(QueuedTask head1, QueuedTask head2) {
+        return head2.priority.compareTo(head1.priority);
+    }
+
+}
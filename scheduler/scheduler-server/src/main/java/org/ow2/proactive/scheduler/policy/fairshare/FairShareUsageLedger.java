@@ -0,0 +1,221 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.fairshare;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ow2.proactive.scheduler.common.task.TaskId;
+
+
+/**
+ * Historical resource usage of the users and groups scheduled with {@link FairSharePolicy}.
+ * <p>
+ * The usage of an account is the number of node-milliseconds its tasks consumed, exponentially
+ * decayed with the configured half-life so that old consumption weighs less than recent one.
+ * The usage is never recomputed from the task history: each account keeps its usage at the time
+ * of its last update together with the number of nodes its tasks currently hold, and is only
+ * brought up to date when one of its tasks starts or terminates, or when its usage is read.
+ * With a decay rate k and n held nodes, the usage u evolves as du/dt = n - k.u, whose closed form
+ * is applied over the elapsed time.
+ * <p>
+ * All methods are synchronized.
+ */
+class FairShareUsageLedger implements Serializable {
+
+    static final long DEFAULT_HALF_LIFE = 24 * 60 * 60 * 1000L;
+
+    static final double DEFAULT_SHARE = 1;
+
+    /** Decay rate per millisecond */
+    private double decayRate = Math.log(2) / DEFAULT_HALF_LIFE;
+
+    private double defaultShare = DEFAULT_SHARE;
+
+    private Map<String, Double> userShares = new HashMap<>();
+
+    private Map<String, Double> groupShares = new HashMap<>();
+
+    private Map<String, String> userGroups = new HashMap<>();
+
+    private final Map<String, Account> users = new HashMap<>();
+
+    private final Map<String, Account> groups = new HashMap<>();
+
+    private final Map<TaskId, RunningTask> runningTasks = new HashMap<>();
+
+    /**
+     * Replaces the shares and the half-life. The usages recorded so far are kept.
+     *
+     * @param halfLife half-life of the usage in milliseconds
+     * @param defaultShare share of the users and groups not listed
+     * @param userShares share per user
+     * @param groupShares share per group
+     * @param userGroups group per user, a user without group is its own group
+     */
+    synchronized void configure(long halfLife, double defaultShare, Map<String, Double> userShares,
+            Map<String, Double> groupShares, Map<String, String> userGroups, long now) {
+        // bring every account up to date with the previous decay rate
+        for (Account account : users.values()) {
+            account.advance(now, decayRate);
+        }
+        for (Account account : groups.values()) {
+            account.advance(now, decayRate);
+        }
+        this.decayRate = Math.log(2) / Math.max(1, halfLife);
+        this.defaultShare = defaultShare;
+        this.userShares = new HashMap<>(userShares);
+        this.groupShares = new HashMap<>(groupShares);
+        this.userGroups = new HashMap<>(userGroups);
+    }
+
+    /**
+     * Starts accounting the nodes held by a task. A task already accounted is left untouched.
+     */
+    synchronized void taskStarted(TaskId taskId, String user, int nodes, long now) {
+        if (runningTasks.containsKey(taskId)) {
+            return;
+        }
+        String group = getGroup(user);
+        runningTasks.put(taskId, new RunningTask(user, group, nodes));
+        account(users, user, now).runningNodes += nodes;
+        if (group != null) {
+            account(groups, group, now).runningNodes += nodes;
+        }
+    }
+
+    /**
+     * Stops accounting the nodes held by a task, the usage it consumed is kept.
+     */
+    synchronized void taskTerminated(TaskId taskId, long now) {
+        RunningTask task = runningTasks.remove(taskId);
+        if (task == null) {
+            return;
+        }
+        account(users, task.user, now).runningNodes -= task.nodes;
+        if (task.group != null) {
+            account(groups, task.group, now).runningNodes -= task.nodes;
+        }
+    }
+
+    /**
+     * @return the group of the user, or null if it belongs to no group
+     */
+    synchronized String getGroup(String user) {
+        return userGroups.get(user);
+    }
+
+    synchronized double getUserShare(String user) {
+        return getShare(userShares, user);
+    }
+
+    synchronized double getGroupShare(String group) {
+        return getShare(groupShares, group);
+    }
+
+    /**
+     * @return the decayed usage of the user in node-milliseconds
+     */
+    synchronized double getUserUsage(String user, long now) {
+        return getUsage(users, user, now);
+    }
+
+    /**
+     * @return the decayed usage of the group in node-milliseconds
+     */
+    synchronized double getGroupUsage(String group, long now) {
+        return getUsage(groups, group, now);
+    }
+
+    synchronized int getRunningTasksNumber() {
+        return runningTasks.size();
+    }
+
+    private double getShare(Map<String, Double> shares, String name) {
+        Double share = shares.get(name);
+        return share == null ? defaultShare : share;
+    }
+
+    private double getUsage(Map<String, Account> accounts, String name, long now) {
+        Account account = accounts.get(name);
+        if (account == null) {
+            return 0;
+        }
+        account.advance(now, decayRate);
+        return account.usage;
+    }
+
+    private Account account(Map<String, Account> accounts, String name, long now) {
+        Account account = accounts.get(name);
+        if (account == null) {
+            account = new Account(now);
+            accounts.put(name, account);
+        } else {
+            account.advance(now, decayRate);
+        }
+        return account;
+    }
+
+    private static final class Account implements Serializable {
+
+        private double usage = 0;
+
+        private int runningNodes = 0;
+
+        private long lastUpdate;
+
+        private Account(long now) {
+            this.lastUpdate = now;
+        }
+
+        private void advance(long now, double decayRate) {
+            long elapsed = now - lastUpdate;
+            if (elapsed <= 0) {
+                return;
+            }
+            double decay = Math.exp(-decayRate * elapsed);
+            usage = usage * decay + runningNodes * (1 - decay) / decayRate;
+            lastUpdate = now;
+        }
+    }
+
+    private static final class RunningTask implements Serializable {
+
+        private final String user;
+
+        private final String group;
+
+        private final int nodes;
+
+        private RunningTask(String user, String group, int nodes) {
+            this.user = user;
+            this.group = group;
+            this.nodes = nodes;
+        }
+    }
+
+}
@@ -25,11 +25,11 @@
  */
 package org.ow2.proactive.scheduler.policy.license;
 
-import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
-import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
 import org.ow2.proactive.scheduler.policy.ExtendedSchedulerPolicy;
@@ -39,10 +39,14 @@ import org.ow2.proactive.utils.NodeSet;
 /**
  * 
  * This Policy is designed to manage software licenses.
- * When a task contains the generic information REQUIRE_LICENSES,
+ * When a task contains the generic information REQUIRED_LICENSES,
  * this policy will check if there is an available license per
  * software to return true
  *
+ * REQUIRED_LICENSES is a comma separated list of software names, each one optionally followed by
+ * the number of license tokens the task needs, for instance "software1,software2:4" (one token by default).
+ * The tokens are released as soon as the task terminates, or if it could not be started.
+ *
  */
 public class LicenseSchedulingPolicy extends ExtendedSchedulerPolicy {
 
@@ -50,27 +54,16 @@ public class LicenseSchedulingPolicy extends ExtendedSchedulerPolicy {
 
     private static final String REQUIRED_LICENSES = "REQUIRED_LICENSES";
 
-    // A map of fixed size lists. A map entry per software license and a list per map entry to handle tasks using this software license.
-    private static Map<String, LinkedBlockingQueue<EligibleTaskDescriptor>> eligibleTasksDescriptorsLicenses = null;
-
-    // Will be initialize with the license properties file which includes the maximum licenses numbers per software
-    private static Properties properties = null;
-
-    private static void initialize() {
-        if (eligibleTasksDescriptorsLicenses == null) {
-            // Map initialization
-            eligibleTasksDescriptorsLicenses = new HashMap<String, LinkedBlockingQueue<EligibleTaskDescriptor>>();
-            // Retrieve properties from the license properties file ...
-            properties = LicenseConfiguration.getConfiguration().getProperties();
-            // ... and per software license, create a list handling all tasks using a this software license
-            Enumeration e = properties.propertyNames();
-            while (e.hasMoreElements()) {
-                String software = (String) e.nextElement();
-                int numberOfLicenses = Integer.parseInt(properties.getProperty(software));
-                eligibleTasksDescriptorsLicenses.put(software,
-                                                     new LinkedBlockingQueue<EligibleTaskDescriptor>(numberOfLicenses));
-            }
+    private static final String TOKENS_SEPARATOR = ":";
+
+    // Initialized with the license properties file which includes the maximum licenses numbers per software
+    private static volatile LicenseTokenManager tokenManager = null;
+
+    private static synchronized LicenseTokenManager getTokenManager() {
+        if (tokenManager == null) {
+            tokenManager = new LicenseTokenManager(LicenseConfiguration.getConfiguration().getProperties());
         }
+        return tokenManager;
     }
 
     @Override
@@ -88,24 +81,11 @@ public class LicenseSchedulingPolicy extends ExtendedSchedulerPolicy {
         // If it requires software licenses
         if (requiredLicenses != null) {
 
-            initialize();
-            logger.debug("Need to check licenses with " + properties.toString());
-
-            // Iterate over required software licenses
-            final String[] requiredLicensesArray = requiredLicenses.split(",");
-            for (int i = 0; i < requiredLicensesArray.length; i++) {
-                // Retrieve the current software license name and its available number
-                final String currentRequiredLicense = requiredLicensesArray[i];
-
-                // To be executed (ie return true), a task must get a license per requiring software license
-                if (!canGetLicense(currentRequiredLicense)) {
-                    logger.debug("License for " + currentRequiredLicense + " not available, keep task pending");
-                    return false;
-                }
-            }
-            // Here we manage to give a license for all required software licenses
-            for (int i = 0; i < requiredLicensesArray.length; i++) {
-                eligibleTasksDescriptorsLicenses.get(requiredLicensesArray[i]).add(task);
+            // To be executed (ie return true), a task must get all the tokens of every required software license
+            if (!getTokenManager().acquire(((EligibleTaskDescriptorImpl) task).getInternal(),
+                                           parseRequiredLicenses(requiredLicenses))) {
+                logger.debug("Licenses " + requiredLicenses + " not available, keep task pending");
+                return false;
             }
             logger.debug("All licenses are available, executing task");
             return true;
@@ -116,38 +96,43 @@ public class LicenseSchedulingPolicy extends ExtendedSchedulerPolicy {
 
     }
 
-    private void removeFinishedTasks(LinkedBlockingQueue<EligibleTaskDescriptor> eligibleTasksDescriptorsLicense) {
-        Iterator<EligibleTaskDescriptor> iter = eligibleTasksDescriptorsLicense.iterator();
-        EligibleTaskDescriptorImpl current_task;
-        while (iter.hasNext()) {
-            current_task = (EligibleTaskDescriptorImpl) iter.next();
-
-            if (current_task.getInternal().getStatus().equals(TaskStatus.FINISHED)) {
-                iter.remove();
-            }
+    @Override
+    public void taskNotStarted(EligibleTaskDescriptor task) {
+        if (tokenManager != null) {
+            tokenManager.release(task.getTaskId());
         }
     }
 
-    private boolean canGetLicense(String currentRequiredLicense) {
-
-        // If the required software is not specified in the license properties file
-        if (!eligibleTasksDescriptorsLicenses.containsKey(currentRequiredLicense))
-            return false;
-
-        LinkedBlockingQueue<EligibleTaskDescriptor> eligibleTasksDescriptorsLicense = eligibleTasksDescriptorsLicenses.get(currentRequiredLicense);
-        // if there are still remaining licenses return true
-        if (eligibleTasksDescriptorsLicense.remainingCapacity() > 0) {
-            return true;
+    @Override
+    public void taskTerminated(TaskId taskId) {
+        if (tokenManager != null) {
+            tokenManager.release(taskId);
         }
-        // otherwise remove all terminated tasks and check again if there are remaining licenses
-        else {
-            removeFinishedTasks(eligibleTasksDescriptorsLicense);
+    }
 
-            if (eligibleTasksDescriptorsLicense.remainingCapacity() > 0) {
-                return true;
+    static Map<String, Integer> parseRequiredLicenses(String requiredLicenses) {
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        for (String requiredLicense : requiredLicenses.split(",")) {
+            String software = requiredLicense.trim();
+            int count = 1;
+            int separator = software.lastIndexOf(TOKENS_SEPARATOR);
+            if (separator > 0) {
+                try {
+                    int parsed = Integer.parseInt(software.substring(separator + 1).trim());
+                    if (parsed >= 0) {
+                        count = parsed;
+                        software = software.substring(0, separator).trim();
+                    }
+                } catch (NumberFormatException e) {
+                    // not a number of tokens, the separator is part of the software name
+                }
+            }
+            if (!software.isEmpty()) {
+                Integer previous = tokens.get(software);
+                tokens.put(software, previous == null ? count : previous + count);
             }
-            return false;
         }
+        return tokens;
     }
 
 }
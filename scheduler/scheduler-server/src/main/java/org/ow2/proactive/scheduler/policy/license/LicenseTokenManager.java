@@ -0,0 +1,162 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.license;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+
+/**
+ * Counts the license tokens in use per software and the tokens held by each task.
+ * <p>
+ * Acquiring the tokens of a task costs one lookup per required software and releasing them one lookup
+ * per software held, whatever the number of tasks using the licenses. Tokens are released by
+ * {@link #release(TaskId)} when the task terminates. As a safety net, the holders which are not alive
+ * anymore are swept when requests cannot be satisfied, once for as many refused requests as holders so
+ * that the amortized cost of a request stays constant.
+ * <p>
+ * Acquisition and release are atomic: all methods are synchronized.
+ */
+class LicenseTokenManager {
+
+    private final Map<String, License> licenses = new HashMap<>();
+
+    private final Map<TaskId, Holder> holders = new HashMap<>();
+
+    private int refusalsSinceSweep = 0;
+
+    /**
+     * @param properties the number of tokens per software, as read from the license configuration file
+     */
+    LicenseTokenManager(Properties properties) {
+        Enumeration<?> names = properties.propertyNames();
+        while (names.hasMoreElements()) {
+            String software = (String) names.nextElement();
+            licenses.put(software, new License(Integer.parseInt(properties.getProperty(software).trim())));
+        }
+    }
+
+    /**
+     * Acquires, all or nothing, the given number of tokens per software for the task. The tokens already
+     * held by the task are released first, as it is being scheduled again.
+     *
+     * @param task the task requiring the licenses
+     * @param required the number of tokens required per software
+     * @return true if all the tokens have been acquired, false if the task must wait
+     */
+    synchronized boolean acquire(InternalTask task, Map<String, Integer> required) {
+        release(task.getId());
+        if (!areAvailable(required)) {
+            // sweeping costs as much as the number of holders, do it once for as many refused requests
+            if (++refusalsSinceSweep < holders.size() || !sweepTerminatedHolders() || !areAvailable(required)) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, Integer> entry : required.entrySet()) {
+            licenses.get(entry.getKey()).used += entry.getValue();
+        }
+        holders.put(task.getId(), new Holder(task, required));
+        return true;
+    }
+
+    /**
+     * Releases the tokens held by the given task, if any.
+     */
+    synchronized void release(TaskId taskId) {
+        Holder holder = holders.remove(taskId);
+        if (holder != null) {
+            giveBack(holder);
+        }
+    }
+
+    /**
+     * @return the number of tokens currently available for the software, or -1 if it is unknown
+     */
+    synchronized int getAvailableTokens(String software) {
+        License license = licenses.get(software);
+        return license == null ? -1 : license.capacity - license.used;
+    }
+
+    private boolean areAvailable(Map<String, Integer> required) {
+        for (Map.Entry<String, Integer> entry : required.entrySet()) {
+            License license = licenses.get(entry.getKey());
+            if (license == null || license.capacity - license.used < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sweepTerminatedHolders() {
+        refusalsSinceSweep = 0;
+        boolean released = false;
+        for (Iterator<Holder> iterator = holders.values().iterator(); iterator.hasNext();) {
+            Holder holder = iterator.next();
+            if (!holder.task.getStatus().isTaskAlive()) {
+                iterator.remove();
+                giveBack(holder);
+                released = true;
+            }
+        }
+        return released;
+    }
+
+    private void giveBack(Holder holder) {
+        for (Map.Entry<String, Integer> entry : holder.tokens.entrySet()) {
+            licenses.get(entry.getKey()).used -= entry.getValue();
+        }
+    }
+
+    private static final class License {
+
+        private final int capacity;
+
+        private int used;
+
+        private License(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private static final class Holder {
+
+        private final InternalTask task;
+
+        private final Map<String, Integer> tokens;
+
+        private Holder(InternalTask task, Map<String, Integer> tokens) {
+            this.task = task;
+            this.tokens = tokens;
+        }
+    }
+
+}
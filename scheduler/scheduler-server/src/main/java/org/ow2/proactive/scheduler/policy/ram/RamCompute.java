@@ -53,15 +53,24 @@ public class RamCompute implements Serializable {
     public RamCompute() {
     }
 
+    /**
+     *
+     * @return the total GIGA of RAM of the machine, regardless of the RAM preallocated by tasks.
+     */
+    public double getTotalRAMInGB() {
+
+        OperatingSystemMXBean bean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        return ((double) bean.getTotalPhysicalMemorySize()) / GIGABYTE;
+    }
+
     /**
      * 
      * @return the total GIGA of RAM available in a machine minus the RAM preallocated by a task.
      */
     public double getAvailableRAMInGB() {
 
-        OperatingSystemMXBean bean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
-
-        double totRAMAvailable = ((double) bean.getTotalPhysicalMemorySize()) / GIGABYTE;
+        double totRAMAvailable = getTotalRAMInGB();
 
         double totalRAMUsed = 0;
         for (LocalNode localNode : ProActiveRuntimeImpl.getProActiveRuntime().getLocalNodes()) {
@@ -0,0 +1,152 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.ram;
+
+import java.io.Serializable;
+import java.rmi.dgc.VMID;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+
+/**
+ * Scheduler side record of the RAM capacity of the nodes JVMs and of the RAM booked on them
+ * by the tasks scheduled with {@link RamSchedulingPolicy}.
+ * <p>
+ * The capacity of a JVM is the total RAM of its machine: it is reported once by the node and
+ * only refreshed periodically. Bookings are released as soon as their task is not alive anymore,
+ * so that a placement decision does not need any remote call once the capacity is known.
+ * <p>
+ * Booking and release are atomic: all methods are synchronized.
+ */
+class RamReservationLedger implements Serializable {
+
+    private final Map<VMID, Capacity> capacities = new HashMap<>();
+
+    private final Map<VMID, Map<TaskId, Booking>> bookings = new HashMap<>();
+
+    /**
+     * @return true if the capacity of the given JVM is unknown or older than the refresh period
+     */
+    synchronized boolean isCapacityOutdated(VMID vm, long now, long refreshPeriod) {
+        Capacity capacity = capacities.get(vm);
+        return capacity == null || now - capacity.reportTime >= refreshPeriod;
+    }
+
+    synchronized void updateCapacity(VMID vm, double totalRam, long now) {
+        capacities.put(vm, new Capacity(totalRam, now));
+    }
+
+    /**
+     * Books the given amount of RAM on the JVM for the task if it is available. A task already
+     * holding a booking on the JVM has it replaced, as it is being scheduled again.
+     *
+     * @return true if the RAM has been booked, false if there is not enough RAM available or if
+     * the capacity of the JVM is unknown
+     */
+    synchronized boolean book(VMID vm, InternalTask task, double neededRam) {
+        Capacity capacity = capacities.get(vm);
+        if (capacity == null) {
+            return false;
+        }
+        Map<TaskId, Booking> vmBookings = bookings.get(vm);
+        if (vmBookings == null) {
+            vmBookings = new HashMap<>();
+            bookings.put(vm, vmBookings);
+        }
+        double bookedRam = 0;
+        for (Iterator<Booking> iterator = vmBookings.values().iterator(); iterator.hasNext();) {
+            Booking booking = iterator.next();
+            if (!booking.task.getStatus().isTaskAlive()) {
+                iterator.remove();
+            } else if (!booking.task.getId().equals(task.getId())) {
+                bookedRam += booking.ram;
+            }
+        }
+        if (capacity.totalRam - bookedRam < neededRam) {
+            return false;
+        }
+        vmBookings.put(task.getId(), new Booking(task, neededRam));
+        return true;
+    }
+
+    /**
+     * Releases the RAM booked by the given task, if any.
+     */
+    synchronized void release(TaskId taskId) {
+        for (Map<TaskId, Booking> vmBookings : bookings.values()) {
+            vmBookings.remove(taskId);
+        }
+    }
+
+    /**
+     * @return the RAM of the JVM which is not booked by an alive task, or 0 if its capacity is unknown
+     */
+    synchronized double getFreeRam(VMID vm) {
+        Capacity capacity = capacities.get(vm);
+        if (capacity == null) {
+            return 0;
+        }
+        double freeRam = capacity.totalRam;
+        Map<TaskId, Booking> vmBookings = bookings.get(vm);
+        if (vmBookings != null) {
+            for (Booking booking : vmBookings.values()) {
+                if (booking.task.getStatus().isTaskAlive()) {
+                    freeRam -= booking.ram;
+                }
+            }
+        }
+        return freeRam;
+    }
+
+    private static final class Capacity implements Serializable {
+
+        private final double totalRam;
+
+        private final long reportTime;
+
+        private Capacity(double totalRam, long reportTime) {
+            this.totalRam = totalRam;
+            this.reportTime = reportTime;
+        }
+    }
+
+    private static final class Booking implements Serializable {
+
+        private final InternalTask task;
+
+        private final double ram;
+
+        private Booking(InternalTask task, double ram) {
+            this.task = task;
+            this.ram = ram;
+        }
+    }
+
+}
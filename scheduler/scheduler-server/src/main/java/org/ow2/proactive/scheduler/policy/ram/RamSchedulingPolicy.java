@@ -25,14 +25,18 @@
  */
 package org.ow2.proactive.scheduler.policy.ram;
 
+import java.rmi.dgc.VMID;
+
 import org.apache.log4j.Logger;
 import org.objectweb.proactive.ActiveObjectCreationException;
 import org.objectweb.proactive.api.PAActiveObject;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.node.NodeException;
+import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
 import org.ow2.proactive.scheduler.policy.ExtendedSchedulerPolicy;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
 import org.ow2.proactive.utils.NodeSet;
 
 
@@ -41,10 +45,12 @@ import org.ow2.proactive.utils.NodeSet;
  * This Policy is designed to handle preallocation of RAM into a node machine. 
  * When the task contains the generic information ALLOC_RAM_GIGABYTES, 
  * this policy will return false if there is not enough RAM available 
- * or true if there is RAM available (in this last case it will set the ALLOC_RAM_GIGABYTES property at node level to book the RAM in the node machine)
+ * or true if there is RAM available (in this last case the RAM is booked for the task in the node machine)
  * 
- * It's important to set the ALLOC_RAM_GIGABYTES task property to 0 in the clean script to release the preallocation. For example for a groovy clean script :
- * org.objectweb.proactive.api.PAActiveObject.getNode().setProperty("ALLOC_RAM_GIGABYTES","0");
+ * The total RAM of a node machine is asked to the node the first time it is selected and then only every
+ * capacity.refresh.period milliseconds (policy configuration property, 10 minutes by default). The bookings
+ * are kept by the scheduler and released when the task terminates or cannot be started, so it is no longer
+ * needed to reset the ALLOC_RAM_GIGABYTES node property in a clean script.
  *
  */
 public class RamSchedulingPolicy extends ExtendedSchedulerPolicy {
@@ -53,6 +59,12 @@ public class RamSchedulingPolicy extends ExtendedSchedulerPolicy {
 
     public static final String RAM_VARIABLE_NAME = "ALLOC_RAM_GIGABYTES";
 
+    public static final String CAPACITY_REFRESH_PERIOD_PROPERTY = "capacity.refresh.period";
+
+    private static final long DEFAULT_CAPACITY_REFRESH_PERIOD = 10 * 60 * 1000;
+
+    private final RamReservationLedger ledger = new RamReservationLedger();
+
     @Override
     public boolean isTaskExecutable(NodeSet selectedNodes, EligibleTaskDescriptor task) {
 
@@ -76,34 +88,61 @@ public class RamSchedulingPolicy extends ExtendedSchedulerPolicy {
 
     }
 
+    @Override
+    public void taskNotStarted(EligibleTaskDescriptor task) {
+        ledger.release(task.getTaskId());
+    }
+
+    @Override
+    public void taskTerminated(TaskId taskId) {
+        ledger.release(taskId);
+    }
+
     private boolean canRunTaskOnNode(NodeSet selectedNodes, EligibleTaskDescriptor task, double neededRam) {
         Node n = selectedNodes.get(0);
+        InternalTask internalTask = ((EligibleTaskDescriptorImpl) task).getInternal();
         try {
-            double freeRam = getFreeRamFromNode(n);
-            logger.debug("Free Ram for node (" + n.getNodeInformation().getName() + ") : " + freeRam +
-                         " , neededRam : " + neededRam);
-            if (freeRam >= neededRam) {
-                logger.debug("Task " + ((EligibleTaskDescriptorImpl) task).getInternal().getName() +
-                             " can execute on " + n);
-                n.setProperty(RAM_VARIABLE_NAME, "" + neededRam);
+            VMID vm = n.getVMInformation().getVMID();
+            long now = System.currentTimeMillis();
+            if (ledger.isCapacityOutdated(vm, now, getCapacityRefreshPeriod())) {
+                ledger.updateCapacity(vm, getTotalRamFromNode(n), now);
+            }
+            if (ledger.book(vm, internalTask, neededRam)) {
+                logger.debug("Task " + internalTask.getName() + " can execute on " + n + ", " + neededRam +
+                             " GB booked");
                 return true;
             }
+            logger.debug("Free Ram for node (" + n.getNodeInformation().getName() + ") : " + ledger.getFreeRam(vm) +
+                         " , neededRam : " + neededRam);
         } catch (Exception e) {
-            logger.error("Error while setting the property " + RAM_VARIABLE_NAME);
+            logger.error("Error while booking RAM for task " + internalTask.getName());
             throw new RuntimeException(e);
         }
         return false;
     }
 
-    private double getFreeRamFromNode(Node n) throws ActiveObjectCreationException, NodeException {
+    private long getCapacityRefreshPeriod() {
+        String period = getProperty(CAPACITY_REFRESH_PERIOD_PROPERTY);
+        if (period == null) {
+            return DEFAULT_CAPACITY_REFRESH_PERIOD;
+        }
+        try {
+            return Long.parseLong(period.trim());
+        } catch (NumberFormatException e) {
+            logger.warn(CAPACITY_REFRESH_PERIOD_PROPERTY + " : " + period + " is not a number");
+            return DEFAULT_CAPACITY_REFRESH_PERIOD;
+        }
+    }
+
+    protected double getTotalRamFromNode(Node n) throws ActiveObjectCreationException, NodeException {
         RamCompute ramCompute = PAActiveObject.newActive(RamCompute.class, new Object[] {}, n);
-        double freeRam = ramCompute.getAvailableRAMInGB();
+        double totalRam = ramCompute.getTotalRAMInGB();
         try {
             PAActiveObject.terminateActiveObject(ramCompute, true);
         } catch (Exception e) {
             logger.warn("Error while terminating Active Object", e);
         }
-        return freeRam;
+        return totalRam;
     }
 
 }
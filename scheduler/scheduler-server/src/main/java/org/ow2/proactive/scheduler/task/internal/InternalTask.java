@@ -28,6 +28,7 @@ package org.ow2.proactive.scheduler.task.internal;
 import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -46,7 +47,6 @@ import org.apache.commons.collections4.ListUtils;
 import org.objectweb.proactive.ActiveObjectCreationException;
 import org.objectweb.proactive.core.node.Node;
 import org.objectweb.proactive.core.node.NodeException;
-import org.objectweb.proactive.core.util.converter.ProActiveMakeDeepCopy;
 import org.ow2.proactive.scheduler.common.exception.ExecutableCreationException;
 import org.ow2.proactive.scheduler.common.job.JobInfo;
 import org.ow2.proactive.scheduler.common.task.ForkEnvironment;
@@ -56,9 +56,12 @@ import org.ow2.proactive.scheduler.common.task.TaskInfo;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.common.task.TaskVariable;
+import org.ow2.proactive.scheduler.common.task.UpdatableProperties;
 import org.ow2.proactive.scheduler.common.task.flow.FlowAction;
 import org.ow2.proactive.scheduler.common.task.flow.FlowActionType;
 import org.ow2.proactive.scheduler.common.task.flow.FlowBlock;
+import org.ow2.proactive.scheduler.common.task.flow.FlowScript;
 import org.ow2.proactive.scheduler.common.task.util.SerializationUtil;
 import org.ow2.proactive.scheduler.common.util.VariableSubstitutor;
 import org.ow2.proactive.scheduler.core.SchedulingService;
@@ -71,7 +74,9 @@ import org.ow2.proactive.scheduler.task.TaskLauncher;
 import org.ow2.proactive.scheduler.task.TaskLauncherInitializer;
 import org.ow2.proactive.scheduler.task.containers.ExecutableContainer;
 import org.ow2.proactive.scheduler.util.TaskLogger;
+import org.ow2.proactive.scripting.InvalidScriptException;
 import org.ow2.proactive.scripting.Script;
+import org.ow2.proactive.scripting.SelectionScript;
 import org.ow2.proactive.utils.NodeSet;
 
 
@@ -85,7 +90,7 @@ import org.ow2.proactive.utils.NodeSet;
  * @since ProActive Scheduling 0.9
  */
 @XmlAccessorType(XmlAccessType.FIELD)
-public abstract class InternalTask extends TaskState {
+public abstract class InternalTask extends TaskState implements Cloneable {
 
     @XmlTransient
     public static final transient TaskLogger logger = TaskLogger.getInstance();
@@ -172,58 +177,93 @@ public abstract class InternalTask extends TaskState {
     @Override
     public TaskState replicate() throws ExecutableCreationException {
         /*
-         * this implementation deep copies everything using serialization. however the new
-         * InternalTask cannot be strictly identical and we have to handle the following special
-         * cases:
+         * Replicas are shallow copies of this task: the parts the scheduler never modifies once the
+         * job is submitted (pre, post, clean and fork environment scripts, parallel environment,
+         * file selectors and executable container) are shared with the template, whereas the
+         * state that diverges per replica is copied:
          *
-         * - ExecutableContainer is transient and not copied during serialization. It needs to be
-         * manually copied, and added to the InternalTask replica
-         *
-         * - Using the TaskInfo of _this_ gives us a FINISHED task, need to explicitely create a new
-         * clean one.
+         * - the TaskInfo of _this_ gives us a FINISHED task, need to explicitely create a new
+         * clean one, with its own TaskId since setName() updates the readable name in place.
          *
          * - InternalTask dependencies need to be nulled as they contain references to other
          * InternalTasks, and will be rewritten later anyway
          *
-         * - Most of the objects down the object graph contain Hibernate @Id fields. If all those
-         * fields are not set to 0 when inserting the object in DB, insertion will fail.
+         * - variables, generic information and updatable properties are modified per iteration
+         * or replication by the control flow handlers.
          *
-         * - Collections are mapped to specific Hibernate internal collections at runtime, which
-         * contain references to the @Id fields mentionned above. They need to be reset too.
+         * - the flow script targets are renamed by setName(), and the selection scripts are
+         * resolved in place against the replica variables before node selection.
          */
 
-        InternalTask replicatedTask = null;
-        // SCHEDULING-1373 remains, but not replicating the container make the core hangs,
-        // while replicating it "only" loses tasks args in db...
-        //ExecutableContainer replicatedContainer = null;
+        InternalTask replicatedTask;
         try {
-            // Deep copy of the InternalTask using proactive serialization
-            replicatedTask = (InternalTask) ProActiveMakeDeepCopy.WithProActiveObjectStream.makeDeepCopy(this);
-        } catch (Throwable t) {
-            throw new ExecutableCreationException("Failed to serialize task", t);
+            replicatedTask = (InternalTask) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new ExecutableCreationException("Failed to replicate task", e);
         }
 
         replicatedTask.internalJob = internalJob;
 
+        // transient fields describe the execution of this task, they are not inherited
         // internalTasksDependencies contain references to other InternalTasks, it needs to be removed.
         // anyway, dependencies for the new task will not be the same as the original
         replicatedTask.internalTasksDependencies = null;
+        replicatedTask.parentTasksResults = null;
+        replicatedTask.executerInformation = null;
+        replicatedTask.nodeExclusion = null;
+        replicatedTask.joinedBranches = null;
+        replicatedTask.ifBranch = null;
+        replicatedTask.updatedVariables = null;
+        // the container is loaded from the template when the replica is persisted
+        replicatedTask.executableContainer = null;
 
         // the taskinfo needs to be cleaned so that we don't tag this task as finished
-        TaskId repId = replicatedTask.taskInfo.getTaskId();
+        TaskId id = taskInfo.getTaskId();
         replicatedTask.taskInfo = new TaskInfoImpl();
-        replicatedTask.taskInfo.setTaskId(repId); // we only need this id for the HashSet comparisons...
+        if (id != null) {
+            // we only need this id for the HashSet comparisons...
+            replicatedTask.taskInfo.setTaskId(TaskIdImpl.createTaskId(id.getJobId(),
+                                                                      id.getReadableName(),
+                                                                      id.longValue(),
+                                                                      id.getTag()));
+        }
         replicatedTask.taskInfo.setNumberOfExecutionLeft(getMaxNumberOfExecution());
         replicatedTask.taskInfo.setNumberOfExecutionOnFailureLeft(getMaxNumberOfExecutionOnFailure());
 
-        replicatedTask.setReplicatedFrom(this);
+        replicatedTask.variables = Collections.synchronizedMap(new LinkedHashMap<String, TaskVariable>());
+        synchronized (variables) {
+            for (Map.Entry<String, TaskVariable> entry : variables.entrySet()) {
+                TaskVariable variable = entry.getValue();
+                replicatedTask.variables.put(entry.getKey(),
+                                             variable == null ? null
+                                                              : new TaskVariable(variable.getName(),
+                                                                                 variable.getValue(),
+                                                                                 variable.getModel(),
+                                                                                 variable.isJobInherited()));
+            }
+        }
+        replicatedTask.genericInformation = genericInformation == null ? null
+                                                                        : new HashMap<>(genericInformation);
+        replicatedTask.restartTaskOnError = copyOf(restartTaskOnError);
+        replicatedTask.maxNumberOfExecution = copyOf(maxNumberOfExecution);
+        replicatedTask.onTaskError = copyOf(onTaskError);
+        replicatedTask.inputFiles = inputFiles == null ? null : new ArrayList<>(inputFiles);
+        replicatedTask.outputFiles = outputFiles == null ? null : new ArrayList<>(outputFiles);
 
-        /*
-         * uncomment this to have a close look at the serialized graph you will need to add some
-         * jars (http://xstream.codehaus.org/) to the classpath XStream x = new XStream(); String sx
-         * = x.toXML(replicatedTask); System.out.println("----------"); System.out.println(sx);
-         * System.out.println("----------");
-         */
+        try {
+            replicatedTask.flowScript = flowScript == null ? null : new FlowScript(flowScript);
+            if (sScripts != null) {
+                replicatedTask.sScripts = new ArrayList<>(sScripts.size());
+                for (SelectionScript script : sScripts) {
+                    replicatedTask.sScripts.add(new SelectionScript(script, script.isDynamic()));
+                }
+            }
+        } catch (InvalidScriptException e) {
+            throw new ExecutableCreationException("Failed to replicate task scripts", e);
+        }
+
+        // always point to the submitted task so that long loops do not retain every iteration
+        replicatedTask.setReplicatedFrom(replicatedFrom != null ? replicatedFrom : this);
 
         // We cannot register the newly created InternalTask for DB insertion now,
         // since it only makes sense to hibernate once it's added to the parent InternalJob
@@ -231,6 +271,17 @@ public abstract class InternalTask extends TaskState {
         return replicatedTask;
     }
 
+    private static <T> UpdatableProperties<T> copyOf(UpdatableProperties<T> property) {
+        if (property == null) {
+            return null;
+        }
+        UpdatableProperties<T> copy = new UpdatableProperties<>(property.getValue());
+        if (property.isSet()) {
+            copy.setValue(property.getValue());
+        }
+        return copy;
+    }
+
     /**
      * Accumulates in <code>acc</code>  replications of all the tasks that recursively
      * depend on <code>this</code> until <code>target</code> is met
@@ -36,6 +36,7 @@ import org.hibernate.Session;
 import org.hibernate.metadata.ClassMetadata;
 import org.junit.Assert;
 import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobId;
 import org.ow2.proactive.scheduler.common.job.JobStatus;
 import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
 import org.ow2.proactive.scheduler.common.task.ForkEnvironment;
@@ -160,6 +161,38 @@ public class TestJobRemove extends BaseSchedulerDBTest {
         Assert.assertEquals(removedTime, job.getRemovedTime());
     }
 
+    @Test
+    public void testJobsToRemoveAreReturnedByBatches() throws Exception {
+        List<InternalJob> jobs = new ArrayList<>(5);
+        for (int i = 0; i < 5; i++) {
+            InternalJob job = defaultSubmitJob(createJob(1));
+            dbManager.scheduleJobForRemoval(job.getId(), i + 1, false);
+            jobs.add(job);
+        }
+
+        List<JobId> firstBatch = dbManager.getJobsToRemove(System.currentTimeMillis(), 3);
+        Assert.assertEquals(3, firstBatch.size());
+        Assert.assertEquals(jobs.get(0).getId(), firstBatch.get(0));
+
+        // removed jobs are not returned anymore, so that the housekeeping can resume where it stopped
+        List<Long> removedIds = new ArrayList<>(firstBatch.size());
+        for (JobId jobId : firstBatch) {
+            removedIds.add(jobId.longValue());
+        }
+        dbManager.executeHousekeepingInDB(removedIds, false);
+
+        List<JobId> secondBatch = dbManager.getJobsToRemove(System.currentTimeMillis(), 3);
+        Assert.assertEquals(2, secondBatch.size());
+        Assert.assertEquals(jobs.get(3).getId(), secondBatch.get(0));
+        Assert.assertEquals(jobs.get(4).getId(), secondBatch.get(1));
+
+        List<InternalJob> summaries = dbManager.loadJobsWithoutTasksIfNotRemoved(firstBatch.get(0),
+                                                                                 secondBatch.get(0));
+        Assert.assertEquals(1, summaries.size());
+        Assert.assertEquals(secondBatch.get(0), summaries.get(0).getId());
+        Assert.assertTrue(summaries.get(0).getTasks().isEmpty());
+    }
+
     @Test
     public void testFullDataRemove1() throws Exception {
         TaskFlowJob jobDef = new TaskFlowJob();
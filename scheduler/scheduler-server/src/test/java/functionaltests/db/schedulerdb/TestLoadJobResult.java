@@ -25,6 +25,8 @@
  */
 package functionaltests.db.schedulerdb;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.ow2.proactive.scheduler.common.job.JobId;
@@ -172,6 +174,27 @@ public class TestLoadJobResult extends BaseSchedulerDBTest {
         Assert.assertEquals(0, result.getPreciousResults().size());
     }
 
+    @Test
+    public void testLoadTaskResultSerializedValueByRanges() throws Throwable {
+        TaskFlowJob jobDef = new TaskFlowJob();
+        jobDef.addTask(createDefaultTask("task1"));
+
+        InternalJob job = defaultSubmitJobAndLoadInternal(true, jobDef);
+        InternalTask task1 = job.getTask("task1");
+
+        Assert.assertNull(dbManager.loadTaskResultSerializedValue(task1.getId(), 0, 10));
+
+        dbManager.updateAfterTaskFinished(job, task1, new TaskResultImpl(null, new TestResult(0, "1_1"), null, 0));
+        byte[] serializedValue = dbManager.loadLastTaskResult(task1.getId()).getSerializedValue();
+
+        byte[] head = dbManager.loadTaskResultSerializedValue(task1.getId(), 0, 10);
+        byte[] tail = dbManager.loadTaskResultSerializedValue(task1.getId(), 10, serializedValue.length);
+        Assert.assertArrayEquals(Arrays.copyOfRange(serializedValue, 0, 10), head);
+        Assert.assertArrayEquals(Arrays.copyOfRange(serializedValue, 10, serializedValue.length), tail);
+        Assert.assertEquals(0,
+                            dbManager.loadTaskResultSerializedValue(task1.getId(), serializedValue.length + 1, 10).length);
+    }
+
     @Test
     public void testInvalidJobId() throws Exception {
         JobId jobId = new JobIdImpl(Long.MAX_VALUE, "dummy");
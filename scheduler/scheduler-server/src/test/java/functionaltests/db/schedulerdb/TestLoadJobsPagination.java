@@ -28,6 +28,7 @@ package functionaltests.db.schedulerdb;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Assert;
@@ -35,12 +36,17 @@ import org.junit.Test;
 import org.ow2.proactive.db.SortOrder;
 import org.ow2.proactive.db.SortParameter;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
+import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
+import org.ow2.proactive.scheduler.common.SortSpecifierContainer;
 import org.ow2.proactive.scheduler.common.job.JobInfo;
 import org.ow2.proactive.scheduler.common.job.JobPriority;
 import org.ow2.proactive.scheduler.common.job.JobStatus;
 import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
 import org.ow2.proactive.scheduler.common.task.JavaTask;
 import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.core.db.PageCountMode;
 import org.ow2.proactive.scheduler.job.InternalJob;
 import org.ow2.proactive.scheduler.task.TaskResultImpl;
 import org.ow2.proactive.scheduler.task.internal.InternalTask;
@@ -317,6 +323,132 @@ public class TestLoadJobsPagination extends BaseSchedulerDBTest {
         checkJobs(jobs);
     }
 
+    @Test
+    public void testCursorPagination() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            defaultSubmitJob(createJob()); // 1..5
+        }
+        defaultSubmitJob(createJob(), "user1"); // 6
+
+        // job marked as removed, method 'getJobs' shouldn't return it
+        InternalJob removed = defaultSubmitJob(createJob());
+        dbManager.removeJob(removed.getId(), System.currentTimeMillis(), false);
+
+        List<Integer> ids = new ArrayList<>();
+        PageCursor cursor = PageCursor.FIRST;
+        Page<JobInfo> page;
+        do {
+            page = dbManager.getJobs(cursor, 2, null, true, true, true);
+            Assert.assertEquals(6, page.getSize());
+            for (JobInfo job : page.getList()) {
+                ids.add(Integer.valueOf(job.getJobId().value()));
+                cursor = PageCursor.after(job);
+            }
+        } while (!page.getList().isEmpty());
+        Assert.assertEquals(Arrays.asList(6, 5, 4, 3, 2, 1), ids);
+
+        checkJobs(dbManager.getJobs(null, 10, "user1", true, true, true).getList(), 6);
+        checkJobs(dbManager.getJobs(PageCursor.valueOf(cursor.toString()), 10, null, true, true, true).getList());
+        checkJobs(dbManager.getJobs(null, 10, null, false, false, false).getList());
+    }
+
+    @Test
+    public void testTaskCursorPagination() throws Exception {
+        TaskFlowJob job = createJob();
+        for (int i = 0; i < 4; i++) {
+            JavaTask task = new JavaTask();
+            task.setName("task" + i);
+            task.setExecutableClassName("className");
+            job.addTask(task);
+        }
+        defaultSubmitJob(job);
+        defaultSubmitJob(createJob());
+
+        List<TaskId> expected = new ArrayList<>();
+        for (TaskState task : dbManager.getTaskStates(0,
+                                                      0,
+                                                      null,
+                                                      0,
+                                                      10,
+                                                      null,
+                                                      true,
+                                                      true,
+                                                      true,
+                                                      new SortSpecifierContainer())
+                                       .getList()) {
+            expected.add(task.getId());
+        }
+        Assert.assertEquals(6, expected.size());
+
+        List<TaskId> ids = new ArrayList<>();
+        PageCursor cursor = null;
+        Page<TaskState> page;
+        do {
+            page = dbManager.getTaskStates(0, 0, null, cursor, 4, null, true, true, true);
+            Assert.assertEquals(6, page.getSize());
+            for (TaskState task : page.getList()) {
+                if (!ids.isEmpty()) {
+                    TaskId previous = ids.get(ids.size() - 1);
+                    long previousJobId = previous.getJobId().longValue();
+                    long jobId = task.getId().getJobId().longValue();
+                    Assert.assertTrue(previousJobId > jobId ||
+                                      (previousJobId == jobId && previous.longValue() > task.getId().longValue()));
+                }
+                ids.add(task.getId());
+                cursor = PageCursor.after(task.getId());
+            }
+        } while (!page.getList().isEmpty());
+
+        Assert.assertEquals(new HashSet<>(expected), new HashSet<>(ids));
+        Assert.assertEquals(expected.size(), ids.size());
+    }
+
+    @Test
+    public void testPageCountModes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            defaultSubmitJob(createJob()); // 1..5
+        }
+
+        Page<JobInfo> page = dbManager.getJobs(0, 2, null, true, true, true, null, PageCountMode.EXACT);
+        Assert.assertEquals(5, page.getSize());
+
+        // the cached total is invalidated when a job is submitted or removed
+        InternalJob job = defaultSubmitJob(createJob()); // 6
+        page = dbManager.getJobs(0, 2, null, true, true, true, null, PageCountMode.EXACT);
+        Assert.assertEquals(6, page.getSize());
+        dbManager.removeJob(job.getId(), System.currentTimeMillis(), false);
+        page = dbManager.getJobs(0, 2, null, true, true, true, null, PageCountMode.EXACT);
+        Assert.assertEquals(5, page.getSize());
+
+        page = dbManager.getJobs(0, 2, null, true, true, true, null, PageCountMode.HAS_MORE);
+        Assert.assertEquals(2, page.getList().size());
+        Assert.assertEquals(3, page.getSize());
+        page = dbManager.getJobs(4, 2, null, true, true, true, null, PageCountMode.HAS_MORE);
+        Assert.assertEquals(1, page.getList().size());
+        Assert.assertEquals(5, page.getSize());
+
+        page = dbManager.getJobs(PageCursor.FIRST, 4, null, true, true, true, PageCountMode.HAS_MORE);
+        checkJobs(page.getList(), 5, 4, 3, 2);
+        Assert.assertEquals(5, page.getSize());
+
+        page = dbManager.getJobs(0, 2, null, true, true, true, null, PageCountMode.APPROXIMATE);
+        Assert.assertEquals(5, page.getSize());
+
+        Page<TaskState> tasks = dbManager.getTaskStates(0,
+                                                        0,
+                                                        null,
+                                                        0,
+                                                        2,
+                                                        null,
+                                                        true,
+                                                        true,
+                                                        true,
+                                                        new SortSpecifierContainer(),
+                                                        PageCountMode.HAS_MORE);
+        Assert.assertEquals(2, tasks.getList().size());
+        Assert.assertEquals(3, tasks.getSize());
+    }
+
     private List<SortParameter<JobSortParameter>> sortParameters(SortParameter<JobSortParameter>... params) {
         return Arrays.asList(params);
     }
@@ -0,0 +1,157 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package functionaltests.db.schedulerdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.job.TaskFlowJob;
+import org.ow2.proactive.scheduler.common.task.JavaTask;
+import org.ow2.proactive.scheduler.core.db.ScriptContentData;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.task.containers.ScriptExecutableContainer;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.proactive.scripting.SimpleScript;
+
+
+public class TestScriptContentData extends BaseSchedulerDBTest {
+
+    private static final String PRE_SCRIPT = "print('identical pre script')";
+
+    private static final int SUBMISSIONS = 4;
+
+    @Test
+    public void testIdenticalScriptsAreStoredOnce() throws Exception {
+        defaultSubmitJob(createJob(3));
+        InternalJob job2 = defaultSubmitJob(createJob(3));
+
+        Assert.assertEquals(6, referenceCount(PRE_SCRIPT));
+        Assert.assertEquals(6, referenceCount(TestDummyExecutable.class.getName()));
+        Assert.assertEquals(2, loadContents().size());
+
+        InternalJob loaded = loadInternalJob(true, job2.getId());
+        Assert.assertEquals(PRE_SCRIPT, loaded.getTask("task-0").getPreScript().getScript());
+
+        for (int i = 0; i < 2; i++) {
+            // the second load is served by the cache
+            InternalTask task = job2.getTask("task-1");
+            ScriptExecutableContainer container = (ScriptExecutableContainer) dbManager.loadExecutableContainer(task);
+            Assert.assertEquals(TestDummyExecutable.class.getName(), container.getScript().getScript());
+        }
+    }
+
+    @Test
+    public void testContentsAreReleasedWithTheJobs() throws Exception {
+        InternalJob job1 = defaultSubmitJob(createJob(2));
+        InternalJob job2 = defaultSubmitJob(createJob(2));
+
+        job1.setStatus(JobStatus.FINISHED);
+        dbManager.updateAfterTaskFinished(job1, null, null);
+        Assert.assertEquals(2, referenceCount(PRE_SCRIPT));
+
+        dbManager.removeJob(job2.getId(), 0, true);
+        Assert.assertTrue(loadContents().isEmpty());
+
+        defaultSubmitJob(createJob(1));
+        Assert.assertEquals(1, referenceCount(PRE_SCRIPT));
+    }
+
+    @Test
+    public void testConcurrentSubmissionsOfANewContent() throws Exception {
+        String retries = PASchedulerProperties.SCHEDULER_DB_TRANSACTION_MAXIMUM_RETRIES.getValueAsString();
+        // a conflict must not rely on the retry of the whole submission
+        PASchedulerProperties.SCHEDULER_DB_TRANSACTION_MAXIMUM_RETRIES.updateProperty("0");
+        ExecutorService executor = Executors.newFixedThreadPool(SUBMISSIONS);
+        try {
+            for (int round = 0; round < 5; round++) {
+                final String preScript = "print('new pre script " + round + "')";
+                final CyclicBarrier barrier = new CyclicBarrier(SUBMISSIONS);
+                List<Future<InternalJob>> submissions = new ArrayList<>();
+                for (int i = 0; i < SUBMISSIONS; i++) {
+                    submissions.add(executor.submit(new Callable<InternalJob>() {
+                        @Override
+                        public InternalJob call() throws Exception {
+                            TaskFlowJob job = createJob(2, preScript);
+                            barrier.await();
+                            return defaultSubmitJob(job);
+                        }
+                    }));
+                }
+                for (Future<InternalJob> submission : submissions) {
+                    submission.get(60, TimeUnit.SECONDS);
+                }
+                Assert.assertEquals(2 * SUBMISSIONS, referenceCount(preScript));
+            }
+        } finally {
+            executor.shutdownNow();
+            PASchedulerProperties.SCHEDULER_DB_TRANSACTION_MAXIMUM_RETRIES.updateProperty(retries);
+        }
+    }
+
+    private TaskFlowJob createJob(int tasksNumber) throws Exception {
+        return createJob(tasksNumber, PRE_SCRIPT);
+    }
+
+    private TaskFlowJob createJob(int tasksNumber, String preScript) throws Exception {
+        TaskFlowJob jobDef = new TaskFlowJob();
+        for (int i = 0; i < tasksNumber; i++) {
+            JavaTask task = createDefaultTask("task-" + i);
+            task.setPreScript(new SimpleScript(preScript, "javascript"));
+            jobDef.addTask(task);
+        }
+        return jobDef;
+    }
+
+    private long referenceCount(String script) {
+        for (ScriptContentData content : loadContents()) {
+            if (script.equals(content.getScript())) {
+                return content.getReferenceCount();
+            }
+        }
+        return 0;
+    }
+
+    private List<ScriptContentData> loadContents() {
+        Session session = dbManager.getSessionFactory().openSession();
+        try {
+            return session.createCriteria(ScriptContentData.class).list();
+        } finally {
+            session.close();
+        }
+    }
+
+}
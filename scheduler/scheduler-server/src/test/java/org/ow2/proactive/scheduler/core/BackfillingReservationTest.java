@@ -0,0 +1,130 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.ow2.proactive.scheduler.core.BackfillingReservation.NodeRelease;
+
+
+public class BackfillingReservationTest {
+
+    private static final long NOW = 100000;
+
+    @Test
+    public void startTimeIsProjectedFromTheWalltimes() {
+        BackfillingReservation reservation = BackfillingReservation.reserve(4,
+                                                                            1,
+                                                                            NOW,
+                                                                            Arrays.asList(new NodeRelease(NOW + 5000,
+                                                                                                          2),
+                                                                                          new NodeRelease(NOW + 1000,
+                                                                                                          1),
+                                                                                          new NodeRelease(NOW + 3000,
+                                                                                                          2)));
+
+        assertEquals(NOW + 3000, reservation.getStartTime());
+        assertEquals(0, reservation.getExtraNodes());
+    }
+
+    @Test
+    public void nodesReleasedTogetherAreAllAvailable() {
+        BackfillingReservation reservation = BackfillingReservation.reserve(2,
+                                                                            0,
+                                                                            NOW,
+                                                                            Arrays.asList(new NodeRelease(NOW + 1000,
+                                                                                                          1),
+                                                                                          new NodeRelease(NOW + 1000,
+                                                                                                          1),
+                                                                                          new NodeRelease(NOW + 1000,
+                                                                                                          1)));
+
+        assertEquals(NOW + 1000, reservation.getStartTime());
+        assertEquals(1, reservation.getExtraNodes());
+    }
+
+    @Test
+    public void overrunWalltimeReleasesNow() {
+        BackfillingReservation reservation = BackfillingReservation.reserve(2,
+                                                                            1,
+                                                                            NOW,
+                                                                            Collections.singletonList(new NodeRelease(NOW - 1000,
+                                                                                                                      1)));
+
+        assertEquals(NOW, reservation.getStartTime());
+    }
+
+    @Test
+    public void startTimeIsUnknownWithoutWalltime() {
+        BackfillingReservation reservation = BackfillingReservation.reserve(3,
+                                                                            1,
+                                                                            NOW,
+                                                                            Arrays.asList(new NodeRelease(NOW + 1000,
+                                                                                                          1),
+                                                                                          new NodeRelease(BackfillingReservation.UNKNOWN,
+                                                                                                          4)));
+
+        assertEquals(BackfillingReservation.UNKNOWN, reservation.getStartTime());
+        // nothing can be proved not to delay the reserved task
+        assertFalse(reservation.backfill(1, 500, NOW));
+    }
+
+    @Test
+    public void tasksEndingBeforeTheReservationAreBackfilled() {
+        BackfillingReservation reservation = BackfillingReservation.reserve(4,
+                                                                            2,
+                                                                            NOW,
+                                                                            Collections.singletonList(new NodeRelease(NOW + 3000,
+                                                                                                                      2)));
+
+        assertTrue(reservation.backfill(2, 3000, NOW));
+        assertFalse(reservation.backfill(1, 3001, NOW));
+        assertFalse(reservation.backfill(1, 0, NOW));
+        // the time spent since the reservation counts
+        assertFalse(reservation.backfill(1, 2000, NOW + 1500));
+    }
+
+    @Test
+    public void extraNodesAreBackfilledOnce() {
+        BackfillingReservation reservation = BackfillingReservation.reserve(3,
+                                                                            1,
+                                                                            NOW,
+                                                                            Collections.singletonList(new NodeRelease(NOW + 1000,
+                                                                                                                      4)));
+
+        assertEquals(2, reservation.getExtraNodes());
+        assertTrue(reservation.backfill(2, 0, NOW));
+        assertEquals(0, reservation.getExtraNodes());
+        assertFalse(reservation.backfill(1, 0, NOW));
+        assertTrue(reservation.backfill(1, 1000, NOW));
+    }
+}
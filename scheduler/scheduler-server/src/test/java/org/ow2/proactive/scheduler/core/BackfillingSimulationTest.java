@@ -0,0 +1,248 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.core.BackfillingReservation.NodeRelease;
+
+import performancetests.recovery.PerformanceTestBase;
+
+
+/**
+ * Simulation of the task selection of the scheduling loop with and without backfilling, over a
+ * simulated clock. The workload alternates tasks needing most of the nodes with many single node
+ * tasks, all submitted at once. Utilization and wait times of both modes are reported and compared.
+ */
+public class BackfillingSimulationTest {
+
+    private static final Logger LOGGER = Logger.getLogger(BackfillingSimulationTest.class);
+
+    private static final long CYCLE = 1000; // simulated milliseconds
+
+    private static final int NB_NODES = 16;
+
+    private static final int NB_GROUPS = 10;
+
+    private static final int LARGE_TASK_NODES = 12;
+
+    private static final int LARGE_TASK_DURATION = 6; // in cycles
+
+    private static final int SMALL_TASKS_PER_GROUP = 30;
+
+    private static final int SMALL_TASK_MAX_DURATION = 8; // in cycles
+
+    private enum Mode {
+        CURRENT,
+        BACKFILLING,
+        BACKFILLING_WITHOUT_WALLTIME
+    }
+
+    @Test
+    public void backfillingStartsLargeTasksWithoutWastingNodes() {
+        Result current = simulate(Mode.CURRENT);
+        Result backfilling = simulate(Mode.BACKFILLING);
+        Result withoutWalltime = simulate(Mode.BACKFILLING_WITHOUT_WALLTIME);
+
+        for (Result result : new Result[] { current, backfilling, withoutWalltime }) {
+            LOGGER.info(PerformanceTestBase.makeCSVString(BackfillingSimulationTest.class.getSimpleName() +
+                                                          result.mode,
+                                                          result.makespan,
+                                                          result.getUtilization(),
+                                                          result.getLargeTasksMeanWait(),
+                                                          result.getSmallTasksMeanWait()));
+        }
+
+        // without reservation, large tasks only start once most small tasks are done
+        assertTrue(backfilling.getLargeTasksMeanWait() < current.getLargeTasksMeanWait() * 0.7);
+        assertTrue(withoutWalltime.getLargeTasksMeanWait() < current.getLargeTasksMeanWait() * 0.7);
+        // small tasks still fill the nodes the large tasks cannot use
+        assertTrue(backfilling.makespan <= current.makespan);
+        assertTrue(backfilling.getUtilization() >= current.getUtilization());
+        // without walltimes, the reserved nodes stay idle until the large task starts
+        assertTrue(backfilling.getUtilization() > withoutWalltime.getUtilization());
+    }
+
+    @Test
+    public void backfillingDoesNotDelayTheReservedTask() {
+        Result current = runBehindRunningTasks(Mode.CURRENT);
+        Result backfilling = runBehindRunningTasks(Mode.BACKFILLING);
+
+        // 12 nodes are released after 7 cycles, small tasks only used the nodes beyond them
+        assertEquals(7, backfilling.largeTasksWait);
+        assertTrue(current.largeTasksWait > 7);
+    }
+
+    /**
+     * One large task waiting behind running tasks of known walltime, many small tasks after it.
+     */
+    private Result runBehindRunningTasks(Mode mode) {
+        List<SimulatedTask> queue = new LinkedList<>();
+        queue.add(new SimulatedTask(LARGE_TASK_NODES, LARGE_TASK_DURATION, LARGE_TASK_DURATION));
+        for (int i = 0; i < 100; i++) {
+            queue.add(new SimulatedTask(1, 3, 4));
+        }
+        List<SimulatedTask> running = new ArrayList<>();
+        for (int i = 0; i < NB_NODES; i++) {
+            SimulatedTask task = new SimulatedTask(1, 5 + i % 3, 5 + i % 3);
+            task.start = 0;
+            running.add(task);
+        }
+        return run(mode, queue, running);
+    }
+
+    private Result simulate(Mode mode) {
+        Random random = new Random(42);
+        List<SimulatedTask> queue = new LinkedList<>();
+        for (int i = 0; i < NB_GROUPS; i++) {
+            queue.add(new SimulatedTask(LARGE_TASK_NODES, LARGE_TASK_DURATION, LARGE_TASK_DURATION * 3 / 2));
+            for (int j = 0; j < SMALL_TASKS_PER_GROUP; j++) {
+                int duration = 1 + random.nextInt(SMALL_TASK_MAX_DURATION);
+                queue.add(new SimulatedTask(1, duration, duration * 3 / 2 + 1));
+            }
+        }
+        return run(mode, queue, new ArrayList<SimulatedTask>());
+    }
+
+    private Result run(Mode mode, List<SimulatedTask> queue, List<SimulatedTask> running) {
+        Result result = new Result(mode);
+        for (SimulatedTask task : queue) {
+            result.work += task.nodes * task.duration;
+        }
+        int cycle = 0;
+        while (!queue.isEmpty() || !running.isEmpty()) {
+            int free = NB_NODES;
+            for (Iterator<SimulatedTask> iterator = running.iterator(); iterator.hasNext();) {
+                SimulatedTask task = iterator.next();
+                if (task.start + task.duration <= cycle) {
+                    iterator.remove();
+                } else {
+                    free -= task.nodes;
+                }
+            }
+            long now = cycle * CYCLE;
+            BackfillingReservation reservation = null;
+            for (Iterator<SimulatedTask> iterator = queue.iterator(); iterator.hasNext() && free > 0;) {
+                SimulatedTask task = iterator.next();
+                long walltime = mode == Mode.BACKFILLING_WITHOUT_WALLTIME ? 0 : task.walltime * CYCLE;
+                if (task.nodes > free) {
+                    if (mode != Mode.CURRENT && reservation == null) {
+                        reservation = BackfillingReservation.reserve(task.nodes, free, now, releases(mode, running));
+                    }
+                } else if (reservation == null || reservation.backfill(task.nodes, walltime, now)) {
+                    iterator.remove();
+                    task.start = cycle;
+                    running.add(task);
+                    free -= task.nodes;
+                    result.taskStarted(task);
+                }
+            }
+            cycle++;
+        }
+        result.makespan = cycle - 1;
+        return result;
+    }
+
+    private List<NodeRelease> releases(Mode mode, List<SimulatedTask> running) {
+        List<NodeRelease> releases = new ArrayList<>(running.size());
+        for (SimulatedTask task : running) {
+            long time = mode == Mode.BACKFILLING_WITHOUT_WALLTIME ? BackfillingReservation.UNKNOWN
+                                                                  : (task.start + task.walltime) * CYCLE;
+            releases.add(new NodeRelease(time, task.nodes));
+        }
+        return releases;
+    }
+
+    private static class SimulatedTask {
+
+        private final int nodes;
+
+        private final int duration;
+
+        private final int walltime;
+
+        private int start;
+
+        SimulatedTask(int nodes, int duration, int walltime) {
+            this.nodes = nodes;
+            this.duration = duration;
+            this.walltime = walltime;
+        }
+    }
+
+    private static class Result {
+
+        private final Mode mode;
+
+        private int makespan;
+
+        private long work;
+
+        private long largeTasksWait;
+
+        private int largeTasks;
+
+        private long smallTasksWait;
+
+        private int smallTasks;
+
+        Result(Mode mode) {
+            this.mode = mode;
+        }
+
+        void taskStarted(SimulatedTask task) {
+            // every task is submitted at cycle 0
+            if (task.nodes > 1) {
+                largeTasksWait += task.start;
+                largeTasks++;
+            } else {
+                smallTasksWait += task.start;
+                smallTasks++;
+            }
+        }
+
+        double getUtilization() {
+            return (double) work / (NB_NODES * makespan);
+        }
+
+        double getLargeTasksMeanWait() {
+            return (double) largeTasksWait / largeTasks;
+        }
+
+        double getSmallTasksMeanWait() {
+            return (double) smallTasksWait / smallTasks;
+        }
+    }
+}
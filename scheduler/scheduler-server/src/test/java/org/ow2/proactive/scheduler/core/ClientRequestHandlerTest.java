@@ -0,0 +1,161 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.UniqueID;
+import org.ow2.proactive.scheduler.common.NotificationData;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
+import org.ow2.proactive.scheduler.common.SchedulerEventListener;
+import org.ow2.proactive.scheduler.common.SchedulerEventNotification;
+import org.ow2.proactive.scheduler.common.SchedulerGroupEventListener;
+import org.ow2.proactive.scheduler.common.job.JobInfo;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.UserIdentification;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+
+
+public class ClientRequestHandlerTest {
+
+    private static final int NB_EVENTS = 100;
+
+    @Test
+    public void legacyListenerReceivesEventsOneByOne() throws Exception {
+        SchedulerEventListener listener = mock(SchedulerEventListener.class);
+        ClientRequestHandler handler = new ClientRequestHandler(null, new UniqueID("legacy"), listener);
+
+        Method method = SchedulerEventListener.class.getMethod("schedulerStateUpdatedEvent", SchedulerEvent.class);
+        handler.addEvent(method, SchedulerEvent.PAUSED);
+
+        verify(listener, timeout(5000)).schedulerStateUpdatedEvent(SchedulerEvent.PAUSED);
+    }
+
+    @Test
+    public void groupListenerReceivesOrderedEventsByGroups() throws Exception {
+        RecordingGroupListener listener = new RecordingGroupListener(NB_EVENTS);
+        ClientRequestHandler handler = new ClientRequestHandler(null, new UniqueID("group"), listener);
+
+        Method method = SchedulerEventListener.class.getMethod("schedulerStateUpdatedEvent", SchedulerEvent.class);
+        SchedulerEvent[] events = { SchedulerEvent.PAUSED, SchedulerEvent.RESUMED };
+        for (int i = 0; i < NB_EVENTS; i++) {
+            handler.addEvent(method, events[i % 2]);
+        }
+
+        assertTrue(listener.allReceived.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < NB_EVENTS; i++) {
+            assertEquals(events[i % 2], listener.received.get(i));
+        }
+        assertTrue("Events should be sent by groups", listener.nbCalls < NB_EVENTS);
+    }
+
+    @Test
+    public void batchSizeAdaptsToClientThroughput() throws Exception {
+        ClientRequestHandler handler = new ClientRequestHandler(null,
+                                                                new UniqueID("adapt"),
+                                                                new RecordingGroupListener(0));
+        int maxSize = PASchedulerProperties.SCHEDULER_LISTENERS_BATCH_MAXSIZE.getValueAsInt();
+        long latency = PASchedulerProperties.SCHEDULER_LISTENERS_BATCH_LATENCY.getValueAsInt();
+        assertEquals(maxSize, handler.getBatchSize());
+
+        // slow client : each event takes the whole latency target
+        for (int i = 0; i < 20; i++) {
+            handler.adaptBatchSize(10, 10 * latency);
+        }
+        assertEquals(1, handler.getBatchSize());
+
+        // fast client : grows back to the limit
+        for (int i = 0; i < 20; i++) {
+            handler.adaptBatchSize(handler.getBatchSize(), 1);
+        }
+        assertEquals(maxSize, handler.getBatchSize());
+    }
+
+    private static class RecordingGroupListener extends SchedulerGroupEventListener {
+
+        private final List<SchedulerEvent> received = Collections.synchronizedList(new ArrayList<SchedulerEvent>());
+
+        private final CountDownLatch allReceived;
+
+        private volatile int nbCalls = 0;
+
+        RecordingGroupListener(int expectedEvents) {
+            this.allReceived = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void notify(Collection<SchedulerEventNotification> events) {
+            nbCalls++;
+            try {
+                // slow down the client so that events are queued while a group is sent
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.notify(events);
+        }
+
+        @Override
+        public void schedulerStateUpdatedEvent(SchedulerEvent eventType) {
+            received.add(eventType);
+            allReceived.countDown();
+        }
+
+        @Override
+        public void jobSubmittedEvent(JobState job) {
+        }
+
+        @Override
+        public void jobStateUpdatedEvent(NotificationData<JobInfo> notification) {
+        }
+
+        @Override
+        public void jobUpdatedFullDataEvent(JobState job) {
+        }
+
+        @Override
+        public void taskStateUpdatedEvent(NotificationData<TaskInfo> notification) {
+        }
+
+        @Override
+        public void usersUpdatedEvent(NotificationData<UserIdentification> notification) {
+        }
+    }
+}
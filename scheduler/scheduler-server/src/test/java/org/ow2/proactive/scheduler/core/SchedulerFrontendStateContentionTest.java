@@ -0,0 +1,179 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.NotificationData;
+import org.ow2.proactive.scheduler.common.SchedulerEvent;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.core.jmx.SchedulerJMXHelper;
+import org.ow2.proactive.scheduler.core.jmx.mbean.RuntimeDataMBeanImpl;
+import org.ow2.proactive.scheduler.job.ClientJobState;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.tests.ProActiveTestClean;
+
+import performancetests.recovery.PerformanceTestBase;
+
+
+/**
+ * Contention benchmark of the {@link SchedulerFrontendState}: many clients query jobs and tasks
+ * while the scheduling core continuously applies task events. It reports the number of reads
+ * done by the clients and checks that reads keep progressing while events are applied.
+ */
+public class SchedulerFrontendStateContentionTest extends ProActiveTestClean {
+
+    private static final Logger LOGGER = Logger.getLogger(SchedulerFrontendStateContentionTest.class);
+
+    private static final int NB_CLIENTS = 64;
+
+    private static final int NB_JOBS = 100;
+
+    private static final int NB_TASKS_PER_JOB = 50;
+
+    private static final long DURATION = 3000; // in milliseconds
+
+    @Test
+    public void concurrentClientsWithEventUpdates() throws Exception {
+        SchedulerJMXHelper mockJMX = mock(SchedulerJMXHelper.class);
+        when(mockJMX.getSchedulerRuntimeMBean()).thenReturn(new RuntimeDataMBeanImpl(null));
+
+        SchedulerStateImpl<ClientJobState> schedulerStateImpl = new SchedulerStateImpl<>();
+        final List<JobIdImpl> jobIds = new ArrayList<>(NB_JOBS);
+        final List<NotificationData<TaskInfo>> events = new ArrayList<>(NB_JOBS);
+        Vector<ClientJobState> runningJobs = new Vector<>(NB_JOBS);
+        for (int i = 0; i < NB_JOBS; i++) {
+            JobIdImpl jobId = new JobIdImpl(i, "job" + i);
+            jobIds.add(jobId);
+            runningJobs.add(createJobState(jobId));
+
+            TaskInfo taskInfo = mock(TaskInfo.class, withSettings().stubOnly());
+            when(taskInfo.getJobId()).thenReturn(jobId);
+            when(taskInfo.getTaskId()).thenReturn(TaskIdImpl.createTaskId(jobId, "task0", 0));
+            events.add(new NotificationData<>(SchedulerEvent.TASK_PROGRESS, taskInfo));
+        }
+        schedulerStateImpl.setRunningJobs(runningJobs);
+
+        final SchedulerFrontendState frontendState = new SchedulerFrontendState(schedulerStateImpl, mockJMX);
+
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NB_CLIENTS + 1);
+        try {
+            Future<Long> updates = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    start.await();
+                    long nbUpdates = 0;
+                    while (!stop.get()) {
+                        frontendState.taskStateUpdated("owner", events.get((int) (nbUpdates % NB_JOBS)));
+                        nbUpdates++;
+                    }
+                    return nbUpdates;
+                }
+            });
+
+            List<Future<Long>> clients = new ArrayList<>(NB_CLIENTS);
+            for (int c = 0; c < NB_CLIENTS; c++) {
+                final int clientIndex = c;
+                clients.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        start.await();
+                        long nbReads = 0;
+                        while (!stop.get()) {
+                            JobIdImpl jobId = jobIds.get((int) ((clientIndex + nbReads) % NB_JOBS));
+                            frontendState.getIdentifiedJob(jobId);
+                            frontendState.getJobTasks(jobId);
+                            frontendState.getTaskId(jobId, "task" + (nbReads % NB_TASKS_PER_JOB));
+                            nbReads++;
+                        }
+                        return nbReads;
+                    }
+                }));
+            }
+
+            start.countDown();
+            Thread.sleep(DURATION);
+            stop.set(true);
+
+            long totalReads = 0;
+            long minReads = Long.MAX_VALUE;
+            for (Future<Long> client : clients) {
+                long reads = client.get(30, TimeUnit.SECONDS);
+                totalReads += reads;
+                minReads = Math.min(minReads, reads);
+            }
+            long totalUpdates = updates.get(30, TimeUnit.SECONDS);
+
+            LOGGER.info(PerformanceTestBase.makeCSVString(SchedulerFrontendStateContentionTest.class.getSimpleName(),
+                                                          NB_CLIENTS,
+                                                          totalReads * 1000 / DURATION,
+                                                          totalUpdates * 1000 / DURATION,
+                                                          minReads));
+
+            assertTrue("Every client should progress while events are applied", minReads > 0);
+            assertTrue("Events should progress while clients read the state", totalUpdates > 0);
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private static ClientJobState createJobState(JobIdImpl jobId) {
+        ClientJobState jobState = mock(ClientJobState.class, withSettings().stubOnly());
+        when(jobState.getId()).thenReturn(jobId);
+        when(jobState.getOwner()).thenReturn("owner");
+        List<TaskState> tasks = new ArrayList<>(NB_TASKS_PER_JOB);
+        for (int t = 0; t < NB_TASKS_PER_JOB; t++) {
+            TaskId taskId = TaskIdImpl.createTaskId(jobId, "task" + t, t);
+            TaskState taskState = mock(TaskState.class, withSettings().stubOnly());
+            when(taskState.getId()).thenReturn(taskId);
+            tasks.add(taskState);
+        }
+        when(jobState.getTasks()).thenReturn(tasks);
+        return jobState;
+    }
+}
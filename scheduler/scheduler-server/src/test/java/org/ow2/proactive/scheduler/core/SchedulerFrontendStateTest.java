@@ -32,6 +32,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.Vector;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -41,13 +42,18 @@ import java.util.concurrent.TimeoutException;
 
 import org.junit.Test;
 import org.objectweb.proactive.core.UniqueID;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
 import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.task.OnTaskError;
 import org.ow2.proactive.scheduler.core.jmx.SchedulerJMXHelper;
 import org.ow2.proactive.scheduler.core.jmx.mbean.RuntimeDataMBeanImpl;
 import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
 import org.ow2.proactive.scheduler.job.ClientJobState;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
 import org.ow2.proactive.scheduler.job.JobIdImpl;
 import org.ow2.proactive.scheduler.job.UserIdentificationImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
 import org.ow2.tests.ProActiveTestClean;
 import org.python.google.common.collect.Lists;
 
@@ -114,4 +120,84 @@ public class SchedulerFrontendStateTest extends ProActiveTestClean {
         assertEquals(schedulerFrontendState.getIdentifiedJob(jobId).getJobId(), (jobId));
 
     }
+
+    @Test
+    public void reads_should_not_wait_for_event_application() throws Exception {
+        SchedulerJMXHelper mockJMX = mock(SchedulerJMXHelper.class);
+        when(mockJMX.getSchedulerRuntimeMBean()).thenReturn(new RuntimeDataMBeanImpl(null));
+
+        SchedulerStateImpl<ClientJobState> schedulerStateImpl = new SchedulerStateImpl<>();
+        final JobIdImpl jobId = new JobIdImpl(1234L, "job name");
+        ClientJobState jobState = mock(ClientJobState.class);
+        when(jobState.getId()).thenReturn(jobId);
+        schedulerStateImpl.setFinishedJobs(new Vector(Lists.newArrayList(jobState)));
+
+        final SchedulerFrontendState schedulerFrontendState = new SchedulerFrontendState(schedulerStateImpl, mockJMX);
+
+        // simulate a long event application holding the frontend monitor
+        final CountDownLatch updateStarted = new CountDownLatch(1);
+        final CountDownLatch releaseUpdate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    synchronized (schedulerFrontendState) {
+                        updateStarted.countDown();
+                        releaseUpdate.await();
+                    }
+                    return null;
+                }
+            });
+            updateStarted.await();
+
+            Future<Object> read = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    schedulerFrontendState.getUsers();
+                    schedulerFrontendState.getJobTasks(jobId);
+                    return schedulerFrontendState.getIdentifiedJob(jobId).getJobId();
+                }
+            });
+            assertEquals(jobId, read.get(5, TimeUnit.SECONDS));
+        } finally {
+            releaseUpdate.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void full_job_data_should_update_the_statistics_of_managed_jobs_only() throws Exception {
+        RuntimeDataMBeanImpl runtimeMBean = new RuntimeDataMBeanImpl(null);
+        SchedulerJMXHelper mockJMX = mock(SchedulerJMXHelper.class);
+        when(mockJMX.getSchedulerRuntimeMBean()).thenReturn(runtimeMBean);
+
+        InternalJob job = pendingJob(1234L);
+        SchedulerStateImpl<ClientJobState> schedulerStateImpl = new SchedulerStateImpl<>();
+        schedulerStateImpl.setPendingJobs(new Vector(Lists.newArrayList(new ClientJobState(job))));
+
+        SchedulerFrontendState schedulerFrontendState = new SchedulerFrontendState(schedulerStateImpl, mockJMX);
+
+        // a task added to the recovered job, e.g. by a replication
+        job.addTask(new InternalScriptTask(job));
+        schedulerFrontendState.jobUpdatedFullData(job);
+
+        assertEquals(1, runtimeMBean.getStatistics().getPendingTasksCount());
+        assertEquals(1, runtimeMBean.getStatistics().getTotalTasksCount());
+
+        // a job no longer managed by the frontend, e.g. removed by the housekeeping
+        InternalJob removedJob = pendingJob(4321L);
+        removedJob.addTask(new InternalScriptTask(removedJob));
+        schedulerFrontendState.jobUpdatedFullData(removedJob);
+
+        assertEquals(0, runtimeMBean.getStatistics().getTotalJobsCount());
+        assertEquals(1, runtimeMBean.getStatistics().getTotalTasksCount());
+    }
+
+    private static InternalJob pendingJob(long id) {
+        InternalJob job = new InternalTaskFlowJob("job name", JobPriority.NORMAL, OnTaskError.CANCEL_JOB, "");
+        job.setId(new JobIdImpl(id, "job name"));
+        job.setOwner("john");
+        return job;
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.JobDescriptor;
+import org.ow2.proactive.scheduler.common.TaskTerminateNotification;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.task.OnTaskError;
+import org.ow2.proactive.scheduler.common.task.ParallelEnvironment;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptorImpl;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+
+/**
+ * Task selection of the scheduling loop in backfilling mode: 4 nodes out of 8 are free, and a
+ * task needing the 8 nodes is first in the policy order.
+ */
+public class SchedulingMethodImplBackfillingTest {
+
+    private static final long MINUTE = 60 * 1000;
+
+    private String backfilling;
+
+    private SchedulingService schedulingService;
+
+    private SchedulingMethodImpl schedulingMethod;
+
+    private InternalTaskFlowJob job;
+
+    private List<InternalTask> tasks;
+
+    private final List<RunningTaskData> runningTasks = new ArrayList<>();
+
+    @Before
+    public void init() throws Exception {
+        backfilling = PASchedulerProperties.SCHEDULER_BACKFILLING.getValueAsString();
+        PASchedulerProperties.SCHEDULER_BACKFILLING.updateProperty("true");
+
+        schedulingService = mock(SchedulingService.class);
+        when(schedulingService.getRunningTasks()).thenReturn(runningTasks);
+        schedulingMethod = new SchedulingMethodImpl(schedulingService, mock(TaskTerminateNotification.class), null);
+        setAliveNodesNumber(8);
+
+        job = new InternalTaskFlowJob("job", JobPriority.NORMAL, OnTaskError.CANCEL_JOB, "");
+        job.setId(JobIdImpl.makeJobId("1"));
+        job.setOwner("user");
+        tasks = new ArrayList<>();
+        addTask("large", 8, 0);
+        addTask("smallWithoutWalltime", 1, 0);
+        addTask("smallEndingBeforeTheReservation", 1, MINUTE);
+    }
+
+    @After
+    public void restoreBackfilling() {
+        PASchedulerProperties.SCHEDULER_BACKFILLING.updateProperty(backfilling);
+    }
+
+    @Test
+    public void onlyTasksEndingBeforeTheReservationAreBackfilled() throws Exception {
+        runningTask(4, 10 * MINUTE);
+
+        assertEquals(Collections.singletonList("smallEndingBeforeTheReservation"), selectTasks());
+        verify(schedulingService).getRunningTasks();
+    }
+
+    @Test
+    public void noTaskIsBackfilledWhenTheReservationDependsOnTasksWithoutWalltime() throws Exception {
+        runningTask(4, 0);
+
+        assertEquals(Collections.<String> emptyList(), selectTasks());
+    }
+
+    @Test
+    public void tasksUseTheNodesLeftByTheReservation() throws Exception {
+        runningTask(2, 10 * MINUTE);
+        runningTask(3, 10 * MINUTE);
+
+        // 9 nodes free once the running tasks end, 1 node more than needed by the large task
+        assertEquals(Arrays.asList("smallWithoutWalltime", "smallEndingBeforeTheReservation"),
+                     selectTasks());
+    }
+
+    @Test
+    public void noNodesAreReservedForATaskNeedingMoreNodesThanAlive() throws Exception {
+        setAliveNodesNumber(6);
+        runningTask(2, 0);
+
+        assertEquals(Arrays.asList("smallWithoutWalltime", "smallEndingBeforeTheReservation"),
+                     selectTasks());
+    }
+
+    @Test
+    public void noNodesAreReservedWithoutBackfilling() throws Exception {
+        PASchedulerProperties.SCHEDULER_BACKFILLING.updateProperty("false");
+        runningTask(4, 0);
+
+        assertEquals(Arrays.asList("smallWithoutWalltime", "smallEndingBeforeTheReservation"),
+                     selectTasks());
+    }
+
+    /**
+     * Selects the tasks to start on the 4 free nodes, as the scheduling loop does.
+     *
+     * @return the names of the selected tasks
+     */
+    private List<String> selectTasks() {
+        Map<JobId, JobDescriptor> jobsMap = new HashMap<>();
+        jobsMap.put(job.getId(), new JobDescriptorImpl(job));
+        LinkedList<EligibleTaskDescriptor> bagOfTasks = new LinkedList<>();
+        for (InternalTask task : tasks) {
+            bagOfTasks.add(new EligibleTaskDescriptorImpl(task));
+        }
+        LinkedList<EligibleTaskDescriptor> toFill = new LinkedList<>();
+        int neededNodes = 0;
+        while (!bagOfTasks.isEmpty() && neededNodes == 0) {
+            neededNodes = schedulingMethod.getNextcompatibleTasks(jobsMap, bagOfTasks, 4, toFill);
+        }
+        List<String> names = new ArrayList<>();
+        for (EligibleTaskDescriptor etd : toFill) {
+            names.add(((EligibleTaskDescriptorImpl) etd).getInternal().getName());
+        }
+        return names;
+    }
+
+    private void addTask(String name, int nodes, long walltime) {
+        InternalTask task = new InternalScriptTask(job);
+        task.setName(name);
+        if (nodes > 1) {
+            task.setParallelEnvironment(new ParallelEnvironment(nodes));
+        }
+        if (walltime > 0) {
+            task.setWallTime(walltime);
+        }
+        job.addTask(task);
+        tasks.add(task);
+    }
+
+    /**
+     * Adds a task started now on the given number of nodes, without walltime if it is 0.
+     */
+    private void runningTask(int nodes, long walltime) {
+        InternalTask task = new InternalScriptTask(job);
+        task.setParallelEnvironment(new ParallelEnvironment(nodes));
+        if (walltime > 0) {
+            task.setWallTime(walltime);
+        }
+        task.setStartTime(System.currentTimeMillis());
+        runningTasks.add(new RunningTaskData(task, "user", null, null));
+    }
+
+    private void setAliveNodesNumber(int aliveNodesNumber) throws Exception {
+        Field field = SchedulingMethodImpl.class.getDeclaredField("aliveNodesNumber");
+        field.setAccessible(true);
+        field.set(schedulingMethod, aliveNodesNumber);
+    }
+}
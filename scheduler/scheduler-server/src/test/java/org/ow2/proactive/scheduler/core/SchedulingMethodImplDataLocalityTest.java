@@ -0,0 +1,174 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.rmi.dgc.VMID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeInformation;
+import org.objectweb.proactive.core.runtime.VMInformation;
+import org.ow2.proactive.scheduler.common.TaskTerminateNotification;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.task.OnTaskError;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputAccessMode;
+import org.ow2.proactive.scheduler.core.locality.DataLocalityRegistry;
+import org.ow2.proactive.scheduler.core.properties.PASchedulerProperties;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.policy.ram.RamSchedulingPolicy;
+import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.proactive.utils.NodeSet;
+
+
+/**
+ * Data locality combined with a policy booking resources: the RAM is booked on the node
+ * holding the data of the task, which is the node the task is started on.
+ */
+public class SchedulingMethodImplDataLocalityTest {
+
+    private String locality;
+
+    private SchedulingMethodImpl schedulingMethod;
+
+    private RamSchedulingPolicy policy;
+
+    private InternalTaskFlowJob job;
+
+    private Node nodeWithoutData;
+
+    private Node nodeWithData;
+
+    private InternalTask parent;
+
+    @Before
+    public void init() throws Exception {
+        locality = PASchedulerProperties.SCHEDULER_LOCALITY.getValueAsString();
+        PASchedulerProperties.SCHEDULER_LOCALITY.updateProperty("true");
+
+        schedulingMethod = new SchedulingMethodImpl(mock(SchedulingService.class),
+                                                    mock(TaskTerminateNotification.class),
+                                                    null);
+        policy = new RamSchedulingPolicy() {
+            @Override
+            protected double getTotalRamFromNode(Node n) {
+                return 8;
+            }
+        };
+
+        job = new InternalTaskFlowJob("job", JobPriority.NORMAL, OnTaskError.CANCEL_JOB, "");
+        job.setId(JobIdImpl.makeJobId("1"));
+        nodeWithoutData = createNode("pnp://host1:64738/node1", "host1");
+        nodeWithData = createNode("pnp://host2:64738/node2", "host2");
+
+        parent = addTask("parent", null);
+        parent.addOutputFiles("output", OutputAccessMode.TransferToUserSpace);
+        getDataLocality().taskStarted(parent, "pnp://host2:64738/node2", "host2");
+    }
+
+    @After
+    public void restoreLocality() {
+        PASchedulerProperties.SCHEDULER_LOCALITY.updateProperty(locality);
+    }
+
+    @Test
+    public void theRamIsBookedOnTheNodeHoldingTheData() throws Exception {
+        InternalTask child = addTask("child", "6");
+        child.addDependence(parent);
+
+        NodeSet nodeSet = nodeSet(nodeWithoutData, nodeWithData);
+        assertTrue(isTaskExecutable(nodeSet, child));
+        assertEquals(nodeWithData, nodeSet.get(0));
+
+        // 2 GB are left on the node holding the data, 8 GB on the other one
+        assertFalse(isTaskExecutable(nodeSet(nodeWithData), addTask("onNodeWithData", "4")));
+        assertTrue(isTaskExecutable(nodeSet(nodeWithoutData), addTask("onNodeWithoutData", "8")));
+    }
+
+    @Test
+    public void theNodesAreNotArrangedWithoutDataLocality() throws Exception {
+        PASchedulerProperties.SCHEDULER_LOCALITY.updateProperty("false");
+        InternalTask child = addTask("child", "6");
+        child.addDependence(parent);
+
+        NodeSet nodeSet = nodeSet(nodeWithoutData, nodeWithData);
+        assertTrue(isTaskExecutable(nodeSet, child));
+        assertEquals(nodeWithoutData, nodeSet.get(0));
+        assertFalse(isTaskExecutable(nodeSet(nodeWithoutData), addTask("onNodeWithoutData", "4")));
+    }
+
+    private boolean isTaskExecutable(NodeSet nodeSet, InternalTask task) {
+        return schedulingMethod.isTaskExecutable(policy, nodeSet, task, new EligibleTaskDescriptorImpl(task));
+    }
+
+    private InternalTask addTask(String name, String allocRam) {
+        InternalTask task = new InternalScriptTask(job);
+        task.setName(name);
+        if (allocRam != null) {
+            task.addGenericInformation(RamSchedulingPolicy.RAM_VARIABLE_NAME, allocRam);
+        }
+        job.addTask(task);
+        return task;
+    }
+
+    private DataLocalityRegistry getDataLocality() throws Exception {
+        Field field = SchedulingMethodImpl.class.getDeclaredField("dataLocality");
+        field.setAccessible(true);
+        return (DataLocalityRegistry) field.get(schedulingMethod);
+    }
+
+    private static NodeSet nodeSet(Node... nodes) {
+        NodeSet nodeSet = new NodeSet();
+        for (Node node : nodes) {
+            nodeSet.add(node);
+        }
+        return nodeSet;
+    }
+
+    private static Node createNode(String url, String hostName) throws Exception {
+        Node node = mock(Node.class);
+        NodeInformation nodeInformation = mock(NodeInformation.class);
+        VMInformation vmInformation = mock(VMInformation.class);
+        when(nodeInformation.getURL()).thenReturn(url);
+        when(nodeInformation.getName()).thenReturn(hostName + "-node");
+        when(vmInformation.getHostName()).thenReturn(hostName);
+        when(vmInformation.getVMID()).thenReturn(new VMID());
+        when(node.getNodeInformation()).thenReturn(nodeInformation);
+        when(node.getVMInformation()).thenReturn(vmInformation);
+        return node;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.EnumSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.core.db.PageCountCache.CountKey;
+
+
+public class PageCountCacheTest {
+
+    private static final CountKey ALL_JOBS = CountKey.jobs(null, EnumSet.allOf(JobStatus.class));
+
+    private static final CountKey PENDING_JOBS = CountKey.jobs(null, EnumSet.of(JobStatus.PENDING));
+
+    private static final CountKey FINISHED_JOBS_OF_ALICE = CountKey.jobs("alice", EnumSet.of(JobStatus.FINISHED));
+
+    private static final CountKey ALL_JOBS_OF_BOB = CountKey.jobs("bob", EnumSet.allOf(JobStatus.class));
+
+    private static final CountKey ALL_TASKS = CountKey.tasks(null, 0, 0, null, EnumSet.allOf(TaskStatus.class));
+
+    private static final CountKey RECENT_TASKS = CountKey.tasks(null, 1000, 0, null, EnumSet.allOf(TaskStatus.class));
+
+    private PageCountCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new PageCountCache(100, 60000);
+        for (CountKey key : new CountKey[] { ALL_JOBS, PENDING_JOBS, FINISHED_JOBS_OF_ALICE, ALL_JOBS_OF_BOB,
+                                             ALL_TASKS, RECENT_TASKS }) {
+            cache.put(key, cache.getGeneration(), 10);
+        }
+    }
+
+    @Test
+    public void submitted_job_invalidates_the_counts_it_matches() {
+        cache.jobAddedOrRemoved("alice", JobStatus.PENDING);
+
+        assertNull(cache.get(ALL_JOBS, false));
+        assertNull(cache.get(PENDING_JOBS, false));
+        assertNull(cache.get(ALL_TASKS, false));
+        assertNull(cache.get(RECENT_TASKS, false));
+        // the job is neither finished nor owned by bob
+        assertEquals(10, (int) cache.get(FINISHED_JOBS_OF_ALICE, false));
+        assertEquals(10, (int) cache.get(ALL_JOBS_OF_BOB, false));
+    }
+
+    @Test
+    public void removed_job_invalidates_the_counts_it_matches() {
+        cache.jobAddedOrRemoved("alice", JobStatus.FINISHED);
+
+        assertNull(cache.get(ALL_JOBS, false));
+        assertNull(cache.get(FINISHED_JOBS_OF_ALICE, false));
+        assertEquals(10, (int) cache.get(PENDING_JOBS, false));
+        assertEquals(10, (int) cache.get(ALL_JOBS_OF_BOB, false));
+    }
+
+    @Test
+    public void modified_job_keeps_the_counts_over_all_statuses() {
+        cache.jobModified("alice");
+
+        assertEquals(10, (int) cache.get(ALL_JOBS, false));
+        assertEquals(10, (int) cache.get(ALL_TASKS, false));
+        assertEquals(10, (int) cache.get(ALL_JOBS_OF_BOB, false));
+        assertNull(cache.get(PENDING_JOBS, false));
+        assertNull(cache.get(FINISHED_JOBS_OF_ALICE, false));
+        // the times of the tasks may have changed
+        assertNull(cache.get(RECENT_TASKS, false));
+    }
+
+    @Test
+    public void modification_of_an_unknown_owner_invalidates_the_counts_of_all_users() {
+        cache.jobModified(null);
+
+        assertNull(cache.get(FINISHED_JOBS_OF_ALICE, false));
+        assertEquals(10, (int) cache.get(ALL_JOBS_OF_BOB, false));
+    }
+
+    @Test
+    public void added_tasks_only_invalidate_the_counts_of_tasks() {
+        cache.tasksAdded("alice");
+
+        assertNull(cache.get(ALL_TASKS, false));
+        assertNull(cache.get(RECENT_TASKS, false));
+        assertEquals(10, (int) cache.get(ALL_JOBS, false));
+        assertEquals(10, (int) cache.get(PENDING_JOBS, false));
+    }
+
+    @Test
+    public void invalidated_count_is_an_approximation() {
+        cache.jobAddedOrRemoved("alice", JobStatus.PENDING);
+
+        assertEquals(10, (int) cache.get(ALL_JOBS, true));
+    }
+
+    @Test
+    public void count_made_during_a_matching_modification_is_not_exact() {
+        long generation = cache.getGeneration();
+        cache.jobAddedOrRemoved("alice", JobStatus.PENDING);
+        cache.put(ALL_JOBS, generation, 11);
+
+        assertNull(cache.get(ALL_JOBS, false));
+        assertEquals(11, (int) cache.get(ALL_JOBS, true));
+    }
+
+    @Test
+    public void count_made_during_an_unrelated_modification_is_exact() {
+        long generation = cache.getGeneration();
+        cache.jobAddedOrRemoved("alice", JobStatus.PENDING);
+        cache.put(ALL_JOBS_OF_BOB, generation, 11);
+
+        assertEquals(11, (int) cache.get(ALL_JOBS_OF_BOB, false));
+    }
+
+}
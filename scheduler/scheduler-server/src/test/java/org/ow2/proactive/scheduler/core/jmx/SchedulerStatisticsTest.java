@@ -0,0 +1,161 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.jmx;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobId;
+import org.ow2.proactive.scheduler.common.job.JobState;
+import org.ow2.proactive.scheduler.common.job.JobStatus;
+import org.ow2.proactive.scheduler.common.task.TaskState;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+
+
+public class SchedulerStatisticsTest {
+
+    private SchedulerStatistics statistics;
+
+    @Before
+    public void init() {
+        statistics = new SchedulerStatistics(null);
+        statistics.initialize(Collections.<JobState> emptyList());
+    }
+
+    @Test
+    public void testJobLifecycle() {
+        List<TaskState> tasks = tasks(TaskStatus.PENDING, TaskStatus.PENDING);
+        JobState job = job(1, JobStatus.PENDING, tasks);
+        when(job.getSubmittedTime()).thenReturn(1000L);
+        statistics.jobSubmitted(job);
+
+        assertCounts(1, 0, 0, 1);
+        assertTaskCounts(2, 0, 0, 2);
+
+        when(job.getStatus()).thenReturn(JobStatus.RUNNING);
+        when(job.getStartTime()).thenReturn(1500L);
+        statistics.jobUpdated(job, true, false);
+        when(tasks.get(0).getStatus()).thenReturn(TaskStatus.RUNNING);
+        statistics.taskUpdated(job, TaskStatus.PENDING, TaskStatus.RUNNING);
+
+        assertCounts(0, 1, 0, 1);
+        assertTaskCounts(1, 1, 0, 2);
+        assertEquals(500, statistics.getMeanJobPendingTime(), 0);
+
+        when(tasks.get(0).getStatus()).thenReturn(TaskStatus.FINISHED);
+        statistics.taskUpdated(job, TaskStatus.RUNNING, TaskStatus.FINISHED);
+        when(tasks.get(1).getStatus()).thenReturn(TaskStatus.FAULTY);
+        statistics.taskUpdated(job, TaskStatus.PENDING, TaskStatus.FAULTY);
+        when(job.getStatus()).thenReturn(JobStatus.FINISHED);
+        when(job.getFinishedTime()).thenReturn(4500L);
+        statistics.jobUpdated(job, false, true);
+
+        assertCounts(0, 0, 1, 1);
+        assertTaskCounts(0, 0, 2, 2);
+        assertEquals(3000, statistics.getMeanJobExecutionTime(), 0);
+
+        statistics.jobRemoved(job.getId());
+
+        assertCounts(0, 0, 0, 0);
+        assertTaskCounts(0, 0, 0, 0);
+        assertEquals(3000, statistics.getMeanJobExecutionTime(), 0);
+    }
+
+    @Test
+    public void testTasksOfFinishedJobsAreNotPendingOrRunning() {
+        statistics.jobSubmitted(job(1, JobStatus.KILLED, tasks(TaskStatus.PENDING, TaskStatus.RUNNING)));
+
+        assertCounts(0, 0, 1, 1);
+        assertTaskCounts(0, 0, 0, 2);
+    }
+
+    @Test
+    public void testRecoveredJobsOnlyApplyTheirChanges() {
+        List<TaskState> tasks = tasks(TaskStatus.PENDING);
+        JobState job = job(1, JobStatus.RUNNING, tasks);
+        // the counters of recovered jobs come from the database
+        statistics.initialize(Collections.singletonList(job));
+
+        assertTaskCounts(0, 0, 0, 0);
+
+        when(tasks.get(0).getStatus()).thenReturn(TaskStatus.RUNNING);
+        statistics.taskUpdated(job, TaskStatus.PENDING, TaskStatus.RUNNING);
+
+        assertTaskCounts(-1, 1, 0, 0);
+    }
+
+    @Test
+    public void testMeanJobSubmittingPeriod() {
+        for (int i = 1; i <= 3; i++) {
+            JobState job = job(i, JobStatus.PENDING, tasks());
+            when(job.getSubmittedTime()).thenReturn(i * 1000L);
+            statistics.jobSubmitted(job);
+        }
+
+        assertEquals(1000, statistics.getMeanJobSubmittingPeriod(), 0);
+    }
+
+    private void assertCounts(long pending, long running, long finished, long total) {
+        assertEquals(pending, statistics.getPendingJobsCount());
+        assertEquals(running, statistics.getRunningJobsCount());
+        assertEquals(finished, statistics.getFinishedJobsCount());
+        assertEquals(total, statistics.getTotalJobsCount());
+    }
+
+    private void assertTaskCounts(long pending, long running, long finished, long total) {
+        assertEquals(pending, statistics.getPendingTasksCount());
+        assertEquals(running, statistics.getRunningTasksCount());
+        assertEquals(finished, statistics.getFinishedTasksCount());
+        assertEquals(total, statistics.getTotalTasksCount());
+    }
+
+    private static JobState job(int id, JobStatus status, List<TaskState> tasks) {
+        JobState job = mock(JobState.class);
+        JobId jobId = JobIdImpl.makeJobId(Integer.toString(id));
+        when(job.getId()).thenReturn(jobId);
+        when(job.getStatus()).thenReturn(status);
+        when(job.getTasks()).thenReturn(new ArrayList<>(tasks));
+        return job;
+    }
+
+    private static List<TaskState> tasks(TaskStatus... statuses) {
+        List<TaskState> tasks = new ArrayList<>();
+        for (TaskStatus status : statuses) {
+            TaskState task = mock(TaskState.class);
+            when(task.getStatus()).thenReturn(status);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
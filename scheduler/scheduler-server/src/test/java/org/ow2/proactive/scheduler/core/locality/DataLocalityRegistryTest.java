@@ -0,0 +1,224 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.locality;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.objectweb.proactive.core.node.Node;
+import org.objectweb.proactive.core.node.NodeInformation;
+import org.objectweb.proactive.core.runtime.VMInformation;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.task.OnTaskError;
+import org.ow2.proactive.scheduler.common.task.dataspaces.InputAccessMode;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputAccessMode;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.proactive.utils.Criteria;
+import org.ow2.proactive.utils.NodeSet;
+
+
+public class DataLocalityRegistryTest {
+
+    private final InternalJob job = new InternalTaskFlowJob("job", JobPriority.NORMAL, OnTaskError.CANCEL_JOB, "");
+
+    private final DataLocalityRegistry registry = new DataLocalityRegistry(100, 1000);
+
+    @Test
+    public void childrenPreferTheNodesOfTheParentsWithMostOutputs() {
+        InternalTask parent1 = createTask(1, 1, 0);
+        InternalTask parent2 = createTask(2, 2, 0);
+        InternalTask parent3 = createTask(3, 0, 0);
+        InternalTask child = createTask(4, 0, 0);
+        child.addDependence(parent1);
+        child.addDependence(parent2);
+        child.addDependence(parent3);
+
+        registry.taskStarted(parent1, "node1", "host1");
+        registry.taskStarted(parent2, "node2", "host2");
+        registry.taskStarted(parent3, "node3", "host3");
+
+        DataLocalityRegistry.Preference preference = registry.getPreference(Collections.singletonList(child));
+        assertEquals(Arrays.asList("node2", "node1"), preference.getNodesUrls());
+        assertEquals(Arrays.asList("host2", "host1"), preference.getHosts());
+    }
+
+    @Test
+    public void tasksWithoutDataHaveNoPreference() {
+        InternalTask parent = createTask(1, 0, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        registry.taskStarted(parent, "node1", "host1");
+
+        assertTrue(registry.getPreference(Collections.singletonList(child)).isEmpty());
+        assertFalse(registry.isWaiting(child, new HashSet<>(Collections.singletonList("node2")), 0));
+    }
+
+    @Test
+    public void cachedInputsArePreferredOnTheirPreviousNode() {
+        InternalTask task = createTask(1, 0, 2);
+        registry.taskStarted(task, "node1", "host1");
+
+        assertEquals(Collections.singletonList("node1"),
+                     registry.getPreference(Collections.singletonList(task)).getNodesUrls());
+    }
+
+    @Test
+    public void preferredNodesAndHostsAreSetInTheCriteria() {
+        InternalTask parent = createTask(1, 1, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        Criteria criteria = new Criteria(1);
+
+        registry.prefer(criteria, Collections.singletonList(child));
+        assertNull(criteria.getPreferredNodesUrls());
+
+        registry.taskStarted(parent, "node1", "host1");
+        registry.prefer(criteria, Collections.singletonList(child));
+        assertEquals(Collections.singletonList("node1"), criteria.getPreferredNodesUrls());
+        assertEquals(Collections.singletonList("host1"), criteria.getPreferredHosts());
+    }
+
+    @Test
+    public void tasksWaitForTheirNodesUntilTheMaximumWait() {
+        InternalTask parent = createTask(1, 1, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        registry.taskStarted(parent, "node1", "host1");
+        registry.taskStarted(createTask(3, 0, 0), "node2", "host2");
+
+        HashSet<String> freeNodes = new HashSet<>(Collections.singletonList("node2"));
+        assertTrue(registry.isWaiting(child, freeNodes, 10000));
+        assertTrue(registry.isWaiting(child, freeNodes, 10999));
+        assertFalse(registry.isWaiting(child, freeNodes, 11000));
+
+        freeNodes.add("node1");
+        assertFalse(registry.isWaiting(child, freeNodes, 11000));
+    }
+
+    @Test
+    public void tasksDoNotWaitIfANodeOfTheirHostIsFree() {
+        InternalTask parent = createTask(1, 1, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        registry.taskStarted(parent, "node1", "host1");
+        registry.taskStarted(createTask(3, 0, 0), "node2", "host1");
+
+        assertFalse(registry.isWaiting(child, new HashSet<>(Collections.singletonList("node2")), 0));
+    }
+
+    @Test
+    public void tasksDoNotWaitIfANodeOfTheirHostIsFreeWithoutHavingRunTasks() {
+        InternalTask parent = createTask(1, 1, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        registry.taskStarted(parent, "pnp://host1:64738/node1", "host1");
+
+        assertTrue(registry.isWaiting(child,
+                                      new HashSet<>(Collections.singletonList("pnp://host2:64738/node2")),
+                                      0));
+        assertFalse(registry.isWaiting(child,
+                                       new HashSet<>(Collections.singletonList("pnp://host1:64739/node3")),
+                                       0));
+    }
+
+    @Test
+    public void tasksNeverWaitWithoutMaximumWait() {
+        DataLocalityRegistry registry = new DataLocalityRegistry(100, 0);
+        InternalTask parent = createTask(1, 1, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        registry.taskStarted(parent, "node1", "host1");
+
+        assertFalse(registry.isWaiting(child, new HashSet<>(Collections.singletonList("node2")), 0));
+    }
+
+    @Test
+    public void theTaskIsStartedOnTheNodeHoldingItsData() {
+        InternalTask parent = createTask(1, 1, 0);
+        InternalTask child = createTask(2, 0, 0);
+        child.addDependence(parent);
+        registry.taskStarted(parent, "node1", "host1");
+
+        NodeSet nodeSet = new NodeSet();
+        nodeSet.add(createNode("node2", "host2"));
+        nodeSet.add(createNode("node3", "host1"));
+        nodeSet.add(createNode("node1", "host1"));
+
+        registry.arrange(nodeSet, child);
+        assertEquals("node1", nodeSet.get(0).getNodeInformation().getURL());
+        assertEquals(3, nodeSet.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedLocationsAreDropped() {
+        DataLocalityRegistry registry = new DataLocalityRegistry(1, 1000);
+        InternalTask parent1 = createTask(1, 1, 0);
+        InternalTask parent2 = createTask(2, 1, 0);
+        InternalTask child = createTask(3, 0, 0);
+        child.addDependence(parent1);
+        registry.taskStarted(parent1, "node1", "host1");
+        registry.taskStarted(parent2, "node2", "host2");
+
+        assertTrue(registry.getPreference(Collections.singletonList(child)).isEmpty());
+    }
+
+    private InternalTask createTask(long id, int outputs, int cachedInputs) {
+        InternalTask task = new InternalScriptTask(job);
+        task.setId(TaskIdImpl.createTaskId(new JobIdImpl(42L, "job"), "task" + id, id));
+        for (int i = 0; i < outputs; i++) {
+            task.addOutputFiles("output" + i, OutputAccessMode.TransferToUserSpace);
+        }
+        for (int i = 0; i < cachedInputs; i++) {
+            task.addInputFiles("input" + i, InputAccessMode.CacheFromGlobalSpace);
+        }
+        return task;
+    }
+
+    private static Node createNode(String url, String hostName) {
+        Node node = mock(Node.class);
+        NodeInformation nodeInformation = mock(NodeInformation.class);
+        VMInformation vmInformation = mock(VMInformation.class);
+        when(nodeInformation.getURL()).thenReturn(url);
+        when(vmInformation.getHostName()).thenReturn(hostName);
+        when(node.getNodeInformation()).thenReturn(nodeInformation);
+        when(node.getVMInformation()).thenReturn(vmInformation);
+        return node;
+    }
+}
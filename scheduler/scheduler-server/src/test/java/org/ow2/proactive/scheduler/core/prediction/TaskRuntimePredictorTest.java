@@ -0,0 +1,174 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.core.prediction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.ow2.proactive.db.DatabaseManagerException;
+import org.ow2.proactive.scheduler.common.task.TaskRuntimePrediction;
+import org.ow2.proactive.scheduler.core.db.SchedulerDBManager;
+
+
+public class TaskRuntimePredictorTest {
+
+    @Test
+    public void nothingIsPredictedBeforeEnoughSamples() {
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(null, 100, 3, 1000);
+
+        predictor.taskFinished("workflow", "task", 1000);
+        predictor.taskFinished("workflow", "task", 1000);
+
+        assertNull(predictor.getPrediction("workflow", "task"));
+        predictor.taskFinished("workflow", "task", 1000);
+        assertEquals("task", predictor.getPrediction("workflow", "task").getTaskName());
+        assertNull(predictor.getPrediction("other", "task"));
+    }
+
+    @Test
+    public void unknownTasksArePredictedFromTheirJob() {
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(null, 100, 3, 1000);
+        predictor.taskFinished("workflow", "task1", 1000);
+        predictor.taskFinished("workflow", "task2", 2000);
+        predictor.taskFinished("workflow", "task3", 3000);
+
+        TaskRuntimePrediction prediction = predictor.getPrediction("workflow", "task4");
+
+        assertEquals("workflow", prediction.getJobName());
+        assertNull(prediction.getTaskName());
+        assertEquals(3, prediction.getSampleCount());
+        assertEquals(2000, prediction.getMean());
+        assertEquals(1000, prediction.getStandardDeviation());
+        assertEquals(3000, prediction.getMax());
+    }
+
+    @Test
+    public void iterationsAndReplicationsShareTheirDistribution() {
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(null, 100, 3, 1000);
+        predictor.taskFinished("workflow", "task", 1000);
+        predictor.taskFinished("workflow", "task#1", 1000);
+        predictor.taskFinished("workflow", "task#2*3", 1000);
+
+        TaskRuntimePrediction prediction = predictor.getPrediction("workflow", "task*5");
+
+        assertEquals("task", prediction.getTaskName());
+        assertEquals(3, prediction.getSampleCount());
+        assertEquals("task", TaskRuntimePredictor.getBaseName("task*2#1"));
+    }
+
+    @Test
+    public void percentilesAreApproximatedWithinTenPercent() {
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(null, 100, 3, 100000);
+        // uniform between 10 and 20 seconds
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            predictor.taskFinished("workflow", "task", 10000 + random.nextInt(10000));
+        }
+
+        TaskRuntimePrediction prediction = predictor.getPrediction("workflow", "task");
+
+        assertWithin(15000, prediction.getMean(), 0.01);
+        assertWithin(15000, prediction.getMedian(), 0.1);
+        assertWithin(19000, prediction.getPercentile90(), 0.1);
+        assertWithin(19900, prediction.getPercentile99(), 0.1);
+        assertTrue(prediction.getPercentile99() <= prediction.getMax());
+        assertTrue(prediction.getMax() < 20000);
+    }
+
+    @Test
+    public void recentDurationsWeightMore() {
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(null, 100, 3, 100);
+        for (int i = 0; i < 1000; i++) {
+            predictor.taskFinished("workflow", "task", 60000);
+        }
+        // the task became ten times faster
+        for (int i = 0; i < 300; i++) {
+            predictor.taskFinished("workflow", "task", 6000);
+        }
+
+        TaskRuntimePrediction prediction = predictor.getPrediction("workflow", "task");
+
+        assertTrue(prediction.getSampleCount() < 100);
+        assertWithin(6000, prediction.getPercentile90(), 0.1);
+        assertTrue(prediction.getMean() < 7000);
+    }
+
+    @Test
+    public void leastRecentlyUsedDistributionsAreDropped() {
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(null, 4, 1, 1000);
+        predictor.taskFinished("workflow1", "task", 1000);
+        predictor.taskFinished("workflow2", "task", 1000);
+        predictor.getPrediction("workflow1", "task");
+        predictor.taskFinished("workflow3", "task", 1000);
+
+        assertEquals(4, predictor.getDistributionsNumber());
+        assertEquals("task", predictor.getPrediction("workflow1", "task").getTaskName());
+        // the task level distribution of workflow2 is gone, only its job level one is left
+        assertNull(predictor.getPrediction("workflow2", "task").getTaskName());
+    }
+
+    @Test
+    public void distributionsAreLearnedFromTheDatabase() {
+        SchedulerDBManager dbManager = mock(SchedulerDBManager.class);
+        when(dbManager.getFinishedTaskDurations(3)).thenReturn(Arrays.asList(new Object[] { "workflow", "task#2",
+                                                                                            3000L },
+                                                                             new Object[] { "workflow", "task#1",
+                                                                                            2000L },
+                                                                             new Object[] { "workflow", "task",
+                                                                                            1000L }));
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(dbManager, 100, 3, 1000);
+
+        predictor.initialize(3);
+
+        TaskRuntimePrediction prediction = predictor.getPrediction("workflow", "task");
+        assertEquals(3, prediction.getSampleCount());
+        assertEquals(2000, prediction.getMean());
+    }
+
+    @Test
+    public void databaseFailuresAreTolerated() {
+        SchedulerDBManager dbManager = mock(SchedulerDBManager.class);
+        when(dbManager.getFinishedTaskDurations(10)).thenThrow(new DatabaseManagerException("failure"));
+        TaskRuntimePredictor predictor = new TaskRuntimePredictor(dbManager, 100, 1, 1000);
+
+        predictor.initialize(10);
+        predictor.taskFinished("workflow", "task", 1000);
+
+        assertEquals(1, predictor.getPrediction("workflow", "task").getSampleCount());
+    }
+
+    private static void assertWithin(long expected, long actual, double tolerance) {
+        assertTrue("expected " + expected + " but was " + actual,
+                   Math.abs(actual - expected) <= expected * tolerance);
+    }
+}
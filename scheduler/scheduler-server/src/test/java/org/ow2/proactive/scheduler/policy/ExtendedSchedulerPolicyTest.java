@@ -39,6 +39,7 @@ import org.junit.Test;
 import org.ow2.proactive.scheduler.common.JobDescriptor;
 import org.ow2.proactive.scheduler.common.job.JobPriority;
 import org.ow2.proactive.scheduler.common.task.OnTaskError;
+import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
 import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptorImpl;
 import org.ow2.proactive.scheduler.descriptor.JobDescriptorImpl;
@@ -161,6 +162,86 @@ public class ExtendedSchedulerPolicyTest extends ProActiveTestClean {
         assertTrue(orderedTasks != null && orderedTasks.size() == 2);
     }
 
+    @Test
+    public void testDeferredTasksAreHeldBack() {
+        JobDescriptor job = createJobDescWithTwoTasks(null, now, later);
+        assertEquals(1, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        // the task which starts later is not eligible anymore
+        assertEquals(1, job.getEligibleTasks().size());
+        assertEquals(1, policy.getOrderedTasks(asModifiableList(job)).size());
+    }
+
+    @Test
+    public void testDeferredTasksAreReleasedWhenTheirStartTimeIsPassed() {
+        long startTime = System.currentTimeMillis() + 3600000;
+        String soon = ISO8601DateUtil.parse(new Date(startTime));
+        JobDescriptorImpl job = (JobDescriptorImpl) createJobDescWithTwoTasks(soon, null, null);
+        assertEquals(0, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        job.releaseDeferredTasks(startTime - 1000);
+        assertEquals(0, job.getEligibleTasks().size());
+
+        // the START_AT of the released tasks is read again
+        job.getInternal().addGenericInformation("START_AT", now);
+        job.releaseDeferredTasks(startTime + 1000);
+        assertEquals(2, job.getEligibleTasks().size());
+        assertEquals(2, policy.getOrderedTasks(asModifiableList(job)).size());
+    }
+
+    @Test
+    public void testPausedDeferredTasksAreNotReleased() {
+        JobDescriptorImpl job = (JobDescriptorImpl) createJobDescWithTwoTasks(later, null, null);
+        assertEquals(0, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        TaskId pausedTaskId = job.getInternal().getITasks().get(0).getId();
+        job.pause(pausedTaskId);
+        job.releaseAllDeferredTasks();
+        assertEquals(1, job.getEligibleTasks().size());
+        assertTrue(job.getPausedTasks().containsKey(pausedTaskId));
+
+        job.unpause(pausedTaskId);
+        assertEquals(2, job.getEligibleTasks().size());
+    }
+
+    @Test
+    public void testChangedStartAtIsReadAgain() {
+        JobDescriptor job = createJobDescWithTwoTasks(later, null, null);
+        assertEquals(0, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        ((JobDescriptorImpl) job).getInternal().addGenericInformation("START_AT", now);
+        // the tasks are held back until their former start time
+        assertEquals(0, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        policy.jobStartAtChanged(job.getJobId());
+        assertEquals(2, policy.getOrderedTasks(asModifiableList(job)).size());
+    }
+
+    @Test
+    public void testChangedStartAtDefersStartableTasks() {
+        JobDescriptor job = createJobDescWithTwoTasks(now, null, null);
+        assertEquals(2, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        ((JobDescriptorImpl) job).getInternal().addGenericInformation("START_AT", later);
+        // the start time of the tasks is kept from the first cycle
+        assertEquals(2, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        policy.jobStartAtChanged(job.getJobId());
+        assertEquals(0, policy.getOrderedTasks(asModifiableList(job)).size());
+        assertEquals(0, job.getEligibleTasks().size());
+    }
+
+    @Test
+    public void testStartAtIsReadAgainWhenTasksBecomeEligibleAgain() {
+        JobDescriptor job = createJobDescWithTwoTasks(now, null, null);
+        assertEquals(2, policy.getOrderedTasks(asModifiableList(job)).size());
+
+        ((JobDescriptorImpl) job).getInternal().addGenericInformation("START_AT", later);
+        // a cycle without the tasks drops them from the index
+        assertEquals(0, policy.getOrderedTasks(asModifiableList()).size());
+        assertEquals(0, policy.getOrderedTasks(asModifiableList(job)).size());
+    }
+
     @Test
     public void job_with_same_priorities() throws Exception {
         JobDescriptor job1 = createJobDescWithTwoTasks(null, null, null);
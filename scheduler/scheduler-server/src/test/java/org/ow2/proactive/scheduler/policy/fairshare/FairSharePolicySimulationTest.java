@@ -0,0 +1,223 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.fairshare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.JobDescriptor;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.task.OnTaskError;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.descriptor.EligibleTaskDescriptor;
+import org.ow2.proactive.scheduler.descriptor.JobDescriptorImpl;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalScriptTask;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+import org.ow2.tests.ProActiveTestClean;
+
+import performancetests.recovery.PerformanceTestBase;
+
+
+/**
+ * Simulation benchmark of the {@link FairSharePolicy}: the scheduling loop is replayed cycle by
+ * cycle over a simulated clock. It checks that a user who submitted far more jobs than the others
+ * does not starve them, and reports the cost of a scheduling cycle with many pending tasks.
+ */
+public class FairSharePolicySimulationTest extends ProActiveTestClean {
+
+    private static final Logger LOGGER = Logger.getLogger(FairSharePolicySimulationTest.class);
+
+    private static final long CYCLE = 1000; // simulated milliseconds
+
+    private static final int NB_NODES = 30;
+
+    private static final int TASK_DURATION = 10; // in cycles
+
+    private static final int NB_CYCLES = 100;
+
+    private static final int NB_PENDING_TASKS = 20000;
+
+    private static final int NB_USERS = 50;
+
+    private int jobId = 0;
+
+    private long clock = 0;
+
+    @Test
+    public void heavyUserDoesNotStarveTheOthers() {
+        FairSharePolicy policy = createPolicy();
+        // the heavy user submits first, a FIFO policy would only run its jobs
+        List<JobDescriptor> pending = new ArrayList<>();
+        pending.addAll(createJobs("heavy", 3000, JobPriority.NORMAL));
+        pending.addAll(createJobs("light1", 500, JobPriority.NORMAL));
+        pending.addAll(createJobs("light2", 500, JobPriority.NORMAL));
+
+        Map<String, Integer> starts = simulate(policy, pending);
+
+        int total = starts.get("heavy") + starts.get("light1") + starts.get("light2");
+        LOGGER.info(PerformanceTestBase.makeCSVString(FairSharePolicySimulationTest.class.getSimpleName() + "Fairness",
+                                                      total,
+                                                      starts.get("heavy"),
+                                                      starts.get("light1"),
+                                                      starts.get("light2")));
+        for (String user : starts.keySet()) {
+            double fraction = (double) starts.get(user) / total;
+            assertTrue(user + " got " + fraction + " of the nodes", fraction > 0.25 && fraction < 0.42);
+        }
+        assertEquals(NB_NODES, policy.getLedger().getRunningTasksNumber());
+    }
+
+    @Test
+    public void priorityPrevailsOverShares() {
+        FairSharePolicy policy = createPolicy();
+        List<JobDescriptor> pending = new ArrayList<>();
+        pending.addAll(createJobs("heavy", 5, JobPriority.HIGH));
+        pending.addAll(createJobs("light", 5, JobPriority.NORMAL));
+
+        LinkedList<EligibleTaskDescriptor> ordered = policy.getOrderedTasks(pending);
+
+        for (int i = 0; i < 5; i++) {
+            JobDescriptorImpl job = findJob(pending, ordered.get(i));
+            assertEquals("heavy", job.getInternal().getOwner());
+        }
+    }
+
+    @Test
+    public void cycleCostWithManyPendingTasks() {
+        FairSharePolicy policy = createPolicy();
+        List<JobDescriptor> pending = new ArrayList<>(NB_PENDING_TASKS);
+        for (int i = 0; i < NB_PENDING_TASKS; i++) {
+            pending.addAll(createJobs("user" + (i % NB_USERS), 1, JobPriority.NORMAL));
+        }
+
+        // warm up
+        policy.getOrderedTasks(pending);
+
+        int nbCycles = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < nbCycles; i++) {
+            assertEquals(NB_PENDING_TASKS, policy.getOrderedTasks(pending).size());
+        }
+        long meanCycleMillis = (System.nanoTime() - start) / nbCycles / 1000000;
+
+        LOGGER.info(PerformanceTestBase.makeCSVString(FairSharePolicySimulationTest.class.getSimpleName() + "CycleCost",
+                                                      NB_PENDING_TASKS,
+                                                      NB_USERS,
+                                                      meanCycleMillis));
+        assertTrue("A scheduling cycle took " + meanCycleMillis + " ms", meanCycleMillis < 2000);
+    }
+
+    /**
+     * Replays the scheduling loop, each cycle terminates the tasks whose duration elapsed then
+     * starts the first ordered tasks on the free nodes.
+     *
+     * @return the number of started tasks per user
+     */
+    private Map<String, Integer> simulate(FairSharePolicy policy, List<JobDescriptor> pending) {
+        Map<String, Integer> starts = new HashMap<>();
+        LinkedList<Running> running = new LinkedList<>();
+        for (int cycle = 0; cycle < NB_CYCLES; cycle++) {
+            clock = cycle * CYCLE;
+            for (Iterator<Running> it = running.iterator(); it.hasNext();) {
+                Running task = it.next();
+                if (task.end <= clock) {
+                    policy.taskTerminated(task.taskId);
+                    it.remove();
+                }
+            }
+            LinkedList<EligibleTaskDescriptor> ordered = policy.getOrderedTasks(pending);
+            while (running.size() < NB_NODES && !ordered.isEmpty()) {
+                EligibleTaskDescriptor task = ordered.removeFirst();
+                if (policy.isTaskExecutable(null, task)) {
+                    JobDescriptorImpl job = findJob(pending, task);
+                    pending.remove(job);
+                    running.add(new Running(task.getTaskId(), clock + TASK_DURATION * CYCLE));
+                    String owner = job.getInternal().getOwner();
+                    Integer count = starts.get(owner);
+                    starts.put(owner, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        return starts;
+    }
+
+    private FairSharePolicy createPolicy() {
+        return new FairSharePolicy() {
+            @Override
+            long now() {
+                return clock;
+            }
+        };
+    }
+
+    private JobDescriptorImpl findJob(List<JobDescriptor> jobs, EligibleTaskDescriptor task) {
+        for (JobDescriptor job : jobs) {
+            if (job.getJobId().equals(task.getJobId())) {
+                return (JobDescriptorImpl) job;
+            }
+        }
+        throw new IllegalStateException("No job for task " + task.getTaskId());
+    }
+
+    private List<JobDescriptor> createJobs(String owner, int nbJobs, JobPriority priority) {
+        List<JobDescriptor> jobs = new ArrayList<>(nbJobs);
+        for (int i = 0; i < nbJobs; i++) {
+            InternalJob job = new InternalTaskFlowJob("job" + jobId, priority, OnTaskError.CANCEL_JOB, "");
+            job.setId(JobIdImpl.makeJobId(Integer.toString(jobId++)));
+            job.setOwner(owner);
+            ArrayList<InternalTask> tasks = new ArrayList<>(1);
+            tasks.add(new InternalScriptTask(job));
+            ((InternalTaskFlowJob) job).addTasks(tasks);
+            jobs.add(new JobDescriptorImpl(job));
+        }
+        return jobs;
+    }
+
+    private static final class Running {
+
+        private final TaskId taskId;
+
+        private final long end;
+
+        private Running(TaskId taskId, long end) {
+            this.taskId = taskId;
+            this.end = end;
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.fairshare;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.task.TaskId;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+
+
+public class FairShareUsageLedgerTest {
+
+    private static final long HALF_LIFE = 1000;
+
+    private static final double DELTA = 1e-6;
+
+    private FairShareUsageLedger ledger;
+
+    private int taskId = 0;
+
+    @Before
+    public void setUp() {
+        ledger = new FairShareUsageLedger();
+        Map<String, String> userGroups = new HashMap<>();
+        userGroups.put("user1", "group");
+        userGroups.put("user2", "group");
+        ledger.configure(HALF_LIFE,
+                         1,
+                         Collections.singletonMap("user1", 2d),
+                         Collections.singletonMap("group", 4d),
+                         userGroups,
+                         0);
+    }
+
+    @Test
+    public void testUsageAccruesWhileTasksRun() {
+        TaskId task = createTaskId();
+        ledger.taskStarted(task, "user1", 2, 0);
+
+        // du/dt = n - k.u starting from 0 gives n/k.(1 - 2^(-t/halfLife))
+        double expected = 2 / decayRate() * 0.5;
+        assertEquals(expected, ledger.getUserUsage("user1", HALF_LIFE), DELTA);
+        assertEquals(expected, ledger.getGroupUsage("group", HALF_LIFE), DELTA);
+    }
+
+    @Test
+    public void testUsageDecaysOnceTasksTerminated() {
+        TaskId task = createTaskId();
+        ledger.taskStarted(task, "user1", 1, 0);
+        ledger.taskTerminated(task, HALF_LIFE);
+        double usage = ledger.getUserUsage("user1", HALF_LIFE);
+
+        assertEquals(usage / 2, ledger.getUserUsage("user1", 2 * HALF_LIFE), DELTA);
+        assertEquals(usage / 4, ledger.getUserUsage("user1", 3 * HALF_LIFE), DELTA);
+        assertEquals(0, ledger.getRunningTasksNumber());
+    }
+
+    @Test
+    public void testGroupAccumulatesTheUsageOfItsUsers() {
+        ledger.taskStarted(createTaskId(), "user1", 1, 0);
+        ledger.taskStarted(createTaskId(), "user2", 1, 0);
+        ledger.taskStarted(createTaskId(), "user3", 1, 0);
+
+        double userUsage = ledger.getUserUsage("user1", HALF_LIFE);
+        assertEquals(userUsage, ledger.getUserUsage("user2", HALF_LIFE), DELTA);
+        assertEquals(userUsage, ledger.getUserUsage("user3", HALF_LIFE), DELTA);
+        assertEquals(2 * userUsage, ledger.getGroupUsage("group", HALF_LIFE), DELTA);
+    }
+
+    @Test
+    public void testSharesAndGroups() {
+        assertEquals(2, ledger.getUserShare("user1"), DELTA);
+        assertEquals(1, ledger.getUserShare("user2"), DELTA);
+        assertEquals(4, ledger.getGroupShare("group"), DELTA);
+        assertEquals("group", ledger.getGroup("user1"));
+        assertEquals(null, ledger.getGroup("user3"));
+    }
+
+    @Test
+    public void testTaskIsAccountedOnce() {
+        TaskId task = createTaskId();
+        ledger.taskStarted(task, "user1", 1, 0);
+        ledger.taskStarted(task, "user1", 1, 0);
+        ledger.taskTerminated(task, HALF_LIFE);
+        ledger.taskTerminated(task, HALF_LIFE);
+        ledger.taskTerminated(createTaskId(), HALF_LIFE);
+
+        assertEquals(1 / decayRate() * 0.5, ledger.getUserUsage("user1", HALF_LIFE), DELTA);
+        assertEquals(0, ledger.getRunningTasksNumber());
+    }
+
+    private double decayRate() {
+        return Math.log(2) / HALF_LIFE;
+    }
+
+    private TaskId createTaskId() {
+        return TaskIdImpl.createTaskId(JobIdImpl.makeJobId("0"), "task" + taskId, taskId++);
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.license;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+import performancetests.recovery.PerformanceTestBase;
+
+
+public class LicenseTokenManagerTest {
+
+    private static final Logger LOGGER = Logger.getLogger(LicenseTokenManagerTest.class);
+
+    private LicenseTokenManager tokenManager;
+
+    private int taskId = 0;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("software_A", "2");
+        properties.setProperty("software_B", "5");
+        tokenManager = new LicenseTokenManager(properties);
+    }
+
+    @Test
+    public void testParseRequiredLicenses() {
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("software_A", 1);
+        expected.put("software_B", 3);
+        assertEquals(expected, LicenseSchedulingPolicy.parseRequiredLicenses("software_A, software_B:3"));
+
+        expected.clear();
+        expected.put("software_A", 3);
+        assertEquals(expected, LicenseSchedulingPolicy.parseRequiredLicenses("software_A,software_A:2"));
+
+        expected.clear();
+        expected.put("software:name", 1);
+        assertEquals(expected, LicenseSchedulingPolicy.parseRequiredLicenses("software:name"));
+    }
+
+    @Test
+    public void testAcquireUntilExhausted() {
+        assertTrue(tokenManager.acquire(task(TaskStatus.PENDING), tokens("software_A", 1)));
+        assertTrue(tokenManager.acquire(task(TaskStatus.PENDING), tokens("software_A", 1)));
+        assertFalse(tokenManager.acquire(task(TaskStatus.PENDING), tokens("software_A", 1)));
+        assertEquals(0, tokenManager.getAvailableTokens("software_A"));
+    }
+
+    @Test
+    public void testUnknownSoftware() {
+        assertFalse(tokenManager.acquire(task(TaskStatus.PENDING), tokens("software_C", 1)));
+        assertEquals(-1, tokenManager.getAvailableTokens("software_C"));
+    }
+
+    @Test
+    public void testWeightedTokensAreAcquiredAllOrNothing() {
+        Map<String, Integer> required = tokens("software_A", 1);
+        required.put("software_B", 6);
+        assertFalse(tokenManager.acquire(task(TaskStatus.PENDING), required));
+        assertEquals(2, tokenManager.getAvailableTokens("software_A"));
+        assertEquals(5, tokenManager.getAvailableTokens("software_B"));
+
+        required.put("software_B", 4);
+        assertTrue(tokenManager.acquire(task(TaskStatus.PENDING), required));
+        assertEquals(1, tokenManager.getAvailableTokens("software_A"));
+        assertEquals(1, tokenManager.getAvailableTokens("software_B"));
+    }
+
+    @Test
+    public void testReleaseOnTermination() {
+        InternalTask task = task(TaskStatus.RUNNING);
+        assertTrue(tokenManager.acquire(task, tokens("software_A", 2)));
+        assertFalse(tokenManager.acquire(task(TaskStatus.PENDING), tokens("software_A", 1)));
+
+        tokenManager.release(task.getId());
+        assertEquals(2, tokenManager.getAvailableTokens("software_A"));
+        tokenManager.release(task.getId());
+        assertEquals(2, tokenManager.getAvailableTokens("software_A"));
+    }
+
+    @Test
+    public void testTaskScheduledAgainDoesNotHoldTokensTwice() {
+        InternalTask task = task(TaskStatus.PENDING);
+        assertTrue(tokenManager.acquire(task, tokens("software_A", 2)));
+        assertTrue(tokenManager.acquire(task, tokens("software_A", 2)));
+        assertEquals(0, tokenManager.getAvailableTokens("software_A"));
+    }
+
+    @Test
+    public void testTerminatedHoldersAreSweptWhenExhausted() {
+        InternalTask task = task(TaskStatus.RUNNING);
+        assertTrue(tokenManager.acquire(task, tokens("software_A", 2)));
+        when(task.getStatus()).thenReturn(TaskStatus.FINISHED);
+        assertTrue(tokenManager.acquire(task(TaskStatus.PENDING), tokens("software_A", 2)));
+    }
+
+    /**
+     * Benchmark: thousands of license gated tasks are repeatedly scheduled while the running ones
+     * terminate, the time per scheduling decision must not depend on the number of tasks.
+     */
+    @Test
+    public void thousandsOfLicenseGatedTasks() {
+        int nbTokens = 1000;
+        int nbTasks = 20000;
+        Properties properties = new Properties();
+        properties.setProperty("software", Integer.toString(nbTokens));
+        LicenseTokenManager manager = new LicenseTokenManager(properties);
+
+        List<InternalTask> tasks = new ArrayList<>(nbTasks);
+        for (int i = 0; i < nbTasks; i++) {
+            tasks.add(task(TaskStatus.PENDING));
+        }
+
+        long start = System.nanoTime();
+        List<InternalTask> running = new ArrayList<>(nbTokens);
+        int nbStarted = 0;
+        int nbDecisions = 0;
+        for (InternalTask task : tasks) {
+            while (!manager.acquire(task, tokens("software", 1))) {
+                nbDecisions++;
+                // the oldest running task terminates
+                manager.release(running.remove(0).getId());
+            }
+            nbDecisions++;
+            running.add(task);
+            nbStarted++;
+        }
+        long durationNanos = System.nanoTime() - start;
+
+        LOGGER.info(PerformanceTestBase.makeCSVString(LicenseTokenManagerTest.class.getSimpleName(),
+                                                      nbTasks,
+                                                      nbDecisions,
+                                                      durationNanos / nbDecisions));
+
+        assertEquals(nbTasks, nbStarted);
+        assertEquals(0, manager.getAvailableTokens("software"));
+    }
+
+    private Map<String, Integer> tokens(String software, int count) {
+        Map<String, Integer> tokens = new HashMap<>();
+        tokens.put(software, count);
+        return tokens;
+    }
+
+    private InternalTask task(TaskStatus status) {
+        InternalTask task = mock(InternalTask.class, withSettings().stubOnly());
+        when(task.getId()).thenReturn(TaskIdImpl.createTaskId(JobIdImpl.makeJobId("1"), "task", taskId++));
+        when(task.getStatus()).thenReturn(status);
+        return task;
+    }
+
+}
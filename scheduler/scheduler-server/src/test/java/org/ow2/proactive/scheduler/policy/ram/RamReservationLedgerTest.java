@@ -0,0 +1,120 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.policy.ram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.rmi.dgc.VMID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scheduler.task.internal.InternalTask;
+
+
+public class RamReservationLedgerTest {
+
+    private RamReservationLedger ledger;
+
+    private VMID vm;
+
+    private int taskId = 0;
+
+    @Before
+    public void setUp() {
+        ledger = new RamReservationLedger();
+        vm = new VMID();
+    }
+
+    @Test
+    public void testCapacityRefresh() {
+        assertTrue(ledger.isCapacityOutdated(vm, 0, 1000));
+        ledger.updateCapacity(vm, 8, 0);
+        assertFalse(ledger.isCapacityOutdated(vm, 999, 1000));
+        assertTrue(ledger.isCapacityOutdated(vm, 1000, 1000));
+        assertTrue(ledger.isCapacityOutdated(new VMID(), 0, 1000));
+    }
+
+    @Test
+    public void testUnknownCapacity() {
+        assertFalse(ledger.book(vm, task(TaskStatus.PENDING), 1));
+        assertEquals(0, ledger.getFreeRam(vm), 0);
+    }
+
+    @Test
+    public void testBookUntilFull() {
+        ledger.updateCapacity(vm, 8, 0);
+        assertTrue(ledger.book(vm, task(TaskStatus.PENDING), 3));
+        assertTrue(ledger.book(vm, task(TaskStatus.PENDING), 3));
+        assertFalse(ledger.book(vm, task(TaskStatus.PENDING), 3));
+        assertTrue(ledger.book(vm, task(TaskStatus.PENDING), 2));
+        assertEquals(0, ledger.getFreeRam(vm), 0);
+    }
+
+    @Test
+    public void testBookingsOfTerminatedTasksAreReleased() {
+        ledger.updateCapacity(vm, 4, 0);
+        InternalTask task = task(TaskStatus.RUNNING);
+        assertTrue(ledger.book(vm, task, 4));
+        assertFalse(ledger.book(vm, task(TaskStatus.PENDING), 1));
+
+        when(task.getStatus()).thenReturn(TaskStatus.FINISHED);
+        assertEquals(4, ledger.getFreeRam(vm), 0);
+        assertTrue(ledger.book(vm, task(TaskStatus.PENDING), 4));
+    }
+
+    @Test
+    public void testBookingIsReplacedWhenTaskIsScheduledAgain() {
+        ledger.updateCapacity(vm, 4, 0);
+        InternalTask task = task(TaskStatus.PENDING);
+        assertTrue(ledger.book(vm, task, 3));
+        assertTrue(ledger.book(vm, task, 4));
+        assertEquals(0, ledger.getFreeRam(vm), 0);
+    }
+
+    @Test
+    public void testRelease() {
+        ledger.updateCapacity(vm, 4, 0);
+        InternalTask task = task(TaskStatus.RUNNING);
+        assertTrue(ledger.book(vm, task, 4));
+        ledger.release(task.getId());
+        assertEquals(4, ledger.getFreeRam(vm), 0);
+    }
+
+    private InternalTask task(TaskStatus status) {
+        InternalTask task = mock(InternalTask.class);
+        when(task.getId()).thenReturn(TaskIdImpl.createTaskId(JobIdImpl.makeJobId("1"), "task", taskId++));
+        when(task.getStatus()).thenReturn(status);
+        return task;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.task.internal;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.job.JobPriority;
+import org.ow2.proactive.scheduler.common.task.OnTaskError;
+import org.ow2.proactive.scheduler.common.task.TaskStatus;
+import org.ow2.proactive.scheduler.common.task.TaskVariable;
+import org.ow2.proactive.scheduler.common.task.flow.FlowScript;
+import org.ow2.proactive.scheduler.job.InternalJob;
+import org.ow2.proactive.scheduler.job.InternalTaskFlowJob;
+import org.ow2.proactive.scheduler.job.JobIdImpl;
+import org.ow2.proactive.scheduler.task.TaskIdImpl;
+import org.ow2.proactive.scripting.SelectionScript;
+import org.ow2.proactive.scripting.SimpleScript;
+import org.ow2.tests.ProActiveTestClean;
+
+
+public class InternalTaskReplicateTest extends ProActiveTestClean {
+
+    private InternalJob job;
+
+    private InternalTask template;
+
+    @Before
+    public void init() throws Exception {
+        job = new InternalTaskFlowJob("test-name", JobPriority.NORMAL, OnTaskError.CANCEL_JOB, "description");
+        template = new InternalScriptTask(job);
+        template.setName("T");
+        template.setId(TaskIdImpl.createTaskId(new JobIdImpl(666L, "JobName"), "T", 1L));
+        template.setPreScript(new SimpleScript("print('pre')", "js"));
+        template.addSelectionScript(new SelectionScript("selected = ${ok}", "js"));
+        template.setFlowScript(FlowScript.createLoopFlowScript("loop = false", "T"));
+        template.setVariables(Collections.singletonMap("var", new TaskVariable("var", "value")));
+        template.addGenericInformation("info", "value");
+        template.setStatus(TaskStatus.FINISHED);
+    }
+
+    @Test
+    public void testReplicaSharesImmutableParts() throws Exception {
+        InternalTask replica = (InternalTask) template.replicate();
+
+        assertThat(replica.getPreScript(), sameInstance(template.getPreScript()));
+        assertThat(replica.getReplicatedFrom(), sameInstance(template));
+        assertThat(replica.getStatus(), is(TaskStatus.SUBMITTED));
+        assertThat(replica.getIDependences(), is(nullValue()));
+    }
+
+    @Test
+    public void testReplicaMutationsDoNotLeakToTemplate() throws Exception {
+        InternalTask replica = (InternalTask) template.replicate();
+        replica.setIterationIndex(1);
+        replica.getVariables().get("var").setValue("other");
+        replica.addGenericInformation("info", "other");
+        replica.getSelectionScripts().get(0).setScript("selected = true");
+        replica.setMaxNumberOfExecution(5);
+
+        assertThat(template.getName(), is("T"));
+        assertThat(template.getId().getReadableName(), is("T"));
+        assertThat(template.getFlowScript().getActionTarget(), is("T"));
+        assertThat(template.getVariables().get("var").getValue(), is("value"));
+        assertThat(template.getGenericInformation().get("info"), is("value"));
+        assertThat(template.getSelectionScripts().get(0).getScript(), is("selected = ${ok}"));
+        assertThat(template.getMaxNumberOfExecution(), is(not(5)));
+    }
+
+    @Test
+    public void testReplicaOfReplicaPointsToTemplate() throws Exception {
+        InternalTask replica = (InternalTask) template.replicate();
+        InternalTask second = (InternalTask) replica.replicate();
+
+        assertThat(second.getReplicatedFrom(), sameInstance(template));
+    }
+
+}
@@ -35,6 +35,7 @@ import performancetests.metrics.TaskCreationTimeTest;
 import performancetests.metrics.TaskSchedulingTimeTest;
 import performancetests.recovery.JobRecoveryTest;
 import performancetests.recovery.NodeRecoveryTest;
+import performancetests.topology.MatrixHACPerformanceTest;
 
 
 @RunWith(Suite.class)
@@ -44,7 +45,7 @@ import performancetests.recovery.NodeRecoveryTest;
 
                       // Metrics
                       TaskCreationTimeTest.class, GetResultMetricTest.class, SchedulerEfficiencyMetricsTest.class,
-                      ParallelTaskSchedulingTest.class,
+                      ParallelTaskSchedulingTest.class, MatrixHACPerformanceTest.class,
 
                       // Test which computes average metrics
                       TaskSchedulingTimeTest.class
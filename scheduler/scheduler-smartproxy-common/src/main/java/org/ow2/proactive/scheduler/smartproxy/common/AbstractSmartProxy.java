@@ -54,6 +54,7 @@ import org.ow2.proactive.scheduler.common.JobFilterCriteria;
 import org.ow2.proactive.scheduler.common.JobSortParameter;
 import org.ow2.proactive.scheduler.common.NotificationData;
 import org.ow2.proactive.scheduler.common.Page;
+import org.ow2.proactive.scheduler.common.PageCursor;
 import org.ow2.proactive.scheduler.common.Scheduler;
 import org.ow2.proactive.scheduler.common.SchedulerConstants;
 import org.ow2.proactive.scheduler.common.SchedulerEvent;
@@ -81,7 +82,9 @@ import org.ow2.proactive.scheduler.common.job.UserIdentification;
 import org.ow2.proactive.scheduler.common.task.Task;
 import org.ow2.proactive.scheduler.common.task.TaskId;
 import org.ow2.proactive.scheduler.common.task.TaskInfo;
+import org.ow2.proactive.scheduler.common.task.TaskLogsRange;
 import org.ow2.proactive.scheduler.common.task.TaskResult;
+import org.ow2.proactive.scheduler.common.task.TaskResultValueRange;
 import org.ow2.proactive.scheduler.common.task.TaskState;
 import org.ow2.proactive.scheduler.common.task.TaskStatus;
 import org.ow2.proactive.scheduler.common.usage.JobUsage;
@@ -128,6 +131,12 @@ public abstract class AbstractSmartProxy<T extends JobTracker> implements Schedu
     protected final ExecutorService threadPool = Executors.newFixedThreadPool(MAX_NB_OF_DATA_TRANSFER_THREADS,
                                                                               threadFactory);
 
+    /**
+     * Executes the data transfers which can be split per file, sharing the transfer threads between jobs
+     */
+    protected final DataTransferEngine transferEngine = new DataTransferEngine(MAX_NB_OF_DATA_TRANSFER_THREADS,
+                                                                               "SmartProxyFileTransferThread");
+
     private boolean initialized = false;
 
     protected boolean terminated = false;
@@ -161,6 +170,7 @@ public abstract class AbstractSmartProxy<T extends JobTracker> implements Schedu
         }
         jobTracker.close();
         threadPool.shutdownNow();
+        transferEngine.shutdownNow();
         terminated = true;
     }
 
@@ -239,6 +249,12 @@ public abstract class AbstractSmartProxy<T extends JobTracker> implements Schedu
         return getScheduler().getJobs(offset, limit, filterCriteria, sortParameters);
     }
 
+    @Override
+    public Page<JobInfo> getJobs(PageCursor after, int limit, JobFilterCriteria filterCriteria)
+            throws NotConnectedException, PermissionException {
+        return getScheduler().getJobs(after, limit, filterCriteria);
+    }
+
     @Override
     public List<JobInfo> getJobsInfoList(List<String> jobsId) throws PermissionException, NotConnectedException {
         return getScheduler().getJobsInfoList(jobsId);
@@ -399,6 +415,22 @@ public abstract class AbstractSmartProxy<T extends JobTracker> implements Schedu
         downloadTaskOutputFiles(awaitedjob, jobId, t_name, localOutFolderPath);
     }
 
+    /**
+     * Sets the priority of the output data transfers of the given job. Transfers of the jobs with the
+     * highest priority are done first, jobs with the same priority share the transfer threads.
+     *
+     * @param jobId    id of the job
+     * @param priority transfer priority, 0 by default
+     */
+    public void setTransferPriority(String jobId, int priority) {
+        checkInitialized();
+
+        if (!jobTracker.setTransferPriority(jobId, priority)) {
+            throw new IllegalArgumentException("The job " + jobId + " is unknown or has been removed");
+        }
+        transferEngine.setPriority(jobId, priority);
+    }
+
     protected void checkInitialized() {
         if (terminated) {
             throw new IllegalStateException("This SmartProxy instance has been terminated and cannot be used any more.");
@@ -831,8 +863,7 @@ public abstract class AbstractSmartProxy<T extends JobTracker> implements Schedu
         if (at == null)
             return;
 
-        at.setTaskId(tid.toString());
-        jobTracker.putAwaitedJob(id.toString(), aj);
+        jobTracker.setTaskId(id.toString(), tname, tid.toString());
 
         switch (status) {
             case ABORTED:
@@ -981,6 +1012,19 @@ public abstract class AbstractSmartProxy<T extends JobTracker> implements Schedu
         return getScheduler().getTaskResult(jobId, taskName);
     }
 
+    @Override
+    public TaskResultValueRange getTaskResultSerializedValue(String jobId, String taskName, long resultId,
+            long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        return getScheduler().getTaskResultSerializedValue(jobId, taskName, resultId, offset, length);
+    }
+
+    @Override
+    public TaskLogsRange getTaskLogsRange(String jobId, String taskName, long offset, int length)
+            throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
+        return getScheduler().getTaskLogsRange(jobId, taskName, offset, length);
+    }
+
     @Override
     public TaskResult getTaskResultFromIncarnation(String jobId, String taskName, int inc)
             throws NotConnectedException, UnknownJobException, UnknownTaskException, PermissionException {
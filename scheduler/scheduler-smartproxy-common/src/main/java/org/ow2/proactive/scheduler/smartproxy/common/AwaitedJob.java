@@ -37,6 +37,8 @@ import java.util.HashMap;
  */
 public class AwaitedJob implements Serializable {
 
+    private static final long serialVersionUID = -1226526961508430822L;
+
     private String jobId;
 
     // input data
@@ -52,6 +54,8 @@ public class AwaitedJob implements Serializable {
 
     private boolean automaticTransfer;
 
+    private int transferPriority = 0;
+
     // output data
     private String localOutputFolder;
 
@@ -102,6 +106,14 @@ public class AwaitedJob implements Serializable {
         return pullURL;
     }
 
+    public int getTransferPriority() {
+        return transferPriority;
+    }
+
+    public void setTransferPriority(int transferPriority) {
+        this.transferPriority = transferPriority;
+    }
+
     public String getJobId() {
         return jobId;
     }
@@ -26,7 +26,10 @@
 package org.ow2.proactive.scheduler.smartproxy.common;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
 
@@ -38,6 +41,8 @@ import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
  */
 public class AwaitedTask implements Serializable {
 
+    private static final long serialVersionUID = 6743551602255606805L;
+
     private String taskName;
 
     private List<OutputSelector> outputSelectors;
@@ -46,6 +51,12 @@ public class AwaitedTask implements Serializable {
 
     private boolean transferring = false;
 
+    /**
+     * Output files (relative to the task output folder) already transferred, used to resume
+     * an interrupted transfer instead of restarting it. Null for tasks persisted by previous versions
+     */
+    private HashSet<String> transferredFiles;
+
     public AwaitedTask(String taskName, List<OutputSelector> outputSelectors) {
 
         this.taskName = taskName;
@@ -84,4 +95,22 @@ public class AwaitedTask implements Serializable {
         this.transferring = transferring;
     }
 
+    public Set<String> getTransferredFiles() {
+        if (transferredFiles == null) {
+            return Collections.emptySet();
+        }
+        return transferredFiles;
+    }
+
+    public boolean isFileTransferred(String relativePath) {
+        return transferredFiles != null && transferredFiles.contains(relativePath);
+    }
+
+    public void addTransferredFile(String relativePath) {
+        if (transferredFiles == null) {
+            transferredFiles = new HashSet<>();
+        }
+        transferredFiles.add(relativePath);
+    }
+
 }
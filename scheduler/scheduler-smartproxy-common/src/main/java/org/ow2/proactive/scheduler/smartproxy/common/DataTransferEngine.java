@@ -0,0 +1,302 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.smartproxy.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.objectweb.proactive.utils.NamedThreadFactory;
+
+
+/**
+ * Executes the data transfers of the smart proxies.
+ * <p>
+ * Transfers are queued per job. Worker threads always serve the job with the
+ * highest transfer priority, and jobs sharing the same priority are served in
+ * a round robin fashion, one transfer at a time, so that a job with thousands
+ * of output files does not starve the jobs submitted after it: the available
+ * transfer threads (and thus the bandwidth) are shared fairly between them.
+ *
+ * @author The ProActive Team
+ */
+public class DataTransferEngine {
+
+    private static final Logger log = Logger.getLogger(DataTransferEngine.class);
+
+    private final int maximumNumberOfThreads;
+
+    private final ThreadFactory threadFactory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition transferAvailable = lock.newCondition();
+
+    /**
+     * Job queues having pending transfers, ordered by priority then by turn
+     */
+    private final PriorityQueue<JobQueue> readyQueues = new PriorityQueue<>();
+
+    private final Map<String, JobQueue> jobQueues = new HashMap<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private int idleWorkers = 0;
+
+    private long turn = 0;
+
+    private boolean shutdown = false;
+
+    public DataTransferEngine(int maximumNumberOfThreads, String threadName) {
+        if (maximumNumberOfThreads < 1) {
+            throw new IllegalArgumentException("At least one transfer thread is required");
+        }
+        this.maximumNumberOfThreads = maximumNumberOfThreads;
+        this.threadFactory = new NamedThreadFactory(threadName);
+    }
+
+    /**
+     * Queues a transfer on behalf of the given job.
+     *
+     * @param jobId    job on behalf of which the transfer is done
+     * @param priority transfer priority of the job, the highest value being served first
+     * @param transfer the transfer to execute
+     * @return a future completed when the transfer is done
+     */
+    public <V> Future<V> submit(String jobId, int priority, Callable<V> transfer) {
+        FutureTask<V> task = new FutureTask<>(transfer);
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new IllegalStateException("The data transfer engine has been shut down");
+            }
+            JobQueue queue = jobQueues.get(jobId);
+            if (queue == null) {
+                queue = new JobQueue(jobId, priority);
+                jobQueues.put(jobId, queue);
+            }
+            if (!queue.ready) {
+                queue.priority = priority;
+                queue.turn = ++turn;
+                queue.ready = true;
+                readyQueues.add(queue);
+            }
+            queue.pending.add(task);
+            if (idleWorkers > 0) {
+                transferAvailable.signal();
+            } else if (workers.size() < maximumNumberOfThreads) {
+                Thread worker = threadFactory.newThread(new Worker());
+                workers.add(worker);
+                worker.start();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return task;
+    }
+
+    /**
+     * Changes the priority of the transfers of the given job which are not started yet.
+     *
+     * @param jobId    job id
+     * @param priority new transfer priority
+     */
+    public void setPriority(String jobId, int priority) {
+        lock.lock();
+        try {
+            JobQueue queue = jobQueues.get(jobId);
+            if (queue == null || queue.priority == priority) {
+                return;
+            }
+            if (queue.ready) {
+                readyQueues.remove(queue);
+                queue.priority = priority;
+                readyQueues.add(queue);
+            } else {
+                queue.priority = priority;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the transfers of the given job which are not started yet.
+     *
+     * @param jobId job id
+     * @return the number of cancelled transfers
+     */
+    public int cancel(String jobId) {
+        List<FutureTask<?>> cancelled;
+        lock.lock();
+        try {
+            JobQueue queue = jobQueues.remove(jobId);
+            if (queue == null) {
+                return 0;
+            }
+            if (queue.ready) {
+                readyQueues.remove(queue);
+            }
+            cancelled = new ArrayList<>(queue.pending);
+            queue.pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (FutureTask<?> task : cancelled) {
+            task.cancel(false);
+        }
+        return cancelled.size();
+    }
+
+    /**
+     * @return the number of transfers waiting for a transfer thread
+     */
+    public int getPendingTransfersCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (JobQueue queue : jobQueues.values()) {
+                count += queue.pending.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the pending transfers and interrupts the running ones.
+     */
+    public void shutdownNow() {
+        List<FutureTask<?>> cancelled = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (JobQueue queue : jobQueues.values()) {
+                cancelled.addAll(queue.pending);
+            }
+            jobQueues.clear();
+            readyQueues.clear();
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (FutureTask<?> task : cancelled) {
+            task.cancel(false);
+        }
+    }
+
+    private FutureTask<?> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!shutdown && readyQueues.isEmpty()) {
+                idleWorkers++;
+                try {
+                    transferAvailable.await();
+                } finally {
+                    idleWorkers--;
+                }
+            }
+            if (shutdown) {
+                return null;
+            }
+            JobQueue queue = readyQueues.poll();
+            FutureTask<?> task = queue.pending.poll();
+            if (queue.pending.isEmpty()) {
+                queue.ready = false;
+                jobQueues.remove(queue.jobId);
+            } else {
+                // the job goes back at the end of the round for its priority
+                queue.turn = ++turn;
+                readyQueues.add(queue);
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                FutureTask<?> task;
+                while ((task = take()) != null) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                log.debug("Data transfer thread interrupted", e);
+            } finally {
+                lock.lock();
+                try {
+                    workers.remove(Thread.currentThread());
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private static class JobQueue implements Comparable<JobQueue> {
+
+        private final String jobId;
+
+        private final ArrayDeque<FutureTask<?>> pending = new ArrayDeque<>();
+
+        private int priority;
+
+        private long turn;
+
+        private boolean ready;
+
+        JobQueue(String jobId, int priority) {
+            this.jobId = jobId;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(JobQueue other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return Long.compare(turn, other.turn);
+        }
+    }
+
+}
@@ -38,6 +38,12 @@ import jdbm.RecordManagerFactory;
 
 /**
  * Database in charge to persist references to awaited jobs in order to prevent data loss.
+ * <p>
+ * Awaited jobs are kept in memory. Each modification is appended to a journal as a small
+ * record describing only what changed (a task removed, a file transferred...), and the
+ * modifications made concurrently are flushed to the disk together. The journal is
+ * periodically compacted into the JDBM snapshot, where only the jobs modified since the
+ * previous compaction are written again.
  *
  * @author The ProActive Team
  */
@@ -64,6 +70,30 @@ public class JobDatabase {
      */
     public static final String STATUS_RECORD_NAME = "AWAITED_JOBS";
 
+    /**
+     * Suffix of the journal file, next to the status file
+     */
+    public static final String JOURNAL_SUFFIX = ".journal";
+
+    /**
+     * Number of journal records after which the journal is compacted into the status file
+     */
+    protected static final int COMPACTION_THRESHOLD = 10000;
+
+    private static final byte PUT_JOB = 1;
+
+    private static final byte REMOVE_JOB = 2;
+
+    private static final byte REMOVE_TASK = 3;
+
+    private static final byte SET_TASK_ID = 4;
+
+    private static final byte SET_TASK_TRANSFERRING = 5;
+
+    private static final byte SET_FILE_TRANSFERRED = 6;
+
+    private static final byte SET_TRANSFER_PRIORITY = 7;
+
     /**
      * Object handling the AwaitedJobsFile connection
      */
@@ -81,9 +111,21 @@ public class JobDatabase {
      * to this map, as an entry of (JobId, AwaitedJob), where JobId is given as
      * a string. When the output data related to this job has been transferred,
      * the corresponding awaited job will be removed from this map. This map is
-     * persisted in the status file
+     * persisted in the status file and the journal
+     */
+    protected Map<String, AwaitedJob> awaitedJobs;
+
+    /**
+     * Snapshot of the awaited jobs, as of the last compaction
      */
-    protected PrimaryHashMap<String, AwaitedJob> awaitedJobs;
+    private PrimaryHashMap<String, AwaitedJob> storedJobs;
+
+    private JobJournal journal;
+
+    /**
+     * Jobs modified since the last compaction
+     */
+    private final Set<String> modifiedJobs = new HashSet<>();
 
     public void cleanDataBase() {
         try {
@@ -95,7 +137,7 @@ public class JobDatabase {
 
             log.info("Cleaning database");
 
-            // delete all db files
+            // delete all db files, including the journal
             File[] dbJobFiles = new File(TMPDIR).listFiles(new FilenameFilter() {
                 @Override
                 public boolean accept(File dir, String name) {
@@ -118,13 +160,19 @@ public class JobDatabase {
         }
     }
 
+    /**
+     * Ensures all the modifications are written to the disk
+     */
     public void commit() throws IOException {
+        JobJournal currentJournal;
         try {
-            writeLock.lock();
-
-            recMan.commit();
+            readLock.lock();
+            currentJournal = journal;
         } finally {
-            writeLock.unlock();
+            readLock.unlock();
+        }
+        if (currentJournal != null) {
+            currentJournal.commit();
         }
     }
 
@@ -135,9 +183,12 @@ public class JobDatabase {
         try {
             writeLock.lock();
             awaitedJobs.clear();
+            modifiedJobs.clear();
+            storedJobs.clear();
             log.info("Proxy's database has been reseted.");
             try {
                 recMan.commit();
+                journal.truncate();
             } catch (IOException e) {
                 log.error("Exception occured while closing connection to status file:", e);
             }
@@ -150,20 +201,14 @@ public class JobDatabase {
      * Removes the given job of the awaited job list (should rarely be used)
      */
     public void discardJob(String jobID) {
-        try {
-            writeLock.lock();
-            if (awaitedJobs.containsKey(jobID)) {
-                awaitedJobs.remove(jobID);
-                try {
-                    recMan.commit();
-                } catch (IOException e) {
-                    log.error("Exception occured while closing connection to status file:", e);
-                }
-            } else {
-                log.warn("Job " + jobID + " is not handled by the proxy.");
+        if (removeAwaitedJob(jobID) != null) {
+            try {
+                commit();
+            } catch (IOException e) {
+                log.error("Exception occured while closing connection to status file:", e);
             }
-        } finally {
-            writeLock.unlock();
+        } else {
+            log.warn("Job " + jobID + " is not handled by the proxy.");
         }
     }
 
@@ -176,6 +221,10 @@ public class JobDatabase {
         }
     }
 
+    /**
+     * Returns the given awaited job. The returned job must not be modified directly, the
+     * modifications must be done through this database in order to be persisted.
+     */
     public AwaitedJob getAwaitedJob(String id) {
         try {
             readLock.lock();
@@ -186,7 +235,7 @@ public class JobDatabase {
     }
 
     /**
-     * load the awaited jobs from the status file
+     * load the awaited jobs from the status file and the journal
      * if a InvalidClassException occur, we clean the database
      */
     public void loadJobs() {
@@ -201,11 +250,22 @@ public class JobDatabase {
             closeRecordManager();
             try {
                 recMan = RecordManagerFactory.createRecordManager(statusFile.getCanonicalPath());
-                awaitedJobs = recMan.hashMap(STATUS_RECORD_NAME);
-                // This empty loop triggers InvalidClassException in case of serial version uid problems
-                for (Map.Entry<String, AwaitedJob> job : awaitedJobs.entrySet())
-                    ;
-                recMan.commit();
+                storedJobs = recMan.hashMap(STATUS_RECORD_NAME);
+                awaitedJobs = new LinkedHashMap<>();
+                modifiedJobs.clear();
+                // This loop triggers InvalidClassException in case of serial version uid problems
+                for (Map.Entry<String, AwaitedJob> job : storedJobs.entrySet()) {
+                    awaitedJobs.put(job.getKey(), job.getValue());
+                }
+                List<byte[]> records = new ArrayList<>();
+                journal = new JobJournal(getJournalFile(), records);
+                for (byte[] record : records) {
+                    apply(record);
+                }
+                if (!records.isEmpty()) {
+                    log.info("Replayed " + records.size() + " journal records of job database");
+                }
+                compact();
                 if (!firstAttempt) {
                     log.info("Loading of job database successful after clean.");
                 }
@@ -228,7 +288,19 @@ public class JobDatabase {
         }
     }
 
+    private static File getJournalFile() {
+        return new File(statusFile.getPath() + JOURNAL_SUFFIX);
+    }
+
     private void closeRecordManager() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e1) {
+                log.trace("Error when closing journal", e1);
+            }
+            journal = null;
+        }
         if (recMan != null) {
             try {
                 recMan.close();
@@ -239,33 +311,64 @@ public class JobDatabase {
     }
 
     public void putAwaitedJob(String id, AwaitedJob awaitedJob) {
+        if (!awaitedJob.getJobId().equals(id)) {
+            throw new IllegalArgumentException("given id " + id + " is different from job id : " +
+                                               awaitedJob.getJobId());
+        }
+
+        long sequence;
         try {
             writeLock.lock();
-            if (!awaitedJob.getJobId().equals(id)) {
-                throw new IllegalArgumentException("given id " + id + " is different from job id : " +
-                                                   awaitedJob.getJobId());
-            }
-
             this.awaitedJobs.put(id, awaitedJob);
+            sequence = appendRecord(PUT_JOB, id, awaitedJob);
+        } finally {
+            writeLock.unlock();
+        }
+        commit(sequence, "adding job on awaited jobs list " + id);
+    }
 
-            try {
-                this.recMan.commit();
-            } catch (IOException e) {
-                log.error("Could not save status file after adding job on awaited jobs list " + awaitedJob.getJobId(),
-                          e);
+    public AwaitedJob removeAwaitedJob(String id) {
+        long sequence;
+        AwaitedJob removed;
+        try {
+            writeLock.lock();
+            removed = this.awaitedJobs.remove(id);
+            if (removed == null) {
+                return null;
             }
+            sequence = appendRecord(REMOVE_JOB, id);
         } finally {
             writeLock.unlock();
         }
+        commit(sequence, "removing job " + id);
+        return removed;
     }
 
-    public AwaitedJob removeAwaitedJob(String id) {
+    /**
+     * Removes the given task from its awaited job
+     *
+     * @param id       jobID
+     * @param taskName task name
+     * @return true if the job has no more awaited task
+     */
+    public boolean removeAwaitedTask(String id, String taskName) {
+        long sequence;
+        boolean noMoreTasks;
         try {
             writeLock.lock();
-            return this.awaitedJobs.remove(id);
+            AwaitedJob aj = awaitedJobs.get(id);
+            if (aj == null) {
+                log.warn("Job " + id + " not in the awaited list");
+                return false;
+            }
+            aj.removeAwaitedTask(taskName);
+            noMoreTasks = aj.getAwaitedTasks().isEmpty();
+            sequence = appendRecord(REMOVE_TASK, id, taskName);
         } finally {
             writeLock.unlock();
         }
+        commit(sequence, "removing task Task " + taskName + " from Job" + id);
+        return noMoreTasks;
     }
 
     /**
@@ -294,6 +397,29 @@ public class JobDatabase {
         }
     }
 
+    /**
+     * Sets the id of the given task, once it is known by the scheduler
+     *
+     * @param id       jobID
+     * @param taskName task name
+     * @param taskId   task id
+     */
+    public void setTaskId(String id, String taskName, String taskId) {
+        long sequence;
+        try {
+            writeLock.lock();
+            AwaitedTask at = getAwaitedTask(id, taskName);
+            if (at == null || taskId.equals(at.getTaskId())) {
+                return;
+            }
+            at.setTaskId(taskId);
+            sequence = appendRecord(SET_TASK_ID, id, taskName, taskId);
+        } finally {
+            writeLock.unlock();
+        }
+        commit(sequence, "setting id of task " + taskName + " from Job" + id);
+    }
+
     /**
      * Sets the given task to transferring status. This is to avoid duplicate transfers in case of duplicate events
      *
@@ -302,33 +428,96 @@ public class JobDatabase {
      * @param transferring
      */
     public void setTaskTransferring(String id, String taskName, boolean transferring) {
+        long sequence;
         try {
             writeLock.lock();
-            AwaitedJob aj = awaitedJobs.get(id);
-            if (aj == null) {
-                log.warn("Job " + id + " not in the awaited list");
+            AwaitedTask at = getAwaitedTask(id, taskName);
+            if (at == null) {
                 return;
             }
+            at.setTransferring(transferring);
+            sequence = appendRecord(SET_TASK_TRANSFERRING, id, taskName, String.valueOf(transferring));
+        } finally {
+            writeLock.unlock();
+        }
+        commit(sequence, "setting transferring mode to task Task " + taskName + " from Job" + id);
+    }
 
-            AwaitedTask at = aj.getAwaitedTask(taskName);
-
+    /**
+     * Records that an output file of the given task has been transferred, so that an interrupted
+     * transfer is resumed from where it stopped
+     *
+     * @param id           jobID
+     * @param taskName     task name
+     * @param relativePath path of the transferred file, relative to the task output folder
+     */
+    public void setFileTransferred(String id, String taskName, String relativePath) {
+        long sequence;
+        try {
+            writeLock.lock();
+            AwaitedJob aj = awaitedJobs.get(id);
+            AwaitedTask at = aj == null ? null : aj.getAwaitedTask(taskName);
             if (at == null) {
-                log.warn("Task " + taskName + " from Job " + id + " not in the awaited list");
                 return;
             }
+            at.addTransferredFile(relativePath);
+            sequence = appendRecord(SET_FILE_TRANSFERRED, id, taskName, relativePath);
+        } finally {
+            writeLock.unlock();
+        }
+        commit(sequence, "transferring file " + relativePath + " of task " + taskName + " from Job" + id);
+    }
 
-            at.setTransferring(transferring);
-            awaitedJobs.put(id, aj);
+    /**
+     * Sets the transfer priority of the given job
+     *
+     * @param id       jobID
+     * @param priority transfer priority
+     * @return false if the job is not awaited
+     */
+    public boolean setTransferPriority(String id, int priority) {
+        long sequence;
+        try {
+            writeLock.lock();
+            AwaitedJob aj = awaitedJobs.get(id);
+            if (aj == null) {
+                log.warn("Job " + id + " not in the awaited list");
+                return false;
+            }
+            aj.setTransferPriority(priority);
+            sequence = appendRecord(SET_TRANSFER_PRIORITY, id, String.valueOf(priority));
+        } finally {
+            writeLock.unlock();
+        }
+        commit(sequence, "setting transfer priority of Job" + id);
+        return true;
+    }
 
-            try {
-                this.recMan.commit();
-            } catch (IOException e) {
-                log.error("Could not save status file after setting transferring mode to task Task " + taskName +
-                          " from Job" + id, e);
+    /**
+     * Clears the transferring status of all tasks. Transfers recorded as running in the status file
+     * were interrupted by the termination of the previous session, this makes them eligible again.
+     * The files already transferred are kept, so the transfers are resumed.
+     */
+    public void resetTransferringTasks() {
+        long sequence = 0;
+        try {
+            writeLock.lock();
+            for (AwaitedJob aj : awaitedJobs.values()) {
+                for (AwaitedTask at : aj.getAwaitedTasks().values()) {
+                    if (at.isTransferring()) {
+                        log.info("Resuming interrupted transfer of task " + at.getTaskName() + " from Job " +
+                                 aj.getJobId());
+                        at.setTransferring(false);
+                        sequence = appendRecord(SET_TASK_TRANSFERRING, aj.getJobId(), at.getTaskName(), "false");
+                    }
+                }
             }
         } finally {
             writeLock.unlock();
         }
+        if (sequence > 0) {
+            commit(sequence, "resetting transferring tasks");
+        }
     }
 
     public void close() {
@@ -336,15 +525,145 @@ public class JobDatabase {
             writeLock.lock();
             if (recMan != null) {
                 try {
-                    recMan.close();
-                    recMan = null;
+                    compact();
                 } catch (IOException e) {
-
+                    log.error("Could not compact the journal of the status file", e);
                 }
+                closeRecordManager();
+                recMan = null;
             }
         } finally {
             writeLock.unlock();
         }
     }
 
+    private AwaitedTask getAwaitedTask(String id, String taskName) {
+        AwaitedJob aj = awaitedJobs.get(id);
+        if (aj == null) {
+            log.warn("Job " + id + " not in the awaited list");
+            return null;
+        }
+        AwaitedTask at = aj.getAwaitedTask(taskName);
+        if (at == null) {
+            log.warn("Task " + taskName + " from Job " + id + " not in the awaited list");
+        }
+        return at;
+    }
+
+    /**
+     * Appends a record to the journal, must be called with the write lock held.
+     * The journal is compacted first when it is too large.
+     *
+     * @return the sequence number of the record
+     */
+    private long appendRecord(byte type, String id, Object... arguments) {
+        modifiedJobs.add(id);
+        try {
+            if (journal.getRecordsCount() >= COMPACTION_THRESHOLD) {
+                compact();
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(id);
+            for (Object argument : arguments) {
+                if (argument instanceof AwaitedJob) {
+                    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+                    try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+                        oos.writeObject(argument);
+                    }
+                    out.writeInt(serialized.size());
+                    serialized.writeTo(out);
+                } else {
+                    out.writeUTF((String) argument);
+                }
+            }
+            out.flush();
+            return journal.append(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to the journal of the status file", e);
+        }
+    }
+
+    private void commit(long sequence, String operation) {
+        try {
+            journal.commit(sequence);
+        } catch (IOException e) {
+            log.error("Could not save status file after " + operation, e);
+        }
+    }
+
+    /**
+     * Applies a journal record to the awaited jobs, must be called with the write lock held.
+     * Applying a record more than once has no additional effect.
+     */
+    private void apply(byte[] record) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        String id = in.readUTF();
+        modifiedJobs.add(id);
+        if (type == PUT_JOB) {
+            byte[] serialized = new byte[in.readInt()];
+            in.readFully(serialized);
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+                awaitedJobs.put(id, (AwaitedJob) ois.readObject());
+            }
+            return;
+        }
+        if (type == REMOVE_JOB) {
+            awaitedJobs.remove(id);
+            return;
+        }
+        AwaitedJob aj = awaitedJobs.get(id);
+        if (aj == null) {
+            return;
+        }
+        if (type == SET_TRANSFER_PRIORITY) {
+            aj.setTransferPriority(Integer.parseInt(in.readUTF()));
+            return;
+        }
+        String taskName = in.readUTF();
+        if (type == REMOVE_TASK) {
+            aj.removeAwaitedTask(taskName);
+            return;
+        }
+        AwaitedTask at = aj.getAwaitedTask(taskName);
+        if (at == null) {
+            return;
+        }
+        switch (type) {
+            case SET_TASK_ID:
+                at.setTaskId(in.readUTF());
+                break;
+            case SET_TASK_TRANSFERRING:
+                at.setTransferring(Boolean.parseBoolean(in.readUTF()));
+                break;
+            case SET_FILE_TRANSFERRED:
+                at.addTransferredFile(in.readUTF());
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * Writes the jobs modified since the last compaction in the status file and empties the
+     * journal, must be called with the write lock held.
+     */
+    private void compact() throws IOException {
+        if (!modifiedJobs.isEmpty()) {
+            for (String id : modifiedJobs) {
+                AwaitedJob aj = awaitedJobs.get(id);
+                if (aj == null) {
+                    storedJobs.remove(id);
+                } else {
+                    storedJobs.put(id, aj);
+                }
+            }
+            recMan.commit();
+            modifiedJobs.clear();
+        }
+        journal.truncate();
+    }
+
 }
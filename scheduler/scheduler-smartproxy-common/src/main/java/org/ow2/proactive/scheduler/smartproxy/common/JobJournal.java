@@ -0,0 +1,234 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.smartproxy.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Append-only journal of the modifications of the awaited jobs.
+ * <p>
+ * Each record is framed by its length and its CRC32, a record partially written when the
+ * process was killed is detected and dropped when the journal is read. Records are made
+ * durable by {@link #commit(long)}: concurrent committers wait for a single flush to the disk
+ * (group commit) instead of syncing the file each.
+ *
+ * @author The ProActive Team
+ */
+class JobJournal implements Closeable {
+
+    private static final Logger log = Logger.getLogger(JobJournal.class);
+
+    private final File file;
+
+    private final FileOutputStream fileOutputStream;
+
+    private final FileChannel channel;
+
+    private final DataOutputStream out;
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Sequence number of the last appended record
+     */
+    private long appended = 0;
+
+    /**
+     * Sequence number of the last record flushed to the disk
+     */
+    private long committed = 0;
+
+    private boolean committing = false;
+
+    private int recordsCount = 0;
+
+    /**
+     * Opens the journal for appending, after having read the records it contains.
+     *
+     * @param file    journal file, created if it does not exist
+     * @param records list filled with the valid records of the journal, in order
+     */
+    JobJournal(File file, List<byte[]> records) throws IOException {
+        this.file = file;
+        long validLength = read(file, records);
+        if (file.exists() && file.length() > validLength) {
+            log.warn("Dropping the incomplete end of the journal " + file);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        this.recordsCount = records.size();
+        this.fileOutputStream = new FileOutputStream(file, true);
+        this.channel = fileOutputStream.getChannel();
+        this.out = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+    }
+
+    private static long read(File file, List<byte[]> records) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        long validLength = 0;
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length = in.readInt();
+                int expectedCrc = in.readInt();
+                if (length < 0 || length > file.length()) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                checksum.reset();
+                checksum.update(record, 0, length);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    break;
+                }
+                records.add(record);
+                validLength += 8 + length;
+            }
+        } catch (EOFException e) {
+            // end of the journal, possibly in the middle of a record
+        }
+        return validLength;
+    }
+
+    /**
+     * Appends a record to the journal, the record is not durable until it is committed.
+     *
+     * @return the sequence number of the record
+     */
+    synchronized long append(byte[] record) throws IOException {
+        crc.reset();
+        crc.update(record, 0, record.length);
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.write(record);
+        recordsCount++;
+        return ++appended;
+    }
+
+    /**
+     * Ensures the records appended up to the given sequence number are written to the disk.
+     */
+    void commit(long sequence) throws IOException {
+        long target;
+        synchronized (this) {
+            while (committing && committed < sequence) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while committing the journal " + file);
+                }
+            }
+            if (committed >= sequence) {
+                return;
+            }
+            committing = true;
+            target = appended;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                committing = false;
+                notifyAll();
+                throw e;
+            }
+        }
+        boolean success = false;
+        try {
+            channel.force(false);
+            success = true;
+        } finally {
+            synchronized (this) {
+                committing = false;
+                if (success) {
+                    committed = target;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Ensures all the appended records are written to the disk.
+     */
+    void commit() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        commit(sequence);
+    }
+
+    /**
+     * @return the number of records in the journal
+     */
+    synchronized int getRecordsCount() {
+        return recordsCount;
+    }
+
+    /**
+     * Empties the journal, once its records have been applied to the snapshot.
+     */
+    synchronized void truncate() throws IOException {
+        while (committing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while truncating the journal " + file);
+            }
+        }
+        out.flush();
+        channel.truncate(0);
+        channel.force(true);
+        committed = appended;
+        recordsCount = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -105,8 +105,24 @@ public abstract class JobTracker {
         jobDatabase.putAwaitedJob(id, aj);
     }
 
+    public void setTaskId(String id, String taskName, String taskId) {
+        jobDatabase.setTaskId(id, taskName, taskId);
+    }
+
     public void setTaskTransferring(String id, String taskName, boolean transferring) {
         jobDatabase.setTaskTransferring(id, taskName, transferring);
     }
 
+    public void setFileTransferred(String id, String taskName, String relativePath) {
+        jobDatabase.setFileTransferred(id, taskName, relativePath);
+    }
+
+    public boolean setTransferPriority(String id, int priority) {
+        return jobDatabase.setTransferPriority(id, priority);
+    }
+
+    public void resetTransferringTasks() {
+        jobDatabase.resetTransferringTasks();
+    }
+
 }
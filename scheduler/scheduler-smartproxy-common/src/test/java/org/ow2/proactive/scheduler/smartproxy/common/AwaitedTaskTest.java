@@ -0,0 +1,86 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.smartproxy.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
+
+
+public class AwaitedTaskTest {
+
+    @Test
+    public void serial_version_uids_are_the_ones_of_the_records_written_by_previous_versions() {
+        assertEquals(6743551602255606805L, ObjectStreamClass.lookup(AwaitedTask.class).getSerialVersionUID());
+        assertEquals(-1226526961508430822L, ObjectStreamClass.lookup(AwaitedJob.class).getSerialVersionUID());
+    }
+
+    @Test
+    public void task_persisted_without_transferred_files() throws Exception {
+        // like the records written by previous versions, the task has no set of transferred files
+        AwaitedTask task = new AwaitedTask("task", Collections.<OutputSelector> emptyList());
+
+        AwaitedTask restored = serializeAndDeserialize(task);
+
+        assertTrue(restored.getTransferredFiles().isEmpty());
+        assertFalse(restored.isFileTransferred("a.txt"));
+        restored.addTransferredFile("a.txt");
+        assertTrue(restored.isFileTransferred("a.txt"));
+        assertEquals(Collections.singleton("a.txt"), restored.getTransferredFiles());
+    }
+
+    @Test
+    public void transferred_files_are_persisted() throws Exception {
+        AwaitedTask task = new AwaitedTask("task", Collections.<OutputSelector> emptyList());
+        task.addTransferredFile("dir/a.txt");
+
+        AwaitedTask restored = serializeAndDeserialize(task);
+
+        assertTrue(restored.isFileTransferred("dir/a.txt"));
+        assertFalse(restored.isFileTransferred("dir/b.txt"));
+    }
+
+    private static AwaitedTask serializeAndDeserialize(AwaitedTask task) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(task);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (AwaitedTask) in.readObject();
+        }
+    }
+
+}
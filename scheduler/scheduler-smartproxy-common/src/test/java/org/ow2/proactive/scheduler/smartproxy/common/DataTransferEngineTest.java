@@ -0,0 +1,175 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.smartproxy.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class DataTransferEngineTest {
+
+    private DataTransferEngine engine;
+
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    private final CountDownLatch blockerStarted = new CountDownLatch(1);
+
+    private final CountDownLatch blockerReleased = new CountDownLatch(1);
+
+    private Future<Void> blocker;
+
+    @Before
+    public void setUp() throws Exception {
+        engine = new DataTransferEngine(1, "DataTransferEngineTest");
+        // occupies the single transfer thread, so that the next transfers are queued
+        blocker = engine.submit("blocker", 0, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                blockerStarted.countDown();
+                blockerReleased.await();
+                return null;
+            }
+        });
+        assertTrue(blockerStarted.await(10, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        blockerReleased.countDown();
+        engine.shutdownNow();
+    }
+
+    @Test
+    public void jobs_with_the_highest_priority_are_served_first() throws Exception {
+        List<Future<Void>> transfers = new ArrayList<>();
+        transfers.add(engine.submit("job1", 0, record("job1-a")));
+        transfers.add(engine.submit("job2", 5, record("job2-a")));
+        transfers.add(engine.submit("job3", 1, record("job3-a")));
+
+        runQueuedTransfers(transfers);
+
+        assertEquals(Arrays.asList("job2-a", "job3-a", "job1-a"), executed);
+    }
+
+    @Test
+    public void jobs_sharing_a_priority_are_served_in_turn() throws Exception {
+        List<Future<Void>> transfers = new ArrayList<>();
+        transfers.add(engine.submit("job1", 0, record("job1-a")));
+        transfers.add(engine.submit("job1", 0, record("job1-b")));
+        transfers.add(engine.submit("job1", 0, record("job1-c")));
+        transfers.add(engine.submit("job2", 0, record("job2-a")));
+        transfers.add(engine.submit("job2", 0, record("job2-b")));
+
+        runQueuedTransfers(transfers);
+
+        assertEquals(Arrays.asList("job1-a", "job2-a", "job1-b", "job2-b", "job1-c"), executed);
+    }
+
+    @Test
+    public void priority_change_applies_to_the_pending_transfers() throws Exception {
+        List<Future<Void>> transfers = new ArrayList<>();
+        transfers.add(engine.submit("job1", 0, record("job1-a")));
+        transfers.add(engine.submit("job2", 0, record("job2-a")));
+        transfers.add(engine.submit("job2", 0, record("job2-b")));
+
+        engine.setPriority("job2", 10);
+        runQueuedTransfers(transfers);
+
+        assertEquals(Arrays.asList("job2-a", "job2-b", "job1-a"), executed);
+    }
+
+    @Test
+    public void cancel_removes_the_pending_transfers_of_the_job() throws Exception {
+        Future<Void> cancelled1 = engine.submit("job1", 0, record("job1-a"));
+        Future<Void> cancelled2 = engine.submit("job1", 0, record("job1-b"));
+        Future<Void> kept = engine.submit("job2", 0, record("job2-a"));
+        assertEquals(3, engine.getPendingTransfersCount());
+
+        assertEquals(2, engine.cancel("job1"));
+        assertEquals(1, engine.getPendingTransfersCount());
+        assertEquals(0, engine.cancel("job1"));
+
+        runQueuedTransfers(Collections.singletonList(kept));
+
+        assertTrue(cancelled1.isCancelled());
+        assertTrue(cancelled2.isCancelled());
+        assertEquals(Collections.singletonList("job2-a"), executed);
+    }
+
+    @Test
+    public void shutdown_cancels_the_pending_transfers() throws Exception {
+        Future<Void> pending = engine.submit("job1", 0, record("job1-a"));
+
+        engine.shutdownNow();
+
+        assertTrue(pending.isCancelled());
+        assertEquals(0, engine.getPendingTransfersCount());
+        try {
+            engine.submit("job1", 0, record("job1-b"));
+            throw new AssertionError("Transfers must be rejected once the engine is shut down");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void at_least_one_thread_is_required() {
+        new DataTransferEngine(0, "DataTransferEngineTest");
+    }
+
+    private void runQueuedTransfers(List<Future<Void>> transfers) throws Exception {
+        blockerReleased.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+        for (Future<Void> transfer : transfers) {
+            transfer.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private Callable<Void> record(final String name) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                executed.add(name);
+                return null;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.smartproxy.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ow2.proactive.scheduler.common.task.dataspaces.OutputSelector;
+
+
+/**
+ * Recovery of the awaited jobs from the status file and its journal. A crash is simulated by
+ * opening the database again without closing the previous instance.
+ */
+public class JobDatabaseTest {
+
+    private String sessionName;
+
+    private final List<JobDatabase> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        sessionName = "JobDatabaseTest" + Math.abs(new Random().nextInt());
+    }
+
+    @After
+    public void tearDown() {
+        for (JobDatabase database : databases) {
+            database.close();
+        }
+        JobDatabase cleaner = new JobDatabase();
+        cleaner.setSessionName(sessionName);
+        cleaner.cleanDataBase();
+        cleaner.setSessionName(null);
+    }
+
+    @Test
+    public void modifications_are_replayed_after_a_crash() throws Exception {
+        JobDatabase database = open();
+        modify(database);
+        String expected = describe(database);
+
+        JobDatabase recovered = open();
+
+        assertEquals(expected, describe(recovered));
+    }
+
+    @Test
+    public void truncated_last_record_is_dropped() throws Exception {
+        JobDatabase database = open();
+        database.putAwaitedJob("1", job("1", "task"));
+        database.putAwaitedJob("2", job("2", "task"));
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        JobDatabase recovered = open();
+
+        assertEquals(Collections.singleton("1"), recovered.getAwaitedJobsIds());
+        assertEquals(Collections.singleton("task"), recovered.getAwaitedJob("1").getAwaitedTasks().keySet());
+    }
+
+    @Test
+    public void checksum_mismatch_drops_the_record_and_the_following_ones() throws Exception {
+        JobDatabase database = open();
+        database.putAwaitedJob("1", job("1", "task"));
+        database.putAwaitedJob("2", job("2", "task"));
+        database.setTransferPriority("1", 3);
+        List<byte[]> records = new ArrayList<>();
+        new JobJournal(journalFile(), records).close();
+        assertEquals(3, records.size());
+        // corrupts the last byte of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(journalFile(), "rw")) {
+            long position = 8 + records.get(0).length + 8 + records.get(1).length - 1;
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xFF);
+        }
+
+        JobDatabase recovered = open();
+
+        assertEquals(Collections.singleton("1"), recovered.getAwaitedJobsIds());
+        assertEquals(0, recovered.getAwaitedJob("1").getTransferPriority());
+    }
+
+    @Test
+    public void compaction_then_replay_gives_the_same_state() throws Exception {
+        JobDatabase database = open();
+        modify(database);
+        String expected = describe(database);
+        databases.remove(database);
+        database.close();
+        assertEquals(0, journalFile().length());
+
+        JobDatabase reopened = open();
+        assertEquals(expected, describe(reopened));
+
+        // modifications journaled on top of the compacted status file
+        reopened.setTaskTransferring("1", "task1", false);
+        reopened.setFileTransferred("1", "task1", "dir/file2");
+        reopened.removeAwaitedJob("2");
+        reopened.putAwaitedJob("4", job("4", "task"));
+        expected = describe(reopened);
+
+        JobDatabase recovered = open();
+
+        assertEquals(expected, describe(recovered));
+    }
+
+    @Test
+    public void records_already_compacted_are_applied_again_without_effect() throws Exception {
+        JobDatabase database = open();
+        modify(database);
+        database.putAwaitedJob("3", job("3", "task"));
+        database.removeAwaitedJob("3");
+        database.removeAwaitedTask("1", "task1");
+        database.setFileTransferred("1", "task1", "ignored");
+        String expected = describe(database);
+        byte[] journal = Files.readAllBytes(journalFile().toPath());
+        databases.remove(database);
+        database.close();
+        // the process was killed after the compaction but before the journal was emptied
+        Files.write(journalFile().toPath(), journal);
+
+        JobDatabase recovered = open();
+
+        assertEquals(expected, describe(recovered));
+        assertNull(recovered.getAwaitedJob("3"));
+    }
+
+    @Test
+    public void concurrent_modifications_are_committed() throws Exception {
+        final JobDatabase database = open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String id = String.valueOf(i);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        database.putAwaitedJob(id, job(id, "task"));
+                        database.setTaskId(id, "task", id + "0000");
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        String expected = describe(database);
+
+        JobDatabase recovered = open();
+
+        assertEquals(100, recovered.getAwaitedJobsIds().size());
+        assertEquals(expected, describe(recovered));
+    }
+
+    @Test
+    public void modifications_are_flushed_on_close() throws Exception {
+        JobDatabase database = open();
+        modify(database);
+        String expected = describe(database);
+        databases.remove(database);
+        database.close();
+
+        assertEquals(expected, describe(open()));
+    }
+
+    @Test
+    public void transfers_interrupted_by_a_crash_are_resumed() throws Exception {
+        JobDatabase database = open();
+        modify(database);
+
+        JobDatabase recovered = open();
+        recovered.resetTransferringTasks();
+
+        AwaitedTask task = recovered.getAwaitedJob("1").getAwaitedTask("task1");
+        assertFalse(task.isTransferring());
+        assertEquals(new TreeSet<>(Arrays.asList("dir/file1")), new TreeSet<>(task.getTransferredFiles()));
+    }
+
+    private void modify(JobDatabase database) {
+        database.putAwaitedJob("1", job("1", "task1", "task2", "task3"));
+        database.putAwaitedJob("2", job("2", "task1"));
+        database.setTaskId("1", "task1", "10000");
+        database.setTaskTransferring("1", "task1", true);
+        database.setFileTransferred("1", "task1", "dir/file1");
+        database.removeAwaitedTask("1", "task2");
+        database.setTransferPriority("2", 5);
+    }
+
+    private JobDatabase open() {
+        JobDatabase database = new JobDatabase();
+        database.setSessionName(sessionName);
+        database.loadJobs();
+        databases.add(database);
+        return database;
+    }
+
+    private static File journalFile() {
+        return new File(JobDatabase.statusFile.getPath() + JobDatabase.JOURNAL_SUFFIX);
+    }
+
+    private static AwaitedJob job(String id, String... taskNames) {
+        HashMap<String, AwaitedTask> tasks = new HashMap<>();
+        for (String taskName : taskNames) {
+            tasks.put(taskName, new AwaitedTask(taskName, Collections.<OutputSelector> emptyList()));
+        }
+        return new AwaitedJob(id,
+                              "/input",
+                              "file:/input",
+                              "file:/push",
+                              "/output",
+                              "file:/output",
+                              "file:/pull",
+                              false,
+                              true,
+                              tasks);
+    }
+
+    private static String describe(JobDatabase database) {
+        TreeMap<String, String> jobs = new TreeMap<>();
+        for (String id : database.getAwaitedJobsIds()) {
+            AwaitedJob job = database.getAwaitedJob(id);
+            TreeMap<String, String> tasks = new TreeMap<>();
+            for (AwaitedTask task : job.getAwaitedTasks().values()) {
+                tasks.put(task.getTaskName(),
+                          task.getTaskId() + " " + task.isTransferring() + " " +
+                                              new TreeSet<>(task.getTransferredFiles()));
+            }
+            jobs.put(id, job.getTransferPriority() + " " + tasks);
+        }
+        return jobs.toString();
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * ProActive Parallel Suite(TM):
+ * The Open Source library for parallel and distributed
+ * Workflows & Scheduling, Orchestration, Cloud Automation
+ * and Big Data Analysis on Enterprise Grids & Clouds.
+ *
+ * Copyright (c) 2007 - 2017 ActiveEon
+ * Contact: contact@activeeon.com
+ *
+ * This library is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License
+ * as published by the Free Software Foundation: version 3 of
+ * the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If needed, contact us to obtain a release under GPL Version 2 or 3
+ * or a different license than the AGPL.
+ */
+package org.ow2.proactive.scheduler.smartproxy.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+public class JobJournalTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(tmpFolder.getRoot(), "journal");
+    }
+
+    @Test
+    public void records_are_read_in_order() throws Exception {
+        write("first", "second", "third");
+
+        assertRecords(read(), "first", "second", "third");
+    }
+
+    @Test
+    public void truncated_last_record_is_dropped() throws Exception {
+        write("first", "second", "third");
+        long lengthOfTwoRecords = recordLength("first") + recordLength("second");
+        // the process was killed while the last record was written
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 3);
+        }
+
+        assertRecords(read(), "first", "second");
+        assertEquals(lengthOfTwoRecords, file.length());
+
+        // the records appended afterwards follow the valid records
+        List<byte[]> records = new ArrayList<>();
+        try (JobJournal journal = new JobJournal(file, records)) {
+            journal.commit(journal.append(bytes("fourth")));
+        }
+        assertRecords(read(), "first", "second", "fourth");
+    }
+
+    @Test
+    public void record_with_a_length_but_no_checksum_is_dropped() throws Exception {
+        write("first", "second");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(file.length());
+            raf.writeInt(10);
+        }
+
+        assertRecords(read(), "first", "second");
+    }
+
+    @Test
+    public void checksum_mismatch_drops_the_record_and_the_following_ones() throws Exception {
+        write("first", "second", "third");
+        // corrupts the content of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long position = recordLength("first") + 8;
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xFF);
+        }
+
+        assertRecords(read(), "first");
+        assertEquals(recordLength("first"), file.length());
+    }
+
+    @Test
+    public void appended_records_are_flushed_on_close() throws Exception {
+        List<byte[]> records = new ArrayList<>();
+        try (JobJournal journal = new JobJournal(file, records)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            // no commit
+        }
+
+        assertRecords(read(), "first", "second");
+    }
+
+    @Test
+    public void concurrent_commits_are_all_durable() throws Exception {
+        final int threads = 8;
+        final int recordsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (final JobJournal journal = new JobJournal(file, new ArrayList<byte[]>())) {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        for (int i = 0; i < recordsPerThread; i++) {
+                            journal.commit(journal.append(bytes(thread + "-" + i)));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            assertEquals(threads * recordsPerThread, journal.getRecordsCount());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * recordsPerThread, read().size());
+    }
+
+    @Test
+    public void truncate_empties_the_journal() throws Exception {
+        List<byte[]> records = new ArrayList<>();
+        try (JobJournal journal = new JobJournal(file, records)) {
+            journal.commit(journal.append(bytes("first")));
+            journal.truncate();
+            assertEquals(0, journal.getRecordsCount());
+            journal.commit(journal.append(bytes("second")));
+        }
+
+        assertRecords(read(), "second");
+    }
+
+    private void write(String... contents) throws IOException {
+        try (JobJournal journal = new JobJournal(file, new ArrayList<byte[]>())) {
+            for (String content : contents) {
+                journal.append(bytes(content));
+            }
+            journal.commit();
+        }
+    }
+
+    private List<byte[]> read() throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        new JobJournal(file, records).close();
+        return records;
+    }
+
+    private static void assertRecords(List<byte[]> records, String... expected) {
+        assertEquals(expected.length, records.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(bytes(expected[i]), records.get(i));
+        }
+    }
+
+    private static long recordLength(String content) {
+        // length and checksum, then the content
+        return 8 + bytes(content).length;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -178,20 +178,8 @@ public class JobTrackerImpl extends JobTracker {
 
         }
 
-        awaitedJob.removeAwaitedTask(taskName);
-
-        if (awaitedJob.getAwaitedTasks().isEmpty()) {
+        if (jobDatabase.removeAwaitedTask(id, taskName)) {
             removeAwaitedJob(id);
-            return;
-        } else {
-            // this is done to ensure persistence of the operation
-            jobDatabase.putAwaitedJob(id, awaitedJob);
-        }
-
-        try {
-            jobDatabase.commit();
-        } catch (IOException e) {
-            logger.error("Could not save status file after removing task Task " + taskName + " from Job" + id, e);
         }
     }
 